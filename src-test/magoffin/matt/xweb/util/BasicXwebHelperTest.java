@@ -0,0 +1,156 @@
+/* ===================================================================
+ * BasicXwebHelperTest.java
+ * 
+ * Created Oct 18, 2026 6:55:36 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Test;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Unit test for the {@link BasicXwebHelper} class.
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class BasicXwebHelperTest {
+
+	@Test
+	public void savedMessageLookupCreatesNoSession() {
+		CountingFlashStore store = new CountingFlashStore();
+		BasicXwebHelper helper = new BasicXwebHelper();
+		helper.setFlashStore(store);
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/test.html");
+		assertNull(helper.getSavedMessage(req));
+		assertNull(helper.getSavedMessage(req));
+		helper.clearSavedMessage(req);
+		assertNull(helper.getSavedMessage(req));
+		assertNull(helper.getAppContextSupport(req));
+		assertNull(req.getSession(false));
+		assertEquals(1, store.gets);
+		assertEquals(0, store.removes);
+	}
+
+	@Test
+	public void savedMessageInSession() {
+		BasicXwebHelper helper = new BasicXwebHelper();
+		MockHttpServletRequest req = new MockHttpServletRequest("POST", "/save.do");
+		helper.saveMessage(req, new MockHttpServletResponse(),
+				new DefaultMessageSourceResolvable("saved"));
+		assertNotNull(req.getSession(false));
+
+		MockHttpServletRequest next = new MockHttpServletRequest("GET", "/test.html");
+		next.setSession(req.getSession());
+		assertEquals("saved", helper.getSavedMessage(next).getCodes()[0]);
+		helper.clearSavedMessage(next);
+		assertNull(helper.getSavedMessage(next));
+		assertNull(helper.getSavedMessage(new MockHttpServletRequest("GET", "/test.html")));
+	}
+
+	@Test
+	public void savedMessageInMemoryStore() {
+		MemoryFlashStore store = new MemoryFlashStore();
+		BasicXwebHelper helper = new BasicXwebHelper();
+		helper.setFlashStore(store);
+		MockHttpServletRequest req = new MockHttpServletRequest("POST", "/save.do");
+		req.setContextPath("/app");
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		helper.saveMessage(req, res, new DefaultMessageSourceResolvable("saved"));
+		helper.saveRequestURL(req, res);
+		assertNull(req.getSession(false));
+		Cookie cookie = res.getCookie(MemoryFlashStore.DEFAULT_COOKIE_NAME);
+		assertNotNull(cookie);
+		assertEquals("/app", cookie.getPath());
+		assertEquals(1, store.size());
+
+		// the message is consumed by the next request with the cookie
+		MockHttpServletRequest next = new MockHttpServletRequest("GET", "/test.html");
+		next.setCookies(cookie);
+		assertEquals("saved", helper.getSavedMessage(next).getCodes()[0]);
+		assertEquals("http://localhost:80/save.do", helper.getSavedRequestURL(next));
+		helper.clearSavedMessage(next);
+		assertNull(req.getSession(false));
+
+		MockHttpServletRequest again = new MockHttpServletRequest("GET", "/test.html");
+		again.setCookies(cookie);
+		assertNull(helper.getSavedMessage(again));
+		assertEquals("http://localhost:80/save.do", helper.getSavedRequestURL(again));
+	}
+
+	@Test
+	public void memoryStoreIgnoresUnknownToken() {
+		MemoryFlashStore store = new MemoryFlashStore();
+		MockHttpServletRequest req = new MockHttpServletRequest("POST", "/save.do");
+		req.setCookies(new Cookie(MemoryFlashStore.DEFAULT_COOKIE_NAME, "chosen"));
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		store.put(req, res, "k", "v");
+		Cookie cookie = res.getCookie(MemoryFlashStore.DEFAULT_COOKIE_NAME);
+		assertNotNull(cookie);
+		assertEquals(32, cookie.getValue().length());
+
+		MockHttpServletRequest chosen = new MockHttpServletRequest("GET", "/test.html");
+		chosen.setCookies(new Cookie(MemoryFlashStore.DEFAULT_COOKIE_NAME, "chosen"));
+		assertNull(store.get(chosen, "k"));
+
+		// without a response no token can be issued, so the chosen token is not used either
+		BasicXwebHelper helper = new BasicXwebHelper();
+		helper.setFlashStore(store);
+		req = new MockHttpServletRequest("POST", "/save.do");
+		req.setCookies(new Cookie(MemoryFlashStore.DEFAULT_COOKIE_NAME, "chosen"));
+		helper.saveMessage(req, new DefaultMessageSourceResolvable("saved"));
+		assertEquals(1, store.size());
+		chosen = new MockHttpServletRequest("GET", "/test.html");
+		chosen.setCookies(new Cookie(MemoryFlashStore.DEFAULT_COOKIE_NAME, "chosen"));
+		assertNull(helper.getSavedMessage(chosen));
+	}
+
+	private static class CountingFlashStore extends SessionFlashStore {
+
+		private int gets = 0;
+		private int removes = 0;
+
+		@Override
+		public Object get(HttpServletRequest request, String key) {
+			gets++;
+			return super.get(request, key);
+		}
+
+		@Override
+		public void remove(HttpServletRequest request, HttpServletResponse response, String key) {
+			removes++;
+			super.remove(request, response, key);
+		}
+
+	}
+
+}
@@ -0,0 +1,142 @@
+/* ===================================================================
+ * BatchRendererTest.java
+ * 
+ * Created Oct 18, 2026 6:49:34 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import static magoffin.matt.xweb.util.XwebJaxbXsltViewTest.createModel;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.ViewResolver;
+
+/**
+ * Unit test for the {@link BatchRenderer} class.
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class BatchRendererTest {
+
+	private BatchRenderer renderer;
+	private PageCache pageCache;
+
+	@Before
+	public void setup() throws Exception {
+		final XwebJaxbXsltView view = XwebJaxbXsltViewTest.getViewInstance();
+		pageCache = new PageCache();
+		view.setPageCache(pageCache);
+		view.setPageCacheParameters(new String[0]);
+		renderer = new BatchRenderer();
+		renderer.setThreads(4);
+		renderer.setViewResolver(new ViewResolver() {
+
+			@Override
+			public View resolveViewName(String viewName, Locale locale) {
+				return ("test".equals(viewName) ? view : null);
+			}
+
+		});
+	}
+
+	@Test
+	public void renderBatch() throws Exception {
+		BatchRenderer.Context context = new BatchRenderer.Context();
+		context.setServerName("example.com");
+		context.setContextPath("/shop");
+		context.setParameters(Collections.singletonMap("page", new String[] { "1" }));
+		List<BatchRenderer.Job> jobs = new ArrayList<BatchRenderer.Job>();
+		List<ByteArrayOutputStream> outputs = new ArrayList<ByteArrayOutputStream>();
+		for ( int i = 0; i < 20; i++ ) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			BatchRenderer.Job job = new BatchRenderer.Job("test", createModel("page " + i),
+					(i % 2 == 0 ? Locale.US : Locale.FRANCE), out);
+			job.setContext(context);
+			jobs.add(job);
+			outputs.add(out);
+		}
+		jobs.add(new BatchRenderer.Job("missing", createModel("missing"), null,
+				new ByteArrayOutputStream()));
+
+		BatchRenderer.Report report = renderer.render(jobs);
+		assertEquals(21, report.getJobCount());
+		assertEquals(20, report.getSuccessCount());
+		assertEquals(1, report.getFailures().size());
+		assertTrue(report.getFailures().containsKey(jobs.get(20)));
+
+		long bytes = 0;
+		for ( int i = 0; i < 20; i++ ) {
+			String page = outputs.get(i).toString("UTF-8");
+			bytes += outputs.get(i).size();
+			assertTrue(page, page.contains("<t:string>page " + i + "</t:string>"));
+			assertTrue(page, page.contains("<server-name>example.com</server-name>"));
+			assertTrue(page, page.contains("<web-context>/shop</web-context>"));
+			assertTrue(page, page.contains("<user-locale>" + (i % 2 == 0 ? "en_US" : "fr_FR")
+					+ "</user-locale>"));
+			assertTrue(page, page.contains("<param key=\"page\">1</param>"));
+		}
+		assertEquals(bytes, report.getBytesWritten());
+
+		// every page is rendered, and none are cached
+		assertEquals(0, pageCache.size());
+		assertEquals(0, pageCache.getHitCount());
+		assertEquals(0, pageCache.getMissCount());
+	}
+
+	@Test
+	public void renderToFile() throws Exception {
+		File dir = File.createTempFile("batch-", "");
+		dir.delete();
+		try {
+			File file = new File(dir, "a/b/page.xml");
+			long len = renderer.render(new BatchRenderer.Job("test", createModel("file"), Locale.US,
+					file));
+			assertEquals(len, file.length());
+			String page = FileCopyUtils.copyToString(new FileReader(file));
+			assertTrue(page, page.contains("<t:string>file</t:string>"));
+
+			File missing = new File(dir, "missing.xml");
+			BatchRenderer.Report report = renderer.render(Collections
+					.singletonList(new BatchRenderer.Job("test", null, Locale.US, missing)));
+			assertEquals(1, report.getFailures().size());
+			assertFalse(missing.exists());
+		} finally {
+			FileSystemUtils.deleteRecursively(dir);
+		}
+	}
+
+}
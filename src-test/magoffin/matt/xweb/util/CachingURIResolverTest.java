@@ -0,0 +1,153 @@
+/* ===================================================================
+ * CachingURIResolverTest.java
+ * 
+ * Created Oct 18, 2026 6:20:17 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import org.junit.Test;
+import org.springframework.util.FileCopyUtils;
+import org.xml.sax.XMLReader;
+
+/**
+ * Unit test for the {@link CachingURIResolver} class.
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class CachingURIResolverTest {
+
+	private static final String DOCUMENT_XSL = "<xsl:stylesheet version=\"1.0\" "
+			+ "xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+			+ "<xsl:output method=\"text\"/>"
+			+ "<xsl:template match=\"/\"><xsl:value-of select=\"count(document('identity.xsl')/*/*)\"/>"
+			+ "</xsl:template></xsl:stylesheet>";
+
+	private TransformerFactory getFactory(CachingURIResolver resolver) {
+		TransformerFactory factory = TransformerFactory.newInstance();
+		factory.setURIResolver(resolver);
+		return factory;
+	}
+
+	@Test
+	public void cacheImports() throws Exception {
+		CachingURIResolver resolver = new CachingURIResolver();
+		TransformerFactory factory = getFactory(resolver);
+		String url = getClass().getResource("sections.xsl").toString();
+		assertNotNull(factory.newTemplates(new StreamSource(url)));
+		assertEquals(1, resolver.getMissCount());
+		assertEquals(0, resolver.getHitCount());
+		assertNotNull(factory.newTemplates(new StreamSource(url)));
+		assertEquals(1, resolver.getMissCount());
+		assertEquals(1, resolver.getHitCount());
+		assertEquals(1, resolver.size());
+	}
+
+	@Test
+	public void cacheDocuments() throws Exception {
+		CachingURIResolver resolver = new CachingURIResolver();
+		TransformerFactory factory = getFactory(resolver);
+		String base = getClass().getResource("identity.xsl").toString();
+		Templates templates = factory.newTemplates(new StreamSource(new StringReader(DOCUMENT_XSL),
+				base));
+		for ( int i = 0; i < 3; i++ ) {
+			StringWriter out = new StringWriter();
+			Transformer transformer = templates.newTransformer();
+			transformer.setURIResolver(resolver);
+			transformer.transform(new StreamSource(new StringReader("<a/>")),
+					new StreamResult(out));
+			assertEquals("2", out.toString());
+		}
+		assertEquals(1, resolver.getMissCount());
+		assertEquals(2, resolver.getHitCount());
+	}
+
+	@Test
+	public void reloadModified() throws Exception {
+		File tmp = File.createTempFile("caching-uri-", ".xml");
+		try {
+			FileCopyUtils.copy("<a><b/></a>", new FileWriter(tmp));
+			CachingURIResolver resolver = new CachingURIResolver();
+			resolver.setCheckInterval(0);
+			String url = tmp.toURI().toString();
+			Source source = resolver.resolve(url, null);
+			assertEquals(url, source.getSystemId());
+			resolver.resolve(url, null);
+			assertEquals(1, resolver.getMissCount());
+			assertEquals(1, resolver.getHitCount());
+
+			tmp.setLastModified(tmp.lastModified() + 5000);
+			resolver.resolve(url, null);
+			assertEquals(2, resolver.getMissCount());
+		} finally {
+			tmp.delete();
+		}
+	}
+
+	@Test
+	public void unknownModifiedNotCached() throws Exception {
+		File tmp = File.createTempFile("caching-uri-", ".xml");
+		tmp.delete();
+		CachingURIResolver resolver = new CachingURIResolver();
+		assertNull(resolver.resolve(tmp.toURI().toString(), null));
+		assertEquals(0, resolver.size());
+	}
+
+	@Test
+	public void replayAcceptsProperties() throws Exception {
+		CachingURIResolver resolver = new CachingURIResolver();
+		Source source = resolver.resolve(getClass().getResource("identity.xsl").toString(), null);
+		XMLReader reader = ((SAXSource) source).getXMLReader();
+		// set by the JDK XSLT processor on the readers of resolved sources
+		String property = "http://javax.xml.XMLConstants/property/accessExternalDTD";
+		reader.setProperty(property, "");
+		assertNull(reader.getProperty(property));
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() throws Exception {
+		CachingURIResolver resolver = new CachingURIResolver();
+		resolver.setMaxEntries(1);
+		resolver.resolve(getClass().getResource("identity.xsl").toString(), null);
+		resolver.resolve(getClass().getResource("sections.xsl").toString(), null);
+		assertEquals(1, resolver.size());
+		resolver.resolve(getClass().getResource("identity.xsl").toString(), null);
+		assertEquals(3, resolver.getMissCount());
+	}
+
+}
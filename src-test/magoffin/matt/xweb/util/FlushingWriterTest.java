@@ -0,0 +1,119 @@
+/* ===================================================================
+ * FlushingWriterTest.java
+ * 
+ * Created Oct 18, 2026 6:30:30 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import org.junit.Test;
+
+/**
+ * Unit test for the {@link FlushingWriter} class.
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class FlushingWriterTest {
+
+	/**
+	 * Writer that records how much had been written at each flush.
+	 */
+	private static final class RecordingWriter extends StringWriter {
+
+		private final List<String> flushes = new ArrayList<String>();
+
+		@Override
+		public void flush() {
+			flushes.add(toString());
+		}
+
+	}
+
+	@Test
+	public void initialSize() throws Exception {
+		RecordingWriter out = new RecordingWriter();
+		FlushingWriter writer = new FlushingWriter(out, 5, null, 0);
+		writer.write("abc");
+		assertEquals(0, out.flushes.size());
+		writer.write("defg");
+		assertEquals(1, out.flushes.size());
+		assertEquals("abcdefg", out.flushes.get(0));
+		writer.write("hij");
+		assertEquals(1, out.flushes.size());
+		writer.flush();
+		assertEquals("abcdefghij", out.toString());
+	}
+
+	@Test
+	public void markerAcrossWrites() throws Exception {
+		RecordingWriter out = new RecordingWriter();
+		FlushingWriter writer = new FlushingWriter(out, 0, "<!--flush-->", 0);
+		writer.write("<head><!--fl");
+		assertEquals(0, out.flushes.size());
+		writer.write("ush--></head><body><!--fla");
+		assertEquals(1, out.flushes.size());
+		writer.write("sh--><!--flush--></body>");
+		assertEquals(2, out.flushes.size());
+		assertEquals("<head><!--flush--></head><body><!--flash--><!--flush--></body>",
+				out.flushes.get(1));
+	}
+
+	@Test
+	public void overlappingMarker() throws Exception {
+		RecordingWriter out = new RecordingWriter();
+		FlushingWriter writer = new FlushingWriter(out, 0, "aab", 0);
+		for ( char c : "xaaab".toCharArray() ) {
+			writer.write(c);
+		}
+		assertEquals(1, out.flushes.size());
+	}
+
+	@Test
+	public void flushDuringTransform() throws Exception {
+		StringBuilder buf = new StringBuilder("<doc><head/>");
+		for ( int i = 0; i < 5000; i++ ) {
+			buf.append("<row>").append(i).append("</row>");
+		}
+		buf.append("</doc>");
+		RecordingWriter out = new RecordingWriter();
+		FlushingWriter writer = new FlushingWriter(out, 0, "<head/>", 0);
+		TransformerFactory.newInstance().newTransformer()
+				.transform(new StreamSource(new StringReader(buf.toString())),
+						new StreamResult(writer));
+		writer.flush();
+		assertTrue(out.flushes.size() > 1);
+		assertTrue(out.flushes.get(0).length() < FlushingWriter.DEFAULT_BUFFER_SIZE);
+		assertTrue(out.toString().endsWith("</doc>"));
+	}
+
+}
@@ -0,0 +1,146 @@
+/* ===================================================================
+ * JaxbSaxWriterGeneratorTest.java
+ * 
+ * Created Oct 18, 2026 6:41:36 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import magoffin.matt.xweb.Xweb;
+import magoffin.matt.xweb.XwebModel;
+import magoffin.matt.xwebtest.ObjectFactory;
+import magoffin.matt.xwebtest.TestParam;
+import magoffin.matt.xwebtest.XwebTest;
+import magoffin.matt.xwebtest.XwebTest.Params;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Unit test for the {@link JaxbSaxWriterGenerator} and {@link JaxbSaxWriters}
+ * classes.
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class JaxbSaxWriterGeneratorTest {
+
+	private static final String TEST_PACKAGE = "magoffin.matt.xwebtest";
+
+	private File tmpDir;
+	private ClassLoader contextClassLoader;
+
+	@Before
+	public void setup() throws Exception {
+		tmpDir = File.createTempFile("sax-writers-", "");
+		tmpDir.delete();
+		File src = new File(tmpDir, "src");
+		JaxbSaxWriterGenerator generator = new JaxbSaxWriterGenerator(src, getClass()
+				.getClassLoader());
+		assertTrue(generator.generate(TEST_PACKAGE).isEmpty());
+
+		File classes = new File(tmpDir, "classes");
+		classes.mkdirs();
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assertNotNull("A JDK is required to compile the writers", compiler);
+		assertEquals(0, compiler.run(null, null, null, "-d", classes.getAbsolutePath(), "-cp",
+				System.getProperty("java.class.path"), new File(src, TEST_PACKAGE.replace('.', '/')
+						+ '/' + JaxbSaxWriters.GENERATED_CLASS_NAME + ".java").getAbsolutePath()));
+
+		contextClassLoader = Thread.currentThread().getContextClassLoader();
+		ClassLoader cl = new URLClassLoader(new URL[] { classes.toURI().toURL() },
+				contextClassLoader);
+		Thread.currentThread().setContextClassLoader(cl);
+	}
+
+	@After
+	public void teardown() {
+		Thread.currentThread().setContextClassLoader(contextClassLoader);
+		FileSystemUtils.deleteRecursively(tmpDir);
+	}
+
+	@Test
+	public void loadWriters() {
+		JaxbSaxWriters writers = JaxbSaxWriters.forContextPath("magoffin.matt.xweb:"
+				+ TEST_PACKAGE, Thread.currentThread().getContextClassLoader());
+		assertNotNull(writers);
+		assertTrue(writers.canWrite(XwebTest.class));
+		assertTrue(writers.canWrite(Params.class));
+		assertFalse(writers.canWrite(Xweb.class));
+	}
+
+	@Test
+	public void unsupportedClassesReported() throws Exception {
+		JaxbSaxWriterGenerator generator = new JaxbSaxWriterGenerator(new File(tmpDir, "xweb"),
+				getClass().getClassLoader());
+		Map<String, String> unsupported = generator.generate("magoffin.matt.xweb");
+		assertTrue(unsupported.toString(), unsupported.containsKey(XwebModel.class.getName()));
+		assertFalse(unsupported.containsKey(Xweb.class.getName()));
+	}
+
+	@Test
+	public void renderMatchesJaxb() throws Exception {
+		XwebJaxbXsltView view = XwebJaxbXsltViewTest.getViewInstance();
+		view.setUseGeneratedSaxWriters(false);
+		view.afterPropertiesSet();
+		String expected = render(view);
+		assertTrue(expected, expected.contains("<t:param key=\"k2\"/>"));
+		view.setUseGeneratedSaxWriters(true);
+		view.afterPropertiesSet();
+		assertEquals(expected, render(view));
+	}
+
+	private String render(XwebJaxbXsltView view) throws Exception {
+		XwebTest obj = new XwebTest();
+		obj.setString("<string> & \"more\"");
+		Params p = new Params();
+		TestParam tp = new TestParam();
+		tp.setKey("k1");
+		tp.setValue("v1");
+		p.getParam().add(tp);
+		tp = new TestParam();
+		tp.setKey("k2");
+		p.getParam().add(tp);
+		obj.setParams(p);
+		Map<String, Object> model = new LinkedHashMap<String, Object>();
+		model.put(XwebConstants.DEFALUT_MODEL_OBJECT, new ObjectFactory().createTest(obj));
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		view.render(model, new MockHttpServletRequest("GET", "/test.html"), res);
+		return res.getContentAsString();
+	}
+
+}
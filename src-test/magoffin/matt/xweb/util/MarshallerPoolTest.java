@@ -0,0 +1,98 @@
+/* ===================================================================
+ * MarshallerPoolTest.java
+ * 
+ * Created Oct 18, 2026 5:50:37 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import java.util.HashMap;
+import java.util.Map;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import org.junit.Test;
+
+/**
+ * Unit test for the {@link MarshallerPool} class.
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class MarshallerPoolTest {
+
+	private static final String PREFIX_MAPPER_PROP = "com.sun.xml.bind.namespacePrefixMapper";
+
+	private Map<String, Object> getMarshallerProperties() {
+		Map<String, Object> marshallerProps = new HashMap<String, Object>();
+		JAXBNamespacePrefixMapper mapper = new JAXBNamespacePrefixMapper();
+		mapper.getNamespaceMapping().put("http://msqr.us/xsd/jaxb-web/test", "t");
+		marshallerProps.put(PREFIX_MAPPER_PROP, mapper);
+		return marshallerProps;
+	}
+
+	@Test
+	public void sharedPoolPerConfiguration() throws Exception {
+		JAXBContext ctx = JAXBContext.newInstance("magoffin.matt.xweb:magoffin.matt.xwebtest");
+		Map<String, Object> props = getMarshallerProperties();
+		MarshallerPool pool = MarshallerPool.getPool(ctx, props, true);
+		assertSame(pool, MarshallerPool.getPool(ctx, new HashMap<String, Object>(props), true));
+		assertNotSame(pool, MarshallerPool.getPool(ctx, props, false));
+		assertNotSame(pool, MarshallerPool.getPool(ctx, getMarshallerProperties(), true));
+	}
+
+	@Test
+	public void borrowAndReturn() throws Exception {
+		JAXBContext ctx = JAXBContext.newInstance("magoffin.matt.xweb:magoffin.matt.xwebtest");
+		Map<String, Object> props = getMarshallerProperties();
+		MarshallerPool pool = MarshallerPool.getPool(ctx, props, true);
+		pool.clear();
+		long misses = pool.getMissCount();
+		long hits = pool.getHitCount();
+
+		Marshaller m = pool.borrowMarshaller();
+		assertEquals(misses + 1, pool.getMissCount());
+		assertSame(props.get(PREFIX_MAPPER_PROP), m.getProperty(PREFIX_MAPPER_PROP));
+		assertSame(IgnoreValidation.IGNORE_VALIDATION, m.getEventHandler());
+
+		pool.returnMarshaller(m);
+		assertEquals(1, pool.getIdleCount());
+		assertSame(m, pool.borrowMarshaller());
+		assertEquals(hits + 1, pool.getHitCount());
+		assertEquals(0, pool.getIdleCount());
+	}
+
+	@Test
+	public void maxIdle() throws Exception {
+		JAXBContext ctx = JAXBContext.newInstance("magoffin.matt.xweb:magoffin.matt.xwebtest");
+		MarshallerPool pool = MarshallerPool.getPool(ctx, null, false);
+		pool.clear();
+		pool.setMaxIdle(1);
+		pool.returnMarshaller(pool.borrowMarshaller());
+		pool.returnMarshaller(pool.createMarshaller());
+		assertEquals(1, pool.getIdleCount());
+	}
+
+}
@@ -0,0 +1,126 @@
+/* ===================================================================
+ * TransletLoaderTest.java
+ * 
+ * Created Oct 18, 2026 6:15:53 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import javax.xml.transform.Templates;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Unit test for the {@link TransletCompiler} and {@link TransletLoader}
+ * classes.
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class TransletLoaderTest {
+
+	private static final String INPUT = "<foo a=\"1\"><bar>baz</bar></foo>";
+
+	private File tmpDir;
+	private File xslFile;
+	private ClassLoader contextClassLoader;
+	private TransletLoader loader;
+
+	@Before
+	public void setup() throws Exception {
+		tmpDir = File.createTempFile("translets-", "");
+		tmpDir.delete();
+		File xslDir = new File(tmpDir, "xsl/sub");
+		xslDir.mkdirs();
+		xslFile = new File(xslDir, "identity.xsl");
+		FileCopyUtils.copy(getClass().getResourceAsStream("identity.xsl"),
+				new FileOutputStream(xslFile));
+		File classes = new File(tmpDir, "classes");
+		TransletCompiler compiler = new TransletCompiler(new File(tmpDir, "xsl"), classes,
+				TransletLoader.DEFAULT_PACKAGE_NAME);
+		assertEquals(0, compiler.compile());
+
+		contextClassLoader = Thread.currentThread().getContextClassLoader();
+		ClassLoader cl = new URLClassLoader(new URL[] { classes.toURI().toURL() },
+				contextClassLoader);
+		Thread.currentThread().setContextClassLoader(cl);
+		loader = new TransletLoader();
+	}
+
+	@After
+	public void teardown() {
+		Thread.currentThread().setContextClassLoader(contextClassLoader);
+		FileSystemUtils.deleteRecursively(tmpDir);
+	}
+
+	private String transform(Templates templates) throws Exception {
+		StringWriter out = new StringWriter();
+		templates.newTransformer().transform(new StreamSource(new StringReader(INPUT)),
+				new StreamResult(out));
+		return out.toString();
+	}
+
+	@Test
+	public void transletName() {
+		assertEquals("sub_identity", TransletLoader.getTransletName("sub/identity.xsl"));
+		assertEquals("_1_home", TransletLoader.getTransletName("1-home.xsl"));
+	}
+
+	@Test
+	public void loadTranslet() throws Exception {
+		Templates templates = loader.loadTemplates("/WEB-INF/xsl/sub/identity.xsl",
+				xslFile.lastModified(), null);
+		assertNotNull(templates);
+		assertEquals("com.sun.org.apache.xalan.internal.xsltc.trax.TemplatesImpl", templates
+				.getClass().getName());
+		String result = transform(templates);
+		assertEquals(true, result.endsWith(INPUT));
+	}
+
+	@Test
+	public void missingTranslet() throws Exception {
+		assertNull(loader.loadTemplates("/WEB-INF/xsl/identity.xsl", 0, null));
+		assertNull(loader.loadTemplates("/WEB-INF/xsl/sub/other.xsl", 0, null));
+	}
+
+	@Test
+	public void staleTranslet() throws Exception {
+		assertNull(loader.loadTemplates("/WEB-INF/xsl/sub/identity.xsl",
+				xslFile.lastModified() + 1000, null));
+	}
+
+}
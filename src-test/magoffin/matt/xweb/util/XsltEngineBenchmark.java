@@ -0,0 +1,231 @@
+/* ===================================================================
+ * XsltEngineBenchmark.java
+ * 
+ * Created Oct 18, 2026 6:23:11 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import magoffin.matt.xweb.ObjectFactory;
+import magoffin.matt.xweb.Xweb;
+import magoffin.matt.xweb.XwebContext;
+import magoffin.matt.xweb.XwebMessage;
+import magoffin.matt.xweb.XwebMessages;
+import magoffin.matt.xweb.XwebModel;
+import magoffin.matt.xweb.XwebParameter;
+import magoffin.matt.xweb.XwebParameters;
+import magoffin.matt.xwebtest.XwebTest;
+
+/**
+ * Benchmark comparing {@link XsltEngine} implementations on the unit test
+ * stylesheets.
+ * 
+ * <p>
+ * Each stylesheet is compiled and then used to transform an x-data document
+ * marshalled straight from JAXB, the same way {@link XwebJaxbXsltView}
+ * renders. Run with the engine names to compare as arguments, either
+ * <code>jaxp</code>, <code>saxon</code>, or a TransformerFactory class
+ * name, for example:
+ * </p>
+ * 
+ * <pre>
+ * java -cp &lt;test class path&gt;:Saxon-HE.jar magoffin.matt.xweb.util.XsltEngineBenchmark jaxp saxon
+ * </pre>
+ * 
+ * <p>
+ * Stylesheets an engine cannot compile (such as those using Xalan extension
+ * functions under Saxon) are reported and skipped.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public final class XsltEngineBenchmark {
+
+	private static final int COMPILE_ITERATIONS = 50;
+	private static final int TRANSFORM_ITERATIONS = 2000;
+	private static final int WARM_UP_ITERATIONS = 500;
+	private static final int MESSAGE_COUNT = 500;
+
+	private final JAXBContext context;
+	private final Object xData;
+
+	private XsltEngineBenchmark() throws Exception {
+		context = JAXBContext.newInstance("magoffin.matt.xweb:magoffin.matt.xwebtest");
+		xData = createXData();
+	}
+
+	private static Object createXData() {
+		ObjectFactory factory = new ObjectFactory();
+		Xweb xweb = factory.createXweb();
+		XwebContext ctx = factory.createXwebContext();
+		ctx.setServerName("localhost");
+		ctx.setServerPort(80);
+		ctx.setWebContext("/context");
+		ctx.setPath("/path");
+		ctx.setUserLocale("en");
+		xweb.setXContext(ctx);
+		XwebMessages msgs = factory.createXwebMessages();
+		for ( int i = 0; i < MESSAGE_COUNT; i++ ) {
+			XwebMessage msg = factory.createXwebMessage();
+			msg.setKey("message.key." + i);
+			msg.setValue("The message value for key number " + i + '.');
+			msgs.getMsg().add(msg);
+		}
+		xweb.setXMsg(msgs);
+		XwebParameters params = factory.createXwebParameters();
+		for ( int i = 0; i < 10; i++ ) {
+			XwebParameter param = factory.createXwebParameter();
+			param.setKey("p" + i);
+			param.setValue("value" + i);
+			params.getParam().add(param);
+		}
+		xweb.setXRequest(params);
+		XwebModel model = factory.createXwebModel();
+		XwebTest test = new XwebTest();
+		test.setString("string");
+		model.setAny(new magoffin.matt.xwebtest.ObjectFactory().createTest(test));
+		xweb.setXModel(model);
+		return factory.createXData(xweb);
+	}
+
+	private static XsltEngine getEngine(String name) {
+		if ( "jaxp".equals(name) ) {
+			return new JaxpXsltEngine();
+		}
+		if ( "saxon".equals(name) ) {
+			return new SaxonXsltEngine();
+		}
+		return new JaxpXsltEngine(name);
+	}
+
+	private void run(XsltEngine engine, File stylesheet) throws Exception {
+		TransformerFactory factory = engine.newTransformerFactory();
+		Templates templates;
+		try {
+			templates = factory.newTemplates(new StreamSource(stylesheet));
+		} catch ( Exception e ) {
+			System.out.println(String.format("%-12s %-24s not supported: %s", engine.getName(),
+					stylesheet.getName(), e.getMessage()));
+			return;
+		}
+		long start = System.nanoTime();
+		for ( int i = 0; i < COMPILE_ITERATIONS; i++ ) {
+			factory.newTemplates(new StreamSource(stylesheet));
+		}
+		double compileMs = (System.nanoTime() - start) / 1000000.0 / COMPILE_ITERATIONS;
+
+		Marshaller marshaller = context.createMarshaller();
+		OutputStream sink = new NullOutputStream();
+		for ( int i = 0; i < WARM_UP_ITERATIONS; i++ ) {
+			transform(templates, marshaller, sink);
+		}
+		start = System.nanoTime();
+		for ( int i = 0; i < TRANSFORM_ITERATIONS; i++ ) {
+			transform(templates, marshaller, sink);
+		}
+		double transformUs = (System.nanoTime() - start) / 1000.0 / TRANSFORM_ITERATIONS;
+		System.out.println(String.format("%-12s %-24s compile %8.2f ms  transform %8.1f us",
+				engine.getName(), stylesheet.getName(), compileMs, transformUs));
+	}
+
+	private void transform(Templates templates, Marshaller marshaller, OutputStream out)
+			throws Exception {
+		XwebXmlReader reader = new XwebXmlReader(marshaller);
+		reader.setContent(xData);
+		Object functions = XwebXsltFunctions.bind(null, Locale.ENGLISH,
+				Collections.<String, String> emptyMap());
+		try {
+			templates.newTransformer().transform(reader.toSource(), new StreamResult(out));
+		} finally {
+			XwebXsltFunctions.restore(functions);
+		}
+	}
+
+	private static final class NullOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) {
+			// discard
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			// discard
+		}
+
+	}
+
+	/**
+	 * Run the benchmark.
+	 * 
+	 * @param args
+	 *        the engines to compare; defaults to <code>jaxp saxon</code>
+	 * @throws Exception
+	 *         if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		List<String> engines = new ArrayList<String>(Arrays.asList(args));
+		if ( engines.isEmpty() ) {
+			engines.add("jaxp");
+			engines.add("saxon");
+		}
+		File dir = new File(XsltEngineBenchmark.class.getResource("identity.xsl").toURI())
+				.getParentFile();
+		File[] stylesheets = dir.listFiles();
+		Arrays.sort(stylesheets);
+		XsltEngineBenchmark benchmark = new XsltEngineBenchmark();
+		for ( String name : engines ) {
+			XsltEngine engine;
+			try {
+				engine = getEngine(name);
+				engine.newTransformerFactory();
+			} catch ( RuntimeException e ) {
+				System.out.println(name + ": " + e.getMessage());
+				continue;
+			} catch ( Error e ) {
+				System.out.println(name + ": " + e.getMessage());
+				continue;
+			}
+			for ( File stylesheet : stylesheets ) {
+				if ( stylesheet.getName().endsWith(".xsl") ) {
+					benchmark.run(engine, stylesheet);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+/* ===================================================================
+ * XsltSectionAnalyzerTest.java
+ * 
+ * Created Oct 18, 2026 6:00:19 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import static org.junit.Assert.assertEquals;
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.junit.Test;
+import org.springframework.context.support.StaticApplicationContext;
+
+/**
+ * Unit test for the {@link XsltSectionAnalyzer} class.
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class XsltSectionAnalyzerTest {
+
+	@Test
+	public void namedSectionsWithImports() throws Exception {
+		Set<String> sections = new XsltSectionAnalyzer().analyze(getClass().getResource(
+				"sections.xsl"));
+		assertEquals(new LinkedHashSet<String>(Arrays.asList(XwebConstants.SECTION_MSG,
+				XwebConstants.SECTION_REQUEST, XwebConstants.SECTION_MODEL)), sections);
+	}
+
+	@Test
+	public void wildcardUsesAllSections() throws Exception {
+		Set<String> all = new LinkedHashSet<String>(XsltSectionAnalyzer.SECTIONS);
+		assertEquals(all, new XsltSectionAnalyzer().analyze(getClass().getResource("identity.xsl")));
+		assertEquals(all,
+				new XsltSectionAnalyzer().analyze(getClass().getResource("simple-render.xsl")));
+	}
+
+	@Test
+	public void missingStylesheetUsesAllSections() throws Exception {
+		assertEquals(new LinkedHashSet<String>(XsltSectionAnalyzer.SECTIONS),
+				new XsltSectionAnalyzer().analyze(new File("does-not-exist.xsl").toURI().toURL()));
+	}
+
+	@Test
+	public void viewPrunesUnusedSections() throws Exception {
+		XwebJaxbXsltView view = new XwebJaxbXsltView();
+		view.setJaxbContext("magoffin.matt.xwebtest");
+		view.setUrl("file:"
+				+ new File(getClass().getResource("sections.xsl").toURI()).getAbsolutePath());
+		view.setPruneXDataSections(true);
+		view.setApplicationContext(new StaticApplicationContext());
+		assertEquals(new LinkedHashSet<String>(Arrays.asList(XwebConstants.SECTION_AUXILLARY,
+				XwebConstants.SECTION_ERRORS, XwebConstants.SECTION_REQUEST_HEADERS,
+				XwebConstants.SECTION_SESSION)), view.getPrunedSections());
+	}
+
+}
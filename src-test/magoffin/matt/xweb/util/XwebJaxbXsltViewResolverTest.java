@@ -26,12 +26,17 @@
 
 package magoffin.matt.xweb.util;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 import org.springframework.context.support.StaticApplicationContext;
 import org.springframework.web.servlet.View;
@@ -46,11 +51,17 @@ import org.springframework.web.servlet.ViewResolver;
 public class XwebJaxbXsltViewResolverTest {
 
 	private XwebJaxbXsltViewResolver getResolverInstance() throws Exception {
-		XwebJaxbXsltViewResolver resolver = new XwebJaxbXsltViewResolver();
+		return getResolverInstance(new XwebJaxbXsltViewResolver());
+	}
+
+	private XwebJaxbXsltViewResolver getResolverInstance(XwebJaxbXsltViewResolver resolver)
+			throws Exception {
 		resolver.setJaxbContext("magoffin.matt.xwebtest");
 		resolver.setCacheTemplates(false);
 		resolver.setIgnoreMarshallErrors(false);
-		resolver.setApplicationContext(new StaticApplicationContext());
+		StaticApplicationContext ctx = new StaticApplicationContext();
+		ctx.refresh();
+		resolver.setApplicationContext(ctx);
 		resolver.setUseAbsolutePaths(true);
 		resolver.setPrefix("file:"
 				+ new File(getClass().getResource("identity.xsl").toURI()).getParentFile()
@@ -80,4 +91,50 @@ public class XwebJaxbXsltViewResolverTest {
 		View results = resolver.resolveViewName("identity", Locale.getDefault());
 		assertNotNull(results);
 	}
+
+	@Test
+	public void warmUp() throws Exception {
+		XwebJaxbXsltViewResolver resolver = getResolverInstance();
+		resolver.setCacheTemplates(true);
+		resolver.setWarmUp(true);
+		resolver.setWarmUpThreads(2);
+		assertFalse(resolver.isReady());
+		int count = resolver.warmUpViews();
+		assertTrue(count > 0);
+		assertTrue(resolver.isReady());
+		View view = resolver.resolveViewName("identity", Locale.getDefault());
+		assertNotNull(view);
+		assertSame(view, resolver.resolveViewName("identity", Locale.getDefault()));
+	}
+
+	@Test
+	public void warmUpLocalesShareView() throws Exception {
+		final AtomicInteger loadCount = new AtomicInteger(0);
+		XwebJaxbXsltViewResolver resolver = getResolverInstance(new XwebJaxbXsltViewResolver() {
+
+			@Override
+			protected Object getCacheKey(String viewName, Locale locale) {
+				// key by locale, as AbstractCachingViewResolver does
+				return viewName + "_" + locale;
+			}
+
+			@Override
+			protected View loadView(String viewName, Locale locale) throws Exception {
+				if ( "identity".equals(viewName) ) {
+					loadCount.incrementAndGet();
+				}
+				return super.loadView(viewName, locale);
+			}
+
+		});
+		resolver.setCacheTemplates(true);
+		resolver.setWarmUpLocales(new Locale[] { Locale.ENGLISH, Locale.FRENCH });
+		assertTrue(resolver.warmUpViews() > 0);
+		assertEquals(1, loadCount.get());
+		View view = resolver.resolveViewName("identity", Locale.ENGLISH);
+		assertNotNull(view);
+		assertSame(view, resolver.resolveViewName("identity", Locale.FRENCH));
+		assertEquals(1, loadCount.get());
+	}
+
 }
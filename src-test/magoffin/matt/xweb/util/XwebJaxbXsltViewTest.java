@@ -27,18 +27,49 @@
 package magoffin.matt.xweb.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionEvent;
+import javax.xml.bind.JAXBException;
+import javax.xml.namespace.QName;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import magoffin.matt.xweb.BaseTest;
+import magoffin.matt.xweb.Xweb;
+import magoffin.matt.xweb.XwebParameter;
+import magoffin.matt.xweb.XwebParameters;
 import magoffin.matt.xwebtest.ObjectFactory;
 import magoffin.matt.xwebtest.TestParam;
 import magoffin.matt.xwebtest.XwebTest;
@@ -46,8 +77,11 @@ import magoffin.matt.xwebtest.XwebTest.Params;
 import org.junit.Test;
 import org.springframework.context.support.StaticApplicationContext;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.FileCopyUtils;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.mock.web.MockServletContext;
 
 /**
  * Unit test for the {@link XwebJaxbXsltView} class.
@@ -58,7 +92,16 @@ import org.springframework.mock.web.MockHttpServletResponse;
 public class XwebJaxbXsltViewTest extends BaseTest {
 
 	static XwebJaxbXsltView getViewInstance() throws Exception {
-		XwebJaxbXsltView view = new XwebJaxbXsltView();
+		return getViewInstance(null);
+	}
+
+	static XwebJaxbXsltView getViewInstance(XsltEngine engine) throws Exception {
+		return getViewInstance(new XwebJaxbXsltView(), engine);
+	}
+
+	static XwebJaxbXsltView getViewInstance(XwebJaxbXsltView view, XsltEngine engine)
+			throws Exception {
+		view.setXsltEngine(engine);
 		view.setJaxbContext("magoffin.matt.xwebtest");
 		view.setCacheTemplates(false);
 		view.setIgnoreMarshallErrors(false);
@@ -77,6 +120,21 @@ public class XwebJaxbXsltViewTest extends BaseTest {
 		return view;
 	}
 
+	/**
+	 * Create a model with an {@link XwebTest} model object.
+	 * 
+	 * @param string
+	 *        the test object string value
+	 * @return the model
+	 */
+	static Map<String, Object> createModel(String string) {
+		XwebTest obj = new XwebTest();
+		obj.setString(string);
+		Map<String, Object> model = new LinkedHashMap<String, Object>();
+		model.put(XwebConstants.DEFALUT_MODEL_OBJECT, new ObjectFactory().createTest(obj));
+		return model;
+	}
+
 	@Test
 	public void simpleRender() throws Exception {
 		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/test.html");
@@ -116,6 +174,899 @@ public class XwebJaxbXsltViewTest extends BaseTest {
 				+ DEFAULT_X_REQ_HEADERS + "x-model{test{string{string}}}" + "}", verify);
 	}
 
+	@Test
+	public void xsltEngineRender() throws Exception {
+		String expected = renderSimple(getViewInstance());
+		final AtomicInteger count = new AtomicInteger(0);
+		XsltEngine engine = new JaxpXsltEngine(TransletLoader.DEFAULT_TRANSFORMER_FACTORY_CLASS_NAME) {
+
+			@Override
+			public TransformerFactory newTransformerFactory() {
+				count.incrementAndGet();
+				return super.newTransformerFactory();
+			}
+
+		};
+		XwebJaxbXsltView view = getViewInstance(engine);
+		assertEquals(1, count.get());
+		assertEquals(expected, renderSimple(view));
+	}
+
+	@Test
+	public void xmlSourceResponse() throws Exception {
+		XwebJaxbXsltView view = getViewInstance();
+		view.setEnableXmlSourceResponse(false);
+		MockHttpServletResponse res = renderXmlSource(view);
+		String expected = simpleRender(res.getContentAsString());
+
+		view = getViewInstance();
+		res = renderXmlSource(view);
+		assertEquals("text/xml;charset=UTF-8", res.getContentType());
+		String xml = res.getContentAsString();
+		assertEquals(true, xml.startsWith("<?xml"));
+		assertEquals(false, xml.contains("\n "));
+		assertEquals(expected, simpleRender(xml));
+
+		view.setIndentXmlSource(true);
+		xml = renderXmlSource(view).getContentAsString();
+		assertEquals(true, xml.contains("\n "));
+		assertEquals(expected, simpleRender(xml));
+	}
+
+	private MockHttpServletResponse renderXmlSource(XwebJaxbXsltView view) throws Exception {
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/test.html");
+		req.setParameter("xml", "true");
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		Map<String, Object> model = createModel("string");
+		view.render(model, req, res);
+		return res;
+	}
+
+	@Test
+	public void progressiveFlushRender() throws Exception {
+		String expected = renderSimple(getViewInstance());
+		XwebJaxbXsltView view = getViewInstance();
+		view.setProgressiveFlushSize(10);
+		view.setProgressiveFlushMarker("<x-model");
+		view.setProgressiveFlushInterval(1);
+		assertEquals(expected, renderSimple(view));
+	}
+
+	@Test
+	public void streamingModelRender() throws Exception {
+		List<Object> rows = new ArrayList<Object>();
+		StringBuilder expected = new StringBuilder("x-model{rows{");
+		for ( int i = 0; i < 100; i++ ) {
+			XwebTest obj = new XwebTest();
+			obj.setString("row" + i);
+			rows.add(new ObjectFactory().createTest(obj));
+			expected.append("test{string{row").append(i).append("}}");
+		}
+		expected.append("}}");
+		QName name = new QName("urn:rows", "rows");
+
+		XwebJaxbXsltView view = getViewInstance();
+		String result = renderStreaming(view, new StreamingModel(name, rows.iterator()));
+		assertTrue(result, result.endsWith(expected.toString() + "}"));
+
+		view.setCacheXDataFragments(false);
+		assertEquals(result, renderStreaming(view, new StreamingModel(name, rows)));
+
+		// like a JAXBElement, the model may be under any key
+		assertEquals(result, renderStreaming(view, "rows", new StreamingModel(name, rows)));
+		view.setCacheXDataFragments(true);
+		assertEquals(result, renderStreaming(view, "rows", new StreamingModel(name, rows)));
+	}
+
+	@Test
+	public void streamingModelIteratorRenderedOnce() throws Exception {
+		List<Object> rows = new ArrayList<Object>();
+		StreamingModel model = new StreamingModel(new QName("rows"), rows.iterator());
+		XwebJaxbXsltView view = getViewInstance();
+		renderStreaming(view, model);
+		Throwable t = null;
+		try {
+			renderStreaming(view, model);
+		} catch ( Exception e ) {
+			t = e;
+		}
+		while ( t != null && !(t instanceof IllegalStateException) ) {
+			t = t.getCause();
+		}
+		assertNotNull(t);
+	}
+
+	private String renderStreaming(XwebJaxbXsltView view, StreamingModel streamingModel)
+			throws Exception {
+		return renderStreaming(view, XwebConstants.DEFALUT_MODEL_OBJECT, streamingModel);
+	}
+
+	private String renderStreaming(XwebJaxbXsltView view, String key,
+			StreamingModel streamingModel) throws Exception {
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/test.html");
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		Map<String, Object> model = new LinkedHashMap<String, Object>();
+		model.put(key, streamingModel);
+		view.render(model, req, res);
+		return simpleRender(res.getContentAsString());
+	}
+
+	@Test
+	public void pooledTransformerRender() throws Exception {
+		XwebJaxbXsltView view = getViewInstance();
+		view.setCacheTemplates(true);
+		String first = null;
+		for ( int i = 0; i < 2; i++ ) {
+			MockHttpServletRequest req = new MockHttpServletRequest("GET", "/test.html");
+			MockHttpServletResponse res = new MockHttpServletResponse();
+			Map<String, Object> model = createModel("string");
+			view.render(model, req, res);
+			if ( first == null ) {
+				first = res.getContentAsString();
+			} else {
+				assertEquals(first, res.getContentAsString());
+			}
+		}
+		assertNotNull(view.getTransformerPool());
+		assertEquals(1, view.getTransformerPool().getMissCount());
+		assertEquals(1, view.getTransformerPool().getHitCount());
+	}
+
+	@Test
+	public void cachedFragmentRender() throws Exception {
+		ResourceBundleMessagesSource messages = new ResourceBundleMessagesSource();
+		messages.setBasenames("magoffin.matt.xweb.util.messages");
+		XwebParameters appContext = new XwebParameters();
+		appContext.getParam().add(newParameter("a1", "a1v"));
+		TestParamDao paramDao = new TestParamDao();
+		paramDao.updateParameter(newParameter("s1", "s1v"));
+
+		XwebJaxbXsltView view = getViewInstance();
+		view.setMessagesSource(messages);
+		view.setParameterDao(paramDao);
+		view.setWebHelper(new BasicXwebHelper(new AppContextSupport(appContext)));
+
+		final String expected = "x-data{x-context{server-name{localhost}server-port{80}user-locale{en}"
+				+ "web-context{}path{}settings{param{@key{s1}s1v}}}"
+				+ "x-auxillary{x-app-context{param{@key{a1}a1v}}}x-session{@session-id{s1}}"
+				+ "x-msg{msg{@key{greeting}Hello}}"
+				+ "x-request{}x-request-headers{}x-model{test{string{string}}}}";
+
+		// render once without, then twice with, fragment caching
+		view.setCacheXDataFragments(false);
+		assertEquals(expected, renderSimple(view));
+		view.setCacheXDataFragments(true);
+		assertEquals(expected, renderSimple(view));
+		assertEquals(3, view.getFragmentCache().size());
+		assertEquals(0, view.getFragmentCache().getHitCount());
+		assertEquals(expected, renderSimple(view));
+		assertEquals(3, view.getFragmentCache().getHitCount());
+
+		// changing the settings must re-record the settings fragment
+		paramDao.updateParameter(newParameter("s1", "s1v2"));
+		assertEquals(expected.replace("s1v", "s1v2"), renderSimple(view));
+		assertEquals(5, view.getFragmentCache().getHitCount());
+	}
+
+	@Test
+	public void versionedModelRender() throws Exception {
+		XwebTest obj = new XwebTest();
+		obj.setString("ref");
+		TestVersionedModel ref = new TestVersionedModel("ref", new ObjectFactory().createTest(obj));
+		XwebTest otherObj = new XwebTest();
+		otherObj.setString("other");
+		TestVersionedModel other = new TestVersionedModel("other",
+				new ObjectFactory().createTest(otherObj));
+		XwebJaxbXsltView view = getViewInstance();
+		view.setCacheXDataFragments(false);
+		String expected = renderVersioned(view, ref, other);
+		assertTrue(expected, expected.contains("x-auxillary{test{string{ref}}test{string{other}}}"));
+		assertEquals(0, view.getModelFragmentCache().size());
+
+		view.setCacheXDataFragments(true);
+		assertEquals(expected, renderVersioned(view, ref, other));
+		assertEquals(expected, renderVersioned(view, ref, other));
+		assertEquals(2, view.getModelFragmentCache().size());
+		assertEquals(2, view.getModelFragmentCache().getMissCount());
+		assertEquals(2, view.getModelFragmentCache().getHitCount());
+
+		// a new version must be recorded again
+		obj.setString("ref2");
+		ref.version++;
+		assertEquals(expected.replace("ref", "ref2"), renderVersioned(view, ref, other));
+		assertEquals(3, view.getModelFragmentCache().getMissCount());
+		assertEquals(3, view.getModelFragmentCache().getHitCount());
+	}
+
+	@Test
+	public void modelFragmentCacheEvicts() throws Exception {
+		SaxFragmentCache cache = new SaxFragmentCache(2);
+		cache.put("a", 1L, new SaxEventBuffer());
+		cache.put("b", 1L, new SaxEventBuffer());
+		assertNotNull(cache.get("a", 1L));
+		cache.put("c", 1L, new SaxEventBuffer());
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertNotNull(cache.get("a", 1L));
+		assertNull(cache.get("b", 1L));
+		assertNotNull(cache.get("c", 1L));
+	}
+
+	@Test
+	public void requestSectionRender() throws Exception {
+		XwebJaxbXsltView view = getViewInstance();
+		view.setIgnoreMarshallErrors(true);
+		view.setCacheXDataFragments(false);
+		String expected = renderRequestSections(view);
+		assertTrue(expected, expected.contains("<param key=\"p2\">p2v2</param>"));
+		view.setCacheXDataFragments(true);
+		assertEquals(expected, renderRequestSections(view));
+
+		// the written sections must use the prefix mapped to the xweb namespace, as JAXB does
+		Map<String, Object> marshallerProps = view.getMarshallerProperties();
+		((JAXBNamespacePrefixMapper) marshallerProps.get("com.sun.xml.bind.namespacePrefixMapper"))
+				.getNamespaceMapping().put(XwebConstants.XWEB_NAMESPACE, "x");
+		view.setMarshallerProperties(marshallerProps);
+		view.setCacheXDataFragments(false);
+		expected = renderRequestSections(view);
+		assertTrue(expected, expected.contains("<x:param key=\"p2\">p2v2</x:param>"));
+		assertTrue(expected, expected.contains("<x:server-name>localhost</x:server-name>"));
+		view.setCacheXDataFragments(true);
+		assertEquals(expected, renderRequestSections(view));
+	}
+
+	@Test
+	public void overriddenHooksRender() throws Exception {
+		XwebJaxbXsltView view = getViewInstance(new XwebJaxbXsltView() {
+
+			@Override
+			protected void processRequestData(HttpServletRequest request, Xweb xData)
+					throws JAXBException {
+				super.processRequestData(request, xData);
+				XwebParameter param = new XwebParameter();
+				param.setKey("added");
+				param.setValue("by subclass");
+				xData.getXRequest().getParam().add(param);
+			}
+
+		}, null);
+		view.setIgnoreMarshallErrors(true);
+		assertTrue(view.isCacheXDataFragments());
+		String result = renderRequestSections(view);
+		assertTrue(result, result.contains("<param key=\"p2\">p2v2</param>"));
+		assertTrue(result, result.contains("<param key=\"added\">by subclass</param>"));
+	}
+
+	private String renderRequestSections(XwebJaxbXsltView view) throws Exception {
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/test.html");
+		req.setContextPath("/context");
+		req.setServletPath("/path");
+		req.setParameter("p1", "<p1v1 & more>");
+		req.setParameter("p2", new String[] { "p2v1", "p2v2" });
+		req.addHeader("user-agent", "Agent/1.0");
+		req.addHeader("h1", new String[] { "h1v1", "h1v2" });
+		MockHttpSession session = new MockHttpSession(null, "s1");
+		session.setAttribute("a1", "a1v");
+		req.setSession(session);
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		Map<String, Object> model = createModel("string");
+		view.render(model, req, res);
+		return res.getContentAsString();
+	}
+
+	@Test
+	public void sessionSectionCacheRender() throws Exception {
+		XwebJaxbXsltView view = getViewInstance();
+		view.setIgnoreMarshallErrors(true);
+		MockServletContext servletContext = new MockServletContext();
+		MockHttpSession session = new MockHttpSession(servletContext, "s1");
+		XwebTest obj = new XwebTest();
+		obj.setString("session");
+		session.setAttribute("a1", obj);
+		session.setAttribute("a2", "a2v");
+
+		// render once without the listener registered
+		String expected = renderSession(view, session);
+		assertTrue(expected, expected.contains("x-session{@session-id{s1}}"));
+
+		SessionSectionCache cache = new SessionSectionCache();
+		cache.contextInitialized(new ServletContextEvent(servletContext));
+		assertSame(cache, SessionSectionCache.getInstance(servletContext));
+		assertEquals(expected, renderSession(view, session));
+		assertEquals(expected, renderSession(view, session));
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+
+		// changing an attribute must re-record the section
+		session.setAttribute("a2", "a2v2");
+		cache.attributeReplaced(new HttpSessionBindingEvent(session, "a2", "a2v"));
+		assertEquals(expected, renderSession(view, session));
+		assertEquals(2, cache.getMissCount());
+
+		// the cache is checked before the attributes, and each filter records its own section
+		view.setSessionAttributeExcludes(new String[] { "a1*" });
+		assertEquals(expected, renderSession(view, session));
+		assertEquals(expected, renderSession(view, session));
+		assertEquals(3, cache.getMissCount());
+		assertEquals(2, cache.getHitCount());
+		view.setSessionAttributeExcludes(null);
+		view.setSessionAttributeIncludes(new String[] { "a2" });
+		assertEquals(expected, renderSession(view, session));
+		assertEquals(4, cache.getMissCount());
+
+		// containers unbind the attributes of a destroyed session after destroying it
+		cache.sessionDestroyed(new HttpSessionEvent(session));
+		assertEquals(0, cache.size());
+		cache.attributeRemoved(new HttpSessionBindingEvent(session, "a1", obj));
+		cache.attributeRemoved(new HttpSessionBindingEvent(session, "a2", "a2v2"));
+		assertEquals(0, cache.size());
+
+		cache.contextDestroyed(new ServletContextEvent(servletContext));
+		assertNull(SessionSectionCache.getInstance(servletContext));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void sessionSectionCacheEvicts() throws Exception {
+		SessionSectionCache cache = new SessionSectionCache();
+		cache.setMaxEntries(2);
+		cache.put("a", "", cache.getVersion("a"), new SaxEventBuffer());
+		cache.put("b", "", cache.getVersion("b"), new SaxEventBuffer());
+		assertNotNull(cache.get("a", ""));
+		cache.put("c", "", cache.getVersion("c"), new SaxEventBuffer());
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertNotNull(cache.get("a", ""));
+		assertNull(cache.get("b", ""));
+		assertNotNull(cache.get("c", ""));
+
+		// a section recorded before a change must not be cached
+		long version = cache.getVersion("a");
+		cache.attributeAdded(new HttpSessionBindingEvent(new MockHttpSession(null, "a"), "x", "y"));
+		assertNull(cache.get("a", ""));
+		cache.put("a", "", version, new SaxEventBuffer());
+		assertNull(cache.get("a", ""));
+
+		// nor one recorded before the session was forgotten and tracked again
+		version = cache.getVersion("c");
+		cache.sessionDestroyed(new HttpSessionEvent(new MockHttpSession(null, "c")));
+		cache.getVersion("c");
+		cache.put("c", "", version, new SaxEventBuffer());
+		assertNull(cache.get("c", ""));
+	}
+
+	private String renderSession(XwebJaxbXsltView view, MockHttpSession session) throws Exception {
+		MockHttpServletRequest req = new MockHttpServletRequest(session.getServletContext(), "GET",
+				"/test.html");
+		req.setSession(session);
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		Map<String, Object> model = createModel("string");
+		view.render(model, req, res);
+		return simpleRender(res.getContentAsString());
+	}
+
+	@Test
+	public void extensionFunctionRender() throws Exception {
+		ResourceBundleMessagesSource messages = new ResourceBundleMessagesSource();
+		messages.setBasenames("magoffin.matt.xweb.util.functions");
+		TestParamDao paramDao = new TestParamDao();
+		paramDao.updateParameter(newParameter("s1", "s1v"));
+
+		XwebJaxbXsltView view = getViewInstance();
+		view.setUrl("file:"
+				+ new File(XwebJaxbXsltViewTest.class.getResource("functions.xsl").toURI())
+						.getAbsolutePath());
+		view.setMessagesSource(messages);
+		view.setParameterDao(paramDao);
+		view.setIncludeMessages(false);
+		view.setIncludeSettings(false);
+
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/test.html");
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		Map<String, Object> model = createModel("Bob");
+		view.render(model, req, res);
+		assertEquals("Hello|Welcome, Bob|s1v|0", res.getContentAsString());
+	}
+
+	@Test
+	public void templateFragmentCacheRender() throws Exception {
+		XwebJaxbXsltView view = getViewInstance();
+		view.setUrl("file:"
+				+ new File(XwebJaxbXsltViewTest.class.getResource("fragment-cache.xsl").toURI())
+						.getAbsolutePath());
+		// the fragment is serialized with the stylesheet's HTML output method, cached or not
+		final String expected = "<page><nav><a href=\"/\">Home &amp; Bob</a></nav>"
+				+ "<div id=\"menu\"></div><script src=\"a.js\"></script><br><main>%s</main></page>";
+		assertEquals(String.format(expected, "Bob"), renderString(view, "Bob"));
+		assertEquals(1, view.getTemplateFragmentCache().size());
+		assertEquals(1, view.getTemplateFragmentCache().getMissCount());
+
+		// the cached navigation is replayed
+		assertEquals(String.format(expected, "Alice"), renderString(view, "Alice"));
+		assertEquals(1, view.getTemplateFragmentCache().getHitCount());
+
+		view.setTemplateFragmentCache(null);
+		assertEquals(String.format(expected, "Alice").replace("Bob", "Alice"),
+				renderString(view, "Alice"));
+	}
+
+	private String renderString(XwebJaxbXsltView view, String string) throws Exception {
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		Map<String, Object> model = createModel(string);
+		view.render(model, new MockHttpServletRequest("GET", "/test.html"), res);
+		return res.getContentAsString().replaceAll(">\\s+<", "><").trim();
+	}
+
+	@Test
+	public void localizedTemplatesRender() throws Exception {
+		ResourceBundleMessagesSource messages = new ResourceBundleMessagesSource();
+		messages.setBasenames("magoffin.matt.xweb.util.functions");
+
+		XwebJaxbXsltView view = new XwebJaxbXsltView();
+		view.setJaxbContext("magoffin.matt.xwebtest");
+		view.setUrl("file:"
+				+ new File(XwebJaxbXsltViewTest.class.getResource("localized.xsl").toURI())
+						.getAbsolutePath());
+		view.setMessagesSource(messages);
+		view.setIncludeMessages(false);
+		view.setTemplatesLocale(Locale.ENGLISH);
+		view.afterPropertiesSet();
+		view.setApplicationContext(new StaticApplicationContext());
+
+		// x-msg is not included, so the x-msg lookups only work if compiled in
+		final String expected = "<out title=\"Hello\">Hello|Hello|Welcome, Bob</out>";
+		assertEquals(expected, renderBob(view));
+
+		Templates templates = view.getTemplates();
+		assertSame(templates, view.getTemplates());
+
+		// changing the messages compiles the stylesheet again
+		messages.setBasenames("magoffin.matt.xweb.util.functions", "magoffin.matt.xweb.util.messages");
+		assertNotSame(templates, view.getTemplates());
+		assertEquals(expected, renderBob(view));
+	}
+
+	@Test
+	public void pageCacheRender() throws Exception {
+		PageCache cache = new PageCache();
+		XwebJaxbXsltView view = getViewInstance();
+		view.setPageCache(cache);
+		view.setPageCacheParameters(new String[] { "q" });
+
+		String first = renderPage(view, "1", "first");
+		assertTrue(first.contains("first"));
+		assertEquals(0, cache.getHitCount());
+
+		// same parameter, so cached output returned even though model changed
+		assertEquals(first, renderPage(view, "1", "second"));
+		assertEquals(1, cache.getHitCount());
+
+		// different parameter renders again
+		assertTrue(renderPage(view, "2", "second").contains("second"));
+		assertEquals(2, cache.getMissCount());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void conditionalGetRender() throws Exception {
+		XwebJaxbXsltView view = getViewInstance();
+		view.setConditionalGet(true);
+		view.setIgnoreMarshallErrors(true);
+		Map<String, Object> model = createModel("string");
+		model.put(XwebConstants.PAGE_VERSION_OBJECT, "v1");
+
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/test.html");
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		String etag = res.getHeader("ETag");
+		assertNotNull(etag);
+		assertNotNull(res.getHeader("Last-Modified"));
+		assertTrue(res.getContentAsString().length() > 0);
+
+		req = new MockHttpServletRequest("GET", "/test.html");
+		req.addHeader("If-None-Match", etag);
+		res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		assertEquals(304, res.getStatus());
+		assertEquals(0, res.getContentAsByteArray().length);
+
+		// weak and listed tags match too
+		req = new MockHttpServletRequest("GET", "/test.html");
+		req.addHeader("If-None-Match", "\"other\", W/" + etag);
+		res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		assertEquals(304, res.getStatus());
+
+		// request parameters are part of the tag, and Last-Modified is not used
+		req = new MockHttpServletRequest("GET", "/test.html");
+		req.setParameter("q", "1");
+		req.addHeader("If-None-Match", etag);
+		req.addHeader("If-Modified-Since", System.currentTimeMillis());
+		res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		assertEquals(200, res.getStatus());
+		assertFalse(etag.equals(res.getHeader("ETag")));
+		assertNull(res.getHeader("Last-Modified"));
+
+		// a session is only validated with the session section cache registered
+		MockServletContext servletContext = new MockServletContext();
+		MockHttpSession session = new MockHttpSession(servletContext, "s1");
+		req = new MockHttpServletRequest(servletContext, "GET", "/test.html");
+		req.setSession(session);
+		res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		assertNull(res.getHeader("ETag"));
+		SessionSectionCache cache = new SessionSectionCache();
+		cache.contextInitialized(new ServletContextEvent(servletContext));
+		res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		String sessionTag = res.getHeader("ETag");
+		assertNotNull(sessionTag);
+		assertFalse(etag.equals(sessionTag));
+		req.addHeader("If-None-Match", sessionTag);
+		res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		assertEquals(304, res.getStatus());
+		session.setAttribute("a1", "a1v");
+		cache.attributeAdded(new HttpSessionBindingEvent(session, "a1", "a1v"));
+		res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		assertEquals(200, res.getStatus());
+
+		// a new model version renders again
+		req = new MockHttpServletRequest("GET", "/test.html");
+		req.addHeader("If-None-Match", etag);
+		model.put(XwebConstants.PAGE_VERSION_OBJECT, "v2");
+		res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		assertEquals(200, res.getStatus());
+		assertTrue(res.getContentAsString().length() > 0);
+	}
+
+	@Test
+	public void conditionalGetCompressedRender() throws Exception {
+		XwebJaxbXsltView view = getViewInstance();
+		view.setConditionalGet(true);
+		view.setCompressOutput(true);
+		Map<String, Object> model = createModel("string");
+		model.put(XwebConstants.PAGE_VERSION_OBJECT, "v1");
+
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/test.html");
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		String etag = res.getHeader("ETag");
+
+		// gzip and identity bodies have different tags
+		req = new MockHttpServletRequest("GET", "/test.html");
+		req.addHeader("Accept-Encoding", "gzip");
+		res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		String gzipTag = res.getHeader("ETag");
+		assertFalse(etag.equals(gzipTag));
+
+		req.addHeader("If-None-Match", gzipTag);
+		res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		assertEquals(304, res.getStatus());
+		assertEquals("Accept-Encoding", res.getHeader("Vary"));
+
+		req = new MockHttpServletRequest("GET", "/test.html");
+		req.addHeader("If-None-Match", gzipTag);
+		res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		assertEquals(200, res.getStatus());
+	}
+
+	@Test
+	public void compressedRender() throws Exception {
+		XwebJaxbXsltView view = getViewInstance();
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/test.html");
+		req.addHeader("Accept-Encoding", "deflate, gzip;q=0.8");
+		Map<String, Object> model = createModel("string");
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		String expected = res.getContentAsString();
+
+		view.setCompressOutput(true);
+		view.setCompressionThreshold(64);
+		res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		assertEquals("gzip", res.getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", res.getHeader("Vary"));
+		assertEquals(expected, new String(FileCopyUtils.copyToByteArray(new GZIPInputStream(
+				new ByteArrayInputStream(res.getContentAsByteArray()))), res.getCharacterEncoding()));
+
+		// below the threshold, not compressed
+		view.setCompressionThreshold(expected.length() * 2);
+		res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		assertNull(res.getHeader("Content-Encoding"));
+		assertEquals(expected, res.getContentAsString());
+	}
+
+	@Test
+	public void asyncRender() throws Exception {
+		XwebJaxbXsltView view = getViewInstance();
+		Map<String, Object> model = createModel("string");
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/test.html");
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		view.render(model, req, res);
+		String expected = res.getContentAsString();
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			view.setAsyncRendering(true);
+			view.setRenderExecutor(executor);
+			AsyncRequest asyncReq = new AsyncRequest(req);
+			res = new MockHttpServletResponse();
+			view.render(model, asyncReq, res);
+			assertTrue(asyncReq.async.completed.await(10, TimeUnit.SECONDS));
+			assertEquals(expected, res.getContentAsString());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void renderLimitRejects() throws Exception {
+		RenderLimiter limiter = new RenderLimiter();
+		limiter.setMaxConcurrent(1);
+		limiter.setMaxQueue(0);
+		limiter.setRetryAfter(7);
+		XwebJaxbXsltView view = getViewInstance();
+		view.setRenderLimiter(limiter);
+		Map<String, Object> model = createModel("string");
+
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		view.render(model, new MockHttpServletRequest("GET", "/test.html"), res);
+		assertEquals(200, res.getStatus());
+		assertEquals(0, limiter.getActiveCount());
+
+		// occupy the only permit, so the next render is rejected
+		assertTrue(limiter.acquire());
+		try {
+			res = new MockHttpServletResponse();
+			view.render(model, new MockHttpServletRequest("GET", "/test.html"), res);
+			assertEquals(503, res.getStatus());
+			assertEquals("7", res.getHeader("Retry-After"));
+			assertEquals(1, limiter.getRejectedCount());
+		} finally {
+			limiter.release();
+		}
+	}
+
+	/**
+	 * Request supporting Servlet 3.0 async, which the Spring mock does not.
+	 */
+	private static final class AsyncRequest extends HttpServletRequestWrapper {
+
+		private TestAsyncContext async;
+
+		private AsyncRequest(HttpServletRequest request) {
+			super(request);
+		}
+
+		@Override
+		public boolean isAsyncSupported() {
+			return true;
+		}
+
+		@Override
+		public boolean isAsyncStarted() {
+			return (async != null);
+		}
+
+		@Override
+		public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+			async = new TestAsyncContext(request, response);
+			return async;
+		}
+
+	}
+
+	private static final class TestAsyncContext implements AsyncContext {
+
+		private final ServletRequest request;
+		private final ServletResponse response;
+		private final CountDownLatch completed = new CountDownLatch(1);
+		private long timeout;
+
+		private TestAsyncContext(ServletRequest request, ServletResponse response) {
+			this.request = request;
+			this.response = response;
+		}
+
+		@Override
+		public ServletRequest getRequest() {
+			return request;
+		}
+
+		@Override
+		public ServletResponse getResponse() {
+			return response;
+		}
+
+		@Override
+		public boolean hasOriginalRequestAndResponse() {
+			return true;
+		}
+
+		@Override
+		public void dispatch() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void dispatch(String path) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void dispatch(ServletContext context, String path) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void complete() {
+			completed.countDown();
+		}
+
+		@Override
+		public void start(Runnable run) {
+			run.run();
+		}
+
+		@Override
+		public void addListener(AsyncListener listener) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void addListener(AsyncListener listener, ServletRequest servletRequest,
+				ServletResponse servletResponse) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public <T extends AsyncListener> T createListener(Class<T> clazz) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setTimeout(long timeout) {
+			this.timeout = timeout;
+		}
+
+		@Override
+		public long getTimeout() {
+			return timeout;
+		}
+
+	}
+
+	private static String renderPage(XwebJaxbXsltView view, String q, String value)
+			throws Exception {
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/test.html");
+		req.setParameter("q", q);
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		Map<String, Object> model = createModel(value);
+		view.render(model, req, res);
+		assertNotNull(res.getContentType());
+		if ( view.getPageCache() != null ) {
+			assertEquals(res.getContentAsByteArray().length, res.getContentLength());
+		}
+		return res.getContentAsString();
+	}
+
+	private static String renderBob(XwebJaxbXsltView view) throws Exception {
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/test.html");
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		Map<String, Object> model = createModel("Bob");
+		view.render(model, req, res);
+		return res.getContentAsString().trim();
+	}
+
+	private static XwebParameter newParameter(String key, String value) {
+		XwebParameter param = new XwebParameter();
+		param.setKey(key);
+		param.setValue(value);
+		return param;
+	}
+
+	private String renderSimple(XwebJaxbXsltView view) throws Exception {
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/test.html");
+		req.setSession(new MockHttpSession(null, "s1"));
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		Map<String, Object> model = createModel("string");
+		view.render(model, req, res);
+		return simpleRender(res.getContentAsString());
+	}
+
+	private String renderVersioned(XwebJaxbXsltView view, VersionedModel ref, VersionedModel other)
+			throws Exception {
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		Map<String, Object> model = createModel("string");
+		model.put("ref", ref);
+		model.put("other", other);
+		view.render(model, new MockHttpServletRequest("GET", "/test.html"), res);
+		return simpleRender(res.getContentAsString());
+	}
+
+	private String simpleRender(String xml) throws Exception {
+		Transformer t = TransformerFactory.newInstance()
+				.newTransformer(
+						new StreamSource(new ClassPathResource("simple-render.xsl", getClass())
+								.getInputStream()));
+		ByteArrayOutputStream byos = new ByteArrayOutputStream();
+		t.transform(new StreamSource(new StringReader(xml)), new StreamResult(byos));
+		return byos.toString();
+	}
+
+	private static class TestVersionedModel implements VersionedModel {
+
+		private final String modelKey;
+		private final Object modelObject;
+		private long version = 0;
+
+		private TestVersionedModel(String modelKey, Object modelObject) {
+			super();
+			this.modelKey = modelKey;
+			this.modelObject = modelObject;
+		}
+
+		@Override
+		public long getVersion() {
+			return version;
+		}
+
+		@Override
+		public String getModelKey() {
+			return modelKey;
+		}
+
+		@Override
+		public Object getModelObject() {
+			return modelObject;
+		}
+
+	}
+
+	private static class TestParamDao implements XwebParamDao, Versioned {
+
+		private final Map<String, XwebParameter> params = new LinkedHashMap<String, XwebParameter>();
+		private long version = 0;
+
+		@Override
+		public XwebParameter getParameter(String key) {
+			return params.get(key);
+		}
+
+		@Override
+		public List<XwebParameter> getParameters() {
+			return new ArrayList<XwebParameter>(params.values());
+		}
+
+		@Override
+		public void removeParameter(String key) {
+			params.remove(key);
+			version++;
+		}
+
+		@Override
+		public XwebParameter updateParameter(XwebParameter parameter) {
+			params.put(parameter.getKey(), parameter);
+			version++;
+			return parameter;
+		}
+
+		@Override
+		public long getVersion() {
+			return version;
+		}
+
+	}
+
 	private static final String DEFAULT_X_CONTEXT = "x-context{server-name{localhost}server-port{80}user-locale{en}web-context{/context}path{/path}}";
 	private static final String DEFAULT_X_REQ_HEADERS = "x-request-headers{param{@key{h1}h1v1}}";
 
@@ -0,0 +1,30 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<xsl:stylesheet xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+	xmlns:xweb="http://msqr.us/xsd/jaxb-web"
+	xmlns:xwebfn="xalan://magoffin.matt.xweb.util.XwebXsltFunctions"
+	exclude-result-prefixes="xweb xwebfn"
+	version="1.0">
+	
+	<xsl:output method="html"/>
+	
+	<xsl:template match="/">
+		<page>
+			<xsl:variable name="key" select="concat('nav-', xweb:x-data/xweb:x-context/xweb:user-locale)"/>
+			<xsl:variable name="nav" select="xwebfn:cached($key)"/>
+			<xsl:choose>
+				<xsl:when test="$nav">
+					<xsl:copy-of select="$nav"/>
+				</xsl:when>
+				<xsl:otherwise>
+					<xsl:variable name="body">
+						<nav><a href="/">Home &amp; <xsl:value-of select="xweb:x-data/xweb:x-model/*/*"/></a></nav>
+						<div id="menu"></div><script src="a.js"></script><br/>
+					</xsl:variable>
+					<xsl:copy-of select="xwebfn:cache($key, 300, $body)"/>
+				</xsl:otherwise>
+			</xsl:choose>
+			<main><xsl:value-of select="xweb:x-data/xweb:x-model/*/*"/></main>
+		</page>
+	</xsl:template>
+	
+</xsl:stylesheet>
@@ -0,0 +1,20 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<xsl:stylesheet xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+	xmlns:xweb="http://msqr.us/xsd/jaxb-web"
+	xmlns:xwebfn="xalan://magoffin.matt.xweb.util.XwebXsltFunctions"
+	exclude-result-prefixes="xweb xwebfn"
+	version="1.0">
+	
+	<xsl:output method="text"/>
+	
+	<xsl:template match="/">
+		<xsl:value-of select="xwebfn:msg('greeting')"/>
+		<xsl:text>|</xsl:text>
+		<xsl:value-of select="xwebfn:msg('welcome', string(xweb:x-data/xweb:x-model/*/*))"/>
+		<xsl:text>|</xsl:text>
+		<xsl:value-of select="xwebfn:setting('s1')"/>
+		<xsl:text>|</xsl:text>
+		<xsl:value-of select="count(xweb:x-data/xweb:x-msg) + count(xweb:x-data/xweb:x-context/xweb:settings)"/>
+	</xsl:template>
+	
+</xsl:stylesheet>
@@ -0,0 +1,24 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<xsl:stylesheet xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+	xmlns:xweb="http://msqr.us/xsd/jaxb-web"
+	xmlns:xwebfn="xalan://magoffin.matt.xweb.util.XwebXsltFunctions"
+	exclude-result-prefixes="xweb xwebfn"
+	version="1.0">
+	
+	<xsl:output method="xml" omit-xml-declaration="yes"/>
+	
+	<xsl:template match="/">
+		<out title="{/xweb:x-data/xweb:x-msg/xweb:msg[@key='greeting']}">
+			<xsl:value-of select="xwebfn:msg('greeting')"/>
+			<xsl:text>|</xsl:text>
+			<xsl:value-of select="/xweb:x-data/xweb:x-msg/xweb:msg[@key = &quot;greeting&quot;]"/>
+			<xsl:text>|</xsl:text>
+			<xsl:value-of select="xwebfn:msg('welcome', string(xweb:x-data/xweb:x-model/*/*))"/>
+			<xsl:for-each select="/xweb:x-data/xweb:x-msg/xweb:msg[@key='greeting']">
+				<xsl:value-of select="."/>
+			</xsl:for-each>
+			<xsl:copy-of select="/xweb:x-data/xweb:x-msg/xweb:msg[@key='greeting']"/>
+		</out>
+	</xsl:template>
+	
+</xsl:stylesheet>
@@ -0,0 +1,12 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<xsl:stylesheet xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+	xmlns:xweb="http://msqr.us/xsd/jaxb-web"
+	version="1.0">
+	
+	<xsl:variable name="total" select="1"/>
+	
+	<xsl:template name="greeting">
+		<span title="{/xweb:x-data/xweb:x-msg/xweb:msg[@key = 'greeting']}"/>
+	</xsl:template>
+	
+</xsl:stylesheet>
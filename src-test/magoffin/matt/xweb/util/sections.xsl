@@ -0,0 +1,20 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<xsl:stylesheet xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+	xmlns:xweb="http://msqr.us/xsd/jaxb-web"
+	version="1.0">
+	
+	<xsl:import href="sections-import.xsl"/>
+	
+	<xsl:output method="text"/>
+	
+	<xsl:template match="/">
+		<xsl:apply-templates select="xweb:x-data/xweb:x-model"/>
+		<xsl:value-of select="xweb:x-data/xweb:x-request/xweb:param[@key = 'p1']"/>
+	</xsl:template>
+	
+	<xsl:template match="xweb:x-model">
+		<xsl:value-of select="$total * 2"/>
+		<xsl:value-of select="count(@*)"/>
+	</xsl:template>
+	
+</xsl:stylesheet>
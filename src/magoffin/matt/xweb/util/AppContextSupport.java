@@ -40,16 +40,20 @@ import magoffin.matt.xweb.XwebParameters;
  * for holding the AppContext data which does not change (at least much) 
  * over the life of the running application.</p>
  * 
+ * <p>The {@link Versioned#getVersion()} value changes each time the AppContext 
+ * is set.</p>
+ * 
  * @author Matt Magoffin (spamsqr@msqr.us)
  * @version $Revision: 1.2 $ $Date: 2007/07/12 09:09:55 $
  */
 
-public class AppContextSupport implements Serializable {
+public class AppContextSupport implements Serializable, Versioned {
 
 	private static final long serialVersionUID = 8988748274955015805L;
 
 	private XwebParameters appContext;
 	private Map<String,String> attributes;
+	private volatile long version = 0;
 	
 	/**
 	 * Construct a new AppContextSupport object and initialize with an 
@@ -120,6 +124,12 @@ public class AppContextSupport implements Serializable {
 	public void setAppContext(XwebParameters appContext) {
 		this.appContext = appContext;
 		init();
+		version++;
+	}
+
+	@Override
+	public long getVersion() {
+		return version;
 	}
 	
 }
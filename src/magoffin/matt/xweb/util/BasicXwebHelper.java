@@ -27,17 +27,28 @@
 package magoffin.matt.xweb.util;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import org.springframework.context.MessageSourceResolvable;
 
 /**
  * Basic implementation of XwebHelper.
  * 
+ * <p>Saved messages and URLs are kept in a {@link FlashStore}, which 
+ * defaults to a {@link SessionFlashStore}. Looking up a saved message 
+ * never creates a session, and the result is remembered for the rest of 
+ * the request, so rendering a page can check for a saved message as 
+ * often as it likes.</p>
+ * 
  * @author matt.magoffin
  * @version $Revision: 1.4 $ $Date: 2007/08/20 01:25:30 $
  */
-public class BasicXwebHelper implements XwebHelper {
+public class BasicXwebHelper implements ResponseAwareXwebHelper {
+	
+	private static final String SAVED_MESSAGE_ATTRIBUTE = BasicXwebHelper.class.getName() + ".MSG";
+	private static final Object NO_MESSAGE = new Object();
 	
 	private AppContextSupport appContextSupport = null;
+	private FlashStore flashStore = new SessionFlashStore();
 
 	/**
 	 * Default constsructor.
@@ -70,7 +81,10 @@ public class BasicXwebHelper implements XwebHelper {
 		if ( this.appContextSupport != null ) {
 			return this.appContextSupport;
 		}
-		Object o = request.getSession().getServletContext().getAttribute(
+		if ( request.getServletContext() == null ) {
+			return null;
+		}
+		Object o = request.getServletContext().getAttribute(
 				XwebConstants.APP_KEY_APP_CONTEXT);
 		if ( o instanceof AppContextSupport ) {
 			return (AppContextSupport)o;
@@ -79,9 +93,9 @@ public class BasicXwebHelper implements XwebHelper {
 	}
 
 	/**
-	 * Save a message into session.
+	 * Save a message into the flash store.
 	 * 
-	 * <p>This saves the message to session at the 
+	 * <p>This saves the message at the 
 	 * {@link XwebConstants#SES_KEY_SAVED_MESSAGE} key.</p>
 	 * 
 	 * @param request the current request
@@ -90,7 +104,25 @@ public class BasicXwebHelper implements XwebHelper {
 	 */
 	@Override
 	public final void saveMessage(HttpServletRequest request, MessageSourceResolvable message) {
-		request.getSession().setAttribute(XwebConstants.SES_KEY_SAVED_MESSAGE,message);
+		saveMessage(request, null, message);
+	}
+	
+	/**
+	 * Save a message into the flash store.
+	 * 
+	 * <p>This saves the message at the 
+	 * {@link XwebConstants#SES_KEY_SAVED_MESSAGE} key.</p>
+	 * 
+	 * @param request the current request
+	 * @param response the current response
+	 * @param message the message to save
+	 * @see #getSavedMessage(HttpServletRequest)
+	 */
+	@Override
+	public final void saveMessage(HttpServletRequest request, HttpServletResponse response, 
+			MessageSourceResolvable message) {
+		flashStore.put(request, response, XwebConstants.SES_KEY_SAVED_MESSAGE, message);
+		request.setAttribute(SAVED_MESSAGE_ATTRIBUTE, message);
 	}
 	
 	/**
@@ -101,7 +133,11 @@ public class BasicXwebHelper implements XwebHelper {
 	 */
 	@Override
 	public final MessageSourceResolvable getSavedMessage(HttpServletRequest request) {
-		Object o = request.getSession().getAttribute(XwebConstants.SES_KEY_SAVED_MESSAGE);
+		Object o = request.getAttribute(SAVED_MESSAGE_ATTRIBUTE);
+		if ( o == null ) {
+			o = flashStore.get(request, XwebConstants.SES_KEY_SAVED_MESSAGE);
+			request.setAttribute(SAVED_MESSAGE_ATTRIBUTE, o == null ? NO_MESSAGE : o);
+		}
 		if ( o instanceof MessageSourceResolvable ) {
 			return (MessageSourceResolvable)o;
 		}
@@ -109,17 +145,20 @@ public class BasicXwebHelper implements XwebHelper {
 	}
 	
 	/**
-	 * Remove a message saved via {@link #saveMessage} from session.
+	 * Remove a message saved via {@link #saveMessage} from the flash store.
 	 * 
 	 * @param request the current request
 	 */
 	@Override
 	public final void clearSavedMessage(HttpServletRequest request) {
-		request.getSession().removeAttribute(XwebConstants.SES_KEY_SAVED_MESSAGE);
+		if ( request.getAttribute(SAVED_MESSAGE_ATTRIBUTE) != NO_MESSAGE ) {
+			flashStore.remove(request, null, XwebConstants.SES_KEY_SAVED_MESSAGE);
+			request.setAttribute(SAVED_MESSAGE_ATTRIBUTE, NO_MESSAGE);
+		}
 	}
 
 	/**
-	 * Save the current request URL to session.
+	 * Save the current request URL to the flash store.
 	 * 
 	 * <p>The URL will be saved to the 
 	 * {@link XwebConstants#SES_KEY_SAVED_URL} key.</p>
@@ -129,17 +168,32 @@ public class BasicXwebHelper implements XwebHelper {
 	 */
 	@Override
 	public void saveRequestURL(HttpServletRequest request) {
+		saveRequestURL(request, null);
+	}
+
+	/**
+	 * Save the current request URL to the flash store.
+	 * 
+	 * <p>The URL will be saved to the 
+	 * {@link XwebConstants#SES_KEY_SAVED_URL} key.</p>
+	 * 
+	 * @param request the current request
+	 * @param response the current response
+	 * @see #getSavedRequestURL(HttpServletRequest)
+	 */
+	@Override
+	public void saveRequestURL(HttpServletRequest request, HttpServletResponse response) {
 		StringBuffer buf = request.getRequestURL();
 		String queryString = request.getQueryString();
 		if ( queryString != null ) {
 			buf.append('?');
 			buf.append(queryString);
 		}
-		request.getSession().setAttribute(XwebConstants.SES_KEY_SAVED_URL,buf.toString());
+		flashStore.put(request, response, XwebConstants.SES_KEY_SAVED_URL, buf.toString());
 	}
 
 	/**
-	 * Get the session-saved URL.
+	 * Get the saved URL.
 	 * 
 	 * @param request the current request
 	 * @return the saved URL, or <em>null</em> if none previously saved
@@ -147,7 +201,23 @@ public class BasicXwebHelper implements XwebHelper {
 	 */
 	@Override
 	public String getSavedRequestURL(HttpServletRequest request) {
-		return (String)request.getSession().getAttribute(XwebConstants.SES_KEY_SAVED_URL);
+		return (String)flashStore.get(request, XwebConstants.SES_KEY_SAVED_URL);
+	}
+	
+	/**
+	 * @return the flash store
+	 */
+	public FlashStore getFlashStore() {
+		return flashStore;
+	}
+
+	/**
+	 * Set the store to save messages and URLs in.
+	 * 
+	 * @param flashStore the flash store
+	 */
+	public void setFlashStore(FlashStore flashStore) {
+		this.flashStore = flashStore;
 	}
 	
 }
@@ -0,0 +1,792 @@
+/* ===================================================================
+ * BatchRenderer.java
+ * 
+ * Created Oct 18, 2026 6:49:04 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.ServletContextAware;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.i18n.FixedLocaleResolver;
+
+/**
+ * Render views outside of a servlet request, for example to export static
+ * pages.
+ * 
+ * <p>
+ * Each {@link Job} names a view, a model, a locale, and an optional
+ * {@link Context} describing the request the page should appear to be
+ * rendered for, and writes the page to a file or stream. Views are resolved
+ * via the configured <code>viewResolver</code>, so a caching resolver such
+ * as {@link XwebJaxbXsltViewResolver} compiles each stylesheet once and
+ * shares its Templates, pooled Marshallers, and cached message and settings
+ * fragments across the whole batch. Each view is rendered with a synthetic
+ * request and response, so views see the context's server name, paths and
+ * parameters but no headers, and render without compression or async
+ * rendering. The requests set the
+ * {@link XwebConstants#REQ_KEY_NO_PAGE_CACHE} attribute, so views neither
+ * serve batch pages from their page cache nor fill it with them.
+ * </p>
+ * 
+ * <p>
+ * The configurable properties of this class are:
+ * </p>
+ * 
+ * <dl class="class-properties">
+ * <dt>viewResolver</dt>
+ * <dd>The ViewResolver to resolve job view names with. Required.</dd>
+ * 
+ * <dt>threads</dt>
+ * <dd>The number of threads to render a batch with. Defaults to the number
+ * of available processors.</dd>
+ * 
+ * <dt>servletContext</dt>
+ * <dd>The ServletContext the synthetic sessions belong to, for views whose
+ * {@link XwebHelper} reads application attributes via the session. Set
+ * automatically when this is configured in a web application context.</dd>
+ * </dl>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class BatchRenderer implements ServletContextAware {
+
+	private static final Context DEFAULT_CONTEXT = new Context();
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private ViewResolver viewResolver;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private ServletContext servletContext = null;
+
+	/**
+	 * Render a batch of jobs in parallel on <code>threads</code> threads.
+	 * 
+	 * <p>
+	 * Jobs that fail do not stop the batch; their errors are collected in
+	 * the returned report.
+	 * </p>
+	 * 
+	 * @param jobs
+	 *        the jobs to render
+	 * @return the report
+	 * @throws InterruptedException
+	 *         if interrupted while waiting for the jobs to finish
+	 */
+	public Report render(Collection<Job> jobs) throws InterruptedException {
+		final long start = System.currentTimeMillis();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads),
+				new ThreadFactory() {
+
+					private final AtomicInteger count = new AtomicInteger(0);
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "XwebBatch-" + count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+
+				});
+		Map<Job, Future<Long>> results = new LinkedHashMap<Job, Future<Long>>();
+		try {
+			for ( final Job job : jobs ) {
+				results.put(job, executor.submit(new Callable<Long>() {
+
+					@Override
+					public Long call() throws Exception {
+						return render(job);
+					}
+
+				}));
+			}
+			Map<Job, Throwable> failures = new LinkedHashMap<Job, Throwable>();
+			long bytes = 0;
+			for ( Map.Entry<Job, Future<Long>> me : results.entrySet() ) {
+				try {
+					bytes += me.getValue().get().longValue();
+				} catch ( ExecutionException e ) {
+					log.warn("Unable to render " + me.getKey(), e.getCause());
+					failures.put(me.getKey(), e.getCause());
+				}
+			}
+			Report report = new Report(results.size(), failures, bytes,
+					System.currentTimeMillis() - start);
+			log.info("Rendered {}", report);
+			return report;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Render a single job on the calling thread.
+	 * 
+	 * <p>
+	 * If the job writes to a file, the file is deleted again if the render
+	 * fails. A job's output stream is flushed but not closed.
+	 * </p>
+	 * 
+	 * @param job
+	 *        the job to render
+	 * @return the number of bytes written
+	 * @throws Exception
+	 *         if the view cannot be resolved or fails to render
+	 */
+	public long render(Job job) throws Exception {
+		View view = viewResolver.resolveViewName(job.getViewName(), job.getLocale());
+		if ( view == null ) {
+			throw new ServletException("View [" + job.getViewName() + "] not found");
+		}
+		File file = job.getOutputFile();
+		OutputStream dest = job.getOutputStream();
+		if ( file != null ) {
+			File dir = file.getAbsoluteFile().getParentFile();
+			if ( dir != null && !dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory() ) {
+				throw new IOException("Unable to create directory [" + dir + ']');
+			}
+			dest = new BufferedOutputStream(new FileOutputStream(file));
+		}
+		CountingOutputStream out = new CountingOutputStream(dest);
+		boolean rendered = false;
+		try {
+			ResponseHandler response = new ResponseHandler(out);
+			view.render(job.getModel(), new RequestHandler(job, servletContext).proxy(),
+					response.proxy());
+			response.finish();
+			if ( response.status >= HttpServletResponse.SC_BAD_REQUEST ) {
+				throw new ServletException("View [" + job.getViewName() + "] responded with status "
+						+ response.status);
+			}
+			rendered = true;
+		} finally {
+			if ( file != null ) {
+				out.close();
+				if ( !rendered && !file.delete() ) {
+					log.debug("Unable to delete partial output {}", file);
+				}
+			}
+		}
+		return out.count;
+	}
+
+	/**
+	 * A page to render.
+	 */
+	public static final class Job {
+
+		private final String viewName;
+		private final Map<String, ?> model;
+		private final Locale locale;
+		private final File outputFile;
+		private final OutputStream outputStream;
+		private Context context = DEFAULT_CONTEXT;
+
+		/**
+		 * Construct a job that writes to a file.
+		 * 
+		 * @param viewName
+		 *        the name of the view to render
+		 * @param model
+		 *        the model
+		 * @param locale
+		 *        the locale, or <em>null</em> for the default locale
+		 * @param outputFile
+		 *        the file to write, which is replaced if it exists
+		 */
+		public Job(String viewName, Map<String, ?> model, Locale locale, File outputFile) {
+			this(viewName, model, locale, outputFile, null);
+		}
+
+		/**
+		 * Construct a job that writes to a stream.
+		 * 
+		 * @param viewName
+		 *        the name of the view to render
+		 * @param model
+		 *        the model
+		 * @param locale
+		 *        the locale, or <em>null</em> for the default locale
+		 * @param outputStream
+		 *        the stream to write to, which is not closed
+		 */
+		public Job(String viewName, Map<String, ?> model, Locale locale, OutputStream outputStream) {
+			this(viewName, model, locale, null, outputStream);
+		}
+
+		private Job(String viewName, Map<String, ?> model, Locale locale, File outputFile,
+				OutputStream outputStream) {
+			super();
+			this.viewName = viewName;
+			this.model = model;
+			this.locale = (locale == null ? Locale.getDefault() : locale);
+			this.outputFile = outputFile;
+			this.outputStream = outputStream;
+		}
+
+		@Override
+		public String toString() {
+			return "Job{" + viewName + ',' + locale + ','
+					+ (outputFile != null ? outputFile : context.getServletPath()) + '}';
+		}
+
+		public String getViewName() {
+			return viewName;
+		}
+
+		public Map<String, ?> getModel() {
+			return model;
+		}
+
+		public Locale getLocale() {
+			return locale;
+		}
+
+		public File getOutputFile() {
+			return outputFile;
+		}
+
+		public OutputStream getOutputStream() {
+			return outputStream;
+		}
+
+		public Context getContext() {
+			return context;
+		}
+
+		public void setContext(Context context) {
+			this.context = (context == null ? DEFAULT_CONTEXT : context);
+		}
+
+	}
+
+	/**
+	 * The request a {@link Job} is rendered for, which populates the
+	 * <code>x-context</code> and <code>x-request</code> sections of the
+	 * x-data. Instances may be shared by many jobs.
+	 */
+	public static final class Context {
+
+		private String serverName = "localhost";
+		private int serverPort = 80;
+		private String scheme = "http";
+		private String contextPath = "";
+		private String servletPath = "";
+		private Map<String, String[]> parameters = Collections.emptyMap();
+
+		public String getServerName() {
+			return serverName;
+		}
+
+		public void setServerName(String serverName) {
+			this.serverName = serverName;
+		}
+
+		public int getServerPort() {
+			return serverPort;
+		}
+
+		public void setServerPort(int serverPort) {
+			this.serverPort = serverPort;
+		}
+
+		public String getScheme() {
+			return scheme;
+		}
+
+		public void setScheme(String scheme) {
+			this.scheme = scheme;
+		}
+
+		public String getContextPath() {
+			return contextPath;
+		}
+
+		public void setContextPath(String contextPath) {
+			this.contextPath = contextPath;
+		}
+
+		public String getServletPath() {
+			return servletPath;
+		}
+
+		public void setServletPath(String servletPath) {
+			this.servletPath = servletPath;
+		}
+
+		public Map<String, String[]> getParameters() {
+			return parameters;
+		}
+
+		public void setParameters(Map<String, String[]> parameters) {
+			this.parameters = parameters;
+		}
+
+	}
+
+	/**
+	 * The outcome of rendering a batch.
+	 */
+	public static final class Report {
+
+		private final int jobCount;
+		private final Map<Job, Throwable> failures;
+		private final long bytesWritten;
+		private final long elapsedMillis;
+
+		private Report(int jobCount, Map<Job, Throwable> failures, long bytesWritten,
+				long elapsedMillis) {
+			super();
+			this.jobCount = jobCount;
+			this.failures = Collections.unmodifiableMap(failures);
+			this.bytesWritten = bytesWritten;
+			this.elapsedMillis = elapsedMillis;
+		}
+
+		/**
+		 * Get the number of pages rendered per second.
+		 * 
+		 * @return the throughput
+		 */
+		public double getPagesPerSecond() {
+			return (getSuccessCount() * 1000.0) / Math.max(1, elapsedMillis);
+		}
+
+		/**
+		 * Get the number of jobs that rendered successfully.
+		 * 
+		 * @return the success count
+		 */
+		public int getSuccessCount() {
+			return jobCount - failures.size();
+		}
+
+		@Override
+		public String toString() {
+			return "Report{jobs=" + jobCount + ",failures=" + failures.size() + ",bytes="
+					+ bytesWritten + ",ms=" + elapsedMillis + ",pages/s="
+					+ String.format("%.1f", getPagesPerSecond()) + '}';
+		}
+
+		public int getJobCount() {
+			return jobCount;
+		}
+
+		public Map<Job, Throwable> getFailures() {
+			return failures;
+		}
+
+		public long getBytesWritten() {
+			return bytesWritten;
+		}
+
+		public long getElapsedMillis() {
+			return elapsedMillis;
+		}
+
+	}
+
+	private static final class CountingOutputStream extends FilterOutputStream {
+
+		private long count = 0;
+
+		private CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+	}
+
+	private static Object defaultValue(Class<?> type) {
+		if ( type == Boolean.TYPE ) {
+			return Boolean.FALSE;
+		}
+		if ( type == Integer.TYPE ) {
+			return Integer.valueOf(0);
+		}
+		if ( type == Long.TYPE ) {
+			return Long.valueOf(0);
+		}
+		return null;
+	}
+
+	/**
+	 * Base for the synthetic servlet objects, which implement only what views
+	 * use and return defaults from everything else.
+	 */
+	private abstract static class SyntheticHandler implements InvocationHandler {
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if ( "equals".equals(name) ) {
+				return Boolean.valueOf(proxy == args[0]);
+			}
+			if ( "hashCode".equals(name) ) {
+				return Integer.valueOf(System.identityHashCode(proxy));
+			}
+			if ( "toString".equals(name) ) {
+				return getClass().getSimpleName() + '@' + Integer.toHexString(hashCode());
+			}
+			return handle(name, args, method.getReturnType());
+		}
+
+		abstract Object handle(String name, Object[] args, Class<?> returnType) throws Exception;
+
+	}
+
+	private static final class RequestHandler extends SyntheticHandler {
+
+		private final Job job;
+		private final Context context;
+		private final ServletContext servletContext;
+		private final Map<String, Object> attributes = new HashMap<String, Object>();
+		private HttpSession session = null;
+
+		private RequestHandler(Job job, ServletContext servletContext) {
+			super();
+			this.job = job;
+			this.context = job.getContext();
+			this.servletContext = servletContext;
+			attributes.put(DispatcherServlet.LOCALE_RESOLVER_ATTRIBUTE,
+					new FixedLocaleResolver(job.getLocale()));
+			attributes.put(XwebConstants.REQ_KEY_NO_PAGE_CACHE, Boolean.TRUE);
+		}
+
+		private HttpServletRequest proxy() {
+			return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { HttpServletRequest.class }, this);
+		}
+
+		private String getRequestURI() {
+			return context.getContextPath() + context.getServletPath();
+		}
+
+		@Override
+		Object handle(String name, Object[] args, Class<?> returnType) throws Exception {
+			if ( "getAttribute".equals(name) ) {
+				return attributes.get(args[0]);
+			} else if ( "getAttributeNames".equals(name) ) {
+				return Collections.enumeration(new ArrayList<String>(attributes.keySet()));
+			} else if ( "setAttribute".equals(name) ) {
+				if ( args[1] == null ) {
+					attributes.remove(args[0]);
+				} else {
+					attributes.put((String) args[0], args[1]);
+				}
+			} else if ( "removeAttribute".equals(name) ) {
+				attributes.remove(args[0]);
+			} else if ( "getParameter".equals(name) ) {
+				String[] values = context.getParameters().get(args[0]);
+				return (values == null || values.length < 1 ? null : values[0]);
+			} else if ( "getParameterValues".equals(name) ) {
+				return context.getParameters().get(args[0]);
+			} else if ( "getParameterNames".equals(name) ) {
+				return Collections.enumeration(context.getParameters().keySet());
+			} else if ( "getParameterMap".equals(name) ) {
+				return Collections.unmodifiableMap(context.getParameters());
+			} else if ( "getHeaders".equals(name) || "getHeaderNames".equals(name) ) {
+				return Collections.enumeration(Collections.emptyList());
+			} else if ( "getDateHeader".equals(name) || "getIntHeader".equals(name)
+					|| "getContentLength".equals(name) ) {
+				return (returnType == Long.TYPE ? Long.valueOf(-1) : Integer.valueOf(-1));
+			} else if ( "getLocale".equals(name) ) {
+				return job.getLocale();
+			} else if ( "getLocales".equals(name) ) {
+				return Collections.enumeration(Collections.singletonList(job.getLocale()));
+			} else if ( "getServerName".equals(name) || "getLocalName".equals(name) ) {
+				return context.getServerName();
+			} else if ( "getServerPort".equals(name) || "getLocalPort".equals(name) ) {
+				return Integer.valueOf(context.getServerPort());
+			} else if ( "getScheme".equals(name) ) {
+				return context.getScheme();
+			} else if ( "isSecure".equals(name) ) {
+				return Boolean.valueOf("https".equals(context.getScheme()));
+			} else if ( "getContextPath".equals(name) ) {
+				return context.getContextPath();
+			} else if ( "getServletPath".equals(name) ) {
+				return context.getServletPath();
+			} else if ( "getRequestURI".equals(name) ) {
+				return getRequestURI();
+			} else if ( "getRequestURL".equals(name) ) {
+				StringBuffer buf = new StringBuffer(context.getScheme()).append("://").append(
+						context.getServerName());
+				if ( context.getServerPort() != 80 && context.getServerPort() != 443 ) {
+					buf.append(':').append(context.getServerPort());
+				}
+				return buf.append(getRequestURI());
+			} else if ( "getMethod".equals(name) ) {
+				return "GET";
+			} else if ( "getProtocol".equals(name) ) {
+				return "HTTP/1.1";
+			} else if ( "getDispatcherType".equals(name) ) {
+				return DispatcherType.REQUEST;
+			} else if ( "getServletContext".equals(name) ) {
+				return servletContext;
+			} else if ( "getSession".equals(name) ) {
+				if ( session == null && (args == null || ((Boolean) args[0]).booleanValue()) ) {
+					session = new SessionHandler(servletContext).proxy();
+				}
+				return session;
+			}
+			return defaultValue(returnType);
+		}
+
+	}
+
+	private static final class SessionHandler extends SyntheticHandler {
+
+		private static final AtomicLong SESSION_COUNT = new AtomicLong(0);
+
+		private final ServletContext servletContext;
+		private final String id = "batch-" + SESSION_COUNT.incrementAndGet();
+		private final long created = System.currentTimeMillis();
+		private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+		private SessionHandler(ServletContext servletContext) {
+			super();
+			this.servletContext = servletContext;
+		}
+
+		private HttpSession proxy() {
+			return (HttpSession) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { HttpSession.class }, this);
+		}
+
+		@Override
+		Object handle(String name, Object[] args, Class<?> returnType) throws Exception {
+			if ( "getId".equals(name) ) {
+				return id;
+			} else if ( "getAttribute".equals(name) ) {
+				return attributes.get(args[0]);
+			} else if ( "getAttributeNames".equals(name) ) {
+				return Collections.enumeration(new ArrayList<String>(attributes.keySet()));
+			} else if ( "setAttribute".equals(name) ) {
+				if ( args[1] == null ) {
+					attributes.remove(args[0]);
+				} else {
+					attributes.put((String) args[0], args[1]);
+				}
+			} else if ( "removeAttribute".equals(name) ) {
+				attributes.remove(args[0]);
+			} else if ( "getCreationTime".equals(name) || "getLastAccessedTime".equals(name) ) {
+				return Long.valueOf(created);
+			} else if ( "isNew".equals(name) ) {
+				return Boolean.TRUE;
+			} else if ( "getServletContext".equals(name) ) {
+				return servletContext;
+			}
+			return defaultValue(returnType);
+		}
+
+	}
+
+	private static final class ResponseHandler extends SyntheticHandler {
+
+		private final OutputStream out;
+		private final Map<String, List<String>> headers = new HashMap<String, List<String>>();
+		private String characterEncoding = "ISO-8859-1";
+		private String contentType = null;
+		private Locale locale = Locale.getDefault();
+		private int status = HttpServletResponse.SC_OK;
+		private ServletOutputStream servletOut = null;
+		private PrintWriter writer = null;
+
+		private ResponseHandler(OutputStream out) {
+			super();
+			this.out = out;
+		}
+
+		private HttpServletResponse proxy() {
+			return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { HttpServletResponse.class }, this);
+		}
+
+		private void finish() throws IOException {
+			if ( writer != null ) {
+				writer.flush();
+			}
+			out.flush();
+		}
+
+		private void setContentType(String type) {
+			contentType = type;
+			if ( type == null ) {
+				return;
+			}
+			int idx = type.toLowerCase().indexOf("charset=");
+			if ( idx >= 0 ) {
+				characterEncoding = type.substring(idx + 8).trim();
+			}
+		}
+
+		private void setHeader(String name, Object value, boolean add) {
+			String key = name.toLowerCase();
+			List<String> values = headers.get(key);
+			if ( values == null || !add ) {
+				values = new ArrayList<String>(2);
+				headers.put(key, values);
+			}
+			values.add(String.valueOf(value));
+		}
+
+		@Override
+		Object handle(String name, Object[] args, Class<?> returnType) throws Exception {
+			if ( "getOutputStream".equals(name) ) {
+				if ( servletOut == null ) {
+					servletOut = new ServletOutputStream() {
+
+						@Override
+						public void write(int b) throws IOException {
+							out.write(b);
+						}
+
+						@Override
+						public void write(byte[] b, int off, int len) throws IOException {
+							out.write(b, off, len);
+						}
+
+					};
+				}
+				return servletOut;
+			} else if ( "getWriter".equals(name) ) {
+				if ( writer == null ) {
+					writer = new PrintWriter(new OutputStreamWriter(out, characterEncoding));
+				}
+				return writer;
+			} else if ( "getCharacterEncoding".equals(name) ) {
+				return characterEncoding;
+			} else if ( "setCharacterEncoding".equals(name) ) {
+				if ( args[0] != null ) {
+					characterEncoding = (String) args[0];
+				}
+			} else if ( "getContentType".equals(name) ) {
+				return contentType;
+			} else if ( "setContentType".equals(name) ) {
+				setContentType((String) args[0]);
+			} else if ( "getLocale".equals(name) ) {
+				return locale;
+			} else if ( "setLocale".equals(name) ) {
+				locale = (Locale) args[0];
+			} else if ( "setStatus".equals(name) || "sendError".equals(name) ) {
+				status = ((Integer) args[0]).intValue();
+			} else if ( "getStatus".equals(name) ) {
+				return Integer.valueOf(status);
+			} else if ( name.startsWith("set") && name.endsWith("Header") ) {
+				setHeader((String) args[0], args[1], false);
+			} else if ( name.startsWith("add") && name.endsWith("Header") ) {
+				setHeader((String) args[0], args[1], true);
+			} else if ( "containsHeader".equals(name) ) {
+				return Boolean.valueOf(headers.containsKey(((String) args[0]).toLowerCase()));
+			} else if ( "getHeader".equals(name) ) {
+				List<String> values = headers.get(((String) args[0]).toLowerCase());
+				return (values == null ? null : values.get(0));
+			} else if ( "getHeaders".equals(name) ) {
+				List<String> values = headers.get(((String) args[0]).toLowerCase());
+				return (values == null ? Collections.<String> emptyList() : values);
+			} else if ( "getHeaderNames".equals(name) ) {
+				return new ArrayList<String>(headers.keySet());
+			} else if ( "flushBuffer".equals(name) ) {
+				finish();
+			}
+			return defaultValue(returnType);
+		}
+
+	}
+
+	public ViewResolver getViewResolver() {
+		return viewResolver;
+	}
+
+	public void setViewResolver(ViewResolver viewResolver) {
+		this.viewResolver = viewResolver;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public ServletContext getServletContext() {
+		return servletContext;
+	}
+
+	@Override
+	public void setServletContext(ServletContext servletContext) {
+		this.servletContext = servletContext;
+	}
+
+}
@@ -0,0 +1,376 @@
+/* ===================================================================
+ * CachingURIResolver.java
+ * 
+ * Created Oct 18, 2026 6:19:52 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.sax.SAXSource;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * URIResolver that caches parsed documents, for stylesheets imported or
+ * included by several views and documents loaded via the XSLT
+ * <code>document()</code> function.
+ * 
+ * <p>
+ * Resolved documents are parsed once and recorded as a {@link SaxEventBuffer},
+ * then replayed for each later resolution of the same absolute URI. A cached
+ * document is parsed again once the modification time of its URI changes,
+ * which is checked at most once every <code>checkInterval</code>
+ * milliseconds. The least-recently used documents are evicted once more than
+ * <code>maxEntries</code> are cached. Comments and DTD information are not
+ * recorded. Documents without a known modification time, for example from
+ * URLs that send no <code>Last-Modified</code> header, are not cached, as
+ * their changes could not be detected; they are left to the XSLT processor
+ * to resolve.
+ * </p>
+ * 
+ * <p>
+ * The configurable properties of this class are:
+ * </p>
+ * 
+ * <dl>
+ * <dt>delegate</dt>
+ * <dd>An optional URIResolver to try first, for example
+ * {@link XwebMessagesURIResolver}. Sources returned by the delegate are not
+ * cached.</dd>
+ * 
+ * <dt>maxEntries</dt>
+ * <dd>The maximum number of documents to cache. Defaults to
+ * {@link #DEFAULT_MAX_ENTRIES}.</dd>
+ * 
+ * <dt>checkInterval</dt>
+ * <dd>The minimum number of milliseconds between checks of a cached
+ * document's modification time. Set to <code>0</code> to check every time,
+ * or <code>-1</code> to never check. Defaults to
+ * {@link #DEFAULT_CHECK_INTERVAL}.</dd>
+ * </dl>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class CachingURIResolver implements URIResolver {
+
+	/** The default value for the <code>maxEntries</code> property. */
+	public static final int DEFAULT_MAX_ENTRIES = 100;
+
+	/** The default value for the <code>checkInterval</code> property. */
+	public static final long DEFAULT_CHECK_INTERVAL = 2000L;
+
+	private static final SAXParserFactory PARSER_FACTORY = SAXParserFactory.newInstance();
+
+	static {
+		PARSER_FACTORY.setNamespaceAware(true);
+	}
+
+	private final Map<String, Entry> documents = new LinkedHashMap<String, Entry>(16, 0.75f,
+			true);
+	private final AtomicLong hitCount = new AtomicLong(0);
+	private final AtomicLong missCount = new AtomicLong(0);
+
+	private URIResolver delegate = null;
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+	private long checkInterval = DEFAULT_CHECK_INTERVAL;
+
+	@Override
+	public Source resolve(String href, String base) throws TransformerException {
+		if ( delegate != null ) {
+			Source source = delegate.resolve(href, base);
+			if ( source != null ) {
+				return source;
+			}
+		}
+		URL url;
+		try {
+			url = (base == null || base.length() < 1 ? new URL(href) : new URL(new URL(base), href));
+		} catch ( MalformedURLException e ) {
+			// let the XSLT processor resolve it
+			return null;
+		}
+		if ( url.getRef() != null ) {
+			// fragment identifiers are left to the XSLT processor
+			return null;
+		}
+		String key = url.toExternalForm();
+		long now = System.currentTimeMillis();
+		Entry entry;
+		synchronized ( documents ) {
+			entry = documents.get(key);
+		}
+		long modified = -1;
+		if ( entry != null ) {
+			if ( checkInterval < 0 || now - entry.checked < checkInterval ) {
+				hitCount.incrementAndGet();
+				return entry.toSource(key);
+			}
+			modified = getLastModified(url);
+			if ( modified == entry.lastModified ) {
+				entry.checked = now;
+				hitCount.incrementAndGet();
+				return entry.toSource(key);
+			}
+		}
+		if ( modified < 0 ) {
+			modified = getLastModified(url);
+		}
+		if ( modified <= 0 ) {
+			// changes could not be detected, so do not cache
+			if ( entry != null ) {
+				synchronized ( documents ) {
+					documents.remove(key);
+				}
+			}
+			return null;
+		}
+		missCount.incrementAndGet();
+		entry = new Entry(parse(key), modified, now);
+		synchronized ( documents ) {
+			documents.put(key, entry);
+			if ( documents.size() > maxEntries ) {
+				Iterator<Entry> itr = documents.values().iterator();
+				while ( documents.size() > maxEntries && itr.hasNext() ) {
+					itr.next();
+					itr.remove();
+				}
+			}
+		}
+		return entry.toSource(key);
+	}
+
+	private SaxEventBuffer parse(String systemId) throws TransformerException {
+		SaxEventBuffer buffer = new SaxEventBuffer();
+		try {
+			XMLReader reader = PARSER_FACTORY.newSAXParser().getXMLReader();
+			reader.setContentHandler(buffer);
+			reader.parse(systemId);
+		} catch ( ParserConfigurationException e ) {
+			throw new TransformerException(e);
+		} catch ( SAXException e ) {
+			throw new TransformerException("Unable to parse [" + systemId + "]", e);
+		} catch ( IOException e ) {
+			throw new TransformerException("Unable to read [" + systemId + "]", e);
+		}
+		buffer.trimToSize();
+		return buffer;
+	}
+
+	private long getLastModified(URL url) {
+		if ( "file".equals(url.getProtocol()) ) {
+			try {
+				return new File(url.toURI()).lastModified();
+			} catch ( URISyntaxException e ) {
+				return new File(url.getPath()).lastModified();
+			} catch ( IllegalArgumentException e ) {
+				return new File(url.getPath()).lastModified();
+			}
+		}
+		try {
+			URLConnection conn = url.openConnection();
+			try {
+				return conn.getLastModified();
+			} finally {
+				if ( conn instanceof HttpURLConnection ) {
+					((HttpURLConnection) conn).disconnect();
+				} else {
+					conn.getInputStream().close();
+				}
+			}
+		} catch ( IOException e ) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Remove all cached documents.
+	 */
+	public void clear() {
+		synchronized ( documents ) {
+			documents.clear();
+		}
+	}
+
+	/**
+	 * Get the number of cached documents.
+	 * 
+	 * @return the size
+	 */
+	public int size() {
+		synchronized ( documents ) {
+			return documents.size();
+		}
+	}
+
+	/**
+	 * Get the number of resolutions served from the cache.
+	 * 
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Get the number of resolutions that parsed a document.
+	 * 
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "CachingURIResolver{size=" + size() + ",hits=" + hitCount.get() + ",misses="
+				+ missCount.get() + '}';
+	}
+
+	private static final class Entry {
+
+		private final SaxEventBuffer buffer;
+		private final long lastModified;
+		private volatile long checked;
+
+		private Entry(SaxEventBuffer buffer, long lastModified, long checked) {
+			this.buffer = buffer;
+			this.lastModified = lastModified;
+			this.checked = checked;
+		}
+
+		private Source toSource(String systemId) {
+			return new SAXSource(new ReplayXmlReader(buffer), new InputSource(systemId));
+		}
+
+	}
+
+	/**
+	 * Pseudo XMLReader that replays a recorded document.
+	 */
+	private static final class ReplayXmlReader extends XMLFilterImpl {
+
+		private static final String NAMESPACES_FEATURE = "http://xml.org/sax/features/namespaces";
+		private static final String NAMESPACE_PREFIXES_FEATURE = "http://xml.org/sax/features/namespace-prefixes";
+
+		private final SaxEventBuffer buffer;
+
+		private ReplayXmlReader(SaxEventBuffer buffer) {
+			super();
+			this.buffer = buffer;
+		}
+
+		@Override
+		public boolean getFeature(String name) throws SAXNotRecognizedException {
+			if ( NAMESPACES_FEATURE.equals(name) ) {
+				return true;
+			}
+			if ( NAMESPACE_PREFIXES_FEATURE.equals(name) ) {
+				return false;
+			}
+			throw new SAXNotRecognizedException(name);
+		}
+
+		@Override
+		public void setFeature(String name, boolean value) throws SAXNotRecognizedException {
+			if ( NAMESPACES_FEATURE.equals(name) && value ) {
+				return;
+			}
+			if ( NAMESPACE_PREFIXES_FEATURE.equals(name) && !value ) {
+				return;
+			}
+			throw new SAXNotRecognizedException(name);
+		}
+
+		@Override
+		public Object getProperty(String name) {
+			return null;
+		}
+
+		@Override
+		public void setProperty(String name, Object value) {
+			// the document is already parsed, so parser properties do not apply
+		}
+
+		@Override
+		public void parse(InputSource input) throws SAXException {
+			parse();
+		}
+
+		@Override
+		public void parse(String systemId) throws SAXException {
+			parse();
+		}
+
+		private void parse() throws SAXException {
+			getContentHandler().startDocument();
+			buffer.writeTo(getContentHandler());
+			getContentHandler().endDocument();
+		}
+
+	}
+
+	public URIResolver getDelegate() {
+		return delegate;
+	}
+
+	public void setDelegate(URIResolver delegate) {
+		this.delegate = delegate;
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	public long getCheckInterval() {
+		return checkInterval;
+	}
+
+	public void setCheckInterval(long checkInterval) {
+		this.checkInterval = checkInterval;
+	}
+
+}
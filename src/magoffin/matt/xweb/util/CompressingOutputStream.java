@@ -0,0 +1,287 @@
+/* ===================================================================
+ * CompressingOutputStream.java
+ * 
+ * Created Oct 18, 2026 6:09:07 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * OutputStream that compresses output written to an HTTP response, once the
+ * output reaches a minimum size.
+ * 
+ * <p>
+ * Output is buffered until <code>threshold</code> bytes have been written.
+ * If {@link #finish()} is called before then, the buffered output is written
+ * uncompressed with a <code>Content-Length</code> header. Otherwise the
+ * <code>Content-Encoding</code> header is set and all output is compressed
+ * directly into the response stream from then on.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class CompressingOutputStream extends OutputStream {
+
+	/** The gzip content encoding. */
+	public static final String ENCODING_GZIP = "gzip";
+
+	/** The deflate content encoding. */
+	public static final String ENCODING_DEFLATE = "deflate";
+
+	private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+	private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+	private static final String HEADER_VARY = "Vary";
+
+	private final HttpServletResponse response;
+	private final String encoding;
+	private final int level;
+	private final int threshold;
+	private ByteArrayOutputStream buffer;
+	private OutputStream out = null;
+
+	/**
+	 * Construct for a response.
+	 * 
+	 * @param response
+	 *        the response to write to
+	 * @param encoding
+	 *        the content encoding to use, either {@link #ENCODING_GZIP} or
+	 *        {@link #ENCODING_DEFLATE}
+	 * @param level
+	 *        the compression level, from <code>0</code> to <code>9</code>
+	 *        or {@link Deflater#DEFAULT_COMPRESSION}
+	 * @param threshold
+	 *        the minimum number of bytes to compress
+	 */
+	public CompressingOutputStream(HttpServletResponse response, String encoding, int level,
+			int threshold) {
+		super();
+		this.response = response;
+		this.encoding = encoding;
+		this.level = level;
+		this.threshold = threshold;
+		this.buffer = new ByteArrayOutputStream(Math.min(Math.max(threshold, 32), 8192));
+	}
+
+	/**
+	 * Get the content encoding to use for a request, based on its
+	 * <code>Accept-Encoding</code> header.
+	 * 
+	 * @param request
+	 *        the request
+	 * @return {@link #ENCODING_GZIP}, {@link #ENCODING_DEFLATE}, or
+	 *         <em>null</em> if the client does not accept either
+	 */
+	public static String getAcceptedEncoding(HttpServletRequest request) {
+		String header = request.getHeader(HEADER_ACCEPT_ENCODING);
+		if ( header == null ) {
+			return null;
+		}
+		boolean deflate = false;
+		for ( String accepted : header.split(",") ) {
+			String[] parts = accepted.split(";");
+			String coding = parts[0].trim().toLowerCase();
+			if ( parts.length > 1 ) {
+				String param = parts[1].trim();
+				if ( param.startsWith("q=") && param.substring(2).trim().matches("0(\\.0*)?") ) {
+					// explicitly not acceptable
+					continue;
+				}
+			}
+			if ( ENCODING_GZIP.equals(coding) || "x-gzip".equals(coding) ) {
+				return ENCODING_GZIP;
+			}
+			if ( ENCODING_DEFLATE.equals(coding) ) {
+				deflate = true;
+			}
+		}
+		return (deflate ? ENCODING_DEFLATE : null);
+	}
+
+	/**
+	 * Add the <code>Vary</code> header for responses that may be compressed.
+	 * 
+	 * @param response
+	 *        the response
+	 */
+	public static void addVaryHeader(HttpServletResponse response) {
+		response.addHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+	}
+
+	/**
+	 * Set the <code>Content-Encoding</code> header for a response.
+	 * 
+	 * @param response
+	 *        the response
+	 * @param encoding
+	 *        the content encoding
+	 */
+	public static void setContentEncoding(HttpServletResponse response, String encoding) {
+		response.setHeader(HEADER_CONTENT_ENCODING, encoding);
+	}
+
+	/**
+	 * Compress data with gzip.
+	 * 
+	 * @param data
+	 *        the data to compress
+	 * @param level
+	 *        the compression level
+	 * @return the compressed data
+	 */
+	public static byte[] gzip(byte[] data, int level) {
+		ByteArrayOutputStream byos = new ByteArrayOutputStream(data.length / 4 + 32);
+		try {
+			OutputStream gzip = new LeveledGZIPOutputStream(byos, level);
+			gzip.write(data);
+			gzip.close();
+		} catch ( IOException e ) {
+			// should not happen with a ByteArrayOutputStream
+			throw new RuntimeException(e);
+		}
+		return byos.toByteArray();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if ( out != null ) {
+			out.write(b);
+			return;
+		}
+		buffer.write(b);
+		checkThreshold();
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if ( out != null ) {
+			out.write(b, off, len);
+			return;
+		}
+		buffer.write(b, off, len);
+		checkThreshold();
+	}
+
+	@Override
+	public void flush() throws IOException {
+		// flushing buffered output would commit the response before the encoding is known
+		if ( out != null ) {
+			out.flush();
+		}
+	}
+
+	/**
+	 * Finish writing the response, without closing the response stream.
+	 * 
+	 * @throws IOException
+	 *         if an IO error occurs
+	 */
+	public void finish() throws IOException {
+		if ( out == null ) {
+			byte[] data = buffer.toByteArray();
+			buffer = null;
+			response.setContentLength(data.length);
+			out = response.getOutputStream();
+			out.write(data);
+		} else if ( out instanceof DeflaterOutputStream ) {
+			((DeflaterOutputStream) out).finish();
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		finish();
+		out.close();
+	}
+
+	/**
+	 * Test if the output is being compressed.
+	 * 
+	 * @return <em>true</em> if the output is compressed
+	 */
+	public boolean isCompressing() {
+		return (out instanceof DeflaterOutputStream);
+	}
+
+	private void checkThreshold() throws IOException {
+		if ( buffer.size() < threshold ) {
+			return;
+		}
+		setContentEncoding(response, encoding);
+		OutputStream stream = response.getOutputStream();
+		if ( ENCODING_GZIP.equals(encoding) ) {
+			out = new LeveledGZIPOutputStream(stream, level);
+		} else {
+			out = new LeveledDeflaterOutputStream(stream, level);
+		}
+		buffer.writeTo(out);
+		buffer = null;
+	}
+
+	/**
+	 * GZIPOutputStream with a configurable compression level.
+	 */
+	private static final class LeveledGZIPOutputStream extends GZIPOutputStream {
+
+		private LeveledGZIPOutputStream(OutputStream out, int level) throws IOException {
+			super(out, 8192);
+			def.setLevel(level);
+		}
+
+		@Override
+		public void finish() throws IOException {
+			super.finish();
+			def.end();
+		}
+
+	}
+
+	/**
+	 * DeflaterOutputStream with a configurable compression level.
+	 */
+	private static final class LeveledDeflaterOutputStream extends DeflaterOutputStream {
+
+		private LeveledDeflaterOutputStream(OutputStream out, int level) {
+			super(out, new Deflater(level), 8192);
+		}
+
+		@Override
+		public void finish() throws IOException {
+			super.finish();
+			def.end();
+		}
+
+	}
+
+}
@@ -80,6 +80,11 @@ import org.springframework.web.servlet.view.AbstractCachingViewResolver;
  *   <dt>xsltPathSuffix</dt>
  *   <dd>A suffix to append to XSLT resource paths. Defaults to 
  *   <code>.xsl</code></dd>
+ * 
+ *   <dt>transletLoader</dt>
+ *   <dd>An optional {@link TransletLoader} to set on resolved views that have
+ *   a writable <code>transletLoader</code> property, so they load precompiled
+ *   translets rather than compiling their stylesheet at runtime.</dd>
  * </dl>
  * 
  * @author Matt Magoffin (spamsqr@msqr.us)
@@ -93,6 +98,7 @@ public class DefaultXsltViewResolver extends AbstractCachingViewResolver impleme
 	private String xsltPathPrefix = "/WEB-INF/xsl/";
 	private String xsltPathSuffix = ".xsl";
 	private boolean useAbsolutePaths = false;
+	private TransletLoader transletLoader = null;
 	
 	private int order = Integer.MAX_VALUE;
     
@@ -124,6 +130,9 @@ public class DefaultXsltViewResolver extends AbstractCachingViewResolver impleme
 		
 		// set the stylesheet location
 		BeanWrapper wrapper = new BeanWrapperImpl(view);
+		if ( transletLoader != null && wrapper.isWritableProperty("transletLoader") ) {
+			wrapper.setPropertyValue("transletLoader", transletLoader);
+		}
 		wrapper.setPropertyValue("stylesheetLocation",new UrlResource(defaultXslt));
 		
 		return view;
@@ -196,5 +205,19 @@ public class DefaultXsltViewResolver extends AbstractCachingViewResolver impleme
 	public void setUseAbsolutePaths(boolean useAbsolutePaths) {
 		this.useAbsolutePaths = useAbsolutePaths;
 	}
+	
+	/**
+	 * @return the transletLoader
+	 */
+	public TransletLoader getTransletLoader() {
+		return transletLoader;
+	}
+	
+	/**
+	 * @param transletLoader the transletLoader to set
+	 */
+	public void setTransletLoader(TransletLoader transletLoader) {
+		this.transletLoader = transletLoader;
+	}
 
  }
@@ -201,7 +201,7 @@ implements ServletRequestDataBinderTemplate {
 	 */
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	private void inspectCollectionProperties(ServletRequest request) {
-		Map<String, String> requestMap = request.getParameterMap();
+		Map<String, String[]> requestMap = request.getParameterMap();
 		// need to first clear out any mapped list objects
 		Map<String, Boolean> clearedLists = new HashMap<String, Boolean>();
 		for ( Iterator itr = patternMap.keySet().iterator(); itr.hasNext(); ) {
@@ -0,0 +1,85 @@
+/* ===================================================================
+ * FlashStore.java
+ * 
+ * Created Oct 18, 2026 6:54:38 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * API for storing values from one request for a following request, such as
+ * the message and URL saved by {@link BasicXwebHelper}.
+ * 
+ * <p>
+ * Implementations must not create an HTTP session when getting or removing
+ * values, so that rendering a page never creates one.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public interface FlashStore {
+
+	/**
+	 * Get a stored value.
+	 * 
+	 * @param request
+	 *        the current request
+	 * @param key
+	 *        the key
+	 * @return the value, or <em>null</em> if not available
+	 */
+	public Object get(HttpServletRequest request, String key);
+
+	/**
+	 * Store a value.
+	 * 
+	 * @param request
+	 *        the current request
+	 * @param response
+	 *        the current response, or <em>null</em> if not available; some
+	 *        implementations require it to identify a new client
+	 * @param key
+	 *        the key
+	 * @param value
+	 *        the value
+	 */
+	public void put(HttpServletRequest request, HttpServletResponse response, String key,
+			Object value);
+
+	/**
+	 * Remove a stored value.
+	 * 
+	 * @param request
+	 *        the current request
+	 * @param response
+	 *        the current response, or <em>null</em> if not available
+	 * @param key
+	 *        the key
+	 */
+	public void remove(HttpServletRequest request, HttpServletResponse response, String key);
+
+}
@@ -0,0 +1,195 @@
+/* ===================================================================
+ * FlushingWriter.java
+ * 
+ * Created Oct 18, 2026 6:29:53 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Buffering Writer that flushes its output early, so a client can start
+ * processing a page (such as fetching the stylesheets and scripts it links
+ * to) before the rest of the page has been rendered.
+ * 
+ * <p>
+ * Output is buffered and written to the underlying Writer in blocks, which
+ * is then flushed:
+ * </p>
+ * 
+ * <ul>
+ * <li>once, after the first <code>initialSize</code> characters have been
+ * written</li>
+ * <li>each time the <code>marker</code> text is written, for example an
+ * <code>&lt;!-- flush --&gt;</code> comment output by the stylesheet just
+ * after the <code>head</code> element</li>
+ * <li>when output is written at least <code>interval</code> milliseconds
+ * after the last flush</li>
+ * </ul>
+ * 
+ * <p>
+ * Each of these is disabled by passing <code>0</code> or <em>null</em>.
+ * Instances are not thread-safe.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class FlushingWriter extends Writer {
+
+	/** The default buffer size. */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final Writer out;
+	private final char[] buffer;
+	private final int initialSize;
+	private final char[] marker;
+	private final int[] markerFailure;
+	private final long interval;
+
+	private int count = 0;
+	private long written = 0;
+	private int markerMatched = 0;
+	private long lastFlush;
+	private int flushCount = 0;
+
+	/**
+	 * Construct with a flush policy.
+	 * 
+	 * @param out
+	 *        the Writer to write to
+	 * @param initialSize
+	 *        the number of characters to flush after, or <code>0</code> to
+	 *        disable
+	 * @param marker
+	 *        the text to flush after, or <em>null</em> to disable
+	 * @param interval
+	 *        the minimum number of milliseconds between flushes, or
+	 *        <code>0</code> to disable
+	 */
+	public FlushingWriter(Writer out, int initialSize, String marker, long interval) {
+		super();
+		this.out = out;
+		this.buffer = new char[DEFAULT_BUFFER_SIZE];
+		this.initialSize = initialSize;
+		this.marker = (marker == null || marker.length() < 1 ? null : marker.toCharArray());
+		this.markerFailure = (this.marker == null ? null : failureTable(this.marker));
+		this.interval = interval;
+		this.lastFlush = (interval > 0 ? System.currentTimeMillis() : 0);
+	}
+
+	/**
+	 * Compute the Knuth-Morris-Pratt failure table for a marker, so the
+	 * marker can be matched one character at a time across writes.
+	 */
+	private static int[] failureTable(char[] marker) {
+		int[] table = new int[marker.length];
+		for ( int i = 1, k = 0; i < marker.length; i++ ) {
+			while ( k > 0 && marker[i] != marker[k] ) {
+				k = table[k - 1];
+			}
+			if ( marker[i] == marker[k] ) {
+				k++;
+			}
+			table[i] = k;
+		}
+		return table;
+	}
+
+	private boolean scanMarker(char[] cbuf, int off, int len) {
+		boolean found = false;
+		int k = markerMatched;
+		for ( int i = off, end = off + len; i < end; i++ ) {
+			char c = cbuf[i];
+			while ( k > 0 && c != marker[k] ) {
+				k = markerFailure[k - 1];
+			}
+			if ( c == marker[k] ) {
+				k++;
+			}
+			if ( k == marker.length ) {
+				found = true;
+				k = markerFailure[k - 1];
+			}
+		}
+		markerMatched = k;
+		return found;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		boolean flush = (marker != null && scanMarker(cbuf, off, len));
+		if ( initialSize > 0 && written < initialSize && written + len >= initialSize ) {
+			flush = true;
+		}
+		written += len;
+		if ( len >= buffer.length ) {
+			writeBuffer();
+			out.write(cbuf, off, len);
+		} else {
+			if ( len > buffer.length - count ) {
+				writeBuffer();
+			}
+			System.arraycopy(cbuf, off, buffer, count, len);
+			count += len;
+		}
+		if ( flush || (interval > 0 && System.currentTimeMillis() - lastFlush >= interval) ) {
+			flush();
+		}
+	}
+
+	private void writeBuffer() throws IOException {
+		if ( count > 0 ) {
+			out.write(buffer, 0, count);
+			count = 0;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		writeBuffer();
+		out.flush();
+		flushCount++;
+		if ( interval > 0 ) {
+			lastFlush = System.currentTimeMillis();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		writeBuffer();
+		out.close();
+	}
+
+	/**
+	 * Get the number of times the output has been flushed.
+	 * 
+	 * @return the flush count
+	 */
+	public int getFlushCount() {
+		return flushCount;
+	}
+
+}
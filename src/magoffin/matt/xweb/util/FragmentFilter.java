@@ -0,0 +1,68 @@
+/* ===================================================================
+ * FragmentFilter.java
+ * 
+ * Created Oct 18, 2026 6:37:53 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Filter to leave out the document events of a marshalled object, so it can
+ * be written into the middle of another document.
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+final class FragmentFilter extends XMLFilterImpl {
+
+	/**
+	 * Construct with the handler to pass the remaining events to.
+	 * 
+	 * @param handler
+	 *        the handler
+	 */
+	FragmentFilter(ContentHandler handler) {
+		super();
+		setContentHandler(handler);
+	}
+
+	@Override
+	public void setDocumentLocator(Locator locator) {
+		// ignore
+	}
+
+	@Override
+	public void startDocument() {
+		// ignore
+	}
+
+	@Override
+	public void endDocument() {
+		// ignore
+	}
+
+}
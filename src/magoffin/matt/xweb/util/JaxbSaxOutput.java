@@ -0,0 +1,369 @@
+/* ===================================================================
+ * JaxbSaxOutput.java
+ * 
+ * Created Oct 18, 2026 6:40:16 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.Enumeration;
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.NamespaceSupport;
+
+/**
+ * SAX output for {@link JaxbSaxWriter} implementations.
+ * 
+ * <p>
+ * Element and attribute prefixes are chosen the way the JAXB Marshaller
+ * chooses them: a namespace already in scope (see
+ * {@link #declareInScope(String, String)}) keeps its prefix, and other
+ * namespaces are declared on the element that first uses them. Objects no
+ * writer supports are passed to the JAXB Marshaller, if one is configured.
+ * </p>
+ * 
+ * <p>
+ * Instances are not thread-safe and are meant to be used for a single
+ * document.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public final class JaxbSaxOutput {
+
+	private static final String CDATA = "CDATA";
+	private static final String NIL = "nil";
+	private static final String XSI_PREFIX = "xsi";
+
+	private final ContentHandler handler;
+	private final JaxbSaxWriter writer;
+	private final Marshaller marshaller;
+	private final NamespaceSupport namespaces = new NamespaceSupport();
+	private final AttributesImpl atts = new AttributesImpl();
+	private boolean contextPushed = false;
+	private int prefixCount = 0;
+	private char[] chars = new char[64];
+
+	/**
+	 * Construct an output.
+	 * 
+	 * @param handler
+	 *        the handler to write to
+	 * @param writer
+	 *        the writer to write nested objects of other packages with, or
+	 *        <em>null</em>
+	 * @param marshaller
+	 *        the Marshaller to marshal unsupported objects with, or
+	 *        <em>null</em> to fail on unsupported objects; it must not be in
+	 *        use marshalling anything else
+	 */
+	public JaxbSaxOutput(ContentHandler handler, JaxbSaxWriter writer, Marshaller marshaller) {
+		super();
+		this.handler = handler;
+		this.writer = writer;
+		this.marshaller = marshaller;
+	}
+
+	/**
+	 * Print a <code>float</code> the way JAXB does.
+	 * 
+	 * @param value
+	 *        the value
+	 * @return the text
+	 */
+	public static String print(float value) {
+		if ( Float.isNaN(value) ) {
+			return "NaN";
+		}
+		if ( value == Float.POSITIVE_INFINITY ) {
+			return "INF";
+		}
+		if ( value == Float.NEGATIVE_INFINITY ) {
+			return "-INF";
+		}
+		return String.valueOf(value);
+	}
+
+	/**
+	 * Print a <code>double</code> the way JAXB does.
+	 * 
+	 * @param value
+	 *        the value
+	 * @return the text
+	 */
+	public static String print(double value) {
+		if ( Double.isNaN(value) ) {
+			return "NaN";
+		}
+		if ( value == Double.POSITIVE_INFINITY ) {
+			return "INF";
+		}
+		if ( value == Double.NEGATIVE_INFINITY ) {
+			return "-INF";
+		}
+		return String.valueOf(value);
+	}
+
+	/**
+	 * Register a namespace prefix that is already declared in the document
+	 * being written into, for example on the <code>x-data</code> element.
+	 * No events are written.
+	 * 
+	 * @param prefix
+	 *        the prefix, or an empty string for the default namespace
+	 * @param namespaceURI
+	 *        the namespace URI
+	 */
+	public void declareInScope(String prefix, String namespaceURI) {
+		namespaces.declarePrefix(prefix, namespaceURI);
+	}
+
+	private void pushContext() {
+		if ( !contextPushed ) {
+			namespaces.pushContext();
+			contextPushed = true;
+		}
+	}
+
+	private void declare(String prefix, String namespaceURI) throws SAXException {
+		namespaces.declarePrefix(prefix, namespaceURI);
+		handler.startPrefixMapping(prefix, namespaceURI);
+	}
+
+	private String prefix(String namespaceURI, boolean element) throws SAXException {
+		if ( element ) {
+			String defaultURI = namespaces.getURI("");
+			if ( namespaceURI.equals(defaultURI == null ? "" : defaultURI) ) {
+				return "";
+			}
+			if ( namespaceURI.length() < 1 ) {
+				declare("", "");
+				return "";
+			}
+		} else if ( namespaceURI.length() < 1 ) {
+			return "";
+		}
+		String prefix = namespaces.getPrefix(namespaceURI);
+		if ( prefix == null ) {
+			if ( XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(namespaceURI)
+					&& namespaces.getURI(XSI_PREFIX) == null ) {
+				prefix = XSI_PREFIX;
+			} else {
+				do {
+					prefix = "ns" + (++prefixCount);
+				} while ( namespaces.getURI(prefix) != null );
+			}
+			declare(prefix, namespaceURI);
+		}
+		return prefix;
+	}
+
+	private static String qualify(String prefix, String localName) {
+		return (prefix.length() < 1 ? localName : prefix + ':' + localName);
+	}
+
+	/**
+	 * Add an attribute to the next element started. Nothing is added for a
+	 * <em>null</em> value.
+	 * 
+	 * @param namespaceURI
+	 *        the attribute namespace URI
+	 * @param localName
+	 *        the attribute local name
+	 * @param value
+	 *        the attribute value
+	 * @throws SAXException
+	 *         if the handler throws an exception
+	 */
+	public void attribute(String namespaceURI, String localName, String value)
+			throws SAXException {
+		if ( value == null ) {
+			return;
+		}
+		pushContext();
+		atts.addAttribute(namespaceURI, localName, qualify(prefix(namespaceURI, false), localName),
+				CDATA, value);
+	}
+
+	/**
+	 * Start an element, with any attributes added since the last element.
+	 * 
+	 * @param namespaceURI
+	 *        the element namespace URI
+	 * @param localName
+	 *        the element local name
+	 * @throws SAXException
+	 *         if the handler throws an exception
+	 */
+	public void startElement(String namespaceURI, String localName) throws SAXException {
+		pushContext();
+		String qName = qualify(prefix(namespaceURI, true), localName);
+		handler.startElement(namespaceURI, localName, qName, atts);
+		atts.clear();
+		contextPushed = false;
+	}
+
+	/**
+	 * End an element.
+	 * 
+	 * @param namespaceURI
+	 *        the element namespace URI
+	 * @param localName
+	 *        the element local name
+	 * @throws SAXException
+	 *         if the handler throws an exception
+	 */
+	public void endElement(String namespaceURI, String localName) throws SAXException {
+		String defaultURI = namespaces.getURI("");
+		String prefix = (namespaceURI.equals(defaultURI == null ? "" : defaultURI) ? ""
+				: namespaces.getPrefix(namespaceURI));
+		handler.endElement(namespaceURI, localName, qualify(prefix, localName));
+		for ( @SuppressWarnings("rawtypes")
+		Enumeration e = namespaces.getDeclaredPrefixes(); e.hasMoreElements(); ) {
+			handler.endPrefixMapping((String) e.nextElement());
+		}
+		namespaces.popContext();
+	}
+
+	/**
+	 * Write character data.
+	 * 
+	 * @param value
+	 *        the text, or <em>null</em> to write nothing
+	 * @throws SAXException
+	 *         if the handler throws an exception
+	 */
+	public void text(String value) throws SAXException {
+		if ( value == null ) {
+			return;
+		}
+		int len = value.length();
+		if ( len < 1 ) {
+			return;
+		}
+		if ( len > chars.length ) {
+			chars = new char[Math.max(len, chars.length * 2)];
+		}
+		value.getChars(0, len, chars, 0);
+		handler.characters(chars, 0, len);
+	}
+
+	/**
+	 * Write an element with text content, with any attributes added since the
+	 * last element.
+	 * 
+	 * @param namespaceURI
+	 *        the element namespace URI
+	 * @param localName
+	 *        the element local name
+	 * @param value
+	 *        the text
+	 * @throws SAXException
+	 *         if the handler throws an exception
+	 */
+	public void element(String namespaceURI, String localName, String value)
+			throws SAXException {
+		startElement(namespaceURI, localName);
+		text(value);
+		endElement(namespaceURI, localName);
+	}
+
+	/**
+	 * Write an empty element with an <code>xsi:nil</code> attribute.
+	 * 
+	 * @param namespaceURI
+	 *        the element namespace URI
+	 * @param localName
+	 *        the element local name
+	 * @throws SAXException
+	 *         if the handler throws an exception
+	 */
+	public void nil(String namespaceURI, String localName) throws SAXException {
+		attribute(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, NIL, "true");
+		startElement(namespaceURI, localName);
+		endElement(namespaceURI, localName);
+	}
+
+	/**
+	 * Write an object of a class from another package, via the configured
+	 * writer if it supports the object or the Marshaller otherwise.
+	 * 
+	 * @param value
+	 *        the object
+	 * @param namespaceURI
+	 *        the element namespace URI
+	 * @param localName
+	 *        the element local name
+	 * @param declaredType
+	 *        the declared type of the property the object is the value of
+	 * @throws SAXException
+	 *         if the handler throws an exception or the object cannot be
+	 *         written
+	 */
+	public void write(Object value, String namespaceURI, String localName, Class<?> declaredType)
+			throws SAXException {
+		if ( writer != null && value.getClass() == declaredType && writer.canWrite(declaredType) ) {
+			writer.write(value, namespaceURI, localName, this);
+		} else {
+			marshal(value, namespaceURI, localName, declaredType);
+		}
+	}
+
+	/**
+	 * Write an object with the JAXB Marshaller.
+	 * 
+	 * @param value
+	 *        the object
+	 * @param namespaceURI
+	 *        the element namespace URI
+	 * @param localName
+	 *        the element local name
+	 * @param declaredType
+	 *        the declared type of the property the object is the value of
+	 * @throws SAXException
+	 *         if the handler throws an exception or the object cannot be
+	 *         marshalled
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void marshal(Object value, String namespaceURI, String localName, Class<?> declaredType)
+			throws SAXException {
+		if ( marshaller == null ) {
+			throw new SAXException("No Marshaller available to write [" + value.getClass().getName()
+					+ "] as {" + namespaceURI + '}' + localName);
+		}
+		try {
+			marshaller.marshal(new JAXBElement(new QName(namespaceURI, localName), declaredType,
+					value), new FragmentFilter(handler));
+		} catch ( JAXBException e ) {
+			throw new SAXException("Unable to marshal {" + namespaceURI + '}' + localName, e);
+		}
+	}
+
+}
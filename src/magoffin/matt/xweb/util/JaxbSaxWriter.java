@@ -0,0 +1,74 @@
+/* ===================================================================
+ * JaxbSaxWriter.java
+ * 
+ * Created Oct 18, 2026 6:40:16 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import org.xml.sax.SAXException;
+
+/**
+ * API for writing JAXB objects directly as SAX events, without the JAXB
+ * Marshaller.
+ * 
+ * <p>
+ * Implementations are normally generated at build time for the classes of a
+ * JAXB package by {@link JaxbSaxWriterGenerator}, and found at runtime by
+ * {@link JaxbSaxWriters}.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public interface JaxbSaxWriter {
+
+	/**
+	 * Test if this writer can write objects of a given class.
+	 * 
+	 * @param type
+	 *        the class of the object to write
+	 * @return <em>true</em> if objects of exactly this class are supported
+	 */
+	public boolean canWrite(Class<?> type);
+
+	/**
+	 * Write an object as an element, producing the same events as the JAXB
+	 * Marshaller would for the object as the value of a JAXBElement of the
+	 * same name.
+	 * 
+	 * @param value
+	 *        the object to write
+	 * @param namespaceURI
+	 *        the element namespace URI
+	 * @param localName
+	 *        the element local name
+	 * @param out
+	 *        the output to write to
+	 * @throws SAXException
+	 *         if the output throws an exception
+	 */
+	public void write(Object value, String namespaceURI, String localName, JaxbSaxOutput out)
+			throws SAXException;
+
+}
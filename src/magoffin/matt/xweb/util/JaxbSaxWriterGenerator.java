@@ -0,0 +1,718 @@
+/* ===================================================================
+ * JaxbSaxWriterGenerator.java
+ * 
+ * Created Oct 18, 2026 6:40:17 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.annotation.XmlAccessOrder;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorOrder;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlEnumValue;
+import javax.xml.bind.annotation.XmlNsForm;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSchema;
+import javax.xml.bind.annotation.XmlSchemaType;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.bind.annotation.XmlType;
+import javax.xml.bind.annotation.XmlValue;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapters;
+
+/**
+ * Command line tool to generate a {@link JaxbSaxWriter} for the classes of
+ * xjc generated JAXB packages, which writes the same SAX events as the JAXB
+ * Marshaller but with plain getter calls and no reflection.
+ * 
+ * <p>
+ * Usage:
+ * </p>
+ * 
+ * <pre>
+ * JaxbSaxWriterGenerator &lt;destination dir&gt; &lt;package&gt; [package...]
+ * </pre>
+ * 
+ * <p>
+ * A {@link JaxbSaxWriters#GENERATED_CLASS_NAME} source file is written to
+ * each package's directory under the destination directory, supporting the
+ * classes created by the package's <code>ObjectFactory</code>. The JAXB
+ * classes must be on the classpath. Classes using JAXB features the
+ * generator does not handle (such as wildcards, element references,
+ * adapters, dates, or binary data) are reported and left out, so they are
+ * marshalled by JAXB as before. Properties whose value is of a class from
+ * another package are written via that package's generated writer when
+ * available, or marshalled by JAXB.
+ * </p>
+ * 
+ * <p>
+ * See the <code>generate.xwebtest.writers</code> and
+ * <code>sax-writers</code> targets in <code>build.xml</code>.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public final class JaxbSaxWriterGenerator {
+
+	private static final String DEFAULT = "##default";
+	private static final String OBJECT_FACTORY = "ObjectFactory";
+
+	private static final List<Class<?>> SIMPLE_TYPES = Arrays.<Class<?>> asList(String.class,
+			Boolean.TYPE, Boolean.class, Byte.TYPE, Byte.class, Short.TYPE, Short.class,
+			Integer.TYPE, Integer.class, Long.TYPE, Long.class, Float.TYPE, Float.class,
+			Double.TYPE, Double.class, BigDecimal.class, BigInteger.class);
+
+	private static final List<Class<?>> SUPPORTED_ANNOTATIONS = Arrays.asList(new Class<?>[] {
+			XmlElement.class, XmlAttribute.class, XmlValue.class, XmlSchemaType.class,
+			XmlTransient.class });
+
+	private final File destDir;
+	private final ClassLoader classLoader;
+
+	/**
+	 * Construct a generator.
+	 * 
+	 * @param destDir
+	 *        the source directory to write the writers to
+	 * @param classLoader
+	 *        the ClassLoader to load the JAXB classes with
+	 */
+	public JaxbSaxWriterGenerator(File destDir, ClassLoader classLoader) {
+		this.destDir = destDir;
+		this.classLoader = classLoader;
+	}
+
+	/**
+	 * A property of a JAXB class.
+	 */
+	private static final class Prop {
+
+		private final Field field;
+		private final String accessor;
+		private final String namespaceURI;
+		private final String localName;
+		private final Class<?> type;
+		private final boolean list;
+		private final boolean nillable;
+
+		private Prop(Field field, String accessor, String namespaceURI, String localName,
+				Class<?> type, boolean list, boolean nillable) {
+			this.field = field;
+			this.accessor = accessor;
+			this.namespaceURI = namespaceURI;
+			this.localName = localName;
+			this.type = type;
+			this.list = list;
+			this.nillable = nillable;
+		}
+
+	}
+
+	/**
+	 * The properties of a JAXB class, including those of its superclasses.
+	 */
+	private static final class TypeInfo {
+
+		private final List<Prop> attributes = new ArrayList<Prop>();
+		private final List<Prop> elements = new ArrayList<Prop>();
+		private Prop value;
+
+	}
+
+	/**
+	 * Thrown when a class cannot be supported.
+	 */
+	private static final class UnsupportedException extends Exception {
+
+		private static final long serialVersionUID = -3391758813337468069L;
+
+		private UnsupportedException(String msg) {
+			super(msg);
+		}
+
+	}
+
+	/**
+	 * The state of generating the writer for one package.
+	 */
+	private final class PackageWriter {
+
+		private final String packageName;
+		private final Map<Class<?>, TypeInfo> types = new LinkedHashMap<Class<?>, TypeInfo>();
+		private final Map<Class<?>, String> unsupported = new LinkedHashMap<Class<?>, String>();
+		private final Map<String, String> namespaces = new TreeMap<String, String>();
+		private final Map<Class<?>, Map<String, String>> enums = new LinkedHashMap<Class<?>, Map<String, String>>();
+
+		private PackageWriter(String packageName) {
+			this.packageName = packageName;
+		}
+
+		private void analyze(Class<?> clazz) {
+			if ( types.containsKey(clazz) || unsupported.containsKey(clazz) ) {
+				return;
+			}
+			try {
+				types.put(clazz, analyzeType(clazz));
+			} catch ( UnsupportedException e ) {
+				unsupported.put(clazz, e.getMessage());
+			}
+		}
+
+		private TypeInfo analyzeType(Class<?> clazz) throws UnsupportedException {
+			if ( !Modifier.isPublic(clazz.getModifiers())
+					|| (clazz.getEnclosingClass() != null && !Modifier.isStatic(clazz.getModifiers())) ) {
+				throw new UnsupportedException("not a public top-level or static nested class");
+			}
+			if ( getAccessType(clazz) != XmlAccessType.FIELD ) {
+				throw new UnsupportedException("not XmlAccessType.FIELD");
+			}
+			XmlAccessorOrder order = clazz.getAnnotation(XmlAccessorOrder.class);
+			if ( order == null ) {
+				order = clazz.getPackage().getAnnotation(XmlAccessorOrder.class);
+			}
+			if ( order != null && order.value() == XmlAccessOrder.ALPHABETICAL ) {
+				throw new UnsupportedException("XmlAccessOrder.ALPHABETICAL");
+			}
+			if ( clazz.isAnnotationPresent(XmlJavaTypeAdapter.class)
+					|| clazz.getPackage().isAnnotationPresent(XmlJavaTypeAdapter.class)
+					|| clazz.getPackage().isAnnotationPresent(XmlJavaTypeAdapters.class) ) {
+				throw new UnsupportedException("XmlJavaTypeAdapter");
+			}
+			TypeInfo info = new TypeInfo();
+			Class<?> superclass = clazz.getSuperclass();
+			if ( superclass != Object.class ) {
+				if ( !superclass.getPackage().getName().equals(packageName) ) {
+					throw new UnsupportedException("superclass " + superclass.getName()
+							+ " in another package");
+				}
+				analyze(superclass);
+				TypeInfo superInfo = types.get(superclass);
+				if ( superInfo == null ) {
+					throw new UnsupportedException("superclass " + superclass.getName()
+							+ " unsupported");
+				}
+				info.attributes.addAll(superInfo.attributes);
+				info.elements.addAll(superInfo.elements);
+				info.value = superInfo.value;
+			}
+			List<Prop> elements = new ArrayList<Prop>();
+			for ( Field field : clazz.getDeclaredFields() ) {
+				int mod = field.getModifiers();
+				if ( Modifier.isStatic(mod) || Modifier.isTransient(mod) || field.isSynthetic()
+						|| field.isAnnotationPresent(XmlTransient.class) ) {
+					continue;
+				}
+				for ( Annotation a : field.getAnnotations() ) {
+					String annotationPackage = a.annotationType().getPackage().getName();
+					if ( annotationPackage.startsWith("javax.xml.bind.annotation")
+							&& !SUPPORTED_ANNOTATIONS.contains(a.annotationType()) ) {
+						throw new UnsupportedException("field " + field.getName() + " annotated @"
+								+ a.annotationType().getSimpleName());
+					}
+				}
+				XmlAttribute attr = field.getAnnotation(XmlAttribute.class);
+				if ( attr != null ) {
+					info.attributes.add(attributeProp(clazz, field, attr));
+				} else if ( field.isAnnotationPresent(XmlValue.class) ) {
+					info.value = prop(clazz, field, "", "", false);
+					checkSimple(info.value);
+				} else {
+					elements.add(elementProp(clazz, field));
+				}
+			}
+			if ( info.value != null && (!info.elements.isEmpty() || !elements.isEmpty()) ) {
+				throw new UnsupportedException("both XmlValue and elements");
+			}
+			info.elements.addAll(orderElements(clazz, elements));
+			return info;
+		}
+
+		private Prop attributeProp(Class<?> clazz, Field field, XmlAttribute attr)
+				throws UnsupportedException {
+			String ns = attr.namespace();
+			if ( DEFAULT.equals(ns) ) {
+				XmlSchema schema = clazz.getPackage().getAnnotation(XmlSchema.class);
+				ns = (schema != null && schema.attributeFormDefault() == XmlNsForm.QUALIFIED ? schema
+						.namespace() : "");
+			}
+			String name = (DEFAULT.equals(attr.name()) ? field.getName() : attr.name());
+			Prop prop = prop(clazz, field, ns, name, false);
+			if ( prop.list ) {
+				throw new UnsupportedException("list attribute " + field.getName());
+			}
+			checkSimple(prop);
+			return prop;
+		}
+
+		private Prop elementProp(Class<?> clazz, Field field) throws UnsupportedException {
+			XmlElement elem = field.getAnnotation(XmlElement.class);
+			String ns = (elem == null ? DEFAULT : elem.namespace());
+			if ( DEFAULT.equals(ns) ) {
+				XmlSchema schema = clazz.getPackage().getAnnotation(XmlSchema.class);
+				ns = (schema != null && schema.elementFormDefault() == XmlNsForm.QUALIFIED ? schema
+						.namespace() : "");
+			}
+			String name = (elem == null || DEFAULT.equals(elem.name()) ? field.getName() : elem
+					.name());
+			if ( elem != null && elem.type() != XmlElement.DEFAULT.class ) {
+				throw new UnsupportedException("field " + field.getName() + " XmlElement type");
+			}
+			Prop prop = prop(clazz, field, ns, name, elem != null && elem.nillable());
+			if ( !isSimple(prop.type) && !prop.type.isEnum() && !isComplex(prop.type) ) {
+				throw new UnsupportedException("field " + field.getName() + " of type "
+						+ prop.type.getName());
+			}
+			if ( prop.type.isEnum() ) {
+				analyzeEnum(prop.type);
+			}
+			return prop;
+		}
+
+		private Prop prop(Class<?> clazz, Field field, String ns, String name, boolean nillable)
+				throws UnsupportedException {
+			Class<?> type = field.getType();
+			boolean list = false;
+			if ( type == List.class || type == Collection.class ) {
+				Type generic = field.getGenericType();
+				if ( !(generic instanceof ParameterizedType)
+						|| !(((ParameterizedType) generic).getActualTypeArguments()[0] instanceof Class<?>) ) {
+					throw new UnsupportedException("field " + field.getName() + " collection type");
+				}
+				type = (Class<?>) ((ParameterizedType) generic).getActualTypeArguments()[0];
+				list = true;
+			} else if ( Collection.class.isAssignableFrom(type) || type.isArray()
+					|| type == JAXBElement.class ) {
+				throw new UnsupportedException("field " + field.getName() + " of type "
+						+ type.getName());
+			}
+			if ( !Modifier.isPublic(type.getModifiers()) ) {
+				throw new UnsupportedException("field " + field.getName() + " of non-public type");
+			}
+			namespaces.put(ns, null);
+			return new Prop(field, accessor(field), ns, name, type, list, nillable);
+		}
+
+		private String accessor(Field field) throws UnsupportedException {
+			String name = field.getName();
+			while ( name.startsWith("_") ) {
+				name = name.substring(1);
+			}
+			name = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+			for ( String prefix : new String[] { "get", "is" } ) {
+				try {
+					Method m = field.getDeclaringClass().getMethod(prefix + name);
+					if ( m.getReturnType() == field.getType() ) {
+						return m.getName() + "()";
+					}
+				} catch ( NoSuchMethodException e ) {
+					// try next
+				}
+			}
+			if ( !Modifier.isPrivate(field.getModifiers())
+					&& field.getDeclaringClass().getPackage().getName().equals(packageName) ) {
+				return field.getName();
+			}
+			throw new UnsupportedException("no getter for private field " + field.getName());
+		}
+
+		private void checkSimple(Prop prop) throws UnsupportedException {
+			if ( prop.type.isEnum() ) {
+				analyzeEnum(prop.type);
+			} else if ( !isSimple(prop.type) ) {
+				throw new UnsupportedException("field " + prop.field.getName() + " of type "
+						+ prop.type.getName());
+			}
+		}
+
+		private void analyzeEnum(Class<?> type) throws UnsupportedException {
+			if ( enums.containsKey(type) ) {
+				return;
+			}
+			Map<String, String> values = new LinkedHashMap<String, String>();
+			for ( Object constant : type.getEnumConstants() ) {
+				String name = ((Enum<?>) constant).name();
+				try {
+					XmlEnumValue v = type.getField(name).getAnnotation(XmlEnumValue.class);
+					values.put(name, v == null ? name : v.value());
+				} catch ( NoSuchFieldException e ) {
+					throw new UnsupportedException("enum " + type.getName() + " constant " + name);
+				}
+			}
+			enums.put(type, values);
+		}
+
+		private List<Prop> orderElements(Class<?> clazz, List<Prop> elements)
+				throws UnsupportedException {
+			XmlType xmlType = clazz.getAnnotation(XmlType.class);
+			if ( xmlType == null || xmlType.propOrder().length < 1
+					|| (xmlType.propOrder().length == 1 && xmlType.propOrder()[0].length() < 1) ) {
+				return elements;
+			}
+			final List<String> order = Arrays.asList(xmlType.propOrder());
+			for ( Prop prop : elements ) {
+				if ( !order.contains(prop.field.getName()) ) {
+					throw new UnsupportedException("field " + prop.field.getName()
+							+ " not in propOrder");
+				}
+			}
+			List<Prop> result = new ArrayList<Prop>(elements);
+			Collections.sort(result, new Comparator<Prop>() {
+
+				@Override
+				public int compare(Prop o1, Prop o2) {
+					return order.indexOf(o1.field.getName()) - order.indexOf(o2.field.getName());
+				}
+
+			});
+			return result;
+		}
+
+		private boolean isGenerated(Class<?> type) {
+			return (types.containsKey(type) && !Modifier.isAbstract(type.getModifiers()) && !type
+					.isInterface());
+		}
+
+		private void write(File file) throws IOException {
+			int i = 0;
+			for ( Map.Entry<String, String> me : namespaces.entrySet() ) {
+				me.setValue("NS" + (i++));
+			}
+			file.getParentFile().mkdirs();
+			PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file),
+					"UTF-8"));
+			try {
+				writeClass(out);
+			} finally {
+				out.close();
+			}
+			if ( out.checkError() ) {
+				throw new IOException("Unable to write " + file);
+			}
+		}
+
+		private void writeClass(PrintWriter out) {
+			out.println("/*");
+			out.println(" * Generated by " + JaxbSaxWriterGenerator.class.getName()
+					+ ", do not edit.");
+			out.println(" */");
+			out.println();
+			out.println("package " + packageName + ";");
+			out.println();
+			out.println("import " + JaxbSaxOutput.class.getName() + ";");
+			out.println("import " + JaxbSaxWriter.class.getName() + ";");
+			out.println("import org.xml.sax.SAXException;");
+			out.println();
+			out.println("/**");
+			out.println(" * Writes the JAXB classes of this package as SAX events.");
+			out.println(" */");
+			out.println("public final class " + JaxbSaxWriters.GENERATED_CLASS_NAME
+					+ " implements JaxbSaxWriter {");
+			out.println();
+			for ( Map.Entry<String, String> me : namespaces.entrySet() ) {
+				out.println("\tprivate static final String " + me.getValue() + " = "
+						+ literal(me.getKey()) + ";");
+			}
+			out.println();
+
+			out.println("\tpublic boolean canWrite(Class<?> type) {");
+			StringBuilder buf = new StringBuilder();
+			for ( Class<?> type : types.keySet() ) {
+				if ( isGenerated(type) ) {
+					buf.append(buf.length() < 1 ? "\t\treturn " : "\n\t\t\t\t|| ");
+					buf.append("type == ").append(type.getCanonicalName()).append(".class");
+				}
+			}
+			out.println(buf.length() < 1 ? "\t\treturn false;" : buf.append(';').toString());
+			out.println("\t}");
+			out.println();
+
+			out.println("\tpublic void write(Object value, String namespaceURI, String localName,");
+			out.println("\t\t\tJaxbSaxOutput out) throws SAXException {");
+			out.println("\t\tClass<?> type = value.getClass();");
+			buf.setLength(0);
+			for ( Class<?> type : types.keySet() ) {
+				if ( isGenerated(type) ) {
+					out.print(buf.length() < 1 ? "\t\tif" : " else if");
+					buf.append('x');
+					String name = type.getCanonicalName();
+					out.println(" ( type == " + name + ".class ) {");
+					out.println("\t\t\twrite((" + name + ") value, namespaceURI, localName, out);");
+					out.print("\t\t}");
+				}
+			}
+			if ( buf.length() > 0 ) {
+				out.println(" else {");
+				out.println("\t\t\tout.marshal(value, namespaceURI, localName, type);");
+				out.println("\t\t}");
+			} else {
+				out.println("\t\tout.marshal(value, namespaceURI, localName, type);");
+			}
+			out.println("\t}");
+
+			for ( Map.Entry<Class<?>, TypeInfo> me : types.entrySet() ) {
+				if ( isGenerated(me.getKey()) ) {
+					out.println();
+					writeMethod(out, me.getKey(), me.getValue());
+				}
+			}
+			for ( Map.Entry<Class<?>, Map<String, String>> me : enums.entrySet() ) {
+				out.println();
+				writeEnumMethod(out, me.getKey(), me.getValue());
+			}
+			out.println();
+			out.println("}");
+		}
+
+		private void writeMethod(PrintWriter out, Class<?> type, TypeInfo info) {
+			String name = type.getCanonicalName();
+			out.println("\tstatic void write(" + name
+					+ " value, String namespaceURI, String localName,");
+			out.println("\t\t\tJaxbSaxOutput out) throws SAXException {");
+			out.println("\t\tif ( value.getClass() != " + name + ".class ) {");
+			out.println("\t\t\tout.marshal(value, namespaceURI, localName, " + name + ".class);");
+			out.println("\t\t\treturn;");
+			out.println("\t\t}");
+			for ( Prop prop : info.attributes ) {
+				writeSimple(out, prop, "out.attribute(" + namespaces.get(prop.namespaceURI) + ", "
+						+ literal(prop.localName) + ", %s);");
+			}
+			out.println("\t\tout.startElement(namespaceURI, localName);");
+			if ( info.value != null ) {
+				writeSimple(out, info.value, "out.text(%s);");
+			}
+			for ( Prop prop : info.elements ) {
+				writeElement(out, prop);
+			}
+			out.println("\t\tout.endElement(namespaceURI, localName);");
+			out.println("\t}");
+		}
+
+		private void writeSimple(PrintWriter out, Prop prop, String statement) {
+			String expr = "value." + prop.accessor;
+			if ( prop.type.isPrimitive() ) {
+				out.println("\t\t" + String.format(statement, print(prop.type, expr)));
+				return;
+			}
+			out.println("\t\t{");
+			out.println("\t\t\t" + prop.type.getCanonicalName() + " v = " + expr + ";");
+			out.println("\t\t\tif ( v != null ) {");
+			out.println("\t\t\t\t" + String.format(statement, print(prop.type, "v")));
+			out.println("\t\t\t}");
+			out.println("\t\t}");
+		}
+
+		private void writeElement(PrintWriter out, Prop prop) {
+			String ns = namespaces.get(prop.namespaceURI);
+			String name = literal(prop.localName);
+			String expr = "value." + prop.accessor;
+			String type = prop.type.getCanonicalName();
+			if ( prop.type.isPrimitive() ) {
+				out.println("\t\tout.element(" + ns + ", " + name + ", " + print(prop.type, expr)
+						+ ");");
+				return;
+			}
+			String indent = "\t\t\t";
+			out.println("\t\t{");
+			if ( prop.list ) {
+				out.println(indent + "java.util.List<" + type + "> list = " + expr + ";");
+				out.println(indent + "if ( list != null ) {");
+				out.println(indent + "\tfor ( " + type + " v : list ) {");
+				indent += "\t\t";
+			} else {
+				out.println(indent + type + " v = " + expr + ";");
+			}
+			out.println(indent + "if ( v != null ) {");
+			if ( isSimple(prop.type) || prop.type.isEnum() ) {
+				out.println(indent + "\tout.element(" + ns + ", " + name + ", "
+						+ print(prop.type, "v") + ");");
+			} else if ( isGenerated(prop.type) ) {
+				out.println(indent + "\twrite(v, " + ns + ", " + name + ", out);");
+			} else {
+				out.println(indent + "\tout.write(v, " + ns + ", " + name + ", " + type + ".class);");
+			}
+			if ( prop.nillable ) {
+				out.println(indent + "} else {");
+				out.println(indent + "\tout.nil(" + ns + ", " + name + ");");
+			}
+			out.println(indent + "}");
+			if ( prop.list ) {
+				out.println("\t\t\t\t}");
+				out.println("\t\t\t}");
+			}
+			out.println("\t\t}");
+		}
+
+		private void writeEnumMethod(PrintWriter out, Class<?> type, Map<String, String> values) {
+			String name = type.getCanonicalName();
+			out.println("\tprivate static String print(" + name + " value) {");
+			out.println("\t\tswitch ( value ) {");
+			for ( Map.Entry<String, String> me : values.entrySet() ) {
+				out.println("\t\t\tcase " + me.getKey() + ":");
+				out.println("\t\t\t\treturn " + literal(me.getValue()) + ";");
+			}
+			out.println("\t\t\tdefault:");
+			out.println("\t\t\t\treturn value.name();");
+			out.println("\t\t}");
+			out.println("\t}");
+		}
+
+	}
+
+	private static XmlAccessType getAccessType(Class<?> clazz) {
+		XmlAccessorType accessorType = clazz.getAnnotation(XmlAccessorType.class);
+		if ( accessorType == null ) {
+			accessorType = clazz.getPackage().getAnnotation(XmlAccessorType.class);
+		}
+		return (accessorType == null ? XmlAccessType.PUBLIC_MEMBER : accessorType.value());
+	}
+
+	private static boolean isSimple(Class<?> type) {
+		return SIMPLE_TYPES.contains(type);
+	}
+
+	private static boolean isComplex(Class<?> type) {
+		return (type == Object.class || type.isAnnotationPresent(XmlType.class) || type
+				.isAnnotationPresent(XmlRootElement.class));
+	}
+
+	private static String print(Class<?> type, String expr) {
+		if ( type == String.class ) {
+			return expr;
+		}
+		if ( type.isEnum() ) {
+			return "print(" + expr + ")";
+		}
+		if ( type == Float.TYPE || type == Float.class || type == Double.TYPE
+				|| type == Double.class ) {
+			return "JaxbSaxOutput.print(" + expr + ")";
+		}
+		if ( type == BigDecimal.class ) {
+			return expr + ".toPlainString()";
+		}
+		return "String.valueOf(" + expr + ")";
+	}
+
+	private static String literal(String value) {
+		StringBuilder buf = new StringBuilder("\"");
+		for ( int i = 0, len = value.length(); i < len; i++ ) {
+			char c = value.charAt(i);
+			if ( c == '"' || c == '\\' ) {
+				buf.append('\\').append(c);
+			} else if ( c < 0x20 || c > 0x7E ) {
+				buf.append(String.format("\\u%04x", (int) c));
+			} else {
+				buf.append(c);
+			}
+		}
+		return buf.append('"').toString();
+	}
+
+	/**
+	 * Generate the writer for a JAXB package.
+	 * 
+	 * @param packageName
+	 *        the package name
+	 * @return the classes of the package that are not supported, with the
+	 *         reason why
+	 * @throws ClassNotFoundException
+	 *         if the package has no <code>ObjectFactory</code>
+	 * @throws IOException
+	 *         if the writer cannot be written
+	 */
+	public Map<String, String> generate(String packageName) throws ClassNotFoundException,
+			IOException {
+		Class<?> factory = Class.forName(packageName + '.' + OBJECT_FACTORY, false, classLoader);
+		Map<String, Class<?>> classes = new TreeMap<String, Class<?>>();
+		for ( Method m : factory.getMethods() ) {
+			if ( m.getName().startsWith("create") && m.getParameterTypes().length == 0
+					&& m.getDeclaringClass() == factory && m.getReturnType() != JAXBElement.class ) {
+				classes.put(m.getReturnType().getName(), m.getReturnType());
+			}
+		}
+		PackageWriter writer = new PackageWriter(packageName);
+		for ( Class<?> clazz : classes.values() ) {
+			writer.analyze(clazz);
+		}
+		writer.write(new File(destDir, packageName.replace('.', File.separatorChar)
+				+ File.separatorChar + JaxbSaxWriters.GENERATED_CLASS_NAME + ".java"));
+		Map<String, String> result = new LinkedHashMap<String, String>();
+		for ( Map.Entry<Class<?>, String> me : writer.unsupported.entrySet() ) {
+			result.put(me.getKey().getName(), me.getValue());
+		}
+		return result;
+	}
+
+	/**
+	 * Run the generator.
+	 * 
+	 * @param args
+	 *        the destination directory and the packages to generate writers
+	 *        for
+	 * @throws Exception
+	 *         if a writer cannot be generated
+	 */
+	public static void main(String[] args) throws Exception {
+		if ( args.length < 2 ) {
+			System.err.println("Usage: JaxbSaxWriterGenerator <destination dir> <package> "
+					+ "[package...]");
+			System.exit(1);
+		}
+		JaxbSaxWriterGenerator generator = new JaxbSaxWriterGenerator(new File(args[0]),
+				JaxbSaxWriterGenerator.class.getClassLoader());
+		for ( int i = 1; i < args.length; i++ ) {
+			Map<String, String> unsupported = generator.generate(args[i]);
+			System.out.println("Generated " + args[i] + '.' + JaxbSaxWriters.GENERATED_CLASS_NAME);
+			for ( Map.Entry<String, String> me : unsupported.entrySet() ) {
+				System.out.println("  " + me.getKey() + " left to JAXB: " + me.getValue());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+/* ===================================================================
+ * JaxbSaxWriters.java
+ * 
+ * Created Oct 18, 2026 6:40:16 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * {@link JaxbSaxWriter} for all the packages of a JAXB context path, which
+ * delegates to the writer generated for each package by
+ * {@link JaxbSaxWriterGenerator}.
+ * 
+ * <p>
+ * Packages without a generated writer are skipped, so objects from those
+ * packages are not supported and are left to the JAXB Marshaller.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public final class JaxbSaxWriters implements JaxbSaxWriter {
+
+	/** The simple name of the writer class generated in each package. */
+	public static final String GENERATED_CLASS_NAME = "GeneratedSaxWriter";
+
+	private static final Logger LOG = LoggerFactory.getLogger(JaxbSaxWriters.class);
+
+	private final JaxbSaxWriter[] writers;
+
+	private JaxbSaxWriters(List<JaxbSaxWriter> writers) {
+		super();
+		this.writers = writers.toArray(new JaxbSaxWriter[writers.size()]);
+	}
+
+	/**
+	 * Load the generated writers for a JAXB context path.
+	 * 
+	 * @param contextPath
+	 *        the colon-delimited list of JAXB packages
+	 * @param classLoader
+	 *        the ClassLoader to load the writers with
+	 * @return the writers, or <em>null</em> if no package has a generated
+	 *         writer
+	 */
+	public static JaxbSaxWriters forContextPath(String contextPath, ClassLoader classLoader) {
+		List<JaxbSaxWriter> writers = new ArrayList<JaxbSaxWriter>();
+		for ( String pkg : contextPath.split(":") ) {
+			pkg = pkg.trim();
+			if ( pkg.length() < 1 ) {
+				continue;
+			}
+			String className = pkg + '.' + GENERATED_CLASS_NAME;
+			Class<?> clazz;
+			try {
+				clazz = Class.forName(className, true, classLoader);
+			} catch ( ClassNotFoundException e ) {
+				LOG.debug("No generated SAX writer for package {}", pkg);
+				continue;
+			}
+			try {
+				writers.add((JaxbSaxWriter) clazz.newInstance());
+				LOG.debug("Using generated SAX writer {}", className);
+			} catch ( Exception e ) {
+				LOG.warn("Unable to use generated SAX writer {}: {}", className, e.toString());
+			}
+		}
+		return (writers.isEmpty() ? null : new JaxbSaxWriters(writers));
+	}
+
+	private JaxbSaxWriter getWriter(Class<?> type) {
+		for ( JaxbSaxWriter writer : writers ) {
+			if ( writer.canWrite(type) ) {
+				return writer;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public boolean canWrite(Class<?> type) {
+		return getWriter(type) != null;
+	}
+
+	@Override
+	public void write(Object value, String namespaceURI, String localName, JaxbSaxOutput out)
+			throws SAXException {
+		JaxbSaxWriter writer = getWriter(value.getClass());
+		if ( writer == null ) {
+			out.marshal(value, namespaceURI, localName, value.getClass());
+		} else {
+			writer.write(value, namespaceURI, localName, out);
+		}
+	}
+
+}
@@ -0,0 +1,113 @@
+/* ===================================================================
+ * JaxpXsltEngine.java
+ * 
+ * Created Oct 18, 2026 6:21:43 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.Map;
+import javax.xml.transform.TransformerFactory;
+
+/**
+ * {@link XsltEngine} using a JAXP TransformerFactory.
+ * 
+ * <p>
+ * The configurable properties of this class are:
+ * </p>
+ * 
+ * <dl>
+ * <dt>transformerFactoryClassName</dt>
+ * <dd>The TransformerFactory implementation class to use. If not configured
+ * the JAXP default is used, via <code>TransformerFactory.newInstance()</code>.</dd>
+ * 
+ * <dt>attributes</dt>
+ * <dd>An optional Map of implementation-specific attributes to set on each
+ * TransformerFactory.</dd>
+ * </dl>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class JaxpXsltEngine implements XsltEngine {
+
+	private String transformerFactoryClassName = null;
+	private Map<String, Object> attributes = null;
+
+	/**
+	 * Default constructor.
+	 */
+	public JaxpXsltEngine() {
+		super();
+	}
+
+	/**
+	 * Construct with a TransformerFactory class name.
+	 * 
+	 * @param transformerFactoryClassName
+	 *        the TransformerFactory implementation class to use
+	 */
+	public JaxpXsltEngine(String transformerFactoryClassName) {
+		super();
+		this.transformerFactoryClassName = transformerFactoryClassName;
+	}
+
+	@Override
+	public String getName() {
+		return (transformerFactoryClassName == null ? "jaxp" : transformerFactoryClassName);
+	}
+
+	@Override
+	public TransformerFactory newTransformerFactory() {
+		TransformerFactory factory = (transformerFactoryClassName == null ? TransformerFactory
+				.newInstance() : TransformerFactory.newInstance(transformerFactoryClassName, null));
+		if ( attributes != null ) {
+			for ( Map.Entry<String, Object> me : attributes.entrySet() ) {
+				factory.setAttribute(me.getKey(), me.getValue());
+			}
+		}
+		return factory;
+	}
+
+	@Override
+	public String toString() {
+		return "JaxpXsltEngine{" + getName() + '}';
+	}
+
+	public String getTransformerFactoryClassName() {
+		return transformerFactoryClassName;
+	}
+
+	public void setTransformerFactoryClassName(String transformerFactoryClassName) {
+		this.transformerFactoryClassName = transformerFactoryClassName;
+	}
+
+	public Map<String, Object> getAttributes() {
+		return attributes;
+	}
+
+	public void setAttributes(Map<String, Object> attributes) {
+		this.attributes = attributes;
+	}
+
+}
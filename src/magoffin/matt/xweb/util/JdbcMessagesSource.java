@@ -37,6 +37,7 @@ import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.support.AbstractMessageSource;
@@ -51,11 +52,15 @@ import org.springframework.util.StringUtils;
  * so that this can be used to provide database values that "override" the 
  * parent's message values.</p>
  * 
+ * <p>This class implements {@link Versioned}, and the version changes whenever 
+ * the <code>jdbcCache</code> is replaced or {@link #clearCache()} is called, or 
+ * the parent's version changes.</p>
+ * 
  * @author Matt Magoffin (spamsqr@msqr.us)
  * @version $Revision: 1.3 $ $Date: 2007/09/25 06:23:43 $
  */
 public class JdbcMessagesSource extends AbstractMessageSource 
-implements MessagesSource, InitializingBean {
+implements MessagesSource, Versioned, InitializingBean {
 
 	private JdbcTemplate jdbcTemplate;
 	private String keyColumnName = "skey";
@@ -68,6 +73,7 @@ implements MessagesSource, InitializingBean {
 	private final Logger log = Logger.getLogger(getClass());
 	private Map<String, Map<String, String>> jdbcCache 
 		= new HashMap<String, Map<String,String>>();
+	private final AtomicLong version = new AtomicLong(0);
 	
 	@Override
 	public void afterPropertiesSet() throws Exception {
@@ -104,6 +110,24 @@ implements MessagesSource, InitializingBean {
 		throw new UnsupportedOperationException();
 	}
 
+	@Override
+	public long getVersion() {
+		long v = version.get();
+		if ( getParentMessageSource() instanceof Versioned ) {
+			v += ((Versioned)getParentMessageSource()).getVersion();
+		}
+		return v;
+	}
+
+	/**
+	 * Clear the cached database messages, so they are re-loaded from the 
+	 * database the next time they are needed.
+	 */
+	public void clearCache() {
+		jdbcCache.clear();
+		version.incrementAndGet();
+	}
+
 	private Map<String, String> getMessageMap(Locale locale) {
 		if ( jdbcCache.containsKey(locale.getLanguage()) ) {
 			return jdbcCache.get(locale.getLanguage());
@@ -207,6 +231,7 @@ implements MessagesSource, InitializingBean {
 	 */
 	public void setJdbcCache(Map<String, Map<String, String>> jdbcCache) {
 		this.jdbcCache = jdbcCache;
+		version.incrementAndGet();
 	}
 	
 	/**
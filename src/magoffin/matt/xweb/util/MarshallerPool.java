@@ -0,0 +1,292 @@
+/* ===================================================================
+ * MarshallerPool.java
+ * 
+ * Created Oct 18, 2026 5:49:28 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+
+/**
+ * A pool of pre-configured JAXB {@link Marshaller} instances.
+ * 
+ * <p>
+ * Creating a Marshaller and applying all the configured marshaller properties
+ * (such as a {@link JAXBNamespacePrefixMapper}) and the
+ * {@link IgnoreValidation} event handler for every render is relatively
+ * expensive. Marshaller instances are not thread-safe, but can be re-used
+ * serially, so this class maintains a set of idle, fully configured
+ * Marshallers that can be borrowed and then returned when the caller is
+ * finished with them.
+ * </p>
+ * 
+ * <p>
+ * Pools are shared, keyed by the {@link JAXBContext}, the marshaller
+ * properties, and the ignore-errors setting, via
+ * {@link #getPool(JAXBContext, Map, boolean)}, so that all views configured
+ * the same way draw from the same pool.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public final class MarshallerPool {
+
+	/** The default value for the <code>maxIdle</code> property. */
+	public static final int DEFAULT_MAX_IDLE = 64;
+
+	private static final ConcurrentMap<PoolKey, MarshallerPool> POOLS = new ConcurrentHashMap<PoolKey, MarshallerPool>(
+			4);
+
+	private final JAXBContext context;
+	private final Map<String, Object> properties;
+	private final boolean ignoreMarshallErrors;
+	private final Queue<Marshaller> idle = new ConcurrentLinkedQueue<Marshaller>();
+	private final AtomicInteger idleCount = new AtomicInteger(0);
+	private final AtomicLong hitCount = new AtomicLong(0);
+	private final AtomicLong missCount = new AtomicLong(0);
+	private volatile int maxIdle = DEFAULT_MAX_IDLE;
+
+	private MarshallerPool(JAXBContext context, Map<String, Object> properties,
+			boolean ignoreMarshallErrors) {
+		super();
+		this.context = context;
+		this.properties = properties;
+		this.ignoreMarshallErrors = ignoreMarshallErrors;
+	}
+
+	/**
+	 * Get the shared pool for a specific Marshaller configuration.
+	 * 
+	 * <p>
+	 * The <code>properties</code> Map is copied, so later changes to the
+	 * passed in Map are not reflected in the returned pool.
+	 * </p>
+	 * 
+	 * @param context
+	 *        the JAXBContext to create Marshallers from
+	 * @param properties
+	 *        the Marshaller properties to apply to each Marshaller (may be
+	 *        <em>null</em>)
+	 * @param ignoreMarshallErrors
+	 *        if <em>true</em> then configure each Marshaller with
+	 *        {@link IgnoreValidation#IGNORE_VALIDATION}
+	 * @return the pool, never <em>null</em>
+	 */
+	public static MarshallerPool getPool(JAXBContext context, Map<String, Object> properties,
+			boolean ignoreMarshallErrors) {
+		Map<String, Object> props = (properties == null ? Collections.<String, Object> emptyMap()
+				: Collections.unmodifiableMap(new HashMap<String, Object>(properties)));
+		PoolKey key = new PoolKey(context, props, ignoreMarshallErrors);
+		MarshallerPool pool = POOLS.get(key);
+		if ( pool == null ) {
+			pool = new MarshallerPool(context, props, ignoreMarshallErrors);
+			MarshallerPool existing = POOLS.putIfAbsent(key, pool);
+			if ( existing != null ) {
+				pool = existing;
+			}
+		}
+		return pool;
+	}
+
+	/**
+	 * Get all shared pools, for example to report on pool statistics.
+	 * 
+	 * @return the pools
+	 */
+	public static Collection<MarshallerPool> getPools() {
+		return Collections.unmodifiableCollection(POOLS.values());
+	}
+
+	/**
+	 * Create a new, fully configured Marshaller that is not associated with
+	 * the pool.
+	 * 
+	 * @return the new Marshaller
+	 * @throws JAXBException
+	 *         if unable to create the Marshaller
+	 */
+	public Marshaller createMarshaller() throws JAXBException {
+		Marshaller marshaller = context.createMarshaller();
+		if ( ignoreMarshallErrors ) {
+			marshaller.setEventHandler(IgnoreValidation.IGNORE_VALIDATION);
+		}
+		for ( Map.Entry<String, Object> me : properties.entrySet() ) {
+			marshaller.setProperty(me.getKey(), me.getValue());
+		}
+		return marshaller;
+	}
+
+	/**
+	 * Borrow a Marshaller from the pool, creating a new one if none are idle.
+	 * 
+	 * <p>
+	 * The returned Marshaller must be given back via
+	 * {@link #returnMarshaller(Marshaller)} once the caller is completely
+	 * finished with it, and must not be used after that.
+	 * </p>
+	 * 
+	 * @return the Marshaller
+	 * @throws JAXBException
+	 *         if unable to create a new Marshaller
+	 */
+	public Marshaller borrowMarshaller() throws JAXBException {
+		Marshaller marshaller = idle.poll();
+		if ( marshaller != null ) {
+			idleCount.decrementAndGet();
+			hitCount.incrementAndGet();
+			return marshaller;
+		}
+		missCount.incrementAndGet();
+		return createMarshaller();
+	}
+
+	/**
+	 * Return a Marshaller previously obtained from
+	 * {@link #borrowMarshaller()}.
+	 * 
+	 * <p>
+	 * If the pool already holds <code>maxIdle</code> Marshallers, the
+	 * Marshaller is simply discarded.
+	 * </p>
+	 * 
+	 * @param marshaller
+	 *        the Marshaller to return (<em>null</em> is ignored)
+	 */
+	public void returnMarshaller(Marshaller marshaller) {
+		if ( marshaller == null ) {
+			return;
+		}
+		if ( idleCount.incrementAndGet() > maxIdle ) {
+			idleCount.decrementAndGet();
+			return;
+		}
+		idle.offer(marshaller);
+	}
+
+	/**
+	 * Discard all idle Marshallers.
+	 */
+	public void clear() {
+		while ( idle.poll() != null ) {
+			idleCount.decrementAndGet();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "MarshallerPool{context=" + context + ",idle=" + idleCount.get() + ",hits="
+				+ hitCount.get() + ",misses=" + missCount.get() + '}';
+	}
+
+	/**
+	 * Get the number of borrows satisfied by an idle Marshaller.
+	 * 
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Get the number of borrows that required creating a new Marshaller.
+	 * 
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Get the number of idle Marshallers currently in the pool.
+	 * 
+	 * @return the idle count
+	 */
+	public int getIdleCount() {
+		return idleCount.get();
+	}
+
+	public JAXBContext getContext() {
+		return context;
+	}
+
+	public int getMaxIdle() {
+		return maxIdle;
+	}
+
+	public void setMaxIdle(int maxIdle) {
+		this.maxIdle = maxIdle;
+	}
+
+	private static final class PoolKey {
+
+		private final JAXBContext context;
+		private final Map<String, Object> properties;
+		private final boolean ignoreMarshallErrors;
+		private final int hash;
+
+		private PoolKey(JAXBContext context, Map<String, Object> properties,
+				boolean ignoreMarshallErrors) {
+			this.context = context;
+			this.properties = properties;
+			this.ignoreMarshallErrors = ignoreMarshallErrors;
+			int h = System.identityHashCode(context);
+			h = 31 * h + properties.hashCode();
+			h = 31 * h + (ignoreMarshallErrors ? 1 : 0);
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if ( this == obj ) {
+				return true;
+			}
+			if ( !(obj instanceof PoolKey) ) {
+				return false;
+			}
+			PoolKey other = (PoolKey) obj;
+			return (context == other.context && ignoreMarshallErrors == other.ignoreMarshallErrors && properties
+					.equals(other.properties));
+		}
+
+	}
+
+}
@@ -0,0 +1,273 @@
+/* ===================================================================
+ * MemoryFlashStore.java
+ * 
+ * Created Oct 18, 2026 6:54:38 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link FlashStore} keeping values in memory, keyed by a random token sent
+ * to the client in a cookie, so no HTTP session is needed.
+ * 
+ * <p>
+ * Values are kept for up to <code>timeToLive</code> seconds, and the values
+ * of the least-recently used tokens are discarded once more than
+ * <code>maxEntries</code> clients have values stored. Removing a value only
+ * needs the request, so values can be consumed while rendering a page.
+ * Values are only available on the server that stored them, so in a cluster
+ * requests must be routed back to the same server (or the flash messages
+ * lost on fail-over accepted).
+ * </p>
+ * 
+ * <p>
+ * Only tokens this store issued, and still has values for, are used. A value
+ * stored for a client without such a token needs the response, to issue a
+ * new token cookie; without it the value is not stored, so a client can not
+ * be made to use a token chosen by someone else.
+ * </p>
+ * 
+ * <p>
+ * The configurable properties of this class are:
+ * </p>
+ * 
+ * <dl class="class-properties">
+ * <dt>maxEntries</dt>
+ * <dd>The maximum number of tokens to store values for. Defaults to
+ * {@link #DEFAULT_MAX_ENTRIES}.</dd>
+ * 
+ * <dt>timeToLive</dt>
+ * <dd>The number of seconds to store values for. Defaults to
+ * {@link #DEFAULT_TIME_TO_LIVE}.</dd>
+ * 
+ * <dt>cookieName</dt>
+ * <dd>The name of the token cookie. Defaults to
+ * {@link #DEFAULT_COOKIE_NAME}.</dd>
+ * 
+ * <dt>cookiePath</dt>
+ * <dd>The path of the token cookie. Defaults to the context path of the
+ * request.</dd>
+ * </dl>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class MemoryFlashStore implements FlashStore {
+
+	/** The default value for the <code>maxEntries</code> property. */
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	/** The default value for the <code>timeToLive</code> property. */
+	public static final int DEFAULT_TIME_TO_LIVE = 300;
+
+	/** The default value for the <code>cookieName</code> property. */
+	public static final String DEFAULT_COOKIE_NAME = "xweb_flash";
+
+	private static final String TOKEN_ATTRIBUTE = MemoryFlashStore.class.getName() + ".TOKEN";
+
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private final SecureRandom random = new SecureRandom();
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+	private int timeToLive = DEFAULT_TIME_TO_LIVE;
+	private String cookieName = DEFAULT_COOKIE_NAME;
+	private String cookiePath = null;
+
+	@Override
+	public Object get(HttpServletRequest request, String key) {
+		Entry entry = getEntry(getToken(request));
+		return (entry == null ? null : entry.values.get(key));
+	}
+
+	@Override
+	public void put(HttpServletRequest request, HttpServletResponse response, String key,
+			Object value) {
+		String token = getToken(request);
+		Entry entry = getEntry(token);
+		if ( entry == null ) {
+			// issue a new token rather than trust an unknown one from the client
+			if ( response == null ) {
+				log.warn("Not storing flash value [{}], as a response is needed to issue a token",
+						key);
+				return;
+			}
+			token = newToken();
+			Cookie cookie = newCookie(request, token);
+			cookie.setMaxAge(timeToLive);
+			response.addCookie(cookie);
+			request.setAttribute(TOKEN_ATTRIBUTE, token);
+			entry = new Entry(System.currentTimeMillis() + (timeToLive * 1000L));
+			synchronized ( entries ) {
+				entries.put(token, entry);
+				if ( entries.size() > maxEntries ) {
+					Iterator<Entry> itr = entries.values().iterator();
+					while ( entries.size() > maxEntries && itr.hasNext() ) {
+						itr.next();
+						itr.remove();
+					}
+				}
+			}
+		}
+		entry.values.put(key, value);
+	}
+
+	@Override
+	public void remove(HttpServletRequest request, HttpServletResponse response, String key) {
+		String token = getToken(request);
+		Entry entry = getEntry(token);
+		if ( entry == null ) {
+			return;
+		}
+		entry.values.remove(key);
+		if ( entry.values.isEmpty() ) {
+			synchronized ( entries ) {
+				entries.remove(token);
+			}
+			if ( response != null ) {
+				Cookie cookie = newCookie(request, "");
+				cookie.setMaxAge(0);
+				response.addCookie(cookie);
+			}
+		}
+	}
+
+	/**
+	 * Get the number of tokens with values stored.
+	 * 
+	 * @return the size
+	 */
+	public int size() {
+		synchronized ( entries ) {
+			return entries.size();
+		}
+	}
+
+	private String getToken(HttpServletRequest request) {
+		String token = (String) request.getAttribute(TOKEN_ATTRIBUTE);
+		if ( token != null ) {
+			return token;
+		}
+		Cookie[] cookies = request.getCookies();
+		if ( cookies != null ) {
+			for ( Cookie cookie : cookies ) {
+				if ( cookieName.equals(cookie.getName()) && cookie.getValue() != null
+						&& cookie.getValue().length() > 0 ) {
+					return cookie.getValue();
+				}
+			}
+		}
+		return null;
+	}
+
+	private Entry getEntry(String token) {
+		if ( token == null ) {
+			return null;
+		}
+		synchronized ( entries ) {
+			Entry entry = entries.get(token);
+			if ( entry != null && System.currentTimeMillis() >= entry.expires ) {
+				entries.remove(token);
+				entry = null;
+			}
+			return entry;
+		}
+	}
+
+	private String newToken() {
+		byte[] bytes = new byte[16];
+		random.nextBytes(bytes);
+		StringBuilder buf = new StringBuilder(32);
+		for ( byte b : bytes ) {
+			buf.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return buf.toString();
+	}
+
+	private Cookie newCookie(HttpServletRequest request, String value) {
+		Cookie cookie = new Cookie(cookieName, value);
+		String path = cookiePath;
+		if ( path == null ) {
+			path = request.getContextPath();
+		}
+		cookie.setPath(path == null || path.length() < 1 ? "/" : path);
+		cookie.setHttpOnly(true);
+		cookie.setSecure(request.isSecure());
+		return cookie;
+	}
+
+	private static final class Entry {
+
+		private final Map<String, Object> values = new ConcurrentHashMap<String, Object>(4);
+		private final long expires;
+
+		private Entry(long expires) {
+			this.expires = expires;
+		}
+
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	public int getTimeToLive() {
+		return timeToLive;
+	}
+
+	public void setTimeToLive(int timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	public String getCookieName() {
+		return cookieName;
+	}
+
+	public void setCookieName(String cookieName) {
+		this.cookieName = cookieName;
+	}
+
+	public String getCookiePath() {
+		return cookiePath;
+	}
+
+	public void setCookiePath(String cookiePath) {
+		this.cookiePath = cookiePath;
+	}
+
+}
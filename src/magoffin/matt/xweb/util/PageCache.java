@@ -0,0 +1,392 @@
+/* ===================================================================
+ * PageCache.java
+ * 
+ * Created Oct 18, 2026 6:06:40 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe cache of fully rendered pages.
+ * 
+ * <p>
+ * Pages are cached for up to <code>timeToLive</code> seconds, and the
+ * least-recently used pages are evicted once more than
+ * <code>maxEntries</code> are cached. Only one thread renders a missing page
+ * at a time: other threads requesting the same page wait for it to be
+ * rendered, or if a page expired less than <code>staleTimeToLive</code>
+ * seconds ago are served the stale page while it is rendered again.
+ * </p>
+ * 
+ * <p>
+ * Callers that render content themselves can instead use
+ * {@link #get(Object)} and {@link #put(Object, Page, int)}, which do not
+ * coordinate concurrent renders.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class PageCache {
+
+	/** The default value for the <code>maxEntries</code> property. */
+	public static final int DEFAULT_MAX_ENTRIES = 500;
+
+	/** The default value for the <code>timeToLive</code> property. */
+	public static final int DEFAULT_TIME_TO_LIVE = 300;
+
+	/** The default value for the <code>renderTimeout</code> property. */
+	public static final int DEFAULT_RENDER_TIMEOUT = 30;
+
+	private final Map<Object, Entry> pages = new LinkedHashMap<Object, Entry>(16, 0.75f, true);
+	private final ConcurrentMap<Object, CountDownLatch> rendering = new ConcurrentHashMap<Object, CountDownLatch>();
+	private final AtomicLong hitCount = new AtomicLong(0);
+	private final AtomicLong staleHitCount = new AtomicLong(0);
+	private final AtomicLong missCount = new AtomicLong(0);
+	private final AtomicLong waitCount = new AtomicLong(0);
+
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+	private int timeToLive = DEFAULT_TIME_TO_LIVE;
+	private int staleTimeToLive = 0;
+	private int renderTimeout = DEFAULT_RENDER_TIMEOUT;
+
+	/**
+	 * API for rendering a page that is not cached.
+	 */
+	public interface Renderer {
+
+		/**
+		 * Render the page.
+		 * 
+		 * @return the page, or <em>null</em> if the page should not be cached
+		 * @throws Exception
+		 *         if any error occurs
+		 */
+		Page render() throws Exception;
+
+	}
+
+	/**
+	 * A rendered page.
+	 */
+	public static final class Page {
+
+		private final byte[] content;
+		private final String contentType;
+		private final String contentEncoding;
+
+		/**
+		 * Construct a page.
+		 * 
+		 * @param content
+		 *        the rendered bytes
+		 * @param contentType
+		 *        the content type, including any character encoding
+		 */
+		public Page(byte[] content, String contentType) {
+			this(content, contentType, null);
+		}
+
+		/**
+		 * Construct a page with compressed content.
+		 * 
+		 * @param content
+		 *        the rendered bytes
+		 * @param contentType
+		 *        the content type, including any character encoding
+		 * @param contentEncoding
+		 *        the content encoding of <code>content</code>, e.g.
+		 *        <code>gzip</code>, or <em>null</em> if not compressed
+		 */
+		public Page(byte[] content, String contentType, String contentEncoding) {
+			this.content = content;
+			this.contentType = contentType;
+			this.contentEncoding = contentEncoding;
+		}
+
+		public byte[] getContent() {
+			return content;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+		public String getContentEncoding() {
+			return contentEncoding;
+		}
+
+	}
+
+	/**
+	 * Get a page, rendering it if not cached.
+	 * 
+	 * @param key
+	 *        the page key
+	 * @param renderer
+	 *        the renderer to use if the page is not cached
+	 * @return the page, or <em>null</em> if the page was not cacheable
+	 * @throws Exception
+	 *         if an error occurs rendering the page
+	 */
+	public Page get(Object key, Renderer renderer) throws Exception {
+		while ( true ) {
+			long now = System.currentTimeMillis();
+			Entry entry = getEntry(key, now);
+			if ( entry != null && now < entry.expires ) {
+				hitCount.incrementAndGet();
+				return entry.page;
+			}
+			CountDownLatch latch = new CountDownLatch(1);
+			CountDownLatch inProgress = rendering.putIfAbsent(key, latch);
+			if ( inProgress == null ) {
+				try {
+					missCount.incrementAndGet();
+					return render(key, renderer);
+				} finally {
+					rendering.remove(key);
+					latch.countDown();
+				}
+			}
+			if ( entry != null ) {
+				staleHitCount.incrementAndGet();
+				return entry.page;
+			}
+			waitCount.incrementAndGet();
+			if ( !inProgress.await(renderTimeout, TimeUnit.SECONDS) ) {
+				// taking too long, so render without caching
+				return renderer.render();
+			}
+		}
+	}
+
+	private Page render(Object key, Renderer renderer) throws Exception {
+		Page page = renderer.render();
+		if ( page != null ) {
+			put(key, page, timeToLive);
+		}
+		return page;
+	}
+
+	/**
+	 * Get a cached page that has not expired, without rendering it.
+	 * 
+	 * @param key
+	 *        the page key
+	 * @return the page, or <em>null</em> if not cached or expired
+	 */
+	public Page get(Object key) {
+		long now = System.currentTimeMillis();
+		Entry entry = getEntry(key, now);
+		if ( entry != null && now < entry.expires ) {
+			hitCount.incrementAndGet();
+			return entry.page;
+		}
+		missCount.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Cache a page rendered by the caller, replacing any page cached for the
+	 * same key.
+	 * 
+	 * @param key
+	 *        the page key
+	 * @param page
+	 *        the page
+	 * @param timeToLive
+	 *        the number of seconds to cache the page for
+	 */
+	public void put(Object key, Page page, int timeToLive) {
+		long expires = System.currentTimeMillis() + (timeToLive * 1000L);
+		Entry entry = new Entry(page, expires, expires + (staleTimeToLive * 1000L));
+		synchronized ( pages ) {
+			pages.put(key, entry);
+			if ( pages.size() > maxEntries ) {
+				Iterator<Entry> itr = pages.values().iterator();
+				while ( pages.size() > maxEntries && itr.hasNext() ) {
+					itr.next();
+					itr.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get a cached entry, if it is not older than its stale time.
+	 * 
+	 * @param key
+	 *        the key
+	 * @param now
+	 *        the current time
+	 * @return the entry, or <em>null</em> if not cached
+	 */
+	private Entry getEntry(Object key, long now) {
+		synchronized ( pages ) {
+			Entry entry = pages.get(key);
+			if ( entry != null && now >= entry.staleExpires ) {
+				pages.remove(key);
+				entry = null;
+			}
+			return entry;
+		}
+	}
+
+	/**
+	 * Get a cached page, even if it has expired.
+	 * 
+	 * <p>
+	 * This does not render the page, or count as a hit or miss.
+	 * </p>
+	 * 
+	 * @param key
+	 *        the page key
+	 * @return the page, or <em>null</em> if not cached
+	 */
+	public Page getStale(Object key) {
+		synchronized ( pages ) {
+			Entry entry = pages.get(key);
+			return (entry == null ? null : entry.page);
+		}
+	}
+
+	/**
+	 * Remove all cached pages.
+	 */
+	public void clear() {
+		synchronized ( pages ) {
+			pages.clear();
+		}
+	}
+
+	/**
+	 * Get the number of cached pages.
+	 * 
+	 * @return the size
+	 */
+	public int size() {
+		synchronized ( pages ) {
+			return pages.size();
+		}
+	}
+
+	/**
+	 * Get the number of requests served a cached page that had not expired.
+	 * 
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Get the number of requests served an expired page while the page was
+	 * rendered by another thread.
+	 * 
+	 * @return the stale hit count
+	 */
+	public long getStaleHitCount() {
+		return staleHitCount.get();
+	}
+
+	/**
+	 * Get the number of requests that rendered a page.
+	 * 
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Get the number of times a request waited for another thread to render a
+	 * page.
+	 * 
+	 * @return the wait count
+	 */
+	public long getWaitCount() {
+		return waitCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "PageCache{size=" + size() + ",hits=" + hitCount.get() + ",staleHits="
+				+ staleHitCount.get() + ",misses=" + missCount.get() + ",waits=" + waitCount.get() + '}';
+	}
+
+	private static final class Entry {
+
+		private final Page page;
+		private final long expires;
+		private final long staleExpires;
+
+		private Entry(Page page, long expires, long staleExpires) {
+			this.page = page;
+			this.expires = expires;
+			this.staleExpires = staleExpires;
+		}
+
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	public int getTimeToLive() {
+		return timeToLive;
+	}
+
+	public void setTimeToLive(int timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	public int getStaleTimeToLive() {
+		return staleTimeToLive;
+	}
+
+	public void setStaleTimeToLive(int staleTimeToLive) {
+		this.staleTimeToLive = staleTimeToLive;
+	}
+
+	public int getRenderTimeout() {
+		return renderTimeout;
+	}
+
+	public void setRenderTimeout(int renderTimeout) {
+		this.renderTimeout = renderTimeout;
+	}
+
+}
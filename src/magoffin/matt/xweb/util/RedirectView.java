@@ -169,7 +169,11 @@ public class RedirectView extends AbstractUrlBasedView {
 				message = (MessageSourceResolvable)o;
 			}
 			if ( message != null ) {
-				webHelper.saveMessage(request, message);
+				if ( webHelper instanceof ResponseAwareXwebHelper ) {
+					((ResponseAwareXwebHelper)webHelper).saveMessage(request, response, message);
+				} else {
+					webHelper.saveMessage(request, message);
+				}
 			}
 			if ( !CollectionUtils.isEmpty(this.modelQueryParameters) ) {
 				if ( targetUrl.indexOf("?") < 0 ) {
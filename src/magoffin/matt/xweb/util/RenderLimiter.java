@@ -0,0 +1,232 @@
+/* ===================================================================
+ * RenderLimiter.java
+ * 
+ * Created Oct 18, 2026 6:12:40 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of concurrent renders of a view, or group of views.
+ * 
+ * <p>
+ * Up to <code>maxConcurrent</code> renders may run at once. Further renders
+ * wait up to <code>timeout</code> milliseconds for a render to finish, with
+ * at most <code>maxQueue</code> renders waiting at once. Renders that cannot
+ * be admitted are rejected, and views respond with
+ * <code>503 Service Unavailable</code> and a <code>Retry-After</code> of
+ * <code>retryAfter</code> seconds (or a stale cached page, if available).
+ * </p>
+ * 
+ * <p>
+ * The configurable properties of this class are:
+ * </p>
+ * 
+ * <dl>
+ * <dt>maxConcurrent</dt>
+ * <dd>The maximum number of concurrent renders. Defaults to the number of
+ * available processors.</dd>
+ * 
+ * <dt>maxQueue</dt>
+ * <dd>The maximum number of renders that may wait to start. Defaults to
+ * {@link #DEFAULT_MAX_QUEUE}.</dd>
+ * 
+ * <dt>timeout</dt>
+ * <dd>The maximum number of milliseconds a render waits to start. Defaults to
+ * {@link #DEFAULT_TIMEOUT}.</dd>
+ * 
+ * <dt>retryAfter</dt>
+ * <dd>The number of seconds to send in the <code>Retry-After</code> header
+ * of rejected renders. Defaults to {@link #DEFAULT_RETRY_AFTER}.</dd>
+ * </dl>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class RenderLimiter {
+
+	/** The default value for the <code>maxQueue</code> property. */
+	public static final int DEFAULT_MAX_QUEUE = 50;
+
+	/** The default value for the <code>timeout</code> property. */
+	public static final long DEFAULT_TIMEOUT = 5000L;
+
+	/** The default value for the <code>retryAfter</code> property. */
+	public static final int DEFAULT_RETRY_AFTER = 5;
+
+	private int maxConcurrent = Runtime.getRuntime().availableProcessors();
+	private int maxQueue = DEFAULT_MAX_QUEUE;
+	private long timeout = DEFAULT_TIMEOUT;
+	private int retryAfter = DEFAULT_RETRY_AFTER;
+
+	private Semaphore permits = new Semaphore(maxConcurrent, true);
+	private final AtomicInteger queueDepth = new AtomicInteger(0);
+	private final AtomicLong acceptedCount = new AtomicLong(0);
+	private final AtomicLong rejectedCount = new AtomicLong(0);
+	private final AtomicLong timeoutCount = new AtomicLong(0);
+
+	/**
+	 * Acquire permission to render.
+	 * 
+	 * <p>
+	 * If this returns <em>true</em> then {@link #release()} must be called
+	 * once the render is complete.
+	 * </p>
+	 * 
+	 * @return <em>true</em> if the render may proceed, <em>false</em> if it
+	 *         was rejected
+	 * @throws InterruptedException
+	 *         if interrupted while waiting
+	 */
+	public boolean acquire() throws InterruptedException {
+		if ( permits.tryAcquire() ) {
+			acceptedCount.incrementAndGet();
+			return true;
+		}
+		if ( queueDepth.incrementAndGet() > maxQueue ) {
+			queueDepth.decrementAndGet();
+			rejectedCount.incrementAndGet();
+			return false;
+		}
+		try {
+			if ( permits.tryAcquire(timeout, TimeUnit.MILLISECONDS) ) {
+				acceptedCount.incrementAndGet();
+				return true;
+			}
+		} finally {
+			queueDepth.decrementAndGet();
+		}
+		timeoutCount.incrementAndGet();
+		rejectedCount.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Release a permission acquired via {@link #acquire()}.
+	 */
+	public void release() {
+		permits.release();
+	}
+
+	/**
+	 * Get the number of renders in progress.
+	 * 
+	 * @return the active count
+	 */
+	public int getActiveCount() {
+		return maxConcurrent - permits.availablePermits();
+	}
+
+	/**
+	 * Get the number of renders waiting to start.
+	 * 
+	 * @return the queue depth
+	 */
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	/**
+	 * Get the number of renders admitted.
+	 * 
+	 * @return the accepted count
+	 */
+	public long getAcceptedCount() {
+		return acceptedCount.get();
+	}
+
+	/**
+	 * Get the number of renders rejected, including those that timed out.
+	 * 
+	 * @return the rejected count
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/**
+	 * Get the number of renders rejected after waiting <code>timeout</code>
+	 * milliseconds.
+	 * 
+	 * @return the timeout count
+	 */
+	public long getTimeoutCount() {
+		return timeoutCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "RenderLimiter{active=" + getActiveCount() + ",queued=" + queueDepth.get()
+				+ ",accepted=" + acceptedCount.get() + ",rejected=" + rejectedCount.get()
+				+ ",timeouts=" + timeoutCount.get() + '}';
+	}
+
+	public int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+
+	/**
+	 * Set the maximum number of concurrent renders.
+	 * 
+	 * <p>
+	 * This must be configured before the limiter is used.
+	 * </p>
+	 * 
+	 * @param maxConcurrent
+	 *        the maximum number of concurrent renders
+	 */
+	public void setMaxConcurrent(int maxConcurrent) {
+		this.maxConcurrent = maxConcurrent;
+		this.permits = new Semaphore(maxConcurrent, true);
+	}
+
+	public int getMaxQueue() {
+		return maxQueue;
+	}
+
+	public void setMaxQueue(int maxQueue) {
+		this.maxQueue = maxQueue;
+	}
+
+	public long getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	public int getRetryAfter() {
+		return retryAfter;
+	}
+
+	public void setRetryAfter(int retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+
+}
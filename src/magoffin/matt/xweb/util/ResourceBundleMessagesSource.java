@@ -34,26 +34,32 @@ import java.util.Locale;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import org.springframework.context.support.ResourceBundleMessageSource;
 
 /**
  * Extension of {@link ResourceBundleMessagesSource} to allow finding 
  * all keys for all messages.
  * 
+ * <p>This class implements {@link Versioned}, and the version changes whenever 
+ * the configured basenames or parent change, or the parent's version changes.</p>
+ * 
  * @author Matt Magoffin (spamsqr@msqr.us)
  * @version $Revision: 1.4 $ $Date: 2007/09/25 06:23:43 $
  */
 public class ResourceBundleMessagesSource extends ResourceBundleMessageSource 
-implements MessagesSource
+implements MessagesSource, Versioned
 {
 	/** Private copy of basenames, as parent class does not provide a way to access this. */
 	private String[] basenames;
 	private MessagesSource parent;
+	private final AtomicLong version = new AtomicLong(0);
 
 	@Override
 	public void setBasenames(String... basenames) {
 		super.setBasenames(basenames);
 		this.basenames = basenames;
+		version.incrementAndGet();
 	}
 	
 	@Override
@@ -63,6 +69,16 @@ implements MessagesSource
 		newBasenames[newBasenames.length-1] = resource;
 		super.setBasenames(newBasenames);
 		this.basenames = newBasenames;
+		version.incrementAndGet();
+	}
+
+	@Override
+	public long getVersion() {
+		long v = version.get();
+		if ( parent instanceof Versioned ) {
+			v += ((Versioned)parent).getVersion();
+		}
+		return v;
 	}
 
 	@Override
@@ -130,6 +146,7 @@ implements MessagesSource
 	 */
 	public void setParent(MessagesSource parent) {
 		this.parent = parent;
+		version.incrementAndGet();
 	}
 
 }
@@ -0,0 +1,74 @@
+/* ===================================================================
+ * ResponseAwareXwebHelper.java
+ * 
+ * Created Oct 18, 2026 7:35:29 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.context.MessageSourceResolvable;
+
+/**
+ * Extension of {@link XwebHelper} that can save messages and URLs with the
+ * response available, for stores that keep them somewhere other than the
+ * session, such as {@link MemoryFlashStore} with its token cookie.
+ * 
+ * <p>
+ * Callers should use these methods when the helper implements this API, and
+ * fall back to the {@link XwebHelper} methods otherwise.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public interface ResponseAwareXwebHelper extends XwebHelper {
+
+	/**
+	 * Save a message, with the response available for storing the message
+	 * somewhere other than the session, such as a cookie.
+	 * 
+	 * @param request
+	 *        the current request
+	 * @param response
+	 *        the current response
+	 * @param message
+	 *        the message to save
+	 */
+	public void saveMessage(HttpServletRequest request, HttpServletResponse response,
+			MessageSourceResolvable message);
+
+	/**
+	 * Save the current URL, with the response available for storing the URL
+	 * somewhere other than the session, such as a cookie.
+	 * 
+	 * @param request
+	 *        the current request
+	 * @param response
+	 *        the current response
+	 * @see #getSavedRequestURL(HttpServletRequest)
+	 */
+	public void saveRequestURL(HttpServletRequest request, HttpServletResponse response);
+
+}
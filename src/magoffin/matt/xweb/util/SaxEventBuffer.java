@@ -0,0 +1,307 @@
+/* ===================================================================
+ * SaxEventBuffer.java
+ * 
+ * Created Oct 18, 2026 5:56:44 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.Arrays;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * A ContentHandler that records SAX events into a compact buffer so they can
+ * be replayed any number of times later on.
+ * 
+ * <p>
+ * Events are stored in a few flat arrays rather than as an object per event,
+ * to keep the memory footprint of large recordings (such as an entire
+ * message bundle) small. The <code>startDocument</code>,
+ * <code>endDocument</code>, and <code>setDocumentLocator</code> events are
+ * not recorded, so the buffer can be replayed into the middle of another
+ * document via {@link #writeTo(ContentHandler)}.
+ * </p>
+ * 
+ * <p>
+ * This class is not thread-safe while recording, but once recording is
+ * complete any number of threads may replay the buffer concurrently.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public final class SaxEventBuffer implements ContentHandler, SaxFragment {
+
+	private static final byte START_PREFIX_MAPPING = 1;
+	private static final byte END_PREFIX_MAPPING = 2;
+	private static final byte START_ELEMENT = 3;
+	private static final byte END_ELEMENT = 4;
+	private static final byte CHARACTERS = 5;
+	private static final byte IGNORABLE_WHITESPACE = 6;
+	private static final byte PROCESSING_INSTRUCTION = 7;
+	private static final byte SKIPPED_ENTITY = 8;
+
+	private byte[] events = new byte[64];
+	private int eventCount = 0;
+	private String[] strings = new String[128];
+	private int stringCount = 0;
+	private int[] ints = new int[64];
+	private int intCount = 0;
+	private char[] chars = new char[256];
+	private int charCount = 0;
+
+	/**
+	 * Reduce the internal buffers to the size of the recorded data. Call
+	 * this once recording is complete.
+	 */
+	public void trimToSize() {
+		events = Arrays.copyOf(events, eventCount);
+		strings = Arrays.copyOf(strings, stringCount);
+		ints = Arrays.copyOf(ints, intCount);
+		chars = Arrays.copyOf(chars, charCount);
+	}
+
+	/**
+	 * Discard all recorded events.
+	 */
+	public void clear() {
+		Arrays.fill(strings, 0, stringCount, null);
+		eventCount = 0;
+		stringCount = 0;
+		intCount = 0;
+		charCount = 0;
+	}
+
+	/**
+	 * Test if no events have been recorded.
+	 * 
+	 * @return <em>true</em> if the buffer is empty
+	 */
+	public boolean isEmpty() {
+		return eventCount == 0;
+	}
+
+	/**
+	 * Get the number of recorded events.
+	 * 
+	 * @return the event count
+	 */
+	public int getEventCount() {
+		return eventCount;
+	}
+
+	/**
+	 * Get the number of recorded characters.
+	 * 
+	 * @return the character count
+	 */
+	public int getCharacterCount() {
+		return charCount;
+	}
+
+	@Override
+	public void writeTo(ContentHandler handler) throws SAXException {
+		final byte[] ev = events;
+		final String[] str = strings;
+		final int[] num = ints;
+		final char[] ch = chars;
+		AttributesImpl atts = null;
+		int s = 0;
+		int n = 0;
+		for ( int i = 0, len = eventCount; i < len; i++ ) {
+			switch ( ev[i] ) {
+				case START_PREFIX_MAPPING:
+					handler.startPrefixMapping(str[s], str[s + 1]);
+					s += 2;
+					break;
+
+				case END_PREFIX_MAPPING:
+					handler.endPrefixMapping(str[s++]);
+					break;
+
+				case START_ELEMENT: {
+					String uri = str[s++];
+					String localName = str[s++];
+					String qName = str[s++];
+					if ( atts == null ) {
+						atts = new AttributesImpl();
+					} else {
+						atts.clear();
+					}
+					for ( int j = 0, attCount = num[n++]; j < attCount; j++ ) {
+						atts.addAttribute(str[s], str[s + 1], str[s + 2], str[s + 3], str[s + 4]);
+						s += 5;
+					}
+					handler.startElement(uri, localName, qName, atts);
+					break;
+				}
+
+				case END_ELEMENT:
+					handler.endElement(str[s], str[s + 1], str[s + 2]);
+					s += 3;
+					break;
+
+				case CHARACTERS:
+					handler.characters(ch, num[n], num[n + 1]);
+					n += 2;
+					break;
+
+				case IGNORABLE_WHITESPACE:
+					handler.ignorableWhitespace(ch, num[n], num[n + 1]);
+					n += 2;
+					break;
+
+				case PROCESSING_INSTRUCTION:
+					handler.processingInstruction(str[s], str[s + 1]);
+					s += 2;
+					break;
+
+				case SKIPPED_ENTITY:
+					handler.skippedEntity(str[s++]);
+					break;
+
+				default:
+					throw new IllegalStateException("Unknown SAX event type " + ev[i]);
+			}
+		}
+	}
+
+	@Override
+	public void setDocumentLocator(Locator locator) {
+		// not recorded
+	}
+
+	@Override
+	public void startDocument() throws SAXException {
+		// not recorded
+	}
+
+	@Override
+	public void endDocument() throws SAXException {
+		// not recorded
+	}
+
+	@Override
+	public void startPrefixMapping(String prefix, String uri) throws SAXException {
+		addEvent(START_PREFIX_MAPPING);
+		addString(prefix);
+		addString(uri);
+	}
+
+	@Override
+	public void endPrefixMapping(String prefix) throws SAXException {
+		addEvent(END_PREFIX_MAPPING);
+		addString(prefix);
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts)
+			throws SAXException {
+		addEvent(START_ELEMENT);
+		addString(uri);
+		addString(localName);
+		addString(qName);
+		int attCount = atts.getLength();
+		addInt(attCount);
+		for ( int i = 0; i < attCount; i++ ) {
+			addString(atts.getURI(i));
+			addString(atts.getLocalName(i));
+			addString(atts.getQName(i));
+			addString(atts.getType(i));
+			addString(atts.getValue(i));
+		}
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		addEvent(END_ELEMENT);
+		addString(uri);
+		addString(localName);
+		addString(qName);
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		addEvent(CHARACTERS);
+		addChars(ch, start, length);
+	}
+
+	@Override
+	public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+		addEvent(IGNORABLE_WHITESPACE);
+		addChars(ch, start, length);
+	}
+
+	@Override
+	public void processingInstruction(String target, String data) throws SAXException {
+		addEvent(PROCESSING_INSTRUCTION);
+		addString(target);
+		addString(data);
+	}
+
+	@Override
+	public void skippedEntity(String name) throws SAXException {
+		addEvent(SKIPPED_ENTITY);
+		addString(name);
+	}
+
+	private void addEvent(byte event) {
+		if ( eventCount == events.length ) {
+			events = Arrays.copyOf(events, newCapacity(events.length, 1));
+		}
+		events[eventCount++] = event;
+	}
+
+	private void addString(String s) {
+		if ( stringCount == strings.length ) {
+			strings = Arrays.copyOf(strings, newCapacity(strings.length, 1));
+		}
+		strings[stringCount++] = s;
+	}
+
+	private void addInt(int i) {
+		if ( intCount == ints.length ) {
+			ints = Arrays.copyOf(ints, newCapacity(ints.length, 1));
+		}
+		ints[intCount++] = i;
+	}
+
+	private void addChars(char[] ch, int start, int length) {
+		if ( charCount + length > chars.length ) {
+			chars = Arrays.copyOf(chars, newCapacity(chars.length, charCount + length - chars.length));
+		}
+		System.arraycopy(ch, start, chars, charCount, length);
+		addInt(charCount);
+		addInt(length);
+		charCount += length;
+	}
+
+	private static int newCapacity(int current, int needed) {
+		return Math.max(current + (current >> 1) + 1, current + needed);
+	}
+
+}
@@ -0,0 +1,56 @@
+/* ===================================================================
+ * SaxFragment.java
+ * 
+ * Created Oct 18, 2026 5:56:44 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * API for a piece of XML that can write itself as SAX events.
+ * 
+ * <p>
+ * A fragment does not emit <code>startDocument</code> or
+ * <code>endDocument</code> events, so that it can be written into the middle
+ * of another document.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public interface SaxFragment {
+
+	/**
+	 * Write the fragment to a ContentHandler.
+	 * 
+	 * @param handler
+	 *        the handler to write to
+	 * @throws SAXException
+	 *         if the handler throws an exception
+	 */
+	public void writeTo(ContentHandler handler) throws SAXException;
+
+}
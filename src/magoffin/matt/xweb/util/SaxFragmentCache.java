@@ -0,0 +1,229 @@
+/* ===================================================================
+ * SaxFragmentCache.java
+ * 
+ * Created Oct 18, 2026 5:56:44 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe cache of recorded {@link SaxEventBuffer} fragments.
+ * 
+ * <p>
+ * Each fragment is stored under a key along with a <em>version</em> object.
+ * A cached fragment is only returned if the version passed to
+ * {@link #get(String, Object)} is equal to the version it was stored with, so
+ * that callers can invalidate fragments simply by passing a new version, for
+ * example the {@link Versioned#getVersion()} value of the object the
+ * fragment was generated from.
+ * </p>
+ * 
+ * <p>
+ * If <code>maxEntries</code> is greater than <code>0</code>, the
+ * least-recently used fragments are evicted once more than that many are
+ * cached. Otherwise the cache is unbounded, which suits a small fixed set of
+ * keys.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class SaxFragmentCache {
+
+	private final ConcurrentMap<String, Entry> fragments = new ConcurrentHashMap<String, Entry>(16);
+	private final AtomicLong hitCount = new AtomicLong(0);
+	private final AtomicLong missCount = new AtomicLong(0);
+	private final AtomicLong evictionCount = new AtomicLong(0);
+
+	private int maxEntries = 0;
+
+	/**
+	 * Construct an unbounded cache.
+	 */
+	public SaxFragmentCache() {
+		super();
+	}
+
+	/**
+	 * Construct a bounded cache.
+	 * 
+	 * @param maxEntries
+	 *        the maximum number of fragments to cache
+	 */
+	public SaxFragmentCache(int maxEntries) {
+		super();
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Get a cached fragment.
+	 * 
+	 * @param key
+	 *        the fragment key
+	 * @param version
+	 *        the required version of the fragment
+	 * @return the fragment, or <em>null</em> if not cached or the cached
+	 *         version does not match <code>version</code>
+	 */
+	public SaxEventBuffer get(String key, Object version) {
+		Entry entry = fragments.get(key);
+		if ( entry == null || !entry.version.equals(version) ) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		if ( maxEntries > 0 ) {
+			entry.lastAccess = System.nanoTime();
+		}
+		return entry.fragment;
+	}
+
+	/**
+	 * Cache a fragment, replacing any other version cached for the same key.
+	 * 
+	 * <p>
+	 * The fragment must not be modified after it has been cached.
+	 * </p>
+	 * 
+	 * @param key
+	 *        the fragment key
+	 * @param version
+	 *        the version of the fragment
+	 * @param fragment
+	 *        the fragment
+	 */
+	public void put(String key, Object version, SaxEventBuffer fragment) {
+		fragments.put(key, new Entry(version, fragment));
+		if ( maxEntries > 0 && fragments.size() > maxEntries ) {
+			evict();
+		}
+	}
+
+	/**
+	 * Evict the least-recently used fragments until no more than
+	 * <code>maxEntries</code> remain. Lookups are not blocked, so this
+	 * scans the whole cache for each fragment evicted, which is cheap for
+	 * caches of a few hundred fragments that are mostly hit.
+	 */
+	private synchronized void evict() {
+		while ( fragments.size() > maxEntries ) {
+			Map.Entry<String, Entry> oldest = null;
+			for ( Map.Entry<String, Entry> me : fragments.entrySet() ) {
+				if ( oldest == null || me.getValue().lastAccess - oldest.getValue().lastAccess < 0 ) {
+					oldest = me;
+				}
+			}
+			if ( oldest == null || !fragments.remove(oldest.getKey(), oldest.getValue()) ) {
+				continue;
+			}
+			evictionCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Remove a cached fragment.
+	 * 
+	 * @param key
+	 *        the fragment key
+	 */
+	public void remove(String key) {
+		fragments.remove(key);
+	}
+
+	/**
+	 * Remove all cached fragments.
+	 */
+	public void clear() {
+		fragments.clear();
+	}
+
+	/**
+	 * Get the number of cached fragments.
+	 * 
+	 * @return the size
+	 */
+	public int size() {
+		return fragments.size();
+	}
+
+	/**
+	 * Get the number of lookups that returned a cached fragment.
+	 * 
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Get the number of lookups that did not return a cached fragment.
+	 * 
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Get the number of fragments evicted to keep the cache within
+	 * <code>maxEntries</code>.
+	 * 
+	 * @return the eviction count
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "SaxFragmentCache{size=" + fragments.size() + ",hits=" + hitCount.get() + ",misses="
+				+ missCount.get() + ",evictions=" + evictionCount.get() + '}';
+	}
+
+	private static final class Entry {
+
+		private final Object version;
+		private final SaxEventBuffer fragment;
+		private volatile long lastAccess = System.nanoTime();
+
+		private Entry(Object version, SaxEventBuffer fragment) {
+			this.version = version;
+			this.fragment = fragment;
+		}
+
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+}
@@ -0,0 +1,85 @@
+/* ===================================================================
+ * SaxonXsltEngine.java
+ * 
+ * Created Oct 18, 2026 6:21:43 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.TransformerFactoryConfigurationError;
+
+/**
+ * {@link XsltEngine} using Saxon-HE.
+ * 
+ * <p>
+ * Saxon compiles each stylesheet into a reusable, optimized executable and
+ * builds the x-data document as a compact TinyTree directly from the JAXB
+ * Marshaller's SAX events. Saxon-HE must be on the class path; it is
+ * available via the <code>saxon</code> Ivy configuration. Saxon is loaded
+ * through its JAXP API, so no compile-time dependency is needed.
+ * </p>
+ * 
+ * <p>
+ * Note Saxon-HE does not support Xalan-style Java extension functions, so
+ * stylesheets calling {@link XwebXsltFunctions} must use the
+ * <code>x-msg</code> and <code>x-context/settings</code> sections instead
+ * when rendered with this engine.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class SaxonXsltEngine extends JaxpXsltEngine {
+
+	/** The Saxon TransformerFactory class name. */
+	public static final String SAXON_TRANSFORMER_FACTORY_CLASS_NAME = "net.sf.saxon.TransformerFactoryImpl";
+
+	/**
+	 * Default constructor.
+	 */
+	public SaxonXsltEngine() {
+		super(SAXON_TRANSFORMER_FACTORY_CLASS_NAME);
+	}
+
+	@Override
+	public String getName() {
+		return "saxon";
+	}
+
+	@Override
+	public TransformerFactory newTransformerFactory() {
+		try {
+			return super.newTransformerFactory();
+		} catch ( TransformerFactoryConfigurationError e ) {
+			throw new IllegalStateException("Saxon-HE is not available; add the Saxon-HE jar to "
+					+ "the class path to use " + getTransformerFactoryClassName(), e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SaxonXsltEngine{" + getTransformerFactoryClassName() + '}';
+	}
+
+}
@@ -0,0 +1,65 @@
+/* ===================================================================
+ * SessionFlashStore.java
+ * 
+ * Created Oct 18, 2026 6:54:38 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * {@link FlashStore} using HTTP session attributes.
+ * 
+ * <p>
+ * A session is only created when a value is stored.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class SessionFlashStore implements FlashStore {
+
+	@Override
+	public Object get(HttpServletRequest request, String key) {
+		HttpSession session = request.getSession(false);
+		return (session == null ? null : session.getAttribute(key));
+	}
+
+	@Override
+	public void put(HttpServletRequest request, HttpServletResponse response, String key,
+			Object value) {
+		request.getSession().setAttribute(key, value);
+	}
+
+	@Override
+	public void remove(HttpServletRequest request, HttpServletResponse response, String key) {
+		HttpSession session = request.getSession(false);
+		if ( session != null ) {
+			session.removeAttribute(key);
+		}
+	}
+
+}
@@ -0,0 +1,333 @@
+/* ===================================================================
+ * SessionSectionCache.java
+ * 
+ * Created Oct 18, 2026 6:57:34 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.http.HttpSessionAttributeListener;
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionListener;
+
+/**
+ * Cache of recorded <code>x-session</code> sections, invalidated whenever a
+ * session attribute is added, removed, or replaced.
+ * 
+ * <p>
+ * Register this as a listener in <code>web.xml</code>:
+ * </p>
+ * 
+ * <pre>
+ * &lt;listener&gt;
+ *   &lt;listener-class&gt;magoffin.matt.xweb.util.SessionSectionCache&lt;/listener-class&gt;
+ * &lt;/listener&gt;
+ * </pre>
+ * 
+ * <p>
+ * The listener publishes itself as the {@link #CONTEXT_ATTRIBUTE} servlet
+ * context attribute, where {@link XwebJaxbXsltView} finds it and replays the
+ * section recorded for a session until the session's attributes change. Only
+ * changes made via <code>setAttribute()</code> or
+ * <code>removeAttribute()</code> are seen, so an application that modifies
+ * an attribute value in place must set the attribute again, the same as is
+ * needed for session replication.
+ * </p>
+ * 
+ * <p>
+ * Sessions are only tracked once a view has asked for their version, and
+ * are forgotten when destroyed, so the attribute events containers send
+ * while unbinding the attributes of a destroyed session are ignored. The
+ * least-recently used sessions are forgotten once more than
+ * <code>maxEntries</code> are tracked.
+ * </p>
+ * 
+ * <p>
+ * The configurable properties of this class are:
+ * </p>
+ * 
+ * <dl class="class-properties">
+ * <dt>maxEntries</dt>
+ * <dd>The maximum number of sessions to cache sections for. Defaults to
+ * {@link #DEFAULT_MAX_ENTRIES}, or the value of the
+ * {@link #MAX_ENTRIES_PARAMETER} servlet context parameter when registered
+ * as a listener.</dd>
+ * </dl>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class SessionSectionCache implements ServletContextListener, HttpSessionListener,
+		HttpSessionAttributeListener {
+
+	/** The servlet context attribute this listener is published as. */
+	public static final String CONTEXT_ATTRIBUTE = SessionSectionCache.class.getName();
+
+	/** The servlet context parameter to configure <code>maxEntries</code> with. */
+	public static final String MAX_ENTRIES_PARAMETER = CONTEXT_ATTRIBUTE + ".maxEntries";
+
+	/** The default value for the <code>maxEntries</code> property. */
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	private final Map<String, Entry> sessions = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private final AtomicLong lastVersion = new AtomicLong(0);
+	private final AtomicLong hitCount = new AtomicLong(0);
+	private final AtomicLong missCount = new AtomicLong(0);
+	private final AtomicLong evictionCount = new AtomicLong(0);
+
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+	/**
+	 * Get the cache published in a servlet context.
+	 * 
+	 * @param servletContext
+	 *        the servlet context, or <em>null</em>
+	 * @return the cache, or <em>null</em> if the listener is not registered
+	 */
+	public static SessionSectionCache getInstance(ServletContext servletContext) {
+		if ( servletContext == null ) {
+			return null;
+		}
+		Object o = servletContext.getAttribute(CONTEXT_ATTRIBUTE);
+		return (o instanceof SessionSectionCache ? (SessionSectionCache) o : null);
+	}
+
+	/**
+	 * Get the section recorded for a session, if its attributes have not
+	 * changed since.
+	 * 
+	 * @param sessionId
+	 *        the session ID
+	 * @param filter
+	 *        the rendering view's attribute filter
+	 * @return the recorded section, or <em>null</em> if not cached
+	 */
+	public SaxEventBuffer get(String sessionId, String filter) {
+		SaxEventBuffer fragment = null;
+		synchronized ( sessions ) {
+			Entry entry = sessions.get(sessionId);
+			if ( entry != null ) {
+				fragment = entry.fragments.get(filter);
+			}
+		}
+		if ( fragment == null ) {
+			missCount.incrementAndGet();
+		} else {
+			hitCount.incrementAndGet();
+		}
+		return fragment;
+	}
+
+	/**
+	 * Get the current version of a session's attributes, tracking the
+	 * session from now on if not already tracked.
+	 * 
+	 * <p>
+	 * Get the version before reading the attributes to record a section, so
+	 * a change made while recording invalidates the recording. Versions are
+	 * never re-used, even by a session that is forgotten and tracked again.
+	 * </p>
+	 * 
+	 * @param sessionId
+	 *        the session ID
+	 * @return the version
+	 */
+	public long getVersion(String sessionId) {
+		synchronized ( sessions ) {
+			Entry entry = sessions.get(sessionId);
+			if ( entry == null ) {
+				entry = new Entry(lastVersion.incrementAndGet());
+				sessions.put(sessionId, entry);
+				if ( sessions.size() > maxEntries ) {
+					Iterator<Entry> itr = sessions.values().iterator();
+					while ( sessions.size() > maxEntries && itr.hasNext() ) {
+						itr.next();
+						itr.remove();
+						evictionCount.incrementAndGet();
+					}
+				}
+			}
+			return entry.version;
+		}
+	}
+
+	/**
+	 * Cache the section recorded for a session, unless its attributes have
+	 * changed since the version was read.
+	 * 
+	 * @param sessionId
+	 *        the session ID
+	 * @param filter
+	 *        the rendering view's attribute filter
+	 * @param version
+	 *        the version returned by {@link #getVersion(String)} before the
+	 *        section was recorded
+	 * @param fragment
+	 *        the recorded section
+	 */
+	public void put(String sessionId, String filter, long version, SaxEventBuffer fragment) {
+		synchronized ( sessions ) {
+			Entry entry = sessions.get(sessionId);
+			if ( entry != null && entry.version == version ) {
+				entry.fragments.put(filter, fragment);
+			}
+		}
+	}
+
+	private void attributeChanged(HttpSessionBindingEvent event) {
+		synchronized ( sessions ) {
+			// only bump tracked sessions, so a destroyed session is not tracked again
+			Entry entry = sessions.get(event.getSession().getId());
+			if ( entry != null ) {
+				entry.version = lastVersion.incrementAndGet();
+				entry.fragments.clear();
+			}
+		}
+	}
+
+	@Override
+	public void attributeAdded(HttpSessionBindingEvent event) {
+		attributeChanged(event);
+	}
+
+	@Override
+	public void attributeRemoved(HttpSessionBindingEvent event) {
+		attributeChanged(event);
+	}
+
+	@Override
+	public void attributeReplaced(HttpSessionBindingEvent event) {
+		attributeChanged(event);
+	}
+
+	@Override
+	public void sessionCreated(HttpSessionEvent event) {
+		// nothing to do
+	}
+
+	@Override
+	public void sessionDestroyed(HttpSessionEvent event) {
+		synchronized ( sessions ) {
+			sessions.remove(event.getSession().getId());
+		}
+	}
+
+	@Override
+	public void contextInitialized(ServletContextEvent event) {
+		ServletContext servletContext = event.getServletContext();
+		String max = servletContext.getInitParameter(MAX_ENTRIES_PARAMETER);
+		if ( max != null && max.trim().length() > 0 ) {
+			maxEntries = Integer.parseInt(max.trim());
+		}
+		servletContext.setAttribute(CONTEXT_ATTRIBUTE, this);
+	}
+
+	@Override
+	public void contextDestroyed(ServletContextEvent event) {
+		event.getServletContext().removeAttribute(CONTEXT_ATTRIBUTE);
+		clear();
+	}
+
+	/**
+	 * Forget all sessions and their recorded sections.
+	 */
+	public void clear() {
+		synchronized ( sessions ) {
+			sessions.clear();
+		}
+	}
+
+	/**
+	 * Get the number of sessions tracked.
+	 * 
+	 * @return the size
+	 */
+	public int size() {
+		synchronized ( sessions ) {
+			return sessions.size();
+		}
+	}
+
+	/**
+	 * Get the number of lookups that found a recorded section.
+	 * 
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Get the number of lookups that did not find a recorded section.
+	 * 
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Get the number of sessions forgotten to keep within
+	 * <code>maxEntries</code>.
+	 * 
+	 * @return the eviction count
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "SessionSectionCache{size=" + size() + ",hits=" + hitCount.get() + ",misses="
+				+ missCount.get() + ",evictions=" + evictionCount.get() + '}';
+	}
+
+	private static final class Entry {
+
+		private long version;
+		private final Map<String, SaxEventBuffer> fragments = new HashMap<String, SaxEventBuffer>(2);
+
+		private Entry(long version) {
+			this.version = version;
+		}
+
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+}
@@ -56,8 +56,10 @@ import org.springframework.web.servlet.ModelAndView;
  *   <dd>The default error message. Defaults to 'An error has occured.'</dd>
  * 
  *   <dt>saveRequestUrl</dt>
- *   <dd>If <em>true</em> then the {@link XwebHelper#saveRequestURL(HttpServletRequest)}
- *   method will be called, saving the request URL to session. Defaults to 
+ *   <dd>If <em>true</em> then the 
+ *   {@link XwebHelper#saveRequestURL(HttpServletRequest)} method (or 
+ *   {@link ResponseAwareXwebHelper#saveRequestURL(HttpServletRequest, HttpServletResponse)}
+ *   if implemented) will be called, saving the request URL. Defaults to 
  *   <em>false</em>.</dd>
  * 
  *   <dt>order</dt>
@@ -85,12 +87,22 @@ public class SimpleMessageExceptionResolver implements HandlerExceptionResolver,
 	public ModelAndView resolveException(HttpServletRequest request,
 			HttpServletResponse response, Object handler, Exception ex) {
 		if ( exceptionClass.isAssignableFrom(ex.getClass()) ) {
+			ResponseAwareXwebHelper responseHelper = (xwebHelper instanceof ResponseAwareXwebHelper
+					? (ResponseAwareXwebHelper)xwebHelper : null);
 			if ( saveRequestUrl ) {
-				xwebHelper.saveRequestURL(request);
+				if ( responseHelper != null ) {
+					responseHelper.saveRequestURL(request, response);
+				} else {
+					xwebHelper.saveRequestURL(request);
+				}
 			}
 			ObjectError error = new ObjectError(ex.getClass().getSimpleName(),
 					new String[] {errorMessageKey},null,defaultErrorMessage);
-			xwebHelper.saveMessage(request, error);
+			if ( responseHelper != null ) {
+				responseHelper.saveMessage(request, response, error);
+			} else {
+				xwebHelper.saveMessage(request, error);
+			}
 			return new ModelAndView(redirectView);
 		}
 		return null;
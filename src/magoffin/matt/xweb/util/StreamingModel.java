@@ -0,0 +1,197 @@
+/* ===================================================================
+ * StreamingModel.java
+ * 
+ * Created Oct 18, 2026 6:27:52 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.Iterator;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Model object for a large collection of JAXB objects, which are marshalled
+ * one at a time as the view renders rather than first being collected into a
+ * single JAXB object graph.
+ * 
+ * <p>
+ * Put an instance of this class in the model in place of a JAXBElement, and
+ * {@link XwebJaxbXsltView} will render the <code>x-model</code> section as a
+ * single element named by <code>name</code> whose content is each item
+ * marshalled in turn. Each item must be either a <code>JAXBElement</code> or
+ * an <code>XmlRootElement</code> object known to the view's JAXB context. An
+ * <code>Iterator</code> that loads its items lazily (for example from a
+ * database cursor) means only one item needs to be in memory at a time.
+ * </p>
+ * 
+ * <p>
+ * Items are only streamed when the view's
+ * <code>cacheXDataFragments</code> property is enabled. Otherwise (or for
+ * <code>enableXmlSourceResponse</code> requests) the items are all
+ * marshalled into a DOM element first. Note the XSLT processor still builds
+ * its own tree of the x-data document for the transformation.
+ * </p>
+ * 
+ * <p>
+ * A model constructed with an <code>Iterator</code> can only be rendered
+ * once; use an <code>Iterable</code> for a model that may be rendered more
+ * than once.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class StreamingModel {
+
+	private static final DocumentBuilderFactory DOC_BUILDER_FACTORY = DocumentBuilderFactory
+			.newInstance();
+
+	static {
+		DOC_BUILDER_FACTORY.setNamespaceAware(true);
+	}
+
+	private final QName name;
+	private final Iterable<?> items;
+	private Iterator<?> iterator;
+
+	/**
+	 * Construct with an Iterable, which may be rendered any number of times.
+	 * 
+	 * @param name
+	 *        the name of the element to wrap the items in
+	 * @param items
+	 *        the items
+	 */
+	public StreamingModel(QName name, Iterable<?> items) {
+		super();
+		this.name = name;
+		this.items = items;
+		this.iterator = null;
+	}
+
+	/**
+	 * Construct with an Iterator, which may only be rendered once.
+	 * 
+	 * @param name
+	 *        the name of the element to wrap the items in
+	 * @param items
+	 *        the items
+	 */
+	public StreamingModel(QName name, Iterator<?> items) {
+		super();
+		this.name = name;
+		this.items = null;
+		this.iterator = items;
+	}
+
+	private synchronized Iterator<?> iterator() {
+		if ( items != null ) {
+			return items.iterator();
+		}
+		if ( iterator == null ) {
+			throw new IllegalStateException("The items of model [" + name
+					+ "] have already been rendered");
+		}
+		Iterator<?> result = iterator;
+		iterator = null;
+		return result;
+	}
+
+	private String getQualifiedName() {
+		String prefix = name.getPrefix();
+		return (prefix.length() < 1 ? name.getLocalPart() : prefix + ':' + name.getLocalPart());
+	}
+
+	/**
+	 * Write the model as SAX events, marshalling each item in turn.
+	 * 
+	 * <p>
+	 * The Marshaller must not be in use marshalling anything else, e.g. it
+	 * cannot be the Marshaller producing the document the events are written
+	 * into.
+	 * </p>
+	 * 
+	 * @param handler
+	 *        the handler to write to
+	 * @param marshaller
+	 *        the Marshaller to marshal the items with
+	 * @throws SAXException
+	 *         if the handler throws an exception or an item cannot be
+	 *         marshalled
+	 */
+	public void writeTo(ContentHandler handler, Marshaller marshaller) throws SAXException {
+		String prefix = name.getPrefix();
+		String qName = getQualifiedName();
+		FragmentFilter filter = new FragmentFilter(handler);
+		handler.startPrefixMapping(prefix, name.getNamespaceURI());
+		handler.startElement(name.getNamespaceURI(), name.getLocalPart(), qName,
+				new AttributesImpl());
+		for ( Iterator<?> itr = iterator(); itr.hasNext(); ) {
+			try {
+				marshaller.marshal(itr.next(), filter);
+			} catch ( JAXBException e ) {
+				throw new SAXException("Unable to marshal model [" + name + "] item", e);
+			}
+		}
+		handler.endElement(name.getNamespaceURI(), name.getLocalPart(), qName);
+		handler.endPrefixMapping(prefix);
+	}
+
+	/**
+	 * Marshal the model into a DOM Element.
+	 * 
+	 * @param marshaller
+	 *        the Marshaller to marshal the items with
+	 * @return the element
+	 * @throws JAXBException
+	 *         if an item cannot be marshalled
+	 */
+	public Element toElement(Marshaller marshaller) throws JAXBException {
+		Document doc;
+		try {
+			doc = DOC_BUILDER_FACTORY.newDocumentBuilder().newDocument();
+		} catch ( ParserConfigurationException e ) {
+			throw new JAXBException(e);
+		}
+		Element root = doc.createElementNS(name.getNamespaceURI(), getQualifiedName());
+		doc.appendChild(root);
+		for ( Iterator<?> itr = iterator(); itr.hasNext(); ) {
+			marshaller.marshal(itr.next(), root);
+		}
+		return root;
+	}
+
+	public QName getName() {
+		return name;
+	}
+
+}
@@ -0,0 +1,301 @@
+/* ===================================================================
+ * TemplateFragmentCache.java
+ * 
+ * Created Oct 18, 2026 7:13:33 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.DOMImplementation;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * A thread-safe cache of output fragments rendered by stylesheets, for the
+ * {@link XwebXsltFunctions#cached(String)} and
+ * {@link XwebXsltFunctions#cache(String, int, NodeList)} functions.
+ * 
+ * <p>
+ * Fragments are copied into a DOM of their own when cached, and returned as
+ * node lists to be copied into the output with <code>xsl:copy-of</code>, so
+ * they are serialized with the output method of the calling stylesheet. The
+ * cached nodes are shared by all threads, so they must not be modified.
+ * Fragments are cached for the number of seconds given when cached, and the
+ * least-recently used fragments are evicted once more than
+ * <code>maxEntries</code> are cached.
+ * </p>
+ * 
+ * <p>
+ * The configurable properties of this class are:
+ * </p>
+ * 
+ * <dl class="class-properties">
+ * <dt>maxEntries</dt>
+ * <dd>The maximum number of fragments to cache. Defaults to
+ * {@link #DEFAULT_MAX_ENTRIES}.</dd>
+ * </dl>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class TemplateFragmentCache {
+
+	/** The default value for the <code>maxEntries</code> property. */
+	public static final int DEFAULT_MAX_ENTRIES = 500;
+
+	private static final DOMImplementation DOM_IMPLEMENTATION;
+
+	static {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		try {
+			DOM_IMPLEMENTATION = factory.newDocumentBuilder().getDOMImplementation();
+		} catch ( ParserConfigurationException e ) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private final Map<String, Entry> fragments = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private final AtomicLong hitCount = new AtomicLong(0);
+	private final AtomicLong missCount = new AtomicLong(0);
+
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+	/**
+	 * Get a cached fragment that has not expired.
+	 * 
+	 * @param key
+	 *        the fragment key
+	 * @return the fragment nodes, or <em>null</em> if not cached or expired
+	 */
+	public NodeList get(String key) {
+		Entry entry;
+		synchronized ( fragments ) {
+			entry = fragments.get(key);
+			if ( entry != null && System.currentTimeMillis() >= entry.expires ) {
+				fragments.remove(key);
+				entry = null;
+			}
+		}
+		if ( entry == null ) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return new FragmentNodeList(entry.nodes);
+	}
+
+	/**
+	 * Copy a fragment and cache the copy, replacing any fragment cached for
+	 * the same key.
+	 * 
+	 * @param key
+	 *        the fragment key
+	 * @param nodes
+	 *        the fragment nodes
+	 * @param timeToLive
+	 *        the number of seconds to cache the fragment for
+	 * @return the cached copy of the fragment nodes
+	 */
+	public NodeList put(String key, NodeList nodes, int timeToLive) {
+		Node[] copy = copyNodes(nodes);
+		Entry entry = new Entry(copy, System.currentTimeMillis() + (timeToLive * 1000L));
+		synchronized ( fragments ) {
+			fragments.put(key, entry);
+			if ( fragments.size() > maxEntries ) {
+				Iterator<Entry> itr = fragments.values().iterator();
+				while ( fragments.size() > maxEntries && itr.hasNext() ) {
+					itr.next();
+					itr.remove();
+				}
+			}
+		}
+		return new FragmentNodeList(copy);
+	}
+
+	/**
+	 * Copy a fragment without caching it.
+	 * 
+	 * <p>
+	 * XSLT processors may not be able to copy the result tree fragments they
+	 * pass to extension functions into the output, so a fragment that is not
+	 * cached must still be copied.
+	 * </p>
+	 * 
+	 * @param nodes
+	 *        the fragment nodes
+	 * @return the copy of the fragment nodes
+	 */
+	public static NodeList copy(NodeList nodes) {
+		return new FragmentNodeList(copyNodes(nodes));
+	}
+
+	private static Node[] copyNodes(NodeList nodes) {
+		Document doc = DOM_IMPLEMENTATION.createDocument(null, null, null);
+		List<Node> copies = new ArrayList<Node>(nodes.getLength());
+		for ( int i = 0, len = nodes.getLength(); i < len; i++ ) {
+			copy(doc, nodes.item(i), copies);
+		}
+		return copies.toArray(new Node[copies.size()]);
+	}
+
+	/**
+	 * Copy a fragment node into a document, or its children if it is a
+	 * document node (as result tree fragments are passed).
+	 * 
+	 * @param doc
+	 *        the document to copy to
+	 * @param node
+	 *        the node to copy
+	 * @param copies
+	 *        the list to add the copies to
+	 */
+	private static void copy(Document doc, Node node, List<Node> copies) {
+		short type = node.getNodeType();
+		if ( type == Node.DOCUMENT_NODE || type == Node.DOCUMENT_FRAGMENT_NODE ) {
+			for ( Node child = node.getFirstChild(); child != null; child = child.getNextSibling() ) {
+				copy(doc, child, copies);
+			}
+			return;
+		}
+		Node copy = doc.importNode(node, true);
+		initialize(copy);
+		copies.add(copy);
+	}
+
+	/**
+	 * Create any attribute maps a DOM creates lazily, so reading the cached
+	 * nodes from several threads does not modify them.
+	 * 
+	 * @param node
+	 *        the node to initialize, with its descendants
+	 */
+	private static void initialize(Node node) {
+		NamedNodeMap attributes = node.getAttributes();
+		if ( attributes != null ) {
+			attributes.getLength();
+		}
+		for ( Node child = node.getFirstChild(); child != null; child = child.getNextSibling() ) {
+			initialize(child);
+		}
+	}
+
+	/**
+	 * Remove all cached fragments.
+	 */
+	public void clear() {
+		synchronized ( fragments ) {
+			fragments.clear();
+		}
+	}
+
+	/**
+	 * Get the number of cached fragments.
+	 * 
+	 * @return the size
+	 */
+	public int size() {
+		synchronized ( fragments ) {
+			return fragments.size();
+		}
+	}
+
+	/**
+	 * Get the number of lookups that found a cached fragment.
+	 * 
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Get the number of lookups that did not find a cached fragment.
+	 * 
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "TemplateFragmentCache{size=" + size() + ",hits=" + hitCount.get() + ",misses="
+				+ missCount.get() + '}';
+	}
+
+	private static final class Entry {
+
+		private final Node[] nodes;
+		private final long expires;
+
+		private Entry(Node[] nodes, long expires) {
+			this.nodes = nodes;
+			this.expires = expires;
+		}
+
+	}
+
+	/**
+	 * NodeList over the cached nodes, as the node lists of the DOM itself
+	 * are not safe to use from several threads.
+	 */
+	private static final class FragmentNodeList implements NodeList {
+
+		private final Node[] nodes;
+
+		private FragmentNodeList(Node[] nodes) {
+			this.nodes = nodes;
+		}
+
+		@Override
+		public Node item(int index) {
+			return (index < 0 || index >= nodes.length ? null : nodes[index]);
+		}
+
+		@Override
+		public int getLength() {
+			return nodes.length;
+		}
+
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+}
@@ -0,0 +1,185 @@
+/* ===================================================================
+ * TransformerPool.java
+ * 
+ * Created Oct 18, 2026 5:51:14 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+
+/**
+ * A bounded pool of re-usable {@link Transformer} instances for a single
+ * compiled {@link Templates}.
+ * 
+ * <p>
+ * Creating a Transformer from a large stylesheet means building all of its
+ * internal tables again, for every request. Transformers are not thread-safe,
+ * but can be used serially, so this class keeps up to <code>maxIdle</code>
+ * idle Transformers around. When a Transformer is returned its parameters are
+ * cleared and its output properties reverted to those defined by the
+ * stylesheet, so each borrower starts from a clean state.
+ * </p>
+ * 
+ * <p>
+ * New Transformers are created via {@link #newTransformer()}, which extending
+ * classes can override to apply additional configuration such as a
+ * <code>URIResolver</code> or <code>ErrorListener</code>. That configuration is
+ * not cleared when a Transformer is returned.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class TransformerPool {
+
+	/** The default value for the <code>maxIdle</code> property. */
+	public static final int DEFAULT_MAX_IDLE = 32;
+
+	private final Templates templates;
+	private final int maxIdle;
+	private final Queue<Transformer> idle = new ConcurrentLinkedQueue<Transformer>();
+	private final AtomicInteger idleCount = new AtomicInteger(0);
+	private final AtomicLong hitCount = new AtomicLong(0);
+	private final AtomicLong missCount = new AtomicLong(0);
+
+	/**
+	 * Construct with a Templates.
+	 * 
+	 * @param templates
+	 *        the compiled stylesheet to create Transformers from
+	 * @param maxIdle
+	 *        the maximum number of idle Transformers to keep
+	 */
+	public TransformerPool(Templates templates, int maxIdle) {
+		super();
+		this.templates = templates;
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * Create a new Transformer.
+	 * 
+	 * <p>
+	 * This implementation simply calls {@link Templates#newTransformer()}.
+	 * </p>
+	 * 
+	 * @return the new Transformer
+	 * @throws TransformerConfigurationException
+	 *         if unable to create the Transformer
+	 */
+	protected Transformer newTransformer() throws TransformerConfigurationException {
+		return templates.newTransformer();
+	}
+
+	/**
+	 * Borrow a Transformer from the pool, creating a new one if none are idle.
+	 * 
+	 * @return the Transformer
+	 * @throws TransformerConfigurationException
+	 *         if unable to create a new Transformer
+	 */
+	public Transformer borrowTransformer() throws TransformerConfigurationException {
+		Transformer transformer = idle.poll();
+		if ( transformer != null ) {
+			idleCount.decrementAndGet();
+			hitCount.incrementAndGet();
+			return transformer;
+		}
+		missCount.incrementAndGet();
+		return newTransformer();
+	}
+
+	/**
+	 * Return a Transformer previously obtained via {@link #borrowTransformer()}.
+	 * 
+	 * <p>
+	 * Callers should not return a Transformer whose transformation failed, as
+	 * it may have been left in an inconsistent state. If the pool already holds
+	 * <code>maxIdle</code> Transformers, the Transformer is discarded.
+	 * </p>
+	 * 
+	 * @param transformer
+	 *        the Transformer to return (<em>null</em> is ignored)
+	 */
+	public void returnTransformer(Transformer transformer) {
+		if ( transformer == null ) {
+			return;
+		}
+		transformer.clearParameters();
+		transformer.setOutputProperties(null);
+		if ( idleCount.incrementAndGet() > maxIdle ) {
+			idleCount.decrementAndGet();
+			return;
+		}
+		idle.offer(transformer);
+	}
+
+	@Override
+	public String toString() {
+		return "TransformerPool{templates=" + templates + ",idle=" + idleCount.get() + ",hits="
+				+ hitCount.get() + ",misses=" + missCount.get() + '}';
+	}
+
+	/**
+	 * Get the number of borrows satisfied by an idle Transformer.
+	 * 
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Get the number of borrows that required creating a new Transformer.
+	 * 
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Get the number of idle Transformers currently in the pool.
+	 * 
+	 * @return the idle count
+	 */
+	public int getIdleCount() {
+		return idleCount.get();
+	}
+
+	public Templates getTemplates() {
+		return templates;
+	}
+
+	public int getMaxIdle() {
+		return maxIdle;
+	}
+
+}
@@ -0,0 +1,178 @@
+/* ===================================================================
+ * TransletCompiler.java
+ * 
+ * Created Oct 18, 2026 6:15:07 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * Command line tool to compile XSLT stylesheets into XSLTC translet classes
+ * ahead of time, for loading with {@link TransletLoader}.
+ * 
+ * <p>
+ * Usage:
+ * </p>
+ * 
+ * <pre>
+ * TransletCompiler &lt;stylesheet dir&gt; &lt;destination dir&gt; [package name]
+ * </pre>
+ * 
+ * <p>
+ * Every <code>.xsl</code> file found under the stylesheet directory is
+ * compiled into the destination directory, in the given package (defaults
+ * to {@link TransletLoader#DEFAULT_PACKAGE_NAME}). A
+ * {@link TransletLoader#MANIFEST_NAME} file is written to the package
+ * directory, mapping each stylesheet's path (relative to the stylesheet
+ * directory) to its translet name and modification time. Stylesheets that
+ * fail to compile on their own, for example those only meant to be
+ * imported, are reported and skipped.
+ * </p>
+ * 
+ * <p>
+ * See the <code>translets</code> target in <code>build.xml</code>.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public final class TransletCompiler {
+
+	private final File sourceDir;
+	private final File destDir;
+	private final String packageName;
+
+	/**
+	 * Construct a compiler.
+	 * 
+	 * @param sourceDir
+	 *        the directory of stylesheets to compile
+	 * @param destDir
+	 *        the directory to write translet classes to
+	 * @param packageName
+	 *        the translet package name
+	 */
+	public TransletCompiler(File sourceDir, File destDir, String packageName) {
+		this.sourceDir = sourceDir;
+		this.destDir = destDir;
+		this.packageName = packageName;
+	}
+
+	/**
+	 * Compile all stylesheets.
+	 * 
+	 * @return the number of stylesheets that failed to compile
+	 * @throws IOException
+	 *         if the manifest cannot be written
+	 */
+	public int compile() throws IOException {
+		List<File> stylesheets = new ArrayList<File>();
+		findStylesheets(sourceDir, stylesheets);
+		Properties manifest = new Properties();
+		int failures = 0;
+		String base = sourceDir.getCanonicalPath();
+		for ( File stylesheet : stylesheets ) {
+			String path = stylesheet.getCanonicalPath().substring(base.length() + 1)
+					.replace(File.separatorChar, '/');
+			String transletName = TransletLoader.getTransletName(path);
+			try {
+				compile(stylesheet, transletName);
+				manifest.setProperty(path, transletName + ',' + stylesheet.lastModified());
+				System.out.println("Compiled " + path + " to " + packageName + '.' + transletName);
+			} catch ( TransformerConfigurationException e ) {
+				System.err.println("Unable to compile " + path + ": " + e.getMessageAndLocation());
+				failures++;
+			}
+		}
+		File manifestFile = new File(destDir, packageName.replace('.', File.separatorChar)
+				+ File.separatorChar + TransletLoader.MANIFEST_NAME);
+		manifestFile.getParentFile().mkdirs();
+		OutputStream out = new FileOutputStream(manifestFile);
+		try {
+			manifest.store(out, "XSLTC translets compiled from " + sourceDir);
+		} finally {
+			out.close();
+		}
+		return failures;
+	}
+
+	private void compile(File stylesheet, String transletName)
+			throws TransformerConfigurationException {
+		TransformerFactory factory = TransformerFactory.newInstance(
+				TransletLoader.DEFAULT_TRANSFORMER_FACTORY_CLASS_NAME, null);
+		factory.setAttribute("generate-translet", Boolean.TRUE);
+		factory.setAttribute("destination-directory", destDir.getAbsolutePath());
+		factory.setAttribute("package-name", packageName);
+		factory.setAttribute("translet-name", transletName);
+		factory.newTemplates(new StreamSource(stylesheet));
+	}
+
+	private static void findStylesheets(File dir, List<File> result) {
+		File[] files = dir.listFiles();
+		if ( files == null ) {
+			return;
+		}
+		for ( File f : files ) {
+			if ( f.isDirectory() ) {
+				findStylesheets(f, result);
+			} else if ( f.getName().endsWith(".xsl") ) {
+				result.add(f);
+			}
+		}
+	}
+
+	/**
+	 * Run the compiler.
+	 * 
+	 * @param args
+	 *        the stylesheet directory, destination directory, and optional
+	 *        package name
+	 * @throws IOException
+	 *         if the manifest cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if ( args.length < 2 ) {
+			System.err.println("Usage: TransletCompiler <stylesheet dir> <destination dir> "
+					+ "[package name]");
+			System.exit(1);
+		}
+		TransletCompiler compiler = new TransletCompiler(new File(args[0]), new File(args[1]),
+				args.length > 2 ? args[2] : TransletLoader.DEFAULT_PACKAGE_NAME);
+		int failures = compiler.compile();
+		if ( failures > 0 ) {
+			System.err.println(failures + " stylesheet(s) not compiled");
+		}
+	}
+
+}
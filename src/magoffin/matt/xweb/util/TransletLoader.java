@@ -0,0 +1,280 @@
+/* ===================================================================
+ * TransletLoader.java
+ * 
+ * Created Oct 18, 2026 6:15:07 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.stream.StreamSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads XSLTC translets precompiled by {@link TransletCompiler} from the
+ * class path.
+ * 
+ * <p>
+ * The translet package's {@link #MANIFEST_NAME} file is loaded the first time
+ * it is needed. A stylesheet is matched to a translet when the stylesheet's
+ * URL ends with the path recorded in the manifest. A translet is ignored if
+ * the stylesheet has been modified since it was compiled, so that callers
+ * fall back to compiling the stylesheet at runtime. Note only the
+ * modification time of the stylesheet itself is checked, not that of any
+ * stylesheets it imports or includes.
+ * </p>
+ * 
+ * <p>
+ * The configurable properties of this class are:
+ * </p>
+ * 
+ * <dl>
+ * <dt>packageName</dt>
+ * <dd>The package the translets were compiled into. Defaults to
+ * {@link #DEFAULT_PACKAGE_NAME}.</dd>
+ * 
+ * <dt>transformerFactoryClassName</dt>
+ * <dd>The XSLTC TransformerFactory class to load translets with. Defaults to
+ * {@link #DEFAULT_TRANSFORMER_FACTORY_CLASS_NAME}, the XSLTC implementation
+ * included in the JDK.</dd>
+ * 
+ * <dt>classLoader</dt>
+ * <dd>The ClassLoader to load the manifest from. Defaults to the thread
+ * context ClassLoader. XSLTC loads the translet classes themselves from the
+ * thread context ClassLoader.</dd>
+ * </dl>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class TransletLoader {
+
+	/** The default value for the <code>packageName</code> property. */
+	public static final String DEFAULT_PACKAGE_NAME = "xweb.translet";
+
+	/**
+	 * The default value for the <code>transformerFactoryClassName</code>
+	 * property.
+	 */
+	public static final String DEFAULT_TRANSFORMER_FACTORY_CLASS_NAME = "com.sun.org.apache.xalan.internal.xsltc.trax.TransformerFactoryImpl";
+
+	/** The name of the manifest file in the translet package. */
+	public static final String MANIFEST_NAME = "translets.properties";
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private String packageName = DEFAULT_PACKAGE_NAME;
+	private String transformerFactoryClassName = DEFAULT_TRANSFORMER_FACTORY_CLASS_NAME;
+	private ClassLoader classLoader = null;
+
+	private volatile Map<String, Translet> translets = null;
+	private TransformerFactory factory = null;
+
+	/**
+	 * Get the translet name for a stylesheet path.
+	 * 
+	 * <p>
+	 * Characters not allowed in a Java identifier are replaced with
+	 * underscores, and the <code>.xsl</code> extension is dropped, so
+	 * <code>user/home.xsl</code> becomes <code>user_home</code>.
+	 * </p>
+	 * 
+	 * @param path
+	 *        the stylesheet path
+	 * @return the translet name
+	 */
+	public static String getTransletName(String path) {
+		String name = path;
+		if ( name.endsWith(".xsl") ) {
+			name = name.substring(0, name.length() - 4);
+		}
+		StringBuilder buf = new StringBuilder(name.length() + 1);
+		for ( int i = 0; i < name.length(); i++ ) {
+			char c = name.charAt(i);
+			buf.append(Character.isJavaIdentifierPart(c) ? c : '_');
+		}
+		if ( buf.length() < 1 || !Character.isJavaIdentifierStart(buf.charAt(0)) ) {
+			buf.insert(0, '_');
+		}
+		return buf.toString();
+	}
+
+	/**
+	 * Load the precompiled Templates for a stylesheet.
+	 * 
+	 * @param stylesheetUrl
+	 *        the stylesheet URL
+	 * @param lastModified
+	 *        the stylesheet modification date, or <code>0</code> if not known
+	 * @param uriResolver
+	 *        the URIResolver for the translet to use, or <em>null</em>
+	 * @return the Templates, or <em>null</em> if no translet is available
+	 *         for the stylesheet or the translet is stale
+	 */
+	public Templates loadTemplates(String stylesheetUrl, long lastModified, URIResolver uriResolver) {
+		Translet translet = findTranslet(stylesheetUrl);
+		if ( translet == null ) {
+			return null;
+		}
+		if ( lastModified > translet.lastModified ) {
+			log.info("Translet {} is stale, stylesheet [{}] will be compiled", translet.name,
+					stylesheetUrl);
+			return null;
+		}
+		try {
+			TransformerFactory tf = getFactory();
+			synchronized ( tf ) {
+				tf.setURIResolver(uriResolver);
+				tf.setAttribute("translet-name", translet.name);
+				return tf.newTemplates(new StreamSource(stylesheetUrl));
+			}
+		} catch ( TransformerConfigurationException e ) {
+			log.warn("Unable to load translet " + translet.name + " for stylesheet ["
+					+ stylesheetUrl + "], stylesheet will be compiled", e);
+		} catch ( IllegalArgumentException e ) {
+			log.warn("Unable to load translet " + translet.name + " for stylesheet ["
+					+ stylesheetUrl + "], stylesheet will be compiled", e);
+		}
+		return null;
+	}
+
+	private Translet findTranslet(String stylesheetUrl) {
+		Translet match = null;
+		for ( Map.Entry<String, Translet> me : getTranslets().entrySet() ) {
+			String path = me.getKey();
+			if ( (stylesheetUrl.equals(path) || stylesheetUrl.endsWith('/' + path))
+					&& (match == null || match.path.length() < path.length()) ) {
+				match = me.getValue();
+			}
+		}
+		return match;
+	}
+
+	private synchronized TransformerFactory getFactory() {
+		if ( factory == null ) {
+			TransformerFactory tf = TransformerFactory.newInstance(transformerFactoryClassName,
+					null);
+			tf.setAttribute("use-classpath", Boolean.TRUE);
+			tf.setAttribute("package-name", packageName);
+			factory = tf;
+		}
+		return factory;
+	}
+
+	private Map<String, Translet> getTranslets() {
+		Map<String, Translet> result = translets;
+		if ( result == null ) {
+			result = loadManifest();
+			translets = result;
+		}
+		return result;
+	}
+
+	private Map<String, Translet> loadManifest() {
+		ClassLoader cl = (classLoader != null ? classLoader : Thread.currentThread()
+				.getContextClassLoader());
+		String resource = packageName.replace('.', '/') + '/' + MANIFEST_NAME;
+		URL url = (cl == null ? ClassLoader.getSystemResource(resource) : cl.getResource(resource));
+		if ( url == null ) {
+			log.debug("No translet manifest {} found, stylesheets will be compiled", resource);
+			return Collections.emptyMap();
+		}
+		Properties props = new Properties();
+		try {
+			InputStream in = url.openStream();
+			try {
+				props.load(in);
+			} finally {
+				in.close();
+			}
+		} catch ( IOException e ) {
+			log.warn("Unable to load translet manifest [" + url + "]", e);
+			return Collections.emptyMap();
+		}
+		Map<String, Translet> result = new HashMap<String, Translet>(props.size());
+		for ( String path : props.stringPropertyNames() ) {
+			String[] value = props.getProperty(path).split(",");
+			long modified = 0;
+			if ( value.length > 1 ) {
+				try {
+					modified = Long.parseLong(value[1].trim());
+				} catch ( NumberFormatException e ) {
+					log.warn("Invalid modification date for translet {}", value[0]);
+				}
+			}
+			result.put(path, new Translet(path, value[0].trim(), modified));
+		}
+		log.info("Loaded {} translets from [{}]", result.size(), url);
+		return result;
+	}
+
+	private static final class Translet {
+
+		private final String path;
+		private final String name;
+		private final long lastModified;
+
+		private Translet(String path, String name, long lastModified) {
+			this.path = path;
+			this.name = name;
+			this.lastModified = lastModified;
+		}
+
+	}
+
+	public String getPackageName() {
+		return packageName;
+	}
+
+	public void setPackageName(String packageName) {
+		this.packageName = packageName;
+	}
+
+	public String getTransformerFactoryClassName() {
+		return transformerFactoryClassName;
+	}
+
+	public void setTransformerFactoryClassName(String transformerFactoryClassName) {
+		this.transformerFactoryClassName = transformerFactoryClassName;
+	}
+
+	public ClassLoader getClassLoader() {
+		return classLoader;
+	}
+
+	public void setClassLoader(ClassLoader classLoader) {
+		this.classLoader = classLoader;
+	}
+
+}
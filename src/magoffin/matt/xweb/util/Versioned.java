@@ -0,0 +1,55 @@
+/* ===================================================================
+ * Versioned.java
+ * 
+ * Created Oct 18, 2026 5:56:44 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+/**
+ * API for objects whose state changes over time and can report a version
+ * that changes whenever that state does.
+ * 
+ * <p>
+ * This allows data derived from the object, such as a pre-serialized
+ * message bundle, to be cached until the object is modified.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public interface Versioned {
+
+	/**
+	 * Get the current version.
+	 * 
+	 * <p>
+	 * Callers only compare versions for equality, so the value must simply
+	 * change whenever the state of the object changes.
+	 * </p>
+	 * 
+	 * @return the version
+	 */
+	public long getVersion();
+
+}
@@ -0,0 +1,65 @@
+/* ===================================================================
+ * VersionedModel.java
+ * 
+ * Created Oct 18, 2026 6:45:06 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+/**
+ * API for model objects that render to the same XML until their version
+ * changes, such as shared reference data.
+ * 
+ * <p>
+ * When one of these is added to the model as a non-model object,
+ * {@link XwebJaxbXsltView} records the marshalled XML of
+ * {@link #getModelObject()} once per version in its
+ * <code>modelFragmentCache</code> and replays the recording into the
+ * <code>x-auxillary</code> section of every page, rather than marshalling
+ * the object again for every request.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public interface VersionedModel extends Versioned {
+
+	/**
+	 * Get a key that identifies this object, which must be unique among all
+	 * the versioned model objects rendered by a view.
+	 * 
+	 * @return the key
+	 */
+	public String getModelKey();
+
+	/**
+	 * Get the JAXB object to render, which must be either a
+	 * {@link javax.xml.bind.JAXBElement} or an instance of a class annotated
+	 * with {@link javax.xml.bind.annotation.XmlRootElement}. This may be the
+	 * object itself.
+	 * 
+	 * @return the object to render
+	 */
+	public Object getModelObject();
+
+}
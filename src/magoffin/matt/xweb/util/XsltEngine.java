@@ -0,0 +1,62 @@
+/* ===================================================================
+ * XsltEngine.java
+ * 
+ * Created Oct 18, 2026 6:21:43 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import javax.xml.transform.TransformerFactory;
+
+/**
+ * API for the XSLT engine used to compile and run view stylesheets.
+ * 
+ * <p>
+ * Views compile their stylesheet once with the TransformerFactory returned
+ * by {@link #newTransformerFactory()}, re-use the compiled
+ * <code>Templates</code> for each render (see the
+ * <code>cacheTemplates</code> property of {@link XwebJaxbXsltView}), and
+ * pass the x-data document to the engine as SAX events straight from the
+ * JAXB Marshaller.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public interface XsltEngine {
+
+	/**
+	 * Get a name for this engine, for logging and reporting.
+	 * 
+	 * @return the name
+	 */
+	String getName();
+
+	/**
+	 * Create a new, configured TransformerFactory.
+	 * 
+	 * @return the TransformerFactory
+	 */
+	TransformerFactory newTransformerFactory();
+
+}
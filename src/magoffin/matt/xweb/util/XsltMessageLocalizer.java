@@ -0,0 +1,335 @@
+/* ===================================================================
+ * XsltMessageLocalizer.java
+ * 
+ * Created Oct 18, 2026 6:04:35 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamSource;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.NamespaceSupport;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Pre-processes XSLT stylesheets for a specific locale, replacing message
+ * lookups that use literal keys with the resolved message text.
+ * 
+ * <p>
+ * The following expressions are replaced, when they make up an entire
+ * <code>xsl:value-of</code> <code>select</code> attribute or an entire
+ * attribute value template expression:
+ * </p>
+ * 
+ * <ul>
+ * <li><code>/xweb:x-data/xweb:x-msg/xweb:msg[@key='some.key']</code></li>
+ * <li><code>xwebfn:msg('some.key'[, 'arg'...])</code>, where
+ * <code>xwebfn</code> is bound to {@link XwebXsltFunctions#NAMESPACE}, and
+ * all arguments are string literals</li>
+ * </ul>
+ * 
+ * <p>
+ * Any other expression, for example a lookup with a key computed at runtime,
+ * is left as-is so it is still resolved when the stylesheet is run. Lookups
+ * used as node-sets, for example in <code>xsl:for-each</code> or
+ * <code>xsl:copy-of</code>, are left as-is too, as a string literal cannot
+ * stand in for the <code>msg</code> element.
+ * Imported and included stylesheets are processed as well, via the
+ * URIResolver returned by {@link #getURIResolver(URIResolver)}.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class XsltMessageLocalizer {
+
+	private static final String XSLT_NAMESPACE = "http://www.w3.org/1999/XSL/Transform";
+
+	private static final Pattern X_MSG_LOOKUP = Pattern
+			.compile("^\\s*/([\\w.-]+):x-data/([\\w.-]+):x-msg/([\\w.-]+):msg\\[\\s*@key\\s*=\\s*(?:'([^']*)'|\"([^\"]*)\")\\s*\\]\\s*$");
+
+	private static final Pattern MSG_FUNCTION = Pattern
+			.compile("^\\s*([\\w.-]+):msg\\(\\s*((?:'[^']*'|\"[^\"]*\")(?:\\s*,\\s*(?:'[^']*'|\"[^\"]*\"))*)\\s*\\)\\s*$");
+
+	private static final Pattern STRING_LITERAL = Pattern.compile("'([^']*)'|\"([^\"]*)\"");
+
+	private final MessagesSource messagesSource;
+	private final Locale locale;
+	private final SAXParserFactory parserFactory;
+	private int replacementCount = 0;
+
+	/**
+	 * Construct for a MessagesSource and locale.
+	 * 
+	 * @param messagesSource
+	 *        the MessagesSource to resolve messages with
+	 * @param locale
+	 *        the locale to resolve messages for
+	 */
+	public XsltMessageLocalizer(MessagesSource messagesSource, Locale locale) {
+		super();
+		this.messagesSource = messagesSource;
+		this.locale = locale;
+		this.parserFactory = SAXParserFactory.newInstance();
+		this.parserFactory.setNamespaceAware(true);
+	}
+
+	/**
+	 * Get a localized version of a stylesheet.
+	 * 
+	 * @param stylesheet
+	 *        the stylesheet source
+	 * @return the localized source
+	 * @throws TransformerException
+	 *         if the stylesheet cannot be read
+	 */
+	public Source localize(Source stylesheet) throws TransformerException {
+		InputSource input = SAXSource.sourceToInputSource(stylesheet);
+		if ( input == null ) {
+			// not a source we can read ourselves, so leave as-is
+			return stylesheet;
+		}
+		LocalizingFilter filter = new LocalizingFilter();
+		try {
+			filter.setParent(parserFactory.newSAXParser().getXMLReader());
+		} catch ( ParserConfigurationException e ) {
+			throw new TransformerException(e);
+		} catch ( SAXException e ) {
+			throw new TransformerException(e);
+		}
+		return new SAXSource(filter, input);
+	}
+
+	/**
+	 * Get a URIResolver that localizes imported and included stylesheets.
+	 * 
+	 * @param delegate
+	 *        an optional URIResolver to resolve the stylesheets with
+	 * @return the URIResolver
+	 */
+	public URIResolver getURIResolver(final URIResolver delegate) {
+		return new URIResolver() {
+
+			@Override
+			public Source resolve(String href, String base) throws TransformerException {
+				Source source = (delegate == null ? null : delegate.resolve(href, base));
+				if ( source == null ) {
+					try {
+						source = new StreamSource(new URL(base == null ? null : new URL(base), href)
+								.toString());
+					} catch ( MalformedURLException e ) {
+						throw new TransformerException(e);
+					}
+				}
+				return localize(source);
+			}
+
+		};
+	}
+
+	/**
+	 * Get the number of message lookups replaced so far.
+	 * 
+	 * @return the replacement count
+	 */
+	public int getReplacementCount() {
+		return replacementCount;
+	}
+
+	/**
+	 * Resolve a message lookup expression to its message text.
+	 * 
+	 * @param expression
+	 *        the XPath expression
+	 * @param ns
+	 *        the in-scope namespaces
+	 * @return the message text, or <em>null</em> if <code>expression</code>
+	 *         is not a lookup with literal arguments
+	 */
+	private String resolve(String expression, NamespaceSupport ns) {
+		Matcher m = X_MSG_LOOKUP.matcher(expression);
+		if ( m.matches() ) {
+			if ( !XwebConstants.XWEB_NAMESPACE.equals(ns.getURI(m.group(1)))
+					|| !XwebConstants.XWEB_NAMESPACE.equals(ns.getURI(m.group(2)))
+					|| !XwebConstants.XWEB_NAMESPACE.equals(ns.getURI(m.group(3))) ) {
+				return null;
+			}
+			String key = (m.group(4) != null ? m.group(4) : m.group(5));
+			return messagesSource.getMessage(key, null, "", locale);
+		}
+		m = MSG_FUNCTION.matcher(expression);
+		if ( m.matches() ) {
+			if ( !XwebXsltFunctions.NAMESPACE.equals(ns.getURI(m.group(1))) ) {
+				return null;
+			}
+			List<String> literals = new ArrayList<String>(2);
+			Matcher lm = STRING_LITERAL.matcher(m.group(2));
+			while ( lm.find() ) {
+				literals.add(lm.group(1) != null ? lm.group(1) : lm.group(2));
+			}
+			String key = literals.remove(0);
+			Object[] args = (literals.isEmpty() ? null : literals.toArray());
+			return messagesSource.getMessage(key, args, "", locale);
+		}
+		return null;
+	}
+
+	/**
+	 * Get an XPath string literal expression for a value.
+	 * 
+	 * @param value
+	 *        the value
+	 * @return the expression
+	 */
+	private static String toLiteral(String value) {
+		if ( value.indexOf('\'') < 0 ) {
+			return '\'' + value + '\'';
+		}
+		if ( value.indexOf('"') < 0 ) {
+			return '"' + value + '"';
+		}
+		// both quote types, so concatenate the pieces
+		StringBuilder buf = new StringBuilder("concat(");
+		String[] pieces = value.split("'", -1);
+		for ( int i = 0; i < pieces.length; i++ ) {
+			if ( i > 0 ) {
+				buf.append(",\"'\",");
+			}
+			buf.append('\'').append(pieces[i]).append('\'');
+		}
+		buf.append(')');
+		return buf.toString();
+	}
+
+	private final class LocalizingFilter extends XMLFilterImpl {
+
+		private final NamespaceSupport ns = new NamespaceSupport();
+		private boolean contextPushed = false;
+
+		@Override
+		public void startPrefixMapping(String prefix, String uri) throws SAXException {
+			if ( !contextPushed ) {
+				ns.pushContext();
+				contextPushed = true;
+			}
+			ns.declarePrefix(prefix, uri);
+			super.startPrefixMapping(prefix, uri);
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts)
+				throws SAXException {
+			if ( !contextPushed ) {
+				ns.pushContext();
+			}
+			contextPushed = false;
+			boolean xslt = XSLT_NAMESPACE.equals(uri);
+			boolean valueOf = (xslt && "value-of".equals(localName));
+			AttributesImpl localized = null;
+			for ( int i = 0, len = atts.getLength(); i < len; i++ ) {
+				String value = atts.getValue(i);
+				String newValue = null;
+				if ( valueOf && "select".equals(atts.getLocalName(i)) && atts.getURI(i).length() == 0 ) {
+					String msg = resolve(value, ns);
+					if ( msg != null ) {
+						newValue = toLiteral(msg);
+						replacementCount++;
+					}
+				} else if ( !xslt && value.indexOf('{') >= 0 ) {
+					newValue = localizeTemplates(value);
+				}
+				if ( newValue != null ) {
+					if ( localized == null ) {
+						localized = new AttributesImpl(atts);
+					}
+					localized.setValue(i, newValue);
+				}
+			}
+			super.startElement(uri, localName, qName, (localized == null ? atts : localized));
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			super.endElement(uri, localName, qName);
+			ns.popContext();
+		}
+
+		/**
+		 * Replace message lookups in an attribute value template.
+		 * 
+		 * @param value
+		 *        the attribute value
+		 * @return the new value, or <em>null</em> if nothing replaced
+		 */
+		private String localizeTemplates(String value) {
+			StringBuilder buf = null;
+			int last = 0;
+			int start = value.indexOf('{');
+			while ( start >= 0 ) {
+				if ( start + 1 < value.length() && value.charAt(start + 1) == '{' ) {
+					// escaped brace
+					start = value.indexOf('{', start + 2);
+					continue;
+				}
+				int end = value.indexOf('}', start + 1);
+				if ( end < 0 ) {
+					break;
+				}
+				String msg = resolve(value.substring(start + 1, end), ns);
+				if ( msg != null ) {
+					if ( buf == null ) {
+						buf = new StringBuilder(value.length() + msg.length());
+					}
+					buf.append(value, last, start);
+					buf.append(msg.replace("{", "{{").replace("}", "}}"));
+					last = end + 1;
+					replacementCount++;
+				}
+				start = value.indexOf('{', end + 1);
+			}
+			if ( buf == null ) {
+				return null;
+			}
+			buf.append(value, last, value.length());
+			return buf.toString();
+		}
+
+	}
+
+}
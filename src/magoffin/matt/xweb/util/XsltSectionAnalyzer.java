@@ -0,0 +1,364 @@
+/* ===================================================================
+ * XsltSectionAnalyzer.java
+ * 
+ * Created Oct 18, 2026 6:00:19 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Static analyzer that determines which x-data sections an XSLT stylesheet
+ * references.
+ * 
+ * <p>
+ * The stylesheet, and any stylesheets it imports or includes, are scanned for
+ * XPath expressions and patterns (the <code>select</code>, <code>test</code>,
+ * <code>use</code>, <code>value</code>, <code>match</code>,
+ * <code>count</code>, and <code>from</code> attributes of XSLT elements plus
+ * any attribute value templates) and each is searched for the names of the
+ * x-data sections.
+ * </p>
+ * 
+ * <p>
+ * The analysis is conservative: if any expression could select x-data
+ * sections without naming them (for example a <code>*</code> or
+ * <code>node()</code> wildcard, the <code>//</code> or
+ * <code>descendant</code> axes, <code>name()</code> tests, or dynamic
+ * evaluation), could select the <code>x-data</code> element itself (for
+ * example <code>/</code> or <code>.</code>), or any stylesheet cannot be
+ * read, then <em>all</em> sections are reported as referenced. The same
+ * applies to an <code>xsl:apply-templates</code> without a
+ * <code>select</code> in a template matching the root or
+ * <code>x-data</code>, or when there is no such template at all, as the
+ * built-in templates would then output every section.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class XsltSectionAnalyzer {
+
+	/** All the x-data section names. */
+	public static final List<String> SECTIONS = Collections.unmodifiableList(Arrays.asList(
+			XwebConstants.SECTION_CONTEXT, XwebConstants.SECTION_AUXILLARY,
+			XwebConstants.SECTION_MESSAGES, XwebConstants.SECTION_ERRORS,
+			XwebConstants.SECTION_SESSION, XwebConstants.SECTION_MSG, XwebConstants.SECTION_REQUEST,
+			XwebConstants.SECTION_REQUEST_HEADERS, XwebConstants.SECTION_MODEL));
+
+	private static final String XSLT_NAMESPACE = "http://www.w3.org/1999/XSL/Transform";
+
+	private static final Set<String> EXPRESSION_ATTRIBUTES = new HashSet<String>(Arrays.asList(
+			"select", "test", "use", "value"));
+
+	private static final Set<String> PATTERN_ATTRIBUTES = new HashSet<String>(Arrays.asList(
+			"match", "count", "from"));
+
+	private static final String XDATA = "x-data";
+
+	private static final String[] DYNAMIC_TOKENS = { "//", "node()", "descendant", "ancestor",
+			"parent::", "self::", "..", "name(", "current()", "evaluate(" };
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final SAXParserFactory parserFactory;
+
+	/**
+	 * Default constructor.
+	 */
+	public XsltSectionAnalyzer() {
+		super();
+		parserFactory = SAXParserFactory.newInstance();
+		parserFactory.setNamespaceAware(true);
+		parserFactory.setValidating(false);
+	}
+
+	/**
+	 * Analyze a stylesheet.
+	 * 
+	 * @param stylesheet
+	 *        the URL of the stylesheet to analyze
+	 * @return the names of the referenced x-data sections, as a subset of
+	 *         {@link #SECTIONS}
+	 */
+	public Set<String> analyze(URL stylesheet) {
+		Analysis analysis = new Analysis();
+		try {
+			analyze(stylesheet, analysis);
+		} catch ( Exception e ) {
+			log.warn("Unable to analyze stylesheet [{}], assuming all sections used: {}", stylesheet,
+					e.getMessage());
+			analysis.dynamic = true;
+		}
+		if ( !analysis.rootTemplate ) {
+			log.debug("Stylesheet [{}] has no template for x-data, built-in templates apply",
+					stylesheet);
+			analysis.dynamic = true;
+		}
+		if ( analysis.dynamic ) {
+			return new LinkedHashSet<String>(SECTIONS);
+		}
+		Set<String> result = new LinkedHashSet<String>(SECTIONS.size());
+		for ( String section : SECTIONS ) {
+			if ( analysis.sections.contains(section) ) {
+				result.add(section);
+			}
+		}
+		return result;
+	}
+
+	private void analyze(URL stylesheet, Analysis analysis) throws IOException, SAXException,
+			ParserConfigurationException {
+		if ( analysis.dynamic || !analysis.visited.add(stylesheet.toString()) ) {
+			return;
+		}
+		log.debug("Analyzing stylesheet [{}]", stylesheet);
+		StylesheetHandler handler = new StylesheetHandler(stylesheet, analysis);
+		InputSource input = new InputSource(stylesheet.openStream());
+		input.setSystemId(stylesheet.toString());
+		try {
+			parserFactory.newSAXParser().parse(input, handler);
+		} finally {
+			input.getByteStream().close();
+		}
+		for ( URL imported : handler.imports ) {
+			analyze(imported, analysis);
+		}
+	}
+
+	/**
+	 * Examine an XPath expression, adding any referenced sections to the
+	 * analysis.
+	 * 
+	 * @param expression
+	 *        the expression
+	 * @param analysis
+	 *        the analysis
+	 */
+	private void examineExpression(String expression, Analysis analysis) {
+		if ( selectsXData(expression) ) {
+			log.debug("Expression [{}] can select x-data", expression);
+			analysis.dynamic = true;
+			return;
+		}
+		for ( String token : DYNAMIC_TOKENS ) {
+			if ( expression.contains(token) ) {
+				log.debug("Expression [{}] is dynamic", expression);
+				analysis.dynamic = true;
+				return;
+			}
+		}
+		if ( hasWildcard(expression) ) {
+			log.debug("Expression [{}] has a wildcard", expression);
+			analysis.dynamic = true;
+			return;
+		}
+		examineNames(expression, analysis);
+	}
+
+	private static void examineNames(String expression, Analysis analysis) {
+		for ( String section : SECTIONS ) {
+			if ( containsName(expression, section) ) {
+				analysis.sections.add(section);
+			}
+		}
+	}
+
+	/**
+	 * Test if an expression may select the root or <code>x-data</code>
+	 * element itself, rather than one of its child sections.
+	 * 
+	 * @param expression
+	 *        the expression
+	 * @return <em>true</em> if the expression may select x-data
+	 */
+	private static boolean selectsXData(String expression) {
+		String expr = expression.trim();
+		if ( expr.equals("/") || expr.equals(".") ) {
+			return true;
+		}
+		int idx = expr.lastIndexOf(XDATA);
+		if ( idx >= 0 && containsName(expr, XDATA) ) {
+			String rest = expr.substring(idx + XDATA.length()).trim();
+			return !rest.startsWith("/");
+		}
+		return false;
+	}
+
+	/**
+	 * Test if an expression contains a <code>*</code> element name test, as
+	 * opposed to an attribute wildcard (<code>@*</code>) or multiplication.
+	 * 
+	 * @param expression
+	 *        the expression
+	 * @return <em>true</em> if a wildcard node test is found
+	 */
+	private static boolean hasWildcard(String expression) {
+		for ( int i = expression.indexOf('*'); i >= 0; i = expression.indexOf('*', i + 1) ) {
+			int j = i - 1;
+			while ( j >= 0 && Character.isWhitespace(expression.charAt(j)) ) {
+				j--;
+			}
+			if ( j < 0 ) {
+				return true;
+			}
+			char c = expression.charAt(j);
+			if ( c == '@' ) {
+				continue;
+			}
+			if ( c == '/' || c == '(' || c == '[' || c == '|' || c == ',' || c == ':' ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Test if an expression contains a name as a whole token, allowing for a
+	 * namespace prefix.
+	 * 
+	 * @param expression
+	 *        the expression
+	 * @param name
+	 *        the name to look for
+	 * @return <em>true</em> if the name is found
+	 */
+	private static boolean containsName(String expression, String name) {
+		for ( int i = expression.indexOf(name); i >= 0; i = expression.indexOf(name, i + 1) ) {
+			int end = i + name.length();
+			if ( (i == 0 || !isNameChar(expression.charAt(i - 1)))
+					&& (end == expression.length() || !isNameChar(expression.charAt(end))) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isNameChar(char c) {
+		return (Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.');
+	}
+
+	private static final class Analysis {
+
+		private final Set<String> visited = new HashSet<String>();
+		private final Set<String> sections = new HashSet<String>();
+		private boolean dynamic = false;
+		private boolean rootTemplate = false;
+
+	}
+
+	private final class StylesheetHandler extends DefaultHandler {
+
+		private final URL base;
+		private final Analysis analysis;
+		private final List<URL> imports = new ArrayList<URL>();
+		private boolean inRootTemplate = false;
+
+		private StylesheetHandler(URL base, Analysis analysis) {
+			this.base = base;
+			this.analysis = analysis;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts)
+				throws SAXException {
+			boolean xslt = XSLT_NAMESPACE.equals(uri);
+			if ( xslt && ("import".equals(localName) || "include".equals(localName)) ) {
+				String href = atts.getValue("href");
+				if ( href != null ) {
+					try {
+						imports.add(new URL(base, href));
+					} catch ( IOException e ) {
+						throw new SAXException("Unable to resolve stylesheet [" + href + "]", e);
+					}
+				}
+				return;
+			}
+			if ( xslt && "template".equals(localName) ) {
+				String match = atts.getValue("match");
+				inRootTemplate = (match != null && selectsXData(match));
+				if ( inRootTemplate && atts.getValue("mode") == null ) {
+					analysis.rootTemplate = true;
+				}
+			} else if ( xslt && inRootTemplate && "apply-templates".equals(localName)
+					&& atts.getValue("select") == null ) {
+				log.debug("Template for x-data applies templates to all sections");
+				analysis.dynamic = true;
+			}
+			for ( int i = 0, len = atts.getLength(); i < len; i++ ) {
+				String value = atts.getValue(i);
+				String name = atts.getLocalName(i);
+				if ( xslt && atts.getURI(i).length() == 0 && EXPRESSION_ATTRIBUTES.contains(name) ) {
+					examineExpression(value, analysis);
+				} else if ( xslt && atts.getURI(i).length() == 0 && PATTERN_ATTRIBUTES.contains(name) ) {
+					// patterns only test nodes that are selected elsewhere
+					examineNames(value, analysis);
+				} else {
+					examineTemplates(value);
+				}
+			}
+		}
+
+		/**
+		 * Examine the expressions of an attribute value template.
+		 * 
+		 * @param value
+		 *        the attribute value
+		 */
+		private void examineTemplates(String value) {
+			int start = value.indexOf('{');
+			while ( start >= 0 ) {
+				if ( start + 1 < value.length() && value.charAt(start + 1) == '{' ) {
+					// escaped brace
+					start = value.indexOf('{', start + 2);
+					continue;
+				}
+				int end = value.indexOf('}', start + 1);
+				if ( end < 0 ) {
+					break;
+				}
+				examineExpression(value.substring(start + 1, end), analysis);
+				start = value.indexOf('{', end + 1);
+			}
+		}
+
+	}
+
+}
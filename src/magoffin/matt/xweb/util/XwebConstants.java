@@ -55,4 +55,47 @@ public class XwebConstants {
 	/** Saved URL string. */
 	public static final String SES_KEY_SAVED_URL = "magoffin.matt.xweb.URL";
 
+	/**
+	 * Optional model object with the version of the model, used as part of
+	 * the page cache key. If the object implements {@link Versioned} its
+	 * version is used, otherwise the object itself.
+	 */
+	public static final String PAGE_VERSION_OBJECT = "magoffin.matt.xweb.PAGE_VERSION";
+
+	/**
+	 * Request attribute that, if set to <code>Boolean.TRUE</code>, renders
+	 * the page without reading or filling the page cache.
+	 */
+	public static final String REQ_KEY_NO_PAGE_CACHE = "magoffin.matt.xweb.NO_PAGE_CACHE";
+
+	/** The XML namespace of the x-data document. */
+	public static final String XWEB_NAMESPACE = "http://msqr.us/xsd/jaxb-web";
+
+	/** The x-data context section element name. */
+	public static final String SECTION_CONTEXT = "x-context";
+
+	/** The x-data auxillary section element name. */
+	public static final String SECTION_AUXILLARY = "x-auxillary";
+
+	/** The x-data alert messages section element name. */
+	public static final String SECTION_MESSAGES = "x-messages";
+
+	/** The x-data errors section element name. */
+	public static final String SECTION_ERRORS = "x-errors";
+
+	/** The x-data session section element name. */
+	public static final String SECTION_SESSION = "x-session";
+
+	/** The x-data message resources section element name. */
+	public static final String SECTION_MSG = "x-msg";
+
+	/** The x-data request parameters section element name. */
+	public static final String SECTION_REQUEST = "x-request";
+
+	/** The x-data request headers section element name. */
+	public static final String SECTION_REQUEST_HEADERS = "x-request-headers";
+
+	/** The x-data model section element name. */
+	public static final String SECTION_MODEL = "x-model";
+
 }
@@ -137,6 +137,11 @@ import org.w3c.dom.Document;
  * <dd>If <em>true</em> then if a URL parameter named "xml" is submitted with a
  * value of "true" then the original XML source for the view will be returned,
  * rather than the transformed result. Defaults to <em>true</em>.</dd>
+ * 
+ * <dt>poolMarshallers</dt>
+ * <dd>If <em>true</em> then borrow pre-configured JAXB Marshaller instances
+ * from a shared {@link MarshallerPool} rather than creating and configuring a
+ * new Marshaller for each render. Defaults to <em>true</em>.</dd>
  * </dl>
  * 
  * @deprecated see {@link XwebJaxbXsltView} for a replacement
@@ -200,6 +205,7 @@ public class XwebJaxbView extends AbstractXsltView implements InitializingBean {
 	private ContentTypeResolver contentTypeResolver = null;
 	private boolean includeMessages = true;
 	private boolean enableXmlSourceResponse = true;
+	private boolean poolMarshallers = true;
 
 	/** The JAXP TransformerFactory to use for getting transformers (used for debugging DOM). */
 	private TransformerFactory transformerFactory = null;
@@ -219,6 +225,7 @@ public class XwebJaxbView extends AbstractXsltView implements InitializingBean {
 	private final Map<String, XwebMessages> msgMap = new HashMap<String, XwebMessages>();
 	private final ObjectFactory objectFactory = new ObjectFactory();
 	private List<XDataPostProcessor> postProcessors = null;
+	private volatile MarshallerPool marshallerPool = null;
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
@@ -294,28 +301,48 @@ public class XwebJaxbView extends AbstractXsltView implements InitializingBean {
 		return context;
 	}
 
+	/**
+	 * Get the MarshallerPool for this view's JAXB configuration.
+	 * 
+	 * @return the pool
+	 */
+	public MarshallerPool getMarshallerPool() {
+		MarshallerPool pool = marshallerPool;
+		if (pool == null) {
+			pool = MarshallerPool.getPool(getContext(), marshallerProperties,
+					defaultIgnoreMarshallErrors);
+			marshallerPool = pool;
+		}
+		return pool;
+	}
+
 	/**
 	 * Get a JAXB Marshaller, configured for our context and set to ignore
 	 * marshalling errors if specified.
 	 * 
+	 * <p>The returned Marshaller should be passed to 
+	 * {@link #releaseMarshaller(Marshaller)} when no longer needed.</p>
+	 * 
 	 * @return a Marshaller
 	 * @throws Exception
 	 *             if unable to create the marshaller
 	 */
 	protected Marshaller getMarshaller() throws Exception {
-		Marshaller marshaller = getContext().createMarshaller();
-		boolean ignoreMarshallerrors = defaultIgnoreMarshallErrors;
-		if (ignoreMarshallerrors) {
-			marshaller.setEventHandler(IgnoreValidation.IGNORE_VALIDATION);
+		if (poolMarshallers) {
+			return getMarshallerPool().borrowMarshaller();
 		}
-		if (marshallerProperties != null) {
-			for (Iterator<Map.Entry<String, Object>> itr = marshallerProperties.entrySet().iterator(); itr
-					.hasNext();) {
-				Map.Entry<String, Object> me = itr.next();
-				marshaller.setProperty(me.getKey().toString(), me.getValue());
-			}
+		return getMarshallerPool().createMarshaller();
+	}
+
+	/**
+	 * Release a Marshaller obtained via {@link #getMarshaller()}.
+	 * 
+	 * @param marshaller the Marshaller to release
+	 */
+	protected void releaseMarshaller(Marshaller marshaller) {
+		if (poolMarshallers) {
+			getMarshallerPool().returnMarshaller(marshaller);
 		}
-		return marshaller;
 	}
 
 	/**
@@ -872,12 +899,16 @@ public class XwebJaxbView extends AbstractXsltView implements InitializingBean {
 	 */
 	protected void debugXweb(Xweb xData) {
 		if (logger.isDebugEnabled()) {
+			Marshaller marshaller = null;
 			try {
-				debugSource(new JAXBSource(getMarshaller(), objectFactory.createXData(xData)),
+				marshaller = getMarshaller();
+				debugSource(new JAXBSource(marshaller, objectFactory.createXData(xData)),
 						"---- START DOM -----\n",
 						"----- END DOM ------\n", logger);
 			} catch ( Exception e ) {
 				logger.warn("Unable to debug Xweb", e);
+			} finally {
+				releaseMarshaller(marshaller);
 			}
 		}
 	}
@@ -888,7 +919,7 @@ public class XwebJaxbView extends AbstractXsltView implements InitializingBean {
 			HttpServletRequest request, HttpServletResponse response)
 			throws Exception {
 		Xweb xData = buildXweb(model, root, request);
-		return new JAXBSource(getMarshaller(), objectFactory.createXData(xData));
+		return new PooledJAXBSource(getMarshaller(), objectFactory.createXData(xData));
 	}
 
 	/**
@@ -935,21 +966,42 @@ public class XwebJaxbView extends AbstractXsltView implements InitializingBean {
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	@Override
 	protected void doTransform(Map model, Source source, HttpServletRequest request, HttpServletResponse response) throws Exception {
-		// check for ;xml=true flag
-		if ( this.enableXmlSourceResponse && "true".equals(request.getParameter("xml")) ) {
-			response.setContentType("text/xml");
-			transformXml(source, new StreamResult(new BufferedOutputStream(
-					response.getOutputStream())), 
-					transformerFactory.newTransformer(), 
-					response.getCharacterEncoding());
-			return;
+		try {
+			// check for ;xml=true flag
+			if ( this.enableXmlSourceResponse && "true".equals(request.getParameter("xml")) ) {
+				response.setContentType("text/xml");
+				transformXml(source, new StreamResult(new BufferedOutputStream(
+						response.getOutputStream())), 
+						transformerFactory.newTransformer(), 
+						response.getCharacterEncoding());
+				return;
+			}
+			
+			// allow dynamic content-type resolution here
+			if ( this.contentTypeResolver != null ) {
+				response.setContentType(this.contentTypeResolver.resolveContentType(request, model));
+			}
+			super.doTransform(model, source, request, response);
+		} finally {
+			if ( source instanceof PooledJAXBSource ) {
+				releaseMarshaller(((PooledJAXBSource)source).marshaller);
+			}
 		}
+	}
+	
+	/**
+	 * JAXBSource that remembers its Marshaller, so it can be released 
+	 * once the transformation is complete.
+	 */
+	private static final class PooledJAXBSource extends JAXBSource {
+		
+		private final Marshaller marshaller;
 		
-		// allow dynamic content-type resolution here
-		if ( this.contentTypeResolver != null ) {
-			response.setContentType(this.contentTypeResolver.resolveContentType(request, model));
+		private PooledJAXBSource(Marshaller marshaller, Object contentObject) 
+		throws JAXBException {
+			super(marshaller, contentObject);
+			this.marshaller = marshaller;
 		}
-		super.doTransform(model, source, request, response);
 	}
 
 	@Override
@@ -1004,6 +1056,7 @@ public class XwebJaxbView extends AbstractXsltView implements InitializingBean {
 	public void setDefaultIgnoreMarshallErrors(
 			boolean defaultIgnoreMarshallErrors) {
 		this.defaultIgnoreMarshallErrors = defaultIgnoreMarshallErrors;
+		this.marshallerPool = null;
 	}
 
 	/**
@@ -1019,6 +1072,7 @@ public class XwebJaxbView extends AbstractXsltView implements InitializingBean {
 	 */
 	public void setJaxbContext(String jaxbContext) {
 		this.jaxbContext = jaxbContext;
+		this.marshallerPool = null;
 	}
 
 	/**
@@ -1034,6 +1088,7 @@ public class XwebJaxbView extends AbstractXsltView implements InitializingBean {
 	 */
 	public void setMarshallerProperties(Map<String, Object> marshallerProperties) {
 		this.marshallerProperties = marshallerProperties;
+		this.marshallerPool = null;
 	}
 
 	/**
@@ -1130,4 +1185,18 @@ public class XwebJaxbView extends AbstractXsltView implements InitializingBean {
 		this.includeMessages = includeMessages;
 	}
 
+	/**
+	 * @return the poolMarshallers
+	 */
+	public boolean isPoolMarshallers() {
+		return poolMarshallers;
+	}
+
+	/**
+	 * @param poolMarshallers the poolMarshallers to set
+	 */
+	public void setPoolMarshallers(boolean poolMarshallers) {
+		this.poolMarshallers = poolMarshallers;
+	}
+
 }
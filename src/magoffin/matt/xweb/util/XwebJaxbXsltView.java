@@ -26,16 +26,37 @@
 
 package magoffin.matt.xweb.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.io.StringWriter;
+import java.lang.reflect.Method;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
@@ -44,13 +65,19 @@ import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.util.JAXBSource;
+import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
 import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
 import magoffin.matt.xweb.ObjectFactory;
 import magoffin.matt.xweb.Xweb;
 import magoffin.matt.xweb.XwebAuxillary;
@@ -70,15 +97,25 @@ import org.apache.commons.logging.Log;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationContextException;
 import org.springframework.context.MessageSourceResolvable;
 import org.springframework.context.support.MessageSourceAccessor;
 import org.springframework.core.io.UrlResource;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.PatternMatchUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.validation.Errors;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.servlet.support.RequestContext;
 import org.springframework.web.servlet.support.RequestContextUtils;
 import org.springframework.web.servlet.view.xslt.XsltView;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
 
 /**
  * View implementation for JAXB XSLT transformed outupt using the Xweb model
@@ -129,9 +166,240 @@ import org.springframework.web.servlet.view.xslt.XsltView;
  * <dt>enableXmlSourceResponse</dt>
  * <dd>If <em>true</em> then if a URL parameter named "xml" is submitted with a
  * value of "true" then the original XML source for the view will be returned,
- * rather than the transformed result. Defaults to <em>true</em>.</dd>
+ * rather than the transformed result. The x-data is marshalled by JAXB
+ * directly to the response, without any transformation, so this is also
+ * cheap enough for clients that consume the XML itself. The
+ * <code>pageCache</code> and <code>conditionalGet</code> support is not used
+ * for these requests. Defaults to <em>true</em>.</dd>
+ * 
+ * <dt>indentXmlSource</dt>
+ * <dd>If <em>true</em> then indent the XML returned for
+ * <code>enableXmlSourceResponse</code> requests, which is easier to read
+ * while debugging. Defaults to <em>false</em>.</dd>
+ * 
+ * <dt>contentTypeResolver</dt>
+ * <dd>An optional {@link ContentTypeResolver} to resolve the response content
+ * type with for each render, rather than using the <code>contentType</code>
+ * property or the stylesheet output media type.</dd>
+ * 
+ * <dt>poolMarshallers</dt>
+ * <dd>If <em>true</em> then borrow pre-configured JAXB Marshaller instances
+ * from a shared {@link MarshallerPool} rather than creating and configuring a
+ * new Marshaller for each render. Defaults to <em>true</em>.</dd>
+ * 
+ * <dt>poolTransformers</dt>
+ * <dd>If <em>true</em> and <code>cacheTemplates</code> is also <em>true</em>
+ * then re-use Transformer instances via a {@link TransformerPool} for the
+ * compiled stylesheet, rather than creating a new Transformer for each render.
+ * Defaults to <em>true</em>.</dd>
+ * 
+ * <dt>transformerPoolSize</dt>
+ * <dd>The maximum number of idle Transformer instances to keep when
+ * <code>poolTransformers</code> is enabled. Defaults to
+ * {@link TransformerPool#DEFAULT_MAX_IDLE}.</dd>
+ * 
+ * <dt>cacheXDataFragments</dt>
+ * <dd>If <em>true</em> then the <code>x-msg</code> messages, the
+ * <code>x-context/settings</code> parameters, and the
+ * {@link AppContextSupport} parameters are recorded once as SAX events in the
+ * <code>fragmentCache</code> and replayed into each transformation, rather
+ * than being marshalled by JAXB for every render. The recordings are
+ * invalidated when the {@link Versioned} version of their source changes.
+ * The <code>x-request</code> and <code>x-request-headers</code> sections are
+ * written as SAX events too. If a subclass overrides
+ * {@link #buildXweb(Map, String, HttpServletRequest)} or
+ * {@link #processRequestData(HttpServletRequest, Xweb)}, the x-data is built
+ * and marshalled by JAXB as if this were <em>false</em>, so those methods are
+ * still called. Defaults to <em>true</em>.</dd>
+ * 
+ * <dt>fragmentCache</dt>
+ * <dd>The {@link SaxFragmentCache} to use when
+ * <code>cacheXDataFragments</code> is enabled. Defaults to a cache private to
+ * this view.</dd>
+ * 
+ * <dt>modelFragmentCache</dt>
+ * <dd>The {@link SaxFragmentCache} to record {@link VersionedModel} objects
+ * found in the model in, when <code>cacheXDataFragments</code> is enabled.
+ * Each is recorded once per version and replayed into the
+ * <code>x-auxillary</code> section, after any other auxillary objects.
+ * Defaults to a cache private to this view, limited to
+ * {@link #DEFAULT_MODEL_FRAGMENT_CACHE_SIZE} entries.</dd>
+ * 
+ * <dt>sessionAttributeIncludes</dt>
+ * <dd>If set, only session attributes whose names match one of these
+ * patterns are added to the <code>x-session</code> section. Patterns may use
+ * <code>*</code> wildcards, e.g. <code>user*</code>. Defaults to
+ * <em>null</em>, to include all attributes.</dd>
+ * 
+ * <dt>sessionAttributeExcludes</dt>
+ * <dd>Session attributes whose names match one of these patterns are left
+ * out of the <code>x-session</code> section. Defaults to <em>null</em>.
+ * When <code>cacheXDataFragments</code> is enabled and a
+ * {@link SessionSectionCache} listener is registered, the section is
+ * recorded once per session and replayed until the session's attributes
+ * change.</dd>
+ * 
+ * <dt>pruneXDataSections</dt>
+ * <dd>If <em>true</em> and <code>cacheTemplates</code> is also <em>true</em>
+ * then the stylesheet (and its imports) is analyzed by
+ * {@link XsltSectionAnalyzer} when the view is initialized, and the
+ * <code>x-auxillary</code>, <code>x-errors</code>, <code>x-session</code>,
+ * <code>x-msg</code>, <code>x-request</code>, and
+ * <code>x-request-headers</code> sections are only built if the stylesheet
+ * references them. The pruned sections are available via
+ * {@link #getPrunedSections()}. Defaults to <em>false</em>.</dd>
+ * 
+ * <dt>includeMessages</dt>
+ * <dd>If <em>true</em> then add all messages from the
+ * <code>messagesSource</code> to the <code>x-msg</code> section. Stylesheets
+ * can instead look up just the messages they need with the
+ * {@link XwebXsltFunctions} extension functions, which are always available.
+ * Defaults to <em>true</em>.</dd>
+ * 
+ * <dt>includeSettings</dt>
+ * <dd>If <em>true</em> then add all settings from the
+ * <code>parameterDao</code> to the <code>x-context/settings</code> section.
+ * As with messages, settings are also available via the
+ * {@link XwebXsltFunctions} extension functions. Defaults to <em>true</em>.</dd>
+ * 
+ * <dt>templatesLocale</dt>
+ * <dd>If configured, and a <code>messagesSource</code> is available, then the
+ * stylesheet is compiled specifically for this locale: message lookups with
+ * literal keys (either <code>x-msg</code> lookups or
+ * {@link XwebXsltFunctions} <code>msg()</code> calls) are replaced with the
+ * message text by {@link XsltMessageLocalizer} before the stylesheet is
+ * compiled. If the <code>messagesSource</code> is {@link Versioned}, the
+ * stylesheet is compiled again when its version changes. Normally configured
+ * by {@link XwebJaxbXsltViewResolver}. Defaults to <em>null</em>.</dd>
+ * 
+ * <dt>pageCache</dt>
+ * <dd>An optional {@link PageCache} to cache the fully rendered output of
+ * this view in. Only used if <code>pageCacheParameters</code> is also
+ * configured, and only for <code>GET</code> and <code>HEAD</code> requests
+ * without the {@link XwebConstants#REQ_KEY_NO_PAGE_CACHE} attribute set. A
+ * cached page is served without building or transforming the x-data at all,
+ * so only views whose output does not depend on the session or on request
+ * data other than the configured parameters should be cached.</dd>
+ * 
+ * <dt>pageCacheParameters</dt>
+ * <dd>The names of the request parameters the output of this view depends
+ * on, which become part of the page cache key along with the view, locale,
+ * and model version (see {@link XwebConstants#PAGE_VERSION_OBJECT}). Setting
+ * this (even to an empty array) enables the page cache for this view.
+ * Defaults to <em>null</em>.</dd>
+ * 
+ * <dt>templateFragmentCache</dt>
+ * <dd>The {@link TemplateFragmentCache} stylesheets cache output fragments
+ * in via the
+ * {@link XwebXsltFunctions#cache(String, int, org.w3c.dom.NodeList)}
+ * extension function. May be <em>null</em> to disable fragment caching.
+ * Defaults to a cache private to this view.</dd>
+ * 
+ * <dt>conditionalGet</dt>
+ * <dd>If <em>true</em> then for <code>GET</code> and <code>HEAD</code>
+ * requests with a {@link XwebConstants#PAGE_VERSION_OBJECT} in the model, an
+ * <code>ETag</code> and <code>Last-Modified</code> header are computed from
+ * that version, the messages and settings versions, and the stylesheet
+ * modification time, and <code>If-None-Match</code> and
+ * <code>If-Modified-Since</code> requests are answered with
+ * <code>304 Not Modified</code> without building the x-data or running the
+ * transform. If the version object is a <code>Date</code> it is also used as
+ * the model modification time. The <code>ETag</code> also covers the request
+ * parameters, the content encoding, and, if the stylesheet uses
+ * <code>x-session</code>, the session's {@link SessionSectionCache} version;
+ * such personalized pages are only validated by <code>ETag</code>. Requests
+ * with a saved message to show, or with a session when no
+ * {@link SessionSectionCache} is registered, are always rendered. Changes to
+ * imported stylesheets and request headers are not detected. Defaults to
+ * <em>false</em>.</dd>
+ * 
+ * <dt>compressOutput</dt>
+ * <dd>If <em>true</em> then the output is compressed with <code>gzip</code>
+ * or <code>deflate</code> if the request's <code>Accept-Encoding</code>
+ * allows, via a {@link CompressingOutputStream} the transform writes directly
+ * into. Pages stored in the <code>pageCache</code> are stored compressed.
+ * Defaults to <em>false</em>.</dd>
+ * 
+ * <dt>compressionLevel</dt>
+ * <dd>The compression level, from <code>0</code> to <code>9</code>. Defaults
+ * to <code>Deflater.DEFAULT_COMPRESSION</code>.</dd>
+ * 
+ * <dt>compressionThreshold</dt>
+ * <dd>The minimum number of bytes of output to compress; smaller output is
+ * sent uncompressed. Defaults to {@link #DEFAULT_COMPRESSION_THRESHOLD}.</dd>
+ * 
+ * <dt>asyncRendering</dt>
+ * <dd>If <em>true</em> and a <code>renderExecutor</code> is configured, then
+ * requests that support Servlet 3.0 asynchronous processing are put into
+ * asynchronous mode and the x-data is built and transformed on a thread of
+ * the <code>renderExecutor</code>, freeing the container thread. The model
+ * must be fully loaded by then, and all filters must support asynchronous
+ * requests. Defaults to <em>false</em>.</dd>
+ * 
+ * <dt>renderExecutor</dt>
+ * <dd>The Executor to render with when <code>asyncRendering</code> is
+ * enabled. A bounded executor is recommended; if it rejects a render the
+ * view is rendered on the container thread instead.</dd>
+ * 
+ * <dt>asyncTimeout</dt>
+ * <dd>The asynchronous request timeout, in milliseconds. Defaults to
+ * {@link #DEFAULT_ASYNC_TIMEOUT}.</dd>
+ * 
+ * <dt>renderLimiter</dt>
+ * <dd>An optional {@link RenderLimiter} to limit the number of concurrent
+ * renders with. Renders it rejects are served a stale page from the
+ * <code>pageCache</code> if one is available, or a <code>503</code> response
+ * with a <code>Retry-After</code> header. Pages served from the
+ * <code>pageCache</code> without rendering are not limited.</dd>
+ * 
+ * <dt>transletLoader</dt>
+ * <dd>An optional {@link TransletLoader} to load a translet precompiled by
+ * the <code>translets</code> build target from, rather than compiling the
+ * stylesheet at runtime. If no translet is available for the stylesheet, or
+ * the stylesheet has been modified since the translet was compiled, the
+ * stylesheet is compiled as usual. Not used for
+ * <code>templatesLocale</code> localized stylesheets.</dd>
+ * 
+ * <dt>xsltEngine</dt>
+ * <dd>An optional {@link XsltEngine} to create the TransformerFactory with,
+ * for example {@link SaxonXsltEngine}. If not configured the
+ * <code>transformerFactoryClass</code> property or the JAXP default is
+ * used.</dd>
+ * 
+ * <dt>progressiveFlushSize</dt>
+ * <dd>If greater than <code>0</code>, flush the response once this many
+ * characters of transformed output have been written, so the client can start
+ * on the start of the page (for example fetching the stylesheets and scripts
+ * in its <code>head</code>) while the rest is rendered. See
+ * {@link FlushingWriter}. Defaults to <code>0</code>.</dd>
+ * 
+ * <dt>progressiveFlushMarker</dt>
+ * <dd>If configured, flush the response each time this text is output by the
+ * stylesheet, for example an <code>&lt;!-- flush --&gt;</code> comment.
+ * Defaults to <em>null</em>.</dd>
+ * 
+ * <dt>progressiveFlushInterval</dt>
+ * <dd>If greater than <code>0</code>, flush the response when output is
+ * written at least this many milliseconds after the previous flush. Defaults
+ * to <code>0</code>.</dd>
+ * 
+ * <dt>useGeneratedSaxWriters</dt>
+ * <dd>If <em>true</em> and <code>cacheXDataFragments</code> is also
+ * <em>true</em>, then a <code>JAXBElement</code> model object whose class
+ * has a {@link JaxbSaxWriter} generated by {@link JaxbSaxWriterGenerator}
+ * (found via {@link JaxbSaxWriters} for the <code>jaxbContext</code>
+ * packages) is written directly as SAX events by that writer instead of
+ * being marshalled by JAXB. Model objects without a generated writer are
+ * marshalled as before. Defaults to <em>true</em>.</dd>
  * </dl>
  * 
+ * <p>
+ * The progressive flush properties do not apply to pages rendered into the
+ * <code>pageCache</code>. With <code>compressOutput</code>, nothing is
+ * flushed until <code>compressionThreshold</code> bytes have been output, and
+ * then only data the compressor has already emitted.
+ * </p>
+ * 
  * @author matt
  * @version $Revision$ $Date$
  */
@@ -142,6 +410,15 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 	 */
 	public static final String XWEB_JAXB_CONTEXT = "magoffin.matt.xweb";
 
+	/** The default value for the <code>compressionThreshold</code> property. */
+	public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+	/** The default value for the <code>asyncTimeout</code> property. */
+	public static final long DEFAULT_ASYNC_TIMEOUT = 60000L;
+
+	/** The default maximum size of the <code>modelFragmentCache</code>. */
+	public static final int DEFAULT_MODEL_FRAGMENT_CACHE_SIZE = 100;
+
 	// a cache of JAXBContext instances, which are thread-safe and best shared across all views
 	private static final Map<String, JAXBContext> JAXBCONTEXT_CACHE = new HashMap<String, JAXBContext>(
 			2);
@@ -152,8 +429,27 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 		DOC_BUILDER_FACTORY.setValidating(true);
 	}
 
-	// super XsltView doesn't give us easy access to HttpServletRequest, so use ThreadLocal
-	private static final ThreadLocal<HttpServletRequest> REQUEST = new ThreadLocal<HttpServletRequest>();
+	private static final QName X_MSG_QNAME = new QName(XwebConstants.XWEB_NAMESPACE,
+			XwebConstants.SECTION_MSG);
+	private static final QName X_SESSION_QNAME = new QName(XwebConstants.XWEB_NAMESPACE,
+			XwebConstants.SECTION_SESSION);
+	private static final QName SETTINGS_QNAME = new QName(XwebConstants.XWEB_NAMESPACE, "settings");
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String HEADER_ETAG = "ETag";
+	private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+	private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+	private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+	private static final String HEADER_RETRY_AFTER = "Retry-After";
+
+	private static final String FRAGMENT_MSG = "x-msg:";
+	private static final String FRAGMENT_SETTINGS = "settings";
+	private static final String FRAGMENT_APP_CONTEXT = "x-app-context";
+
+	/** The x-data sections that can be left out if a stylesheet does not use them. */
+	private static final Set<String> PRUNABLE_SECTIONS = Collections.unmodifiableSet(new TreeSet<String>(
+			Arrays.asList(XwebConstants.SECTION_AUXILLARY, XwebConstants.SECTION_ERRORS,
+					XwebConstants.SECTION_SESSION, XwebConstants.SECTION_MSG,
+					XwebConstants.SECTION_REQUEST, XwebConstants.SECTION_REQUEST_HEADERS)));
 
 	private final Logger log = LoggerFactory.getLogger(getClass());
 	private final Map<String, XwebMessages> msgMap = new HashMap<String, XwebMessages>();
@@ -169,8 +465,76 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 	private XwebHelper webHelper = null;
 	private ContentTypeResolver contentTypeResolver = null;
 	private boolean includeMessages = true;
+	private boolean includeSettings = true;
 	private boolean enableXmlSourceResponse = true;
+	private boolean indentXmlSource = false;
 	private Ehcache appSettingsCache = null;
+	private boolean poolMarshallers = true;
+	private boolean cacheTemplates = true;
+	private boolean poolTransformers = true;
+	private int transformerPoolSize = TransformerPool.DEFAULT_MAX_IDLE;
+	private boolean cacheXDataFragments = true;
+	private SaxFragmentCache fragmentCache = new SaxFragmentCache();
+	private SaxFragmentCache modelFragmentCache = new SaxFragmentCache(
+			DEFAULT_MODEL_FRAGMENT_CACHE_SIZE);
+	private String[] sessionAttributeIncludes = null;
+	private String[] sessionAttributeExcludes = null;
+	private boolean pruneXDataSections = false;
+	private PageCache pageCache = null;
+	private String[] pageCacheParameters = null;
+	private TemplateFragmentCache templateFragmentCache = new TemplateFragmentCache();
+	private boolean conditionalGet = false;
+	private boolean compressOutput = false;
+	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+	private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+	private boolean asyncRendering = false;
+	private Executor renderExecutor = null;
+	private long asyncTimeout = DEFAULT_ASYNC_TIMEOUT;
+	private RenderLimiter renderLimiter = null;
+	private TransletLoader transletLoader = null;
+	private XsltEngine xsltEngine = null;
+	private int progressiveFlushSize = 0;
+	private String progressiveFlushMarker = null;
+	private long progressiveFlushInterval = 0;
+	private boolean useGeneratedSaxWriters = true;
+	private Locale templatesLocale = null;
+
+	private volatile MarshallerPool marshallerPool = null;
+	private volatile JaxbSaxWriters saxWriters = null;
+	private volatile Templates cachedTemplates = null;
+	private volatile Long templatesMessagesVersion = null;
+	private volatile TransformerPool transformerPool = null;
+	private volatile Set<String> prunedSections = Collections.emptySet();
+	private volatile SettingsSnapshot settingsSnapshot = null;
+	private volatile InputsModified inputsModified = null;
+	private volatile long stylesheetLastModified = -1;
+	private final long created = System.currentTimeMillis();
+	private final boolean xwebHooksOverridden = isOverridden("buildXweb", Map.class, String.class,
+			HttpServletRequest.class) || isOverridden("processRequestData", HttpServletRequest.class,
+			Xweb.class);
+
+	/**
+	 * Default constructor.
+	 */
+	public XwebJaxbXsltView() {
+		super();
+		// we manage the Templates ourselves, see loadTemplates()
+		super.setCacheTemplates(false);
+	}
+
+	/**
+	 * Test if a subclass overrides one of our methods.
+	 * 
+	 * @param name
+	 *        the method name
+	 * @param paramTypes
+	 *        the method parameter types
+	 * @return <em>true</em> if the method is overridden
+	 */
+	private boolean isOverridden(String name, Class<?>... paramTypes) {
+		Method method = ReflectionUtils.findMethod(getClass(), name, paramTypes);
+		return (method != null && method.getDeclaringClass() != XwebJaxbXsltView.class);
+	}
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
@@ -192,6 +556,8 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 						JAXBCONTEXT_CACHE.get(this.jaxbContext), this.jaxbContext);
 			}
 		}
+		saxWriters = (useGeneratedSaxWriters && jaxbContext != null ? JaxbSaxWriters
+				.forContextPath(jaxbContext, ClassUtils.getDefaultClassLoader()) : null);
 	}
 
 	@Override
@@ -220,26 +586,845 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 		return false;
 	}
 
+	@Override
+	public void setCacheTemplates(boolean cacheTemplates) {
+		this.cacheTemplates = cacheTemplates;
+	}
+
+	@Override
+	protected TransformerFactory newTransformerFactory(
+			@SuppressWarnings("rawtypes") Class transformerFactoryClass) {
+		if ( xsltEngine != null ) {
+			log.debug("Using XSLT engine {} for [{}]", xsltEngine.getName(), getUrl());
+			return xsltEngine.newTransformerFactory();
+		}
+		return super.newTransformerFactory(transformerFactoryClass);
+	}
+
+	@Override
+	protected void initApplicationContext() {
+		super.initApplicationContext();
+		if ( cacheTemplates ) {
+			cachedTemplates = loadTemplates();
+			if ( pruneXDataSections ) {
+				analyzeSections();
+			}
+		}
+	}
+
+	/**
+	 * Analyze the stylesheet to find the x-data sections it does not use.
+	 */
+	private void analyzeSections() {
+		URL stylesheet;
+		try {
+			stylesheet = getApplicationContext().getResource(getUrl()).getURL();
+		} catch ( IOException e ) {
+			log.warn("Unable to analyze stylesheet [{}]: {}", getUrl(), e.getMessage());
+			return;
+		}
+		Set<String> used = new XsltSectionAnalyzer().analyze(stylesheet);
+		Set<String> pruned = new TreeSet<String>(PRUNABLE_SECTIONS);
+		pruned.removeAll(used);
+		prunedSections = Collections.unmodifiableSet(pruned);
+		if ( pruned.isEmpty() ) {
+			log.info("View [{}] uses all x-data sections", getBeanName());
+		} else {
+			log.info("View [{}] pruned unused x-data sections {}", getBeanName(), pruned);
+		}
+	}
+
+	private boolean isSectionIncluded(String section) {
+		return !prunedSections.contains(section);
+	}
+
 	@Override
 	protected void renderMergedOutputModel(Map<String, Object> model, HttpServletRequest request,
 			HttpServletResponse response) throws Exception {
-		REQUEST.set(request);
-		super.renderMergedOutputModel(model, request, response);
-		REQUEST.remove();
+		if ( conditionalGet && isCacheableRequest(request) && !isXmlSourceRequest(request)
+				&& checkNotModified(model, request, response) ) {
+			return;
+		}
+		Executor executor = renderExecutor;
+		if ( asyncRendering && executor != null && request.isAsyncSupported()
+				&& !request.isAsyncStarted() ) {
+			renderAsync(executor, model, request, response);
+			return;
+		}
+		renderOutput(model, request, response);
+	}
+
+	/**
+	 * Render the output on a thread of an Executor, via a Servlet 3.0
+	 * AsyncContext.
+	 * 
+	 * <p>
+	 * If the Executor rejects the render, it is rendered on the calling
+	 * thread instead.
+	 * </p>
+	 * 
+	 * @param executor
+	 *        the executor to render with
+	 * @param model
+	 *        the model
+	 * @param request
+	 *        the request
+	 * @param response
+	 *        the response
+	 * @throws Exception
+	 *         if any error occurs rendering on the calling thread
+	 */
+	private void renderAsync(Executor executor, final Map<String, Object> model,
+			final HttpServletRequest request, final HttpServletResponse response) throws Exception {
+		final AsyncContext async = request.startAsync(request, response);
+		async.setTimeout(asyncTimeout);
+		try {
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						renderOutput(model, request, response);
+					} catch ( Exception e ) {
+						log.error("Error rendering view [" + getUrl() + ']', e);
+						if ( !response.isCommitted() ) {
+							try {
+								response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+							} catch ( IOException e2 ) {
+								log.debug("Unable to send error response: {}", e2.getMessage());
+							}
+						}
+					} finally {
+						async.complete();
+					}
+				}
+
+			});
+		} catch ( RejectedExecutionException e ) {
+			log.debug("Render executor busy, rendering [{}] on request thread", getUrl());
+			try {
+				renderOutput(model, request, response);
+			} finally {
+				async.complete();
+			}
+		}
+	}
+
+	/**
+	 * Render the output, via the page cache if configured.
+	 * 
+	 * @param model
+	 *        the model
+	 * @param request
+	 *        the request
+	 * @param response
+	 *        the response
+	 * @throws Exception
+	 *         if any error occurs
+	 */
+	private void renderOutput(Map<String, Object> model, HttpServletRequest request,
+			HttpServletResponse response) throws Exception {
+		PageCache cache = pageCache;
+		Object pageKey = null;
+		boolean xmlSource = isXmlSourceRequest(request);
+		if ( cache != null && pageCacheParameters != null && !xmlSource
+				&& isCacheableRequest(request)
+				&& !Boolean.TRUE.equals(request.getAttribute(XwebConstants.REQ_KEY_NO_PAGE_CACHE)) ) {
+			pageKey = getPageCacheKey(model, request);
+		}
+		try {
+			if ( pageKey != null ) {
+				renderCachedPage(cache, pageKey, model, request, response);
+				return;
+			}
+			String encoding = null;
+			if ( compressOutput ) {
+				CompressingOutputStream.addVaryHeader(response);
+				encoding = CompressingOutputStream.getAcceptedEncoding(request);
+			}
+			if ( encoding == null ) {
+				if ( xmlSource ) {
+					renderXmlSource(model, request, response, response.getOutputStream());
+				} else {
+					renderPage(model, request, response, createResult(response), true);
+				}
+			} else {
+				CompressingOutputStream out = new CompressingOutputStream(response, encoding,
+						compressionLevel, compressionThreshold);
+				if ( xmlSource ) {
+					renderXmlSource(model, request, response, out);
+				} else {
+					renderPage(model, request, response, new StreamResult(out), true);
+				}
+				out.finish();
+			}
+		} catch ( RenderRejectedException e ) {
+			PageCache.Page stale = (pageKey == null ? null : cache.getStale(pageKey));
+			if ( stale != null ) {
+				log.debug("Render of [{}] rejected, serving stale page", getUrl());
+				writePage(stale, request, response);
+			} else {
+				log.debug("Render of [{}] rejected: {}", getUrl(), renderLimiter);
+				response.setHeader(HEADER_RETRY_AFTER, String.valueOf(renderLimiter.getRetryAfter()));
+				response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			}
+		}
+	}
+
+	/**
+	 * Exception thrown when the <code>renderLimiter</code> rejects a render.
+	 */
+	private static final class RenderRejectedException extends RuntimeException {
+
+		private static final long serialVersionUID = -2516478826530474373L;
+
+	}
+
+	/**
+	 * Set the <code>ETag</code> and <code>Last-Modified</code> response
+	 * headers, and respond with <code>304 Not Modified</code> if the client's
+	 * copy is current.
+	 * 
+	 * <p>
+	 * The validators are only computed if the model contains a
+	 * {@link XwebConstants#PAGE_VERSION_OBJECT}, and are derived from that
+	 * version, the messages and settings versions, and the stylesheet
+	 * modification time, without building any x-data. The
+	 * <code>ETag</code> also covers the request parameters, the session
+	 * version, and the accepted content encoding, so the gzip and identity
+	 * representations have different tags. The <code>Last-Modified</code>
+	 * time cannot reflect those, so it is not used for requests with
+	 * parameters or a session.
+	 * </p>
+	 * 
+	 * @param model
+	 *        the model
+	 * @param request
+	 *        the request
+	 * @param response
+	 *        the response
+	 * @return <em>true</em> if a <code>304</code> response was sent
+	 */
+	private boolean checkNotModified(Map<String, Object> model, HttpServletRequest request,
+			HttpServletResponse response) {
+		Object modelVersion = model.get(XwebConstants.PAGE_VERSION_OBJECT);
+		if ( modelVersion == null ) {
+			return false;
+		}
+		if ( model.get(XwebConstants.ALERT_MESSAGES_OBJECT) != null
+				|| (webHelper != null && webHelper.getSavedMessage(request) != null) ) {
+			// the saved message must be rendered
+			return false;
+		}
+		HttpSession session = (isSectionIncluded(XwebConstants.SECTION_SESSION) ? request
+				.getSession(false) : null);
+		long sessionVersion = 0;
+		if ( session != null ) {
+			SessionSectionCache sessionCache = SessionSectionCache.getInstance(request
+					.getServletContext());
+			if ( sessionCache == null ) {
+				// changes to the session attributes cannot be detected
+				return false;
+			}
+			sessionVersion = sessionCache.getVersion(session.getId());
+		}
+		Map<String, String[]> params = request.getParameterMap();
+		boolean personalized = (session != null || !params.isEmpty());
+
+		long lastModified = getInputsLastModified();
+		long stylesheetModified = getStylesheetLastModified();
+		if ( stylesheetModified > lastModified ) {
+			lastModified = stylesheetModified;
+		}
+		if ( modelVersion instanceof Date && ((Date) modelVersion).getTime() > lastModified ) {
+			lastModified = ((Date) modelVersion).getTime();
+		}
+		StringBuilder buf = new StringBuilder(getUrl());
+		buf.append('|').append(getLocale(request));
+		buf.append('|').append(modelVersion instanceof Versioned ? getVersion(modelVersion)
+				: modelVersion instanceof Date ? ((Date) modelVersion).getTime() : modelVersion);
+		buf.append('|').append(getVersion(messagesSource));
+		buf.append('|').append(getVersion(parameterDao));
+		buf.append('|').append(stylesheetModified);
+		if ( session != null ) {
+			buf.append('|').append(session.getId()).append(':').append(sessionVersion);
+		}
+		for ( Map.Entry<String, String[]> param : new TreeMap<String, String[]>(params).entrySet() ) {
+			buf.append('|').append(param.getKey()).append('=')
+					.append(Arrays.toString(param.getValue()));
+		}
+		String encoding = (compressOutput ? CompressingOutputStream.getAcceptedEncoding(request)
+				: null);
+		String etag = '"' + DigestUtils.md5DigestAsHex(buf.toString().getBytes(UTF8))
+				+ (encoding == null ? "" : "-" + encoding) + '"';
+
+		response.setHeader(HEADER_ETAG, etag);
+		if ( !personalized ) {
+			response.setDateHeader(HEADER_LAST_MODIFIED, lastModified);
+		}
+
+		boolean notModified = false;
+		String ifNoneMatch = request.getHeader(HEADER_IF_NONE_MATCH);
+		if ( ifNoneMatch != null ) {
+			notModified = matchesEntityTag(ifNoneMatch, etag);
+		} else if ( !personalized ) {
+			long ifModifiedSince = -1;
+			try {
+				ifModifiedSince = request.getDateHeader(HEADER_IF_MODIFIED_SINCE);
+			} catch ( IllegalArgumentException e ) {
+				log.debug("Ignoring invalid If-Modified-Since header: {}", e.getMessage());
+			}
+			notModified = (ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000);
+		}
+		if ( notModified ) {
+			log.debug("Not modified: [{}] {}", getUrl(), etag);
+			if ( compressOutput ) {
+				CompressingOutputStream.addVaryHeader(response);
+			}
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		}
+		return notModified;
+	}
+
+	/**
+	 * Test if an <code>If-None-Match</code> header matches an entity tag,
+	 * using the weak comparison <code>If-None-Match</code> calls for.
+	 * 
+	 * @param ifNoneMatch
+	 *        the header value, <code>*</code> or a list of entity tags
+	 * @param etag
+	 *        the entity tag to match
+	 * @return <em>true</em> if the header matches
+	 */
+	private static boolean matchesEntityTag(String ifNoneMatch, String etag) {
+		for ( String tag : ifNoneMatch.split(",") ) {
+			tag = tag.trim();
+			if ( tag.startsWith("W/") ) {
+				tag = tag.substring(2);
+			}
+			if ( tag.equals("*") || tag.equals(etag) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get the time the messages or settings were last seen to change.
+	 * 
+	 * <p>
+	 * The messages and settings only provide versions, so this is the time
+	 * this view first noticed their current versions.
+	 * </p>
+	 * 
+	 * @return the time, in milliseconds
+	 */
+	private long getInputsLastModified() {
+		List<Long> versions = Arrays.asList(getVersion(messagesSource), getVersion(parameterDao));
+		InputsModified current = inputsModified;
+		if ( current == null || !current.versions.equals(versions) ) {
+			current = new InputsModified(versions, current == null ? created
+					: System.currentTimeMillis());
+			inputsModified = current;
+		}
+		return current.modified;
+	}
+
+	/**
+	 * Get the modification time of the stylesheet.
+	 * 
+	 * <p>
+	 * If <code>cacheTemplates</code> is <em>true</em> the time is only looked
+	 * up once, as the compiled stylesheet does not change.
+	 * </p>
+	 * 
+	 * @return the time, or <em>0</em> if not known
+	 */
+	private long getStylesheetLastModified() {
+		long modified = stylesheetLastModified;
+		if ( modified < 0 ) {
+			try {
+				modified = (getApplicationContext() == null ? 0 : getApplicationContext()
+						.getResource(getUrl()).lastModified());
+			} catch ( IOException e ) {
+				log.debug("Unable to get stylesheet [{}] modification time: {}", getUrl(),
+						e.getMessage());
+				modified = 0;
+			}
+			if ( cacheTemplates ) {
+				stylesheetLastModified = modified;
+			}
+		}
+		return modified;
+	}
+
+	private static final class InputsModified {
+
+		private final List<Long> versions;
+		private final long modified;
+
+		private InputsModified(List<Long> versions, long modified) {
+			this.versions = versions;
+			this.modified = modified;
+		}
+
+	}
+
+	private boolean isProgressiveFlush() {
+		return (progressiveFlushSize > 0 || progressiveFlushMarker != null
+				|| progressiveFlushInterval > 0);
+	}
+
+	private boolean isXmlSourceRequest(HttpServletRequest request) {
+		return (enableXmlSourceResponse && "true".equals(request.getParameter("xml")));
+	}
+
+	/**
+	 * Render the x-data for a model as XML, by marshalling it directly to an
+	 * OutputStream.
+	 * 
+	 * @param model
+	 *        the model
+	 * @param request
+	 *        the request
+	 * @param response
+	 *        the response
+	 * @param out
+	 *        the stream to write to
+	 * @throws Exception
+	 *         if any error occurs
+	 */
+	private void renderXmlSource(Map<String, Object> model, HttpServletRequest request,
+			HttpServletResponse response, OutputStream out) throws Exception {
+		Object encoding = marshallerProperties.get(Marshaller.JAXB_ENCODING);
+		response.setContentType("text/xml;charset=" + (encoding == null ? "UTF-8" : encoding));
+		Xweb xweb = buildXweb(model, getRootName(model), request);
+		Marshaller marshaller = getMarshaller();
+		try {
+			if ( indentXmlSource ) {
+				marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+			}
+			marshaller.marshal(objectFactory.createXData(xweb), out);
+		} finally {
+			if ( indentXmlSource ) {
+				// restore the pooled Marshaller's configuration
+				marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE
+						.equals(marshallerProperties.get(Marshaller.JAXB_FORMATTED_OUTPUT)));
+			}
+			releaseMarshaller(marshaller);
+		}
+	}
+
+	private boolean isCacheableRequest(HttpServletRequest request) {
+		String method = request.getMethod();
+		return ("GET".equals(method) || "HEAD".equals(method));
+	}
+
+	/**
+	 * Render a page via the page cache.
+	 * 
+	 * @param cache
+	 *        the cache
+	 * @param key
+	 *        the page cache key
+	 * @param model
+	 *        the model
+	 * @param request
+	 *        the request
+	 * @param response
+	 *        the response
+	 * @throws Exception
+	 *         if any error occurs
+	 */
+	private void renderCachedPage(PageCache cache, Object key, final Map<String, Object> model,
+			final HttpServletRequest request, final HttpServletResponse response) throws Exception {
+		PageCache.Page page = cache.get(key, new PageCache.Renderer() {
+
+			@Override
+			public PageCache.Page render() throws Exception {
+				ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+				renderPage(model, request, response, new StreamResult(out), false);
+				byte[] content = out.toByteArray();
+				if ( compressOutput && content.length >= compressionThreshold ) {
+					// store compressed, so hits are not compressed again
+					return new PageCache.Page(CompressingOutputStream.gzip(content,
+							compressionLevel), response.getContentType(),
+							CompressingOutputStream.ENCODING_GZIP);
+				}
+				return new PageCache.Page(content, response.getContentType());
+			}
+
+		});
+		writePage(page, request, response);
+	}
+
+	/**
+	 * Write a cached page to the response.
+	 * 
+	 * @param page
+	 *        the page
+	 * @param request
+	 *        the request
+	 * @param response
+	 *        the response
+	 * @throws IOException
+	 *         if an IO error occurs
+	 */
+	private void writePage(PageCache.Page page, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		if ( page.getContentType() != null ) {
+			response.setContentType(page.getContentType());
+		}
+		byte[] content = page.getContent();
+		if ( compressOutput ) {
+			CompressingOutputStream.addVaryHeader(response);
+		}
+		String encoding = page.getContentEncoding();
+		if ( encoding != null ) {
+			if ( encoding.equals(CompressingOutputStream.getAcceptedEncoding(request)) ) {
+				CompressingOutputStream.setContentEncoding(response, encoding);
+			} else {
+				content = FileCopyUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(
+						content)));
+			}
+		}
+		response.setContentLength(content.length);
+		response.getOutputStream().write(content);
+	}
+
+	/**
+	 * Get the page cache key for a render.
+	 * 
+	 * <p>
+	 * The key is made from the stylesheet URL, the request locale, the values
+	 * of the <code>pageCacheParameters</code> request parameters, the model
+	 * version (see {@link XwebConstants#PAGE_VERSION_OBJECT}), and the versions
+	 * of the messages and settings.
+	 * </p>
+	 * 
+	 * @param model
+	 *        the model
+	 * @param request
+	 *        the request
+	 * @return the key
+	 */
+	private Object getPageCacheKey(Map<String, Object> model, HttpServletRequest request) {
+		List<Object> key = new ArrayList<Object>(pageCacheParameters.length + 5);
+		key.add(getUrl());
+		key.add(getLocale(request));
+		for ( String param : pageCacheParameters ) {
+			String[] values = request.getParameterValues(param);
+			key.add(values == null ? null : Arrays.asList(values));
+		}
+		Object modelVersion = model.get(XwebConstants.PAGE_VERSION_OBJECT);
+		key.add(modelVersion instanceof Versioned ? getVersion(modelVersion) : modelVersion);
+		key.add(getVersion(messagesSource));
+		key.add(getVersion(parameterDao));
+		return key;
+	}
+
+	/**
+	 * Render the x-data for a model and transform it into a Result.
+	 * 
+	 * @param model
+	 *        the model
+	 * @param request
+	 *        the request
+	 * @param response
+	 *        the response
+	 * @param result
+	 *        the result to transform into
+	 * @param progressive
+	 *        <em>true</em> if the result is the response, to apply the
+	 *        progressive flush policy to
+	 * @throws Exception
+	 *         if any error occurs
+	 */
+	private void renderPage(Map<String, Object> model, HttpServletRequest request,
+			HttpServletResponse response, Result result, boolean progressive) throws Exception {
+		RenderLimiter limiter = renderLimiter;
+		if ( limiter != null && !limiter.acquire() ) {
+			throw new RenderRejectedException();
+		}
+		try {
+			Templates templates = getTemplates();
+			TransformerPool pool = getTransformerPool(templates);
+			Transformer transformer = (pool != null ? pool.borrowTransformer()
+					: createTransformer(templates));
+			boolean transformed = false;
+			try {
+				configureTransformer(model, response, transformer);
+				configureResponse(model, response, transformer);
+				if ( contentTypeResolver != null ) {
+					response.setContentType(contentTypeResolver.resolveContentType(request, model));
+				}
+				FlushingWriter writer = null;
+				if ( progressive && isProgressiveFlush() && result instanceof StreamResult
+						&& ((StreamResult) result).getOutputStream() != null ) {
+					String encoding = transformer.getOutputProperty(OutputKeys.ENCODING);
+					writer = new FlushingWriter(new OutputStreamWriter(
+							((StreamResult) result).getOutputStream(), (encoding == null ? "UTF-8"
+									: encoding)), progressiveFlushSize, progressiveFlushMarker,
+							progressiveFlushInterval);
+					result = new StreamResult(writer);
+				}
+				Marshaller marshaller = getMarshaller();
+				Object functions = XwebXsltFunctions.bind(messagesSource, getLocale(request),
+						new LazySettings(), templateFragmentCache);
+				try {
+					Source source;
+					if ( cacheXDataFragments && !xwebHooksOverridden ) {
+						XwebXmlReader reader = new XwebXmlReader(marshaller);
+						Xweb xweb = buildXweb(model, getRootName(model), request, reader);
+						reader.setContent(objectFactory.createXData(xweb));
+						debugXData(reader);
+						source = reader.toSource();
+					} else {
+						Xweb xweb = buildXweb(model, getRootName(model), request);
+						source = new JAXBSource(marshaller, objectFactory.createXData(xweb));
+					}
+					transformer.transform(source, result);
+					if ( writer != null ) {
+						writer.flush();
+					}
+				} finally {
+					XwebXsltFunctions.restore(functions);
+					releaseMarshaller(marshaller);
+				}
+				transformed = true;
+			} finally {
+				if ( pool != null && transformed ) {
+					pool.returnTransformer(transformer);
+				}
+			}
+		} finally {
+			if ( limiter != null ) {
+				limiter.release();
+			}
+		}
 	}
 
 	@Override
 	protected Source locateSource(Map<String, Object> model) throws Exception {
-		HttpServletRequest request = REQUEST.get();
-		String root = XwebConstants.DEFALUT_MODEL_OBJECT;
+		// renderMergedOutputModel() does not use this, so only the bound request is available
+		HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder
+				.currentRequestAttributes()).getRequest();
+		Xweb xweb = buildXweb(model, getRootName(model), request);
+
+		// the returned Source outlives this method, so the Marshaller cannot be pooled
+		return new JAXBSource(getMarshallerPool().createMarshaller(), objectFactory.createXData(xweb));
+	}
+
+	private String getRootName(Map<String, Object> model) {
 		for ( Map.Entry<String, ?> me : model.entrySet() ) {
-			if ( me.getValue() instanceof JAXBElement<?> ) {
-				root = me.getKey();
-				break;
+			Object value = me.getValue();
+			if ( value instanceof JAXBElement<?> || value instanceof StreamingModel ) {
+				return me.getKey();
+			}
+		}
+		return XwebConstants.DEFALUT_MODEL_OBJECT;
+	}
+
+	/**
+	 * Get the compiled stylesheet for this view.
+	 * 
+	 * <p>
+	 * If <code>cacheTemplates</code> is <em>true</em> the Templates are only
+	 * compiled once, otherwise they are compiled on each call.
+	 * </p>
+	 * 
+	 * @return the Templates
+	 */
+	protected Templates getTemplates() {
+		Templates templates = cachedTemplates;
+		if ( templates != null && isLocalizedTemplates()
+				&& !getVersion(messagesSource).equals(templatesMessagesVersion) ) {
+			synchronized ( this ) {
+				templates = cachedTemplates;
+				if ( !getVersion(messagesSource).equals(templatesMessagesVersion) ) {
+					log.info("Messages changed, recompiling stylesheet [{}] for locale {}", getUrl(),
+							templatesLocale);
+					templates = loadTemplates();
+					cachedTemplates = templates;
+				}
+			}
+		}
+		if ( templates == null ) {
+			templates = loadTemplates();
+			if ( cacheTemplates ) {
+				cachedTemplates = templates;
+			}
+		}
+		return templates;
+	}
+
+	/**
+	 * Prime the data this view caches between renders, so the first render
+	 * does not have to create it.
+	 * 
+	 * <p>
+	 * This compiles the stylesheet if <code>cacheTemplates</code> is
+	 * <em>true</em>, loads the settings snapshot used by
+	 * {@link XwebXsltFunctions}, and if <code>cacheXDataFragments</code> is
+	 * <em>true</em> records the <code>x-msg</code> fragment for
+	 * <code>locale</code> and the settings fragment.
+	 * </p>
+	 * 
+	 * @param locale
+	 *        the locale to prime the messages for
+	 * @throws JAXBException
+	 *         if a JAXB error occurs
+	 */
+	public void warmUp(Locale locale) throws JAXBException {
+		if ( cacheTemplates ) {
+			getTemplates();
+		}
+		if ( includeSettings ) {
+			getSettingsSnapshot();
+		}
+		if ( !cacheXDataFragments ) {
+			return;
+		}
+		Marshaller marshaller = getMarshaller();
+		try {
+			if ( messagesSource != null && includeMessages
+					&& isSectionIncluded(XwebConstants.SECTION_MSG) ) {
+				getMessagesFragment(locale, marshaller);
+			}
+			if ( parameterDao != null && includeSettings ) {
+				getSettingsFragment(marshaller);
+			}
+		} finally {
+			releaseMarshaller(marshaller);
+		}
+	}
+
+	/**
+	 * Get the TransformerPool to use for a given compiled stylesheet.
+	 * 
+	 * @param templates
+	 *        the Templates to get the pool for
+	 * @return the pool, or <em>null</em> if Transformers should not be pooled
+	 *         for <code>templates</code>
+	 */
+	private TransformerPool getTransformerPool(final Templates templates) {
+		if ( !poolTransformers || templates != cachedTemplates ) {
+			return null;
+		}
+		TransformerPool pool = transformerPool;
+		if ( pool == null || pool.getTemplates() != templates ) {
+			pool = new TransformerPool(templates, transformerPoolSize) {
+
+				@Override
+				protected Transformer newTransformer() throws TransformerConfigurationException {
+					return createTransformer(templates);
+				}
+
+			};
+			transformerPool = pool;
+		}
+		return pool;
+	}
+
+	/**
+	 * Get the TransformerPool in use by this view, for example to report on
+	 * pool statistics.
+	 * 
+	 * @return the pool, or <em>null</em> if none created
+	 */
+	public TransformerPool getTransformerPool() {
+		return transformerPool;
+	}
+
+	/**
+	 * Compile the stylesheet for this view.
+	 * 
+	 * @return the Templates
+	 * @throws ApplicationContextException
+	 *         if the stylesheet cannot be compiled
+	 */
+	protected Templates loadTemplates() throws ApplicationContextException {
+		if ( isLocalizedTemplates() ) {
+			return loadLocalizedTemplates();
+		}
+		if ( transletLoader != null ) {
+			Templates templates = transletLoader.loadTemplates(getUrl(),
+					getStylesheetLastModified(), getTransformerFactory().getURIResolver());
+			if ( templates != null ) {
+				log.debug("Loaded translet [{}] for [{}]", templates, getUrl());
+				return templates;
 			}
 		}
-		Xweb xweb = buildXweb(model, root, request);
-		return new JAXBSource(getMarshaller(), objectFactory.createXData(xweb));
+		Source stylesheetSource = getStylesheetSource();
+		try {
+			Templates templates = getTransformerFactory().newTemplates(stylesheetSource);
+			log.debug("Loaded templates [{}] for [{}]", templates, getUrl());
+			return templates;
+		} catch ( TransformerConfigurationException e ) {
+			throw new ApplicationContextException("Can't load stylesheet from '" + getUrl() + "'", e);
+		} finally {
+			closeSource(stylesheetSource);
+		}
+	}
+
+	private boolean isLocalizedTemplates() {
+		return (templatesLocale != null && messagesSource != null);
+	}
+
+	/**
+	 * Compile the stylesheet for this view with literal message lookups
+	 * replaced by the messages for <code>templatesLocale</code>.
+	 * 
+	 * @return the Templates
+	 * @throws ApplicationContextException
+	 *         if the stylesheet cannot be compiled
+	 */
+	private Templates loadLocalizedTemplates() throws ApplicationContextException {
+		// get the version first, so a change while compiling triggers another compile
+		Long version = getVersion(messagesSource);
+		XsltMessageLocalizer localizer = new XsltMessageLocalizer(messagesSource, templatesLocale);
+		TransformerFactory factory = getTransformerFactory();
+		Source stylesheetSource = getStylesheetSource();
+		try {
+			Templates templates;
+			synchronized ( factory ) {
+				URIResolver resolver = factory.getURIResolver();
+				factory.setURIResolver(localizer.getURIResolver(resolver));
+				try {
+					templates = factory.newTemplates(localizer.localize(stylesheetSource));
+				} finally {
+					factory.setURIResolver(resolver);
+				}
+			}
+			templatesMessagesVersion = version;
+			log.debug("Loaded templates [{}] for [{}] with {} messages for locale {}", new Object[] {
+					templates, getUrl(), localizer.getReplacementCount(), templatesLocale });
+			return templates;
+		} catch ( TransformerException e ) {
+			throw new ApplicationContextException("Can't load stylesheet from '" + getUrl()
+					+ "' for locale " + templatesLocale, e);
+		} finally {
+			closeSource(stylesheetSource);
+		}
+	}
+
+	private void closeSource(Source source) {
+		if ( !(source instanceof StreamSource) ) {
+			return;
+		}
+		StreamSource streamSource = (StreamSource) source;
+		try {
+			InputStream in = streamSource.getInputStream();
+			if ( in != null ) {
+				in.close();
+			}
+			Reader reader = streamSource.getReader();
+			if ( reader != null ) {
+				reader.close();
+			}
+		} catch ( IOException e ) {
+			log.debug("Unable to close stylesheet source [{}]: {}", getUrl(), e.getMessage());
+		}
 	}
 
 	/**
@@ -258,25 +1443,44 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 		return context;
 	}
 
+	/**
+	 * Get the MarshallerPool for this view's JAXB configuration.
+	 * 
+	 * @return the pool
+	 */
+	public MarshallerPool getMarshallerPool() {
+		MarshallerPool pool = marshallerPool;
+		if ( pool == null ) {
+			pool = MarshallerPool.getPool(getContext(), marshallerProperties, ignoreMarshallErrors);
+			marshallerPool = pool;
+		}
+		return pool;
+	}
+
 	/**
 	 * Get a JAXB Marshaller, configured for our context and set to ignore
 	 * marshalling errors if specified.
 	 * 
+	 * <p>
+	 * The returned Marshaller must be passed to
+	 * {@link #releaseMarshaller(Marshaller)} when no longer needed.
+	 * </p>
+	 * 
 	 * @return a Marshaller
-	 * @throws Exception
+	 * @throws JAXBException
 	 *         if unable to create the marshaller
 	 */
-	private Marshaller getMarshaller() throws Exception {
-		Marshaller marshaller = getContext().createMarshaller();
-		if ( this.ignoreMarshallErrors ) {
-			marshaller.setEventHandler(IgnoreValidation.IGNORE_VALIDATION);
+	private Marshaller getMarshaller() throws JAXBException {
+		if ( poolMarshallers ) {
+			return getMarshallerPool().borrowMarshaller();
 		}
-		if ( marshallerProperties != null ) {
-			for ( Map.Entry<String, Object> me : marshallerProperties.entrySet() ) {
-				marshaller.setProperty(me.getKey().toString(), me.getValue());
-			}
+		return getMarshallerPool().createMarshaller();
+	}
+
+	private void releaseMarshaller(Marshaller marshaller) {
+		if ( poolMarshallers ) {
+			getMarshallerPool().returnMarshaller(marshaller);
 		}
-		return marshaller;
 	}
 
 	private XwebParameters getAppSettings() {
@@ -321,23 +1525,279 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 				return msgMap.get(key);
 			}
 
-			XwebMessages xMsgs = objectFactory.createXwebMessages();
-			Enumeration<String> enumeration = msgSrc.getKeys(locale);
-			while ( enumeration.hasMoreElements() ) {
-				String msgKey = enumeration.nextElement();
-				XwebMessage xMsg = objectFactory.createXwebMessage();
-				xMsgs.getMsg().add(xMsg);
-				xMsg.setKey(msgKey);
-				Object val = msgSrc.getMessage(msgKey, null, locale);
-				if ( val != null ) {
-					xMsg.setValue(val.toString());
-				}
-			}
+			XwebMessages xMsgs = createMessages(locale, msgSrc);
 			msgMap.put(key, xMsgs);
 			return xMsgs;
 		}
 	}
 
+	private XwebMessages createMessages(Locale locale, MessagesSource msgSrc) {
+		XwebMessages xMsgs = objectFactory.createXwebMessages();
+		Enumeration<String> enumeration = msgSrc.getKeys(locale);
+		while ( enumeration.hasMoreElements() ) {
+			String msgKey = enumeration.nextElement();
+			XwebMessage xMsg = objectFactory.createXwebMessage();
+			xMsgs.getMsg().add(xMsg);
+			xMsg.setKey(msgKey);
+			Object val = msgSrc.getMessage(msgKey, null, locale);
+			if ( val != null ) {
+				xMsg.setValue(val.toString());
+			}
+		}
+		return xMsgs;
+	}
+
+	private Locale getLocale(HttpServletRequest request) {
+		try {
+			return RequestContextUtils.getLocale(request);
+		} catch ( IllegalStateException e ) {
+			logger.warn("Unable to get Locale from request, using default [" + Locale.getDefault() + "]");
+			return Locale.getDefault();
+		}
+	}
+
+	/**
+	 * Get the settings as a Map, for the {@link XwebXsltFunctions}.
+	 * 
+	 * <p>
+	 * The Map is re-used for as long as the cached app settings instance (or
+	 * {@link Versioned} <code>parameterDao</code> version) does not change,
+	 * the same as the settings fragment.
+	 * </p>
+	 * 
+	 * @return the settings, or <em>null</em> if no <code>parameterDao</code>
+	 *         configured
+	 */
+	private Map<String, String> getSettingsSnapshot() {
+		if ( parameterDao == null ) {
+			return null;
+		}
+		XwebParameters params = null;
+		Object version = null;
+		if ( appSettingsCache != null ) {
+			params = getAppSettings();
+			version = params;
+		} else if ( parameterDao instanceof Versioned ) {
+			version = Arrays.asList(parameterDao, getVersion(parameterDao));
+		}
+		SettingsSnapshot snapshot = settingsSnapshot;
+		if ( snapshot != null && version != null && version.equals(snapshot.version) ) {
+			return snapshot.settings;
+		}
+		if ( params == null ) {
+			params = getAppSettings();
+		}
+		Map<String, String> settings = new HashMap<String, String>(params.getParam().size());
+		for ( XwebParameter param : params.getParam() ) {
+			settings.put(param.getKey(), param.getValue());
+		}
+		settings = Collections.unmodifiableMap(settings);
+		if ( version != null ) {
+			settingsSnapshot = new SettingsSnapshot(version, settings);
+		}
+		return settings;
+	}
+
+	private static final class SettingsSnapshot {
+
+		private final Object version;
+		private final Map<String, String> settings;
+
+		private SettingsSnapshot(Object version, Map<String, String> settings) {
+			this.version = version;
+			this.settings = settings;
+		}
+
+	}
+
+	/**
+	 * Settings Map that only loads the settings when first accessed, so
+	 * renders that do not look up any settings do not pay for them.
+	 */
+	private final class LazySettings extends AbstractMap<String, String> {
+
+		private Map<String, String> settings;
+
+		private Map<String, String> getSettings() {
+			if ( settings == null ) {
+				settings = getSettingsSnapshot();
+				if ( settings == null ) {
+					settings = Collections.emptyMap();
+				}
+			}
+			return settings;
+		}
+
+		@Override
+		public String get(Object key) {
+			return getSettings().get(key);
+		}
+
+		@Override
+		public Set<Map.Entry<String, String>> entrySet() {
+			return getSettings().entrySet();
+		}
+
+	}
+
+	private static Long getVersion(Object o) {
+		return Long.valueOf(o instanceof Versioned ? ((Versioned) o).getVersion() : 0);
+	}
+
+	/**
+	 * Get the recorded <code>x-msg</code> fragment for a locale.
+	 * 
+	 * @param locale
+	 *        the locale
+	 * @param marshaller
+	 *        the Marshaller to record the fragment with, if not cached
+	 * @return the fragment
+	 * @throws JAXBException
+	 *         if a JAXB error occurs
+	 */
+	private SaxFragment getMessagesFragment(Locale locale, Marshaller marshaller)
+			throws JAXBException {
+		String key = FRAGMENT_MSG + locale;
+		Object version = Arrays.asList(messagesSource, getVersion(messagesSource));
+		SaxEventBuffer fragment = fragmentCache.get(key, version);
+		if ( fragment == null ) {
+			XwebMessages xMsgs = createMessages(locale, messagesSource);
+			fragment = recordFragment(marshaller, new JAXBElement<XwebMessages>(X_MSG_QNAME,
+					XwebMessages.class, xMsgs));
+			fragmentCache.put(key, version, fragment);
+			log.debug("Recorded {} fragment with {} events", key, fragment.getEventCount());
+		}
+		return fragment;
+	}
+
+	/**
+	 * Get the recorded <code>x-context/settings</code> fragment.
+	 * 
+	 * <p>
+	 * If an <code>appSettingsCache</code> is configured the fragment is
+	 * recorded again whenever the cached settings instance changes, so it
+	 * expires with the cache entry. Otherwise the <code>parameterDao</code>
+	 * must implement {@link Versioned} for the settings to be cached, and its
+	 * version must change when the settings may have changed elsewhere, as
+	 * {@link XwebJdbcParamDao} does every <code>versionTimeToLive</code>
+	 * seconds.
+	 * </p>
+	 * 
+	 * @param marshaller
+	 *        the Marshaller to record the fragment with, if not cached
+	 * @return the fragment, or <em>null</em> if the settings cannot be cached
+	 * @throws JAXBException
+	 *         if a JAXB error occurs
+	 */
+	private SaxFragment getSettingsFragment(Marshaller marshaller) throws JAXBException {
+		XwebParameters params = null;
+		Object version;
+		if ( appSettingsCache != null ) {
+			params = getAppSettings();
+			version = params;
+		} else if ( parameterDao instanceof Versioned ) {
+			version = Arrays.asList(parameterDao, getVersion(parameterDao));
+		} else {
+			return null;
+		}
+		SaxEventBuffer fragment = fragmentCache.get(FRAGMENT_SETTINGS, version);
+		if ( fragment == null ) {
+			if ( params == null ) {
+				params = getAppSettings();
+			}
+			fragment = recordFragment(marshaller, new JAXBElement<XwebParameters>(SETTINGS_QNAME,
+					XwebParameters.class, params));
+			fragmentCache.put(FRAGMENT_SETTINGS, version, fragment);
+		}
+		return fragment;
+	}
+
+	/**
+	 * Get the recorded <code>x-app-context</code> fragment.
+	 * 
+	 * @param appCtxSupport
+	 *        the AppContextSupport
+	 * @param marshaller
+	 *        the Marshaller to record the fragment with, if not cached
+	 * @return the fragment
+	 * @throws JAXBException
+	 *         if a JAXB error occurs
+	 */
+	private SaxFragment getAppContextFragment(AppContextSupport appCtxSupport, Marshaller marshaller)
+			throws JAXBException {
+		Object version = Arrays.asList(appCtxSupport, getVersion(appCtxSupport));
+		SaxEventBuffer fragment = fragmentCache.get(FRAGMENT_APP_CONTEXT, version);
+		if ( fragment == null ) {
+			fragment = recordFragment(marshaller,
+					objectFactory.createXAppContext(appCtxSupport.getAppContext()));
+			fragmentCache.put(FRAGMENT_APP_CONTEXT, version, fragment);
+		}
+		return fragment;
+	}
+
+	/**
+	 * Get the cached fragment of a {@link VersionedModel}, recording it if
+	 * not cached or cached for a different version.
+	 * 
+	 * @param versioned
+	 *        the versioned model object
+	 * @param marshaller
+	 *        the Marshaller to record the fragment with, if not cached
+	 * @return the fragment
+	 * @throws JAXBException
+	 *         if a JAXB error occurs
+	 */
+	private SaxFragment getModelFragment(VersionedModel versioned, Marshaller marshaller)
+			throws JAXBException {
+		String key = versioned.getModelKey();
+		Long version = Long.valueOf(versioned.getVersion());
+		SaxEventBuffer fragment = modelFragmentCache.get(key, version);
+		if ( fragment == null ) {
+			fragment = recordFragment(marshaller, versioned.getModelObject());
+			modelFragmentCache.put(key, version, fragment);
+		}
+		return fragment;
+	}
+
+	/**
+	 * Get the cached <code>x-session</code> fragment of a session, recording
+	 * it if not cached or if the session's attributes have changed since it
+	 * was recorded.
+	 * 
+	 * @param sessionCache
+	 *        the session section cache
+	 * @param session
+	 *        the session
+	 * @param marshaller
+	 *        the Marshaller to record the fragment with, if not cached
+	 * @return the fragment
+	 * @throws JAXBException
+	 *         if a JAXB error occurs
+	 */
+	private SaxFragment getSessionFragment(SessionSectionCache sessionCache, HttpSession session,
+			Marshaller marshaller) throws JAXBException {
+		// views with different filters render different sections
+		String filter = Arrays.toString(sessionAttributeIncludes) + '|'
+				+ Arrays.toString(sessionAttributeExcludes);
+		String id = session.getId();
+		SaxEventBuffer fragment = sessionCache.get(id, filter);
+		if ( fragment == null ) {
+			long version = sessionCache.getVersion(id);
+			fragment = recordFragment(marshaller, new JAXBElement<XwebSession>(X_SESSION_QNAME,
+					XwebSession.class, createXwebSession(session)));
+			sessionCache.put(id, filter, version, fragment);
+		}
+		return fragment;
+	}
+
+	private SaxEventBuffer recordFragment(Marshaller marshaller, Object element)
+			throws JAXBException {
+		SaxEventBuffer buffer = new SaxEventBuffer();
+		marshaller.marshal(element, buffer);
+		buffer.trimToSize();
+		return buffer;
+	}
+
 	/**
 	 * Build the output Xweb view object.
 	 * 
@@ -353,36 +1813,96 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 	 */
 	protected Xweb buildXweb(Map<String, ?> model, String rootName, HttpServletRequest request)
 			throws Exception {
+		return buildXweb(model, rootName, request, null);
+	}
+
+	/**
+	 * Build the output Xweb view object, optionally leaving out the sections
+	 * that can be replayed from cached fragments.
+	 * 
+	 * @param model
+	 *        the model
+	 * @param rootName
+	 *        the root model name
+	 * @param request
+	 *        the current request
+	 * @param reader
+	 *        if not <em>null</em>, the reader to register cached fragments
+	 *        with
+	 * @return the Xweb
+	 * @throws Exception
+	 *         if an error occurs
+	 */
+	private Xweb buildXweb(Map<String, ?> model, String rootName, HttpServletRequest request,
+			XwebXmlReader reader) throws Exception {
 		// create Xweb data container now
 		Xweb xData = objectFactory.createXweb();
 
 		String modelKey = model.containsKey(XwebConstants.DEFALUT_MODEL_OBJECT) ? XwebConstants.DEFALUT_MODEL_OBJECT
 				: rootName;
 
-		processModelObject(xData, model, modelKey);
+		processModelObject(xData, model, modelKey, reader);
 
-		// add request context data
-		processContext(request, xData);
+		// add request context data (written with the settings via the reader if available)
+		if ( reader == null ) {
+			processContext(request, xData);
+		}
 
 		// insert non-model, non-message DOM objects as necessary
-		processNonModelObjects(xData, model, modelKey);
-
-		Locale locale = null;
-		try {
-			locale = RequestContextUtils.getLocale(request);
-		} catch ( IllegalStateException e ) {
-			logger.warn("Unable to get Locale from request, using default [" + Locale.getDefault() + "]");
-			locale = Locale.getDefault();
+		if ( isSectionIncluded(XwebConstants.SECTION_AUXILLARY) ) {
+			processNonModelObjects(xData, model, modelKey, reader);
 		}
 
+		Locale locale = getLocale(request);
+
 		processMessages(request, xData, model, rootName, modelKey, locale);
-		processErrors(request, xData, model, rootName, modelKey, locale);
+		if ( isSectionIncluded(XwebConstants.SECTION_ERRORS) ) {
+			processErrors(request, xData, model, rootName, modelKey, locale);
+		}
 
-		processSession(request, xData);
-		processRequestData(request, xData);
+		if ( isSectionIncluded(XwebConstants.SECTION_SESSION) ) {
+			HttpSession session = request.getSession(false);
+			SessionSectionCache sessionCache = (reader == null || session == null ? null
+					: SessionSectionCache.getInstance(request.getServletContext()));
+			if ( sessionCache != null ) {
+				reader.setSection(XwebConstants.SECTION_SESSION,
+						getSessionFragment(sessionCache, session, reader.getMarshaller()));
+			} else if ( reader != null && session != null && isSessionSectionWritable(session) ) {
+				reader.setSection(XwebConstants.SECTION_SESSION,
+						XwebSectionWriter.session(session.getId(), reader.getRootNamespaces()));
+			} else {
+				processSession(request, xData);
+			}
+		}
+		if ( reader != null ) {
+			if ( isSectionIncluded(XwebConstants.SECTION_REQUEST) ) {
+				reader.setSection(XwebConstants.SECTION_REQUEST,
+						XwebSectionWriter.requestParameters(request, reader.getRootNamespaces()));
+			}
+			if ( isSectionIncluded(XwebConstants.SECTION_REQUEST_HEADERS) ) {
+				reader.setSection(XwebConstants.SECTION_REQUEST_HEADERS,
+						XwebSectionWriter.requestHeaders(request, reader.getRootNamespaces()));
+			}
+		} else {
+			processRequestData(request, xData);
+		}
 
 		// add Settings values
-		if ( parameterDao != null ) {
+		if ( reader != null ) {
+			SaxFragment settings = null;
+			if ( parameterDao != null && includeSettings ) {
+				settings = getSettingsFragment(reader.getMarshaller());
+				if ( settings == null ) {
+					XwebParameters params = getAppSettings();
+					if ( params != null ) {
+						settings = XwebSectionWriter.parameters(SETTINGS_QNAME.getLocalPart(),
+								params.getParam(), reader.getRootNamespaces());
+					}
+				}
+			}
+			reader.setSection(XwebConstants.SECTION_CONTEXT,
+					XwebSectionWriter.context(request, settings, reader.getRootNamespaces()));
+		} else if ( parameterDao != null && includeSettings ) {
 			XwebParameters params = getAppSettings();
 			xData.getXContext().setSettings(params);
 		}
@@ -393,12 +1913,12 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 		 * request); } } // postProcessXweb(model, rootName, request, xData);
 		 */
 
-		if ( !debugMessageResource ) {
+		if ( !debugMessageResource && reader == null ) {
 			debugXweb(xData);
 		}
 
 		// add add AppContext if available
-		if ( webHelper != null ) {
+		if ( webHelper != null && isSectionIncluded(XwebConstants.SECTION_AUXILLARY) ) {
 			AppContextSupport appCtxSupport = webHelper.getAppContextSupport(request);
 			if ( appCtxSupport != null ) {
 				XwebAuxillary xAux = xData.getXAuxillary();
@@ -406,14 +1926,26 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 					xAux = objectFactory.createXwebAuxillary();
 					xData.setXAuxillary(xAux);
 				}
-				xAux.getAny().add(appCtxSupport.getAppContext());
+				if ( reader != null ) {
+					reader.appendTo(XwebConstants.SECTION_AUXILLARY,
+							getAppContextFragment(appCtxSupport, reader.getMarshaller()));
+				} else {
+					xAux.getAny().add(objectFactory.createXAppContext(appCtxSupport.getAppContext()));
+				}
 			}
 		}
 
 		// set up message resources
-		processMessagesSource(xData, locale);
+		if ( !isSectionIncluded(XwebConstants.SECTION_MSG) ) {
+			log.trace("Stylesheet does not use x-msg");
+		} else if ( reader != null && messagesSource != null && includeMessages ) {
+			reader.setSection(XwebConstants.SECTION_MSG,
+					getMessagesFragment(locale, reader.getMarshaller()));
+		} else {
+			processMessagesSource(xData, locale);
+		}
 
-		if ( debugMessageResource ) {
+		if ( debugMessageResource && reader == null ) {
 			debugXweb(xData);
 		}
 
@@ -455,29 +1987,86 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 	 *         if an error occurs
 	 */
 	private void processSession(HttpServletRequest request, Xweb xData) {
-		if ( request.getSession(false) != null ) {
-			XwebSession xSession = objectFactory.createXwebSession();
-			xSession.setSessionId(request.getSession().getId());
-			xData.setXSession(xSession);
-			HttpSession session = request.getSession();
-			for ( @SuppressWarnings("rawtypes")
-			Enumeration enumeration = session.getAttributeNames(); enumeration.hasMoreElements(); ) {
-				String key = (String) enumeration.nextElement();
-				if ( key == null )
-					continue;
-				Object val = session.getAttribute(key);
-				if ( val == null )
-					continue;
-				if ( val.getClass().getName().startsWith(jaxbContext) ) {
-					xSession.getAny().add(val);
-				} else {
-					XwebParameter xParam = objectFactory.createXwebParameter();
-					xParam.setKey(key);
-					xParam.setValue(val.toString());
-					xSession.getAny().add(xParam);
-				}
+		HttpSession session = request.getSession(false);
+		if ( session != null ) {
+			xData.setXSession(createXwebSession(session));
+		}
+	}
+
+	/**
+	 * Create an XwebSession from the session attributes allowed by the
+	 * <code>sessionAttributeIncludes</code> and
+	 * <code>sessionAttributeExcludes</code> patterns.
+	 * 
+	 * @param session
+	 *        the session
+	 * @return the XwebSession
+	 */
+	private XwebSession createXwebSession(HttpSession session) {
+		XwebSession xSession = objectFactory.createXwebSession();
+		xSession.setSessionId(session.getId());
+		for ( @SuppressWarnings("rawtypes")
+		Enumeration enumeration = session.getAttributeNames(); enumeration.hasMoreElements(); ) {
+			String key = (String) enumeration.nextElement();
+			if ( key == null || !isSessionAttributeIncluded(key) )
+				continue;
+			Object val = session.getAttribute(key);
+			if ( val == null )
+				continue;
+			if ( val.getClass().getName().startsWith(jaxbContext) ) {
+				xSession.getAny().add(val);
+			} else {
+				XwebParameter xParam = objectFactory.createXwebParameter();
+				xParam.setKey(key);
+				xParam.setValue(val.toString());
+				xSession.getAny().add(xParam);
+			}
+		}
+		return xSession;
+	}
+
+	private boolean isSessionAttributeIncluded(String name) {
+		if ( sessionAttributeIncludes != null
+				&& !PatternMatchUtils.simpleMatch(sessionAttributeIncludes, name) ) {
+			return false;
+		}
+		return (sessionAttributeExcludes == null || !PatternMatchUtils.simpleMatch(
+				sessionAttributeExcludes, name));
+	}
+
+	/**
+	 * Test if the x-session section can be written by
+	 * {@link XwebSectionWriter}, i.e. JAXB would render it without any
+	 * content.
+	 * 
+	 * <p>
+	 * Attributes that are not JAXB objects are added to the section by
+	 * {@link #processSession(HttpServletRequest, Xweb)} as
+	 * <code>XwebParameter</code> objects, which JAXB cannot marshal as
+	 * elements, so they are left out if <code>ignoreMarshallErrors</code> is
+	 * enabled.
+	 * </p>
+	 * 
+	 * @param session
+	 *        the session
+	 * @return <em>true</em> if the section has no content
+	 */
+	private boolean isSessionSectionWritable(HttpSession session) {
+		for ( @SuppressWarnings("rawtypes")
+		Enumeration enumeration = session.getAttributeNames(); enumeration.hasMoreElements(); ) {
+			String key = (String) enumeration.nextElement();
+			if ( key == null || !isSessionAttributeIncluded(key) ) {
+				continue;
+			}
+			Object val = session.getAttribute(key);
+			if ( val == null ) {
+				continue;
+			}
+			if ( !ignoreMarshallErrors || val.getClass().getName().startsWith(jaxbContext) ) {
+				return false;
 			}
 		}
+		return true;
 	}
 
 	/**
@@ -489,11 +2078,14 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 	 *        the model
 	 * @param modelKey
 	 *        the model key
+	 * @param reader
+	 *        if not <em>null</em>, the reader to register cached
+	 *        {@link VersionedModel} fragments with
 	 * @throws JAXBException
 	 *         if an error occurs
 	 */
-	private void processNonModelObjects(Xweb xData, Map<String, ?> model, String modelKey)
-			throws JAXBException {
+	private void processNonModelObjects(Xweb xData, Map<String, ?> model, String modelKey,
+			XwebXmlReader reader) throws JAXBException {
 		if ( model.size() > 2 ) {
 			XwebAuxillary xAux = objectFactory.createXwebAuxillary();
 			xData.setXAuxillary(xAux);
@@ -511,7 +2103,15 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 					continue;
 				}
 
-				if ( auxObj.getClass().getName().startsWith(jaxbContext) ) {
+				if ( auxObj instanceof VersionedModel ) {
+					VersionedModel versioned = (VersionedModel) auxObj;
+					if ( reader != null ) {
+						reader.appendTo(XwebConstants.SECTION_AUXILLARY,
+								getModelFragment(versioned, reader.getMarshaller()));
+					} else {
+						xAux.getAny().add(versioned.getModelObject());
+					}
+				} else if ( auxObj.getClass().getName().startsWith(jaxbContext) ) {
 					// if it's a domain object, simply add that so it will
 					// render to XML
 					xAux.getAny().add(auxObj);
@@ -529,6 +2129,12 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 	/**
 	 * Process the request and add request data to the Xweb.
 	 * 
+	 * <p>
+	 * When <code>cacheXDataFragments</code> is enabled the request data is
+	 * instead written directly by {@link XwebSectionWriter}, and this method
+	 * is not called unless overridden.
+	 * </p>
+	 * 
 	 * @param request
 	 *        the current request
 	 * @param xData
@@ -536,8 +2142,17 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 	 * @throws JAXBException
 	 *         if a JAXB error occurs
 	 */
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	protected void processRequestData(HttpServletRequest request, Xweb xData) throws JAXBException {
+		if ( isSectionIncluded(XwebConstants.SECTION_REQUEST) ) {
+			processRequestParameters(request, xData);
+		}
+		if ( isSectionIncluded(XwebConstants.SECTION_REQUEST_HEADERS) ) {
+			processRequestHeaders(request, xData);
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private void processRequestParameters(HttpServletRequest request, Xweb xData) {
 		// set up request (required)
 		XwebParameters xRequest = objectFactory.createXwebParameters();
 		xData.setXRequest(xRequest);
@@ -555,7 +2170,10 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 				xParam.setValue(paramVals[i]);
 			}
 		}
+	}
 
+	@SuppressWarnings("unchecked")
+	private void processRequestHeaders(HttpServletRequest request, Xweb xData) {
 		// set up request headers (required)
 		XwebParameters xRequestHeaders = objectFactory.createXwebParameters();
 		xData.setXRequestHeaders(xRequestHeaders);
@@ -710,7 +2328,9 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 			return;
 		}
 		Errors errors = ctx.getErrors(modelKey);
-		if ( webHelper.getSavedMessage(request) != null || (errors != null && errors.hasErrors())
+		MessageSourceResolvable savedMessage = (webHelper == null ? null : webHelper
+				.getSavedMessage(request));
+		if ( savedMessage != null || (errors != null && errors.hasErrors())
 				|| ctx.getErrors(rootName) != null ) {
 			MessageSourceAccessor msgs = getMessageSourceAccessor();
 			XwebErrors xErrors = objectFactory.createXwebErrors();
@@ -730,8 +2350,8 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 				}
 			}
 
-			if ( webHelper.getSavedMessage(request) != null ) {
-				handleMessage(xErrors, locale, msgs, webHelper.getSavedMessage(request));
+			if ( savedMessage != null ) {
+				handleMessage(xErrors, locale, msgs, savedMessage);
 				webHelper.clearSavedMessage(request);
 			}
 
@@ -754,12 +2374,32 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 	 * @throws JAXBException
 	 *         if a JAXB error occurs
 	 */
-	private void processModelObject(Xweb xData, Map<String, ?> model, String modelKey) {
+	private void processModelObject(Xweb xData, Map<String, ?> model, String modelKey,
+			XwebXmlReader reader) throws JAXBException {
 		Object o = model.get(modelKey);
 		if ( o != null ) {
 			if ( o instanceof JAXBElement<?> ) {
 				XwebModel webModel = this.objectFactory.createXwebModel();
-				webModel.setAny(o);
+				if ( reader != null && isSaxWritable((JAXBElement<?>) o) ) {
+					reader.appendTo(XwebConstants.SECTION_MODEL, new SaxWriterModelFragment(
+							(JAXBElement<?>) o, reader));
+				} else {
+					webModel.setAny(o);
+				}
+				xData.setXModel(webModel);
+			} else if ( o instanceof StreamingModel ) {
+				XwebModel webModel = this.objectFactory.createXwebModel();
+				if ( reader != null ) {
+					reader.appendTo(XwebConstants.SECTION_MODEL, new StreamingModelFragment(
+							(StreamingModel) o));
+				} else {
+					Marshaller marshaller = getMarshaller();
+					try {
+						webModel.setAny(((StreamingModel) o).toElement(marshaller));
+					} finally {
+						releaseMarshaller(marshaller);
+					}
+				}
 				xData.setXModel(webModel);
 			} else if ( logger.isDebugEnabled() ) {
 				logger.debug("Model object class '" + o.getClass().getName() + "' not in JAXB context '"
@@ -778,6 +2418,83 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 		}
 	}
 
+	private boolean isSaxWritable(JAXBElement<?> element) {
+		JaxbSaxWriters writers = saxWriters;
+		if ( writers == null || element.isNil() ) {
+			return false;
+		}
+		Class<?> type = element.getValue().getClass();
+		return (type == element.getDeclaredType() && writers.canWrite(type));
+	}
+
+	/**
+	 * SaxFragment that writes a model JAXBElement with the generated
+	 * {@link JaxbSaxWriter} for its class, using the prefixes JAXB declared on
+	 * the x-data element. Nested objects the writers do not support are
+	 * marshalled with a Marshaller of its own, as the reader's Marshaller is
+	 * busy marshalling the x-data around it.
+	 */
+	private final class SaxWriterModelFragment implements SaxFragment {
+
+		private final JAXBElement<?> element;
+		private final XwebXmlReader reader;
+
+		private SaxWriterModelFragment(JAXBElement<?> element, XwebXmlReader reader) {
+			this.element = element;
+			this.reader = reader;
+		}
+
+		@Override
+		public void writeTo(ContentHandler handler) throws SAXException {
+			Marshaller marshaller;
+			try {
+				marshaller = getMarshaller();
+			} catch ( JAXBException e ) {
+				throw new SAXException(e);
+			}
+			try {
+				JaxbSaxOutput out = new JaxbSaxOutput(handler, saxWriters, marshaller);
+				for ( Map.Entry<String, String> me : reader.getRootNamespaces().entrySet() ) {
+					out.declareInScope(me.getKey(), me.getValue());
+				}
+				saxWriters.write(element.getValue(), element.getName().getNamespaceURI(), element
+						.getName().getLocalPart(), out);
+			} finally {
+				releaseMarshaller(marshaller);
+			}
+		}
+
+	}
+
+	/**
+	 * SaxFragment that writes a StreamingModel with its own Marshaller, as
+	 * the reader's Marshaller is busy marshalling the x-data around it.
+	 */
+	private final class StreamingModelFragment implements SaxFragment {
+
+		private final StreamingModel model;
+
+		private StreamingModelFragment(StreamingModel model) {
+			this.model = model;
+		}
+
+		@Override
+		public void writeTo(ContentHandler handler) throws SAXException {
+			Marshaller marshaller;
+			try {
+				marshaller = getMarshaller();
+			} catch ( JAXBException e ) {
+				throw new SAXException(e);
+			}
+			try {
+				model.writeTo(handler, marshaller);
+			} finally {
+				releaseMarshaller(marshaller);
+			}
+		}
+
+	}
+
 	/**
 	 * Log a debug log statement of the serialized version of an Xweb instance
 	 * to the class logger.
@@ -787,11 +2504,38 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 	 */
 	private void debugXweb(Xweb xData) {
 		if ( logger.isDebugEnabled() ) {
+			Marshaller marshaller = null;
 			try {
-				debugSource(new JAXBSource(getMarshaller(), objectFactory.createXData(xData)),
+				marshaller = getMarshaller();
+				debugSource(new JAXBSource(marshaller, objectFactory.createXData(xData)),
 						"---- START DOM -----\n", "----- END DOM ------\n", logger);
 			} catch ( Exception e ) {
 				logger.warn("Unable to debug Xweb", e);
+			} finally {
+				releaseMarshaller(marshaller);
+			}
+		}
+	}
+
+	/**
+	 * Log a debug log statement of the x-data produced by a reader, including
+	 * any cached fragments, to the class logger.
+	 * 
+	 * @param reader
+	 *        the reader to serialize to the logger
+	 */
+	private void debugXData(XwebXmlReader reader) {
+		if ( logger.isDebugEnabled() ) {
+			// leave out any appended model, as a StreamingModel may only be rendered once
+			XwebXmlReader debugReader = reader.excludingAppended(XwebConstants.SECTION_MODEL);
+			if ( !debugMessageResource ) {
+				debugReader = debugReader.excluding(XwebConstants.SECTION_MSG);
+			}
+			try {
+				debugSource(debugReader.toSource(), "---- START DOM -----\n",
+						"----- END DOM ------\n", logger);
+			} catch ( Exception e ) {
+				logger.warn("Unable to debug Xweb", e);
 			}
 		}
 	}
@@ -850,6 +2594,7 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 
 	public void setJaxbContext(String jaxbContext) {
 		this.jaxbContext = jaxbContext;
+		this.marshallerPool = null;
 	}
 
 	public boolean isDebugMessageResource() {
@@ -866,6 +2611,7 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 
 	public void setMarshallerProperties(Map<String, Object> marshallerProperties) {
 		this.marshallerProperties = marshallerProperties;
+		this.marshallerPool = null;
 	}
 
 	public MessagesSource getMessagesSource() {
@@ -886,6 +2632,7 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 
 	public void setIgnoreMarshallErrors(boolean ignoreMarshallErrors) {
 		this.ignoreMarshallErrors = ignoreMarshallErrors;
+		this.marshallerPool = null;
 	}
 
 	public XwebParamDao getParameterDao() {
@@ -920,6 +2667,14 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 		this.includeMessages = includeMessages;
 	}
 
+	public boolean isIncludeSettings() {
+		return includeSettings;
+	}
+
+	public void setIncludeSettings(boolean includeSettings) {
+		this.includeSettings = includeSettings;
+	}
+
 	public boolean isEnableXmlSourceResponse() {
 		return enableXmlSourceResponse;
 	}
@@ -928,6 +2683,14 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 		this.enableXmlSourceResponse = enableXmlSourceResponse;
 	}
 
+	public boolean isIndentXmlSource() {
+		return indentXmlSource;
+	}
+
+	public void setIndentXmlSource(boolean indentXmlSource) {
+		this.indentXmlSource = indentXmlSource;
+	}
+
 	public ObjectFactory getObjectFactory() {
 		return objectFactory;
 	}
@@ -948,4 +2711,230 @@ public class XwebJaxbXsltView extends XsltView implements InitializingBean {
 		this.useAbsolutePaths = useAbsolutePaths;
 	}
 
+	public boolean isPoolMarshallers() {
+		return poolMarshallers;
+	}
+
+	public void setPoolMarshallers(boolean poolMarshallers) {
+		this.poolMarshallers = poolMarshallers;
+	}
+
+	public boolean isPoolTransformers() {
+		return poolTransformers;
+	}
+
+	public void setPoolTransformers(boolean poolTransformers) {
+		this.poolTransformers = poolTransformers;
+	}
+
+	public int getTransformerPoolSize() {
+		return transformerPoolSize;
+	}
+
+	public void setTransformerPoolSize(int transformerPoolSize) {
+		this.transformerPoolSize = transformerPoolSize;
+	}
+
+	public boolean isCacheXDataFragments() {
+		return cacheXDataFragments;
+	}
+
+	public void setCacheXDataFragments(boolean cacheXDataFragments) {
+		this.cacheXDataFragments = cacheXDataFragments;
+	}
+
+	public SaxFragmentCache getFragmentCache() {
+		return fragmentCache;
+	}
+
+	public void setFragmentCache(SaxFragmentCache fragmentCache) {
+		this.fragmentCache = fragmentCache;
+	}
+
+	public SaxFragmentCache getModelFragmentCache() {
+		return modelFragmentCache;
+	}
+
+	public void setModelFragmentCache(SaxFragmentCache modelFragmentCache) {
+		this.modelFragmentCache = modelFragmentCache;
+	}
+
+	public String[] getSessionAttributeIncludes() {
+		return sessionAttributeIncludes;
+	}
+
+	public void setSessionAttributeIncludes(String[] sessionAttributeIncludes) {
+		this.sessionAttributeIncludes = sessionAttributeIncludes;
+	}
+
+	public String[] getSessionAttributeExcludes() {
+		return sessionAttributeExcludes;
+	}
+
+	public void setSessionAttributeExcludes(String[] sessionAttributeExcludes) {
+		this.sessionAttributeExcludes = sessionAttributeExcludes;
+	}
+
+	public boolean isPruneXDataSections() {
+		return pruneXDataSections;
+	}
+
+	public void setPruneXDataSections(boolean pruneXDataSections) {
+		this.pruneXDataSections = pruneXDataSections;
+	}
+
+	/**
+	 * Get the x-data sections left out of the rendered x-data because the
+	 * stylesheet does not reference them.
+	 * 
+	 * @return the pruned section names, never <em>null</em>
+	 */
+	public Set<String> getPrunedSections() {
+		return prunedSections;
+	}
+
+	public Locale getTemplatesLocale() {
+		return templatesLocale;
+	}
+
+	public void setTemplatesLocale(Locale templatesLocale) {
+		this.templatesLocale = templatesLocale;
+	}
+
+	public PageCache getPageCache() {
+		return pageCache;
+	}
+
+	public void setPageCache(PageCache pageCache) {
+		this.pageCache = pageCache;
+	}
+
+	public String[] getPageCacheParameters() {
+		return pageCacheParameters;
+	}
+
+	public void setPageCacheParameters(String[] pageCacheParameters) {
+		this.pageCacheParameters = pageCacheParameters;
+	}
+
+	public TemplateFragmentCache getTemplateFragmentCache() {
+		return templateFragmentCache;
+	}
+
+	public void setTemplateFragmentCache(TemplateFragmentCache templateFragmentCache) {
+		this.templateFragmentCache = templateFragmentCache;
+	}
+
+	public boolean isConditionalGet() {
+		return conditionalGet;
+	}
+
+	public void setConditionalGet(boolean conditionalGet) {
+		this.conditionalGet = conditionalGet;
+	}
+
+	public boolean isCompressOutput() {
+		return compressOutput;
+	}
+
+	public void setCompressOutput(boolean compressOutput) {
+		this.compressOutput = compressOutput;
+	}
+
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	public void setCompressionLevel(int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+
+	public int getCompressionThreshold() {
+		return compressionThreshold;
+	}
+
+	public void setCompressionThreshold(int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+
+	public boolean isAsyncRendering() {
+		return asyncRendering;
+	}
+
+	public void setAsyncRendering(boolean asyncRendering) {
+		this.asyncRendering = asyncRendering;
+	}
+
+	public Executor getRenderExecutor() {
+		return renderExecutor;
+	}
+
+	public void setRenderExecutor(Executor renderExecutor) {
+		this.renderExecutor = renderExecutor;
+	}
+
+	public long getAsyncTimeout() {
+		return asyncTimeout;
+	}
+
+	public void setAsyncTimeout(long asyncTimeout) {
+		this.asyncTimeout = asyncTimeout;
+	}
+
+	public RenderLimiter getRenderLimiter() {
+		return renderLimiter;
+	}
+
+	public void setRenderLimiter(RenderLimiter renderLimiter) {
+		this.renderLimiter = renderLimiter;
+	}
+
+	public TransletLoader getTransletLoader() {
+		return transletLoader;
+	}
+
+	public void setTransletLoader(TransletLoader transletLoader) {
+		this.transletLoader = transletLoader;
+	}
+
+	public int getProgressiveFlushSize() {
+		return progressiveFlushSize;
+	}
+
+	public void setProgressiveFlushSize(int progressiveFlushSize) {
+		this.progressiveFlushSize = progressiveFlushSize;
+	}
+
+	public String getProgressiveFlushMarker() {
+		return progressiveFlushMarker;
+	}
+
+	public void setProgressiveFlushMarker(String progressiveFlushMarker) {
+		this.progressiveFlushMarker = progressiveFlushMarker;
+	}
+
+	public long getProgressiveFlushInterval() {
+		return progressiveFlushInterval;
+	}
+
+	public void setProgressiveFlushInterval(long progressiveFlushInterval) {
+		this.progressiveFlushInterval = progressiveFlushInterval;
+	}
+
+	public boolean isUseGeneratedSaxWriters() {
+		return useGeneratedSaxWriters;
+	}
+
+	public void setUseGeneratedSaxWriters(boolean useGeneratedSaxWriters) {
+		this.useGeneratedSaxWriters = useGeneratedSaxWriters;
+	}
+
+	public XsltEngine getXsltEngine() {
+		return xsltEngine;
+	}
+
+	public void setXsltEngine(XsltEngine xsltEngine) {
+		this.xsltEngine = xsltEngine;
+	}
+
 }
@@ -26,13 +26,39 @@
 
 package magoffin.matt.xweb.util;
 
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import javax.xml.transform.URIResolver;
 import net.sf.ehcache.Ehcache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.core.Ordered;
+import org.springframework.util.PatternMatchUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.View;
 import org.springframework.web.servlet.view.AbstractUrlBasedView;
 import org.springframework.web.servlet.view.xslt.XsltViewResolver;
@@ -77,12 +103,225 @@ import org.springframework.web.servlet.view.xslt.XsltViewResolver;
  * <dd>If <em>true</em> then absolute file paths are assumed for the URLs
  * configured by this resolver. This supports running outside of a web-based
  * application context. Defaults to <em>false</em>.</dd>
+ * 
+ * <dt>poolMarshallers</dt>
+ * <dd>If <em>true</em> then views borrow pre-configured JAXB Marshaller
+ * instances from a shared {@link MarshallerPool} rather than creating and
+ * configuring a new Marshaller for each render. Defaults to <em>true</em>.</dd>
+ * 
+ * <dt>poolTransformers</dt>
+ * <dd>If <em>true</em> and <code>cacheTemplates</code> is also <em>true</em>
+ * then views re-use Transformer instances via a {@link TransformerPool} for
+ * their compiled stylesheet. Defaults to <em>true</em>.</dd>
+ * 
+ * <dt>transformerPoolSize</dt>
+ * <dd>The maximum number of idle Transformer instances each view keeps when
+ * <code>poolTransformers</code> is enabled. Defaults to
+ * {@link TransformerPool#DEFAULT_MAX_IDLE}.</dd>
+ * 
+ * <dt>cacheXDataFragments</dt>
+ * <dd>If <em>true</em> then views replay the <code>x-msg</code>,
+ * <code>x-context/settings</code>, and app context sections of the x-data
+ * document from pre-recorded SAX fragments held in a
+ * {@link SaxFragmentCache} shared by all views of this resolver. Defaults to
+ * <em>true</em>.</dd>
+ * 
+ * <dt>modelFragmentCacheMaxEntries</dt>
+ * <dd>The maximum number of {@link VersionedModel} fragments to keep in the
+ * cache shared by all views of this resolver, when
+ * <code>cacheXDataFragments</code> is enabled. Defaults to
+ * {@link XwebJaxbXsltView#DEFAULT_MODEL_FRAGMENT_CACHE_SIZE}.</dd>
+ * 
+ * <dt>parameterDao</dt>
+ * <dd>An optional {@link XwebParamDao} to populate the
+ * <code>x-context/settings</code> section from.</dd>
+ * 
+ * <dt>pruneXDataSections</dt>
+ * <dd>If <em>true</em> and <code>cacheTemplates</code> is also <em>true</em>
+ * then each view's stylesheet is analyzed when the view is compiled, and
+ * optional x-data sections the stylesheet does not reference are not built.
+ * The sections pruned for each view are available via
+ * {@link #getPrunedSections()}. Defaults to <em>false</em>.</dd>
+ * 
+ * <dt>includeMessages</dt>
+ * <dd>If <em>false</em> then views do not add the <code>x-msg</code>
+ * section; stylesheets look up messages with the {@link XwebXsltFunctions}
+ * extension functions instead. Defaults to <em>true</em>.</dd>
+ * 
+ * <dt>includeSettings</dt>
+ * <dd>If <em>false</em> then views do not add the
+ * <code>x-context/settings</code> section; stylesheets look up settings with
+ * the {@link XwebXsltFunctions} extension functions instead. Defaults to
+ * <em>true</em>.</dd>
+ * 
+ * <dt>enableXmlSourceResponse</dt>
+ * <dd>If <em>false</em> then views do not return the raw x-data XML for
+ * requests with an <code>xml=true</code> parameter. Defaults to
+ * <em>true</em>.</dd>
+ * 
+ * <dt>indentXmlSource</dt>
+ * <dd>If <em>true</em> then views indent the raw x-data XML returned for
+ * <code>xml=true</code> requests. Defaults to <em>false</em>.</dd>
+ * 
+ * <dt>localizeTemplates</dt>
+ * <dd>If <em>true</em> and <code>cacheTemplates</code> is also <em>true</em>
+ * then views are cached per view name <em>and</em> locale, and each view
+ * compiles its stylesheet with literal message lookups replaced by the
+ * messages for its locale (see the <code>templatesLocale</code> property of
+ * {@link XwebJaxbXsltView}). Defaults to <em>false</em>.</dd>
+ * 
+ * <dt>pageCacheViews</dt>
+ * <dd>A Map of view names to comma-delimited lists of request parameter names
+ * (which may be empty). The fully rendered output of the named views is
+ * cached in a {@link PageCache} shared by all views of this resolver, keyed
+ * by view, locale, the values of the listed parameters, and the model version
+ * (see {@link XwebConstants#PAGE_VERSION_OBJECT}). See the
+ * <code>pageCache</code> property of {@link XwebJaxbXsltView} for the
+ * caveats. Defaults to <em>null</em>.</dd>
+ * 
+ * <dt>pageCacheMaxEntries</dt>
+ * <dd>The maximum number of pages to cache. Defaults to
+ * {@link PageCache#DEFAULT_MAX_ENTRIES}.</dd>
+ * 
+ * <dt>pageCacheTimeToLive</dt>
+ * <dd>The number of seconds to cache pages for. Defaults to
+ * {@link PageCache#DEFAULT_TIME_TO_LIVE}.</dd>
+ * 
+ * <dt>pageCacheStaleTimeToLive</dt>
+ * <dd>The number of seconds after a page expires that the expired page may
+ * still be served while another request renders it again. Defaults to
+ * <em>0</em>.</dd>
+ * 
+ * <dt>pageCacheRenderTimeout</dt>
+ * <dd>The maximum number of seconds a request waits for another request to
+ * render a page, before rendering the page itself. Defaults to
+ * {@link PageCache#DEFAULT_RENDER_TIMEOUT}.</dd>
+ * 
+ * <dt>templateFragmentCacheMaxEntries</dt>
+ * <dd>The maximum number of output fragments stylesheets may cache via the
+ * {@link XwebXsltFunctions#cache(String, int, org.w3c.dom.NodeList)}
+ * function, in a {@link TemplateFragmentCache} shared by all views of this
+ * resolver. Fragment keys must therefore be unique across all stylesheets.
+ * Defaults to {@link TemplateFragmentCache#DEFAULT_MAX_ENTRIES}.</dd>
+ * 
+ * <dt>cacheUriResolution</dt>
+ * <dd>If <em>true</em> then views resolve stylesheet imports and includes,
+ * and <code>document()</code> lookups, via a {@link CachingURIResolver}
+ * shared by all views of this resolver, so shared stylesheets and documents
+ * are only parsed once. Any configured <code>uriResolver</code> is used as
+ * its delegate. Defaults to <em>false</em>.</dd>
+ * 
+ * <dt>uriCacheMaxEntries</dt>
+ * <dd>The maximum number of documents to cache when
+ * <code>cacheUriResolution</code> is enabled. Defaults to
+ * {@link CachingURIResolver#DEFAULT_MAX_ENTRIES}.</dd>
+ * 
+ * <dt>uriCacheCheckInterval</dt>
+ * <dd>The minimum number of milliseconds between modification checks of
+ * cached documents when <code>cacheUriResolution</code> is enabled. Defaults
+ * to {@link CachingURIResolver#DEFAULT_CHECK_INTERVAL}.</dd>
+ * 
+ * <dt>conditionalGet</dt>
+ * <dd>If <em>true</em> then views answer conditional <code>GET</code>
+ * requests with <code>304 Not Modified</code> when the model provides a
+ * {@link XwebConstants#PAGE_VERSION_OBJECT}, without rendering. See the
+ * <code>conditionalGet</code> property of {@link XwebJaxbXsltView}. Defaults
+ * to <em>false</em>.</dd>
+ * 
+ * <dt>compressOutput</dt>
+ * <dd>If <em>true</em> then views compress their output when the client
+ * accepts <code>gzip</code> or <code>deflate</code> encoding. Defaults to
+ * <em>false</em>.</dd>
+ * 
+ * <dt>compressionLevel</dt>
+ * <dd>The default compression level for views. Defaults to
+ * <code>Deflater.DEFAULT_COMPRESSION</code>.</dd>
+ * 
+ * <dt>compressionThreshold</dt>
+ * <dd>The default minimum output size to compress for views. Defaults to
+ * {@link XwebJaxbXsltView#DEFAULT_COMPRESSION_THRESHOLD}.</dd>
+ * 
+ * <dt>viewCompression</dt>
+ * <dd>An optional Map of view names to per-view compression settings, in the
+ * form <code>level[,threshold]</code>. A level of <code>0</code> turns off
+ * compression for that view.</dd>
+ * 
+ * <dt>asyncRendering</dt>
+ * <dd>If <em>true</em> then views render on the <code>renderExecutor</code>
+ * using Servlet 3.0 asynchronous requests, freeing container threads during
+ * the transform. See the <code>asyncRendering</code> property of
+ * {@link XwebJaxbXsltView}. Defaults to <em>false</em>.</dd>
+ * 
+ * <dt>renderExecutor</dt>
+ * <dd>The Executor to render with when <code>asyncRendering</code> is
+ * enabled. If not configured, a bounded ThreadPoolExecutor is created with
+ * <code>asyncThreads</code> threads and a queue of
+ * <code>asyncQueueSize</code>, and shut down when this resolver is
+ * destroyed.</dd>
+ * 
+ * <dt>asyncThreads</dt>
+ * <dd>The number of render threads to create, if no
+ * <code>renderExecutor</code> is configured. Defaults to the number of
+ * available processors.</dd>
+ * 
+ * <dt>asyncQueueSize</dt>
+ * <dd>The maximum number of renders to queue, if no
+ * <code>renderExecutor</code> is configured. Renders beyond that are done on
+ * the container thread. Defaults to <em>100</em>.</dd>
+ * 
+ * <dt>asyncTimeout</dt>
+ * <dd>The asynchronous request timeout, in milliseconds. Defaults to
+ * {@link XwebJaxbXsltView#DEFAULT_ASYNC_TIMEOUT}.</dd>
+ * 
+ * <dt>renderLimiters</dt>
+ * <dd>An optional Map of view name patterns (as supported by
+ * <code>PatternMatchUtils.simpleMatch()</code>, e.g. <code>report*</code>)
+ * to {@link RenderLimiter} instances that limit concurrent renders of the
+ * matching views. Views use the limiter of the first matching pattern, so
+ * all views matching a pattern share its limit. Each limiter's counters
+ * report its queue depth and rejections.</dd>
+ * 
+ * <dt>transletLoader</dt>
+ * <dd>An optional {@link TransletLoader} for views to load precompiled
+ * translets from. See {@link XwebJaxbXsltView}.</dd>
+ * 
+ * <dt>xsltEngine</dt>
+ * <dd>The {@link XsltEngine} for views to compile and run their stylesheets
+ * with, for example {@link SaxonXsltEngine}. Defaults to the JAXP default
+ * TransformerFactory.</dd>
+ * 
+ * <dt>progressiveFlushSize, progressiveFlushMarker,
+ * progressiveFlushInterval</dt>
+ * <dd>The progressive flush policy for views, to flush the start of pages to
+ * clients early. See {@link XwebJaxbXsltView}. Disabled by default.</dd>
+ * 
+ * <dt>useGeneratedSaxWriters</dt>
+ * <dd>If <em>true</em> then views write model objects with the
+ * {@link JaxbSaxWriter} classes generated for their packages, when
+ * available. See {@link XwebJaxbXsltView}. Defaults to <em>true</em>.</dd>
+ * 
+ * <dt>warmUp</dt>
+ * <dd>If <em>true</em> then once the application context is refreshed every
+ * stylesheet found under <code>prefix</code> (with the <code>suffix</code>
+ * extension) is resolved as a view in the background, compiling the
+ * stylesheets in parallel on <code>warmUpThreads</code> threads and priming
+ * each view's cached data via {@link XwebJaxbXsltView#warmUp(Locale)}. The
+ * views are then added to the view cache. {@link #isReady()} returns
+ * <em>false</em> until the warm-up finishes. Defaults to <em>false</em>.</dd>
+ * 
+ * <dt>warmUpThreads</dt>
+ * <dd>The number of threads to warm up views with. Defaults to the number of
+ * available processors.</dd>
+ * 
+ * <dt>warmUpLocales</dt>
+ * <dd>The locales to warm up views for. Defaults to the default locale.</dd>
  * </dl>
  * 
  * @author matt
  * @version $Revision$ $Date$
  */
-public class XwebJaxbXsltViewResolver extends XsltViewResolver implements Ordered {
+public class XwebJaxbXsltViewResolver extends XsltViewResolver implements Ordered,
+		DisposableBean, ApplicationListener<ContextRefreshedEvent> {
 
 	private String jaxbContext;
 	private Map<String, Object> marshallerProperties = new HashMap<String, Object>();
@@ -90,6 +329,52 @@ public class XwebJaxbXsltViewResolver extends XsltViewResolver implements Ordere
 	private boolean ignoreMarshallErrors = true;
 	private boolean useAbsolutePaths = false;
 	private boolean debugMessageResource = false;
+	private boolean poolMarshallers = true;
+	private boolean poolTransformers = true;
+	private int transformerPoolSize = TransformerPool.DEFAULT_MAX_IDLE;
+	private boolean cacheXDataFragments = true;
+	private XwebParamDao parameterDao = null;
+	private boolean pruneXDataSections = false;
+	private boolean includeMessages = true;
+	private boolean includeSettings = true;
+	private boolean enableXmlSourceResponse = true;
+	private boolean indentXmlSource = false;
+	private boolean localizeTemplates = false;
+	private Map<String, String> pageCacheViews = null;
+	private boolean cacheUriResolution = false;
+	private boolean conditionalGet = false;
+	private boolean compressOutput = false;
+	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+	private int compressionThreshold = XwebJaxbXsltView.DEFAULT_COMPRESSION_THRESHOLD;
+	private Map<String, String> viewCompression = null;
+	private boolean asyncRendering = false;
+	private Executor renderExecutor = null;
+	private int asyncThreads = Runtime.getRuntime().availableProcessors();
+	private int asyncQueueSize = 100;
+	private long asyncTimeout = XwebJaxbXsltView.DEFAULT_ASYNC_TIMEOUT;
+	private ThreadPoolExecutor defaultRenderExecutor = null;
+	private Map<String, RenderLimiter> renderLimiters = null;
+	private TransletLoader transletLoader = null;
+	private XsltEngine xsltEngine = null;
+	private int progressiveFlushSize = 0;
+	private String progressiveFlushMarker = null;
+	private long progressiveFlushInterval = 0;
+	private boolean useGeneratedSaxWriters = true;
+	private boolean warmUp = false;
+	private int warmUpThreads = Runtime.getRuntime().availableProcessors();
+	private Locale[] warmUpLocales = null;
+
+	private final SaxFragmentCache fragmentCache = new SaxFragmentCache();
+	private final SaxFragmentCache modelFragmentCache = new SaxFragmentCache(
+			XwebJaxbXsltView.DEFAULT_MODEL_FRAGMENT_CACHE_SIZE);
+	private final PageCache pageCache = new PageCache();
+	private final TemplateFragmentCache templateFragmentCache = new TemplateFragmentCache();
+	private final CachingURIResolver uriCache = new CachingURIResolver();
+	private final Map<String, Set<String>> prunedSections = new ConcurrentHashMap<String, Set<String>>();
+	private final Map<Object, View> warmedViews = new ConcurrentHashMap<Object, View>();
+	private volatile boolean ready = true;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
 
 	@Autowired
 	private MessagesSource messagesSource;
@@ -116,13 +401,86 @@ public class XwebJaxbXsltViewResolver extends XsltViewResolver implements Ordere
 		view.setIgnoreMarshallErrors(ignoreMarshallErrors);
 		view.setUseAbsolutePaths(useAbsolutePaths);
 		view.setDebugMessageResource(debugMessageResource);
+		view.setPoolMarshallers(poolMarshallers);
+		view.setPoolTransformers(poolTransformers);
+		view.setTransformerPoolSize(transformerPoolSize);
+		view.setCacheXDataFragments(cacheXDataFragments);
+		view.setFragmentCache(fragmentCache);
+		view.setModelFragmentCache(modelFragmentCache);
+		view.setTemplateFragmentCache(templateFragmentCache);
+		view.setParameterDao(parameterDao);
+		view.setPruneXDataSections(pruneXDataSections);
+		view.setIncludeMessages(includeMessages);
+		view.setIncludeSettings(includeSettings);
+		view.setEnableXmlSourceResponse(enableXmlSourceResponse);
+		view.setIndentXmlSource(indentXmlSource);
+		view.setConditionalGet(conditionalGet);
+		view.setCompressOutput(compressOutput);
+		view.setCompressionLevel(compressionLevel);
+		view.setCompressionThreshold(compressionThreshold);
+		view.setTransletLoader(transletLoader);
+		view.setXsltEngine(xsltEngine);
+		view.setProgressiveFlushSize(progressiveFlushSize);
+		view.setProgressiveFlushMarker(progressiveFlushMarker);
+		view.setProgressiveFlushInterval(progressiveFlushInterval);
+		view.setUseGeneratedSaxWriters(useGeneratedSaxWriters);
+		if ( cacheUriResolution ) {
+			view.setUriResolver(uriCache);
+		}
+		if ( asyncRendering ) {
+			view.setAsyncRendering(true);
+			view.setRenderExecutor(getRenderExecutor());
+			view.setAsyncTimeout(asyncTimeout);
+		}
+		if ( renderLimiters != null ) {
+			for ( Map.Entry<String, RenderLimiter> me : renderLimiters.entrySet() ) {
+				if ( PatternMatchUtils.simpleMatch(me.getKey(), viewName) ) {
+					view.setRenderLimiter(me.getValue());
+					break;
+				}
+			}
+		}
+		if ( viewCompression != null && viewCompression.containsKey(viewName) ) {
+			String[] settings = StringUtils.commaDelimitedListToStringArray(StringUtils
+					.trimAllWhitespace(viewCompression.get(viewName)));
+			int level = Integer.parseInt(settings[0]);
+			view.setCompressOutput(compressOutput && level != 0);
+			view.setCompressionLevel(level);
+			if ( settings.length > 1 ) {
+				view.setCompressionThreshold(Integer.parseInt(settings[1]));
+			}
+		}
+		if ( pageCacheViews != null && pageCacheViews.containsKey(viewName) ) {
+			view.setPageCache(pageCache);
+			view.setPageCacheParameters(StringUtils.commaDelimitedListToStringArray(StringUtils
+					.trimAllWhitespace(pageCacheViews.get(viewName))));
+		}
 		return view;
 	}
 
+	@Override
+	public void setUriResolver(URIResolver uriResolver) {
+		super.setUriResolver(uriResolver);
+		uriCache.setDelegate(uriResolver);
+	}
+
+	@Override
+	protected Object getCacheKey(String viewName, Locale locale) {
+		if ( localizeTemplates ) {
+			return viewName + "_" + locale;
+		}
+		return super.getCacheKey(viewName, locale);
+	}
+
 	@Override
 	protected View loadView(String viewName, Locale locale) throws Exception {
 		try {
-			return super.loadView(viewName, locale);
+			View view = (localizeTemplates ? loadLocalizedView(viewName, locale) : super.loadView(
+					viewName, locale));
+			if ( view instanceof XwebJaxbXsltView ) {
+				prunedSections.put(viewName, ((XwebJaxbXsltView) view).getPrunedSections());
+			}
+			return view;
 		} catch ( RuntimeException e ) {
 			Throwable root = e;
 			while ( root.getCause() != null ) {
@@ -136,6 +494,251 @@ public class XwebJaxbXsltViewResolver extends XsltViewResolver implements Ordere
 		}
 	}
 
+	@Override
+	protected View createView(String viewName, Locale locale) throws Exception {
+		View view = warmedViews.remove(getCacheKey(viewName, locale));
+		if ( view != null ) {
+			return view;
+		}
+		return super.createView(viewName, locale);
+	}
+
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		if ( !warmUp || event.getApplicationContext() != getApplicationContext() ) {
+			return;
+		}
+		Thread t = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					warmUpViews();
+				} catch ( InterruptedException e ) {
+					log.warn("View warm-up interrupted");
+				}
+			}
+
+		}, "XwebWarmUp");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/**
+	 * Test if the resolver is ready to serve requests without compiling
+	 * stylesheets, that is <code>warmUp</code> is not enabled or the warm-up
+	 * has finished.
+	 * 
+	 * @return <em>true</em> if ready
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Resolve all the views found under <code>prefix</code>, compiling them
+	 * in parallel, and add them to the view cache.
+	 * 
+	 * <p>
+	 * This is called automatically when <code>warmUp</code> is enabled, but
+	 * may also be called directly. Views that fail to load are logged and
+	 * skipped. {@link #isReady()} returns <em>true</em> once this returns.
+	 * </p>
+	 * 
+	 * @return the number of views warmed up
+	 * @throws InterruptedException
+	 *         if interrupted while waiting for the views to compile
+	 */
+	public int warmUpViews() throws InterruptedException {
+		final long start = System.currentTimeMillis();
+		final Locale[] locales = (warmUpLocales == null || warmUpLocales.length < 1 ? new Locale[] { Locale
+				.getDefault() } : warmUpLocales);
+		Set<String> viewNames = findViewNames();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, warmUpThreads),
+				new ThreadFactory() {
+
+					private final AtomicInteger count = new AtomicInteger(0);
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "XwebWarmUp-" + count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+
+				});
+		Map<String, Future<Boolean>> results = new LinkedHashMap<String, Future<Boolean>>();
+		try {
+			for ( final String viewName : viewNames ) {
+				results.put(viewName, executor.submit(new Callable<Boolean>() {
+
+					@Override
+					public Boolean call() throws Exception {
+						return warmUpView(viewName, locales);
+					}
+
+				}));
+			}
+			int count = 0;
+			for ( Map.Entry<String, Future<Boolean>> me : results.entrySet() ) {
+				try {
+					if ( me.getValue().get().booleanValue() ) {
+						count++;
+					}
+				} catch ( ExecutionException e ) {
+					log.warn("Unable to warm up view [" + me.getKey() + "]", e.getCause());
+				}
+			}
+
+			// add the warmed views to the view cache (via createView())
+			for ( String viewName : viewNames ) {
+				for ( Locale locale : locales ) {
+					try {
+						resolveViewName(viewName, locale);
+					} catch ( Exception e ) {
+						log.warn("Unable to resolve view [" + viewName + "]", e);
+					}
+				}
+			}
+			log.info("Warmed up {} views in {}ms", count, System.currentTimeMillis() - start);
+			return count;
+		} finally {
+			executor.shutdownNow();
+			ready = true;
+		}
+	}
+
+	private boolean warmUpView(String viewName, Locale[] locales) throws Exception {
+		long start = System.currentTimeMillis();
+		View view = null;
+		for ( Locale locale : locales ) {
+			Object key = getCacheKey(viewName, locale);
+			if ( view == null || localizeTemplates ) {
+				view = super.createView(viewName, locale);
+				if ( view == null ) {
+					return false;
+				}
+			}
+			// the cache key includes the locale, so share the view with every locale
+			warmedViews.put(key, view);
+			if ( view instanceof XwebJaxbXsltView ) {
+				((XwebJaxbXsltView) view).warmUp(locale);
+			}
+		}
+		log.info("Warmed up view [{}] in {}ms", viewName, System.currentTimeMillis() - start);
+		return true;
+	}
+
+	/**
+	 * Find the names of all views available under <code>prefix</code>.
+	 * 
+	 * @return the view names
+	 */
+	private Set<String> findViewNames() {
+		Set<String> names = new TreeSet<String>();
+		String prefix = getPrefix();
+		if ( !useAbsolutePaths && getServletContext() != null ) {
+			findViewNames(prefix, names);
+		} else {
+			try {
+				File dir = getApplicationContext().getResource(prefix).getFile();
+				findViewNames(dir, "", names);
+			} catch ( IOException e ) {
+				log.warn("Unable to find views in [{}]: {}", prefix, e.getMessage());
+			}
+		}
+		return names;
+	}
+
+	private void findViewNames(String path, Set<String> names) {
+		Set<?> paths = getServletContext().getResourcePaths(path);
+		if ( paths == null ) {
+			return;
+		}
+		String suffix = getSuffix();
+		for ( Object o : paths ) {
+			String p = o.toString();
+			if ( p.endsWith("/") ) {
+				findViewNames(p, names);
+			} else if ( p.endsWith(suffix) ) {
+				names.add(p.substring(getPrefix().length(), p.length() - suffix.length()));
+			}
+		}
+	}
+
+	private void findViewNames(File dir, String path, Set<String> names) {
+		File[] files = dir.listFiles();
+		if ( files == null ) {
+			return;
+		}
+		String suffix = getSuffix();
+		for ( File f : files ) {
+			if ( f.isDirectory() ) {
+				findViewNames(f, path + f.getName() + '/', names);
+			} else if ( f.getName().endsWith(suffix) ) {
+				names.add(path + f.getName().substring(0, f.getName().length() - suffix.length()));
+			}
+		}
+	}
+
+	@Override
+	public synchronized void destroy() {
+		if ( defaultRenderExecutor != null ) {
+			defaultRenderExecutor.shutdown();
+			defaultRenderExecutor = null;
+		}
+	}
+
+	/**
+	 * Get the Executor to render views with when <code>asyncRendering</code>
+	 * is enabled, creating a bounded one if none is configured.
+	 * 
+	 * @return the Executor
+	 */
+	public synchronized Executor getRenderExecutor() {
+		if ( renderExecutor != null ) {
+			return renderExecutor;
+		}
+		if ( defaultRenderExecutor == null ) {
+			defaultRenderExecutor = new ThreadPoolExecutor(asyncThreads, asyncThreads, 60L,
+					TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(asyncQueueSize),
+					new ThreadFactory() {
+
+						private final AtomicInteger count = new AtomicInteger(0);
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "XwebRender-" + count.incrementAndGet());
+							t.setDaemon(true);
+							return t;
+						}
+
+					});
+			defaultRenderExecutor.allowCoreThreadTimeOut(true);
+		}
+		return defaultRenderExecutor;
+	}
+
+	/**
+	 * Load a view with its templates locale set before the view is
+	 * initialized, so the stylesheet is compiled for that locale.
+	 * 
+	 * @param viewName
+	 *        the view name
+	 * @param locale
+	 *        the locale
+	 * @return the view, or <em>null</em> if the view resource does not exist
+	 * @throws Exception
+	 *         if any error occurs
+	 */
+	private View loadLocalizedView(String viewName, Locale locale) throws Exception {
+		AbstractUrlBasedView view = buildView(viewName);
+		((XwebJaxbXsltView) view).setTemplatesLocale(locale);
+		View result = (View) getApplicationContext().getAutowireCapableBeanFactory().initializeBean(
+				view, viewName);
+		return (view.checkResource(locale) ? result : null);
+	}
+
 	public String getJaxbContext() {
 		return jaxbContext;
 	}
@@ -200,4 +803,389 @@ public class XwebJaxbXsltViewResolver extends XsltViewResolver implements Ordere
 		this.debugMessageResource = debugMessageResource;
 	}
 
+	public boolean isPoolMarshallers() {
+		return poolMarshallers;
+	}
+
+	public void setPoolMarshallers(boolean poolMarshallers) {
+		this.poolMarshallers = poolMarshallers;
+	}
+
+	public boolean isPoolTransformers() {
+		return poolTransformers;
+	}
+
+	public void setPoolTransformers(boolean poolTransformers) {
+		this.poolTransformers = poolTransformers;
+	}
+
+	public int getTransformerPoolSize() {
+		return transformerPoolSize;
+	}
+
+	public void setTransformerPoolSize(int transformerPoolSize) {
+		this.transformerPoolSize = transformerPoolSize;
+	}
+
+	public boolean isCacheXDataFragments() {
+		return cacheXDataFragments;
+	}
+
+	public void setCacheXDataFragments(boolean cacheXDataFragments) {
+		this.cacheXDataFragments = cacheXDataFragments;
+	}
+
+	public XwebParamDao getParameterDao() {
+		return parameterDao;
+	}
+
+	public void setParameterDao(XwebParamDao parameterDao) {
+		this.parameterDao = parameterDao;
+	}
+
+	public boolean isPruneXDataSections() {
+		return pruneXDataSections;
+	}
+
+	public void setPruneXDataSections(boolean pruneXDataSections) {
+		this.pruneXDataSections = pruneXDataSections;
+	}
+
+	public boolean isIncludeMessages() {
+		return includeMessages;
+	}
+
+	public void setIncludeMessages(boolean includeMessages) {
+		this.includeMessages = includeMessages;
+	}
+
+	public boolean isIncludeSettings() {
+		return includeSettings;
+	}
+
+	public void setIncludeSettings(boolean includeSettings) {
+		this.includeSettings = includeSettings;
+	}
+
+	public boolean isEnableXmlSourceResponse() {
+		return enableXmlSourceResponse;
+	}
+
+	public void setEnableXmlSourceResponse(boolean enableXmlSourceResponse) {
+		this.enableXmlSourceResponse = enableXmlSourceResponse;
+	}
+
+	public boolean isIndentXmlSource() {
+		return indentXmlSource;
+	}
+
+	public void setIndentXmlSource(boolean indentXmlSource) {
+		this.indentXmlSource = indentXmlSource;
+	}
+
+	public boolean isLocalizeTemplates() {
+		return localizeTemplates;
+	}
+
+	public void setLocalizeTemplates(boolean localizeTemplates) {
+		this.localizeTemplates = localizeTemplates;
+	}
+
+	/**
+	 * Get a report of the x-data sections pruned from each view loaded by
+	 * this resolver.
+	 * 
+	 * @return mapping of view names to the pruned section names
+	 */
+	public Map<String, Set<String>> getPrunedSections() {
+		return prunedSections;
+	}
+
+	/**
+	 * Get the fragment cache shared by all views of this resolver, for example
+	 * to report on cache statistics.
+	 * 
+	 * @return the fragment cache
+	 */
+	public SaxFragmentCache getFragmentCache() {
+		return fragmentCache;
+	}
+
+	/**
+	 * Get the {@link VersionedModel} fragment cache shared by all views of
+	 * this resolver, for example to report on cache statistics.
+	 * 
+	 * @return the model fragment cache
+	 */
+	public SaxFragmentCache getModelFragmentCache() {
+		return modelFragmentCache;
+	}
+
+	public Map<String, String> getPageCacheViews() {
+		return pageCacheViews;
+	}
+
+	public void setPageCacheViews(Map<String, String> pageCacheViews) {
+		this.pageCacheViews = pageCacheViews;
+	}
+
+	public boolean isConditionalGet() {
+		return conditionalGet;
+	}
+
+	public void setConditionalGet(boolean conditionalGet) {
+		this.conditionalGet = conditionalGet;
+	}
+
+	public boolean isCompressOutput() {
+		return compressOutput;
+	}
+
+	public void setCompressOutput(boolean compressOutput) {
+		this.compressOutput = compressOutput;
+	}
+
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	public void setCompressionLevel(int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+
+	public int getCompressionThreshold() {
+		return compressionThreshold;
+	}
+
+	public void setCompressionThreshold(int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+
+	public Map<String, String> getViewCompression() {
+		return viewCompression;
+	}
+
+	public void setViewCompression(Map<String, String> viewCompression) {
+		this.viewCompression = viewCompression;
+	}
+
+	public boolean isAsyncRendering() {
+		return asyncRendering;
+	}
+
+	public void setAsyncRendering(boolean asyncRendering) {
+		this.asyncRendering = asyncRendering;
+	}
+
+	public void setRenderExecutor(Executor renderExecutor) {
+		this.renderExecutor = renderExecutor;
+	}
+
+	public int getAsyncThreads() {
+		return asyncThreads;
+	}
+
+	public void setAsyncThreads(int asyncThreads) {
+		this.asyncThreads = asyncThreads;
+	}
+
+	public int getAsyncQueueSize() {
+		return asyncQueueSize;
+	}
+
+	public void setAsyncQueueSize(int asyncQueueSize) {
+		this.asyncQueueSize = asyncQueueSize;
+	}
+
+	public long getAsyncTimeout() {
+		return asyncTimeout;
+	}
+
+	public void setAsyncTimeout(long asyncTimeout) {
+		this.asyncTimeout = asyncTimeout;
+	}
+
+	public Map<String, RenderLimiter> getRenderLimiters() {
+		return renderLimiters;
+	}
+
+	public void setRenderLimiters(Map<String, RenderLimiter> renderLimiters) {
+		this.renderLimiters = renderLimiters;
+	}
+
+	public TransletLoader getTransletLoader() {
+		return transletLoader;
+	}
+
+	public void setTransletLoader(TransletLoader transletLoader) {
+		this.transletLoader = transletLoader;
+	}
+
+	public XsltEngine getXsltEngine() {
+		return xsltEngine;
+	}
+
+	public void setXsltEngine(XsltEngine xsltEngine) {
+		this.xsltEngine = xsltEngine;
+	}
+
+	public int getProgressiveFlushSize() {
+		return progressiveFlushSize;
+	}
+
+	public void setProgressiveFlushSize(int progressiveFlushSize) {
+		this.progressiveFlushSize = progressiveFlushSize;
+	}
+
+	public String getProgressiveFlushMarker() {
+		return progressiveFlushMarker;
+	}
+
+	public void setProgressiveFlushMarker(String progressiveFlushMarker) {
+		this.progressiveFlushMarker = progressiveFlushMarker;
+	}
+
+	public long getProgressiveFlushInterval() {
+		return progressiveFlushInterval;
+	}
+
+	public void setProgressiveFlushInterval(long progressiveFlushInterval) {
+		this.progressiveFlushInterval = progressiveFlushInterval;
+	}
+
+	public boolean isUseGeneratedSaxWriters() {
+		return useGeneratedSaxWriters;
+	}
+
+	public void setUseGeneratedSaxWriters(boolean useGeneratedSaxWriters) {
+		this.useGeneratedSaxWriters = useGeneratedSaxWriters;
+	}
+
+	public boolean isWarmUp() {
+		return warmUp;
+	}
+
+	public void setWarmUp(boolean warmUp) {
+		this.warmUp = warmUp;
+		this.ready = !warmUp;
+	}
+
+	public int getWarmUpThreads() {
+		return warmUpThreads;
+	}
+
+	public void setWarmUpThreads(int warmUpThreads) {
+		this.warmUpThreads = warmUpThreads;
+	}
+
+	public Locale[] getWarmUpLocales() {
+		return warmUpLocales;
+	}
+
+	public void setWarmUpLocales(Locale[] warmUpLocales) {
+		this.warmUpLocales = warmUpLocales;
+	}
+
+	public int getModelFragmentCacheMaxEntries() {
+		return modelFragmentCache.getMaxEntries();
+	}
+
+	public void setModelFragmentCacheMaxEntries(int maxEntries) {
+		modelFragmentCache.setMaxEntries(maxEntries);
+	}
+
+	public int getTemplateFragmentCacheMaxEntries() {
+		return templateFragmentCache.getMaxEntries();
+	}
+
+	public void setTemplateFragmentCacheMaxEntries(int maxEntries) {
+		templateFragmentCache.setMaxEntries(maxEntries);
+	}
+
+	public int getPageCacheMaxEntries() {
+		return pageCache.getMaxEntries();
+	}
+
+	public void setPageCacheMaxEntries(int maxEntries) {
+		pageCache.setMaxEntries(maxEntries);
+	}
+
+	public int getPageCacheTimeToLive() {
+		return pageCache.getTimeToLive();
+	}
+
+	public void setPageCacheTimeToLive(int timeToLive) {
+		pageCache.setTimeToLive(timeToLive);
+	}
+
+	public int getPageCacheStaleTimeToLive() {
+		return pageCache.getStaleTimeToLive();
+	}
+
+	public void setPageCacheStaleTimeToLive(int staleTimeToLive) {
+		pageCache.setStaleTimeToLive(staleTimeToLive);
+	}
+
+	public int getPageCacheRenderTimeout() {
+		return pageCache.getRenderTimeout();
+	}
+
+	public void setPageCacheRenderTimeout(int renderTimeout) {
+		pageCache.setRenderTimeout(renderTimeout);
+	}
+
+	/**
+	 * Get the page cache shared by all views of this resolver, for example to
+	 * report on cache statistics.
+	 * 
+	 * @return the page cache
+	 */
+	public PageCache getPageCache() {
+		return pageCache;
+	}
+
+	/**
+	 * Get the template fragment cache shared by all views of this resolver,
+	 * for example to report on cache statistics.
+	 * 
+	 * @return the template fragment cache
+	 */
+	public TemplateFragmentCache getTemplateFragmentCache() {
+		return templateFragmentCache;
+	}
+
+	public boolean isCacheUriResolution() {
+		return cacheUriResolution;
+	}
+
+	public void setCacheUriResolution(boolean cacheUriResolution) {
+		this.cacheUriResolution = cacheUriResolution;
+	}
+
+	public int getUriCacheMaxEntries() {
+		return uriCache.getMaxEntries();
+	}
+
+	public void setUriCacheMaxEntries(int maxEntries) {
+		uriCache.setMaxEntries(maxEntries);
+	}
+
+	public long getUriCacheCheckInterval() {
+		return uriCache.getCheckInterval();
+	}
+
+	public void setUriCacheCheckInterval(long checkInterval) {
+		uriCache.setCheckInterval(checkInterval);
+	}
+
+	/**
+	 * Get the URIResolver cache shared by all views of this resolver, for
+	 * example to report on cache statistics.
+	 * 
+	 * @return the URIResolver cache
+	 */
+	public CachingURIResolver getUriCache() {
+		return uriCache;
+	}
+
 }
@@ -30,6 +30,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import magoffin.matt.xweb.ObjectFactory;
 import magoffin.matt.xweb.XwebParameter;
 import org.springframework.beans.factory.InitializingBean;
@@ -50,11 +51,22 @@ import org.springframework.util.StringUtils;
  * <p>This implementation relies on a simple 2-column table structure
  * where the paramter key is the primary key column.</p>
  * 
+ * <p>This class implements {@link Versioned}, and the version changes each 
+ * time a parameter is updated or removed via this DAO, so that data derived 
+ * from the settings can be cached until they change. Changes made directly 
+ * in the database or by another server are not seen by this DAO, so the 
+ * version also changes every <code>versionTimeToLive</code> seconds, 
+ * which defaults to {@link #DEFAULT_VERSION_TIME_TO_LIVE}. Set it to 
+ * <code>0</code> if this DAO is the only writer of the settings.</p>
+ * 
  * @author Matt Magoffin (spamsqr@msqr.us)
  * @version $Revision: 1.2 $ $Date: 2006/08/26 06:11:34 $
  */
 @Repository
-public class XwebJdbcParamDao implements XwebParamDao, InitializingBean {
+public class XwebJdbcParamDao implements XwebParamDao, Versioned, InitializingBean {
+	
+	/** The default value for the <code>versionTimeToLive</code> property. */
+	public static final int DEFAULT_VERSION_TIME_TO_LIVE = 60;
 	
 	@Autowired
 	private JdbcTemplate jdbcTemplate;
@@ -65,6 +77,9 @@ public class XwebJdbcParamDao implements XwebParamDao, InitializingBean {
 	private String keyPrefix = "";
 	
 	private final ObjectFactory objectFactory = new ObjectFactory();
+	private final AtomicLong version = new AtomicLong(0);
+	private final AtomicLong versionExpires = new AtomicLong(0);
+	private int versionTimeToLive = DEFAULT_VERSION_TIME_TO_LIVE;
 	private String getByKeySql = "select " +keyColumnName +", " +valueColumnName
 		+" from " +tableName +" where " +keyColumnName +" = ?";
 	private String getAllSql = null;
@@ -133,6 +148,7 @@ public class XwebJdbcParamDao implements XwebParamDao, InitializingBean {
 	public void removeParameter(String key) {
 		jdbcTemplate.update(deleteByKeySql, new Object[] {keyPrefix+key},
 				new int[] {Types.VARCHAR});
+		version.incrementAndGet();
 	}
 
 	@Override
@@ -145,13 +161,35 @@ public class XwebJdbcParamDao implements XwebParamDao, InitializingBean {
 					parameter.getValue(), keyPrefix+storedParam.getKey()},
 					new int[] {Types.VARCHAR, Types.VARCHAR});
 			storedParam.setValue(parameter.getValue());
+			version.incrementAndGet();
 			return storedParam;
 		}
 		jdbcTemplate.update(insertSql, new Object[] {
 				keyPrefix+parameter.getKey(), parameter.getValue()},
 				new int[] {Types.VARCHAR, Types.VARCHAR});
+		version.incrementAndGet();
 		return parameter;
 	}
+
+	/**
+	 * Get the settings version, which changes each time a parameter is 
+	 * updated or removed via this DAO, and at least every 
+	 * <code>versionTimeToLive</code> seconds.
+	 * 
+	 * @return the version
+	 */
+	@Override
+	public long getVersion() {
+		if ( versionTimeToLive > 0 ) {
+			long now = System.currentTimeMillis();
+			long expires = versionExpires.get();
+			if ( now >= expires 
+					&& versionExpires.compareAndSet(expires, now + (versionTimeToLive * 1000L)) ) {
+				version.incrementAndGet();
+			}
+		}
+		return version.get();
+	}
 	
 	/**
 	 * @return the deleteByKeySql
@@ -293,4 +331,18 @@ public class XwebJdbcParamDao implements XwebParamDao, InitializingBean {
 		this.keyPrefix = prefix;
 	}
 
+	/**
+	 * @return the versionTimeToLive
+	 */
+	public int getVersionTimeToLive() {
+		return versionTimeToLive;
+	}
+	
+	/**
+	 * @param versionTimeToLive the versionTimeToLive to set
+	 */
+	public void setVersionTimeToLive(int versionTimeToLive) {
+		this.versionTimeToLive = versionTimeToLive;
+	}
+
 }
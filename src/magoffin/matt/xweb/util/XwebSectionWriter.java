@@ -0,0 +1,292 @@
+/* ===================================================================
+ * XwebSectionWriter.java
+ * 
+ * Created Oct 18, 2026 6:32:52 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import magoffin.matt.xweb.XwebParameter;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Writes the per-request x-data sections as SAX events straight from the
+ * HttpServletRequest, for use with {@link XwebXmlReader#setSection(String, SaxFragment)}.
+ * 
+ * <p>
+ * The events are the same as JAXB produces for the equivalent
+ * <code>XwebContext</code>, <code>XwebSession</code>, and
+ * <code>XwebParameters</code> objects, without creating those objects or
+ * an <code>XwebParameter</code> for every request parameter and header.
+ * Elements are named with the prefix JAXB declared for the xweb namespace
+ * on the x-data root element, as passed to each factory method via
+ * {@link XwebXmlReader#getRootNamespaces()}, so stylesheets see the same
+ * qualified names either way.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public final class XwebSectionWriter {
+
+	private static final String NS = XwebConstants.XWEB_NAMESPACE;
+	private static final String PARAM = "param";
+	private static final String KEY = "key";
+	private static final String SESSION_ID = "session-id";
+	private static final String CDATA = "CDATA";
+
+	private final ContentHandler handler;
+	private final String prefix;
+	private final AttributesImpl atts = new AttributesImpl();
+	private char[] chars = new char[64];
+
+	private XwebSectionWriter(ContentHandler handler, Map<String, String> namespaces) {
+		super();
+		this.handler = handler;
+		this.prefix = getPrefix(namespaces);
+	}
+
+	private static String getPrefix(Map<String, String> namespaces) {
+		if ( namespaces != null ) {
+			for ( Map.Entry<String, String> me : namespaces.entrySet() ) {
+				if ( NS.equals(me.getValue()) ) {
+					return (me.getKey() == null || me.getKey().length() < 1 ? null : me.getKey() + ':');
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get a fragment for the <code>x-context</code> section.
+	 * 
+	 * @param request
+	 *        the request
+	 * @param settings
+	 *        an optional fragment to write as the last content of the
+	 *        section, i.e. the <code>settings</code> element
+	 * @param namespaces
+	 *        the namespaces declared on the x-data root element, keyed by
+	 *        prefix, or <em>null</em> to write unprefixed names
+	 * @return the fragment
+	 */
+	public static SaxFragment context(final HttpServletRequest request, final SaxFragment settings,
+			final Map<String, String> namespaces) {
+		return new SaxFragment() {
+
+			@Override
+			public void writeTo(ContentHandler handler) throws SAXException {
+				XwebSectionWriter w = new XwebSectionWriter(handler, namespaces);
+				w.start(XwebConstants.SECTION_CONTEXT);
+				w.element("server-name", request.getServerName());
+				w.element("server-port", String.valueOf(request.getServerPort()));
+				w.element("user-agent", request.getHeader("user-agent"));
+				w.element("user-locale", request.getLocale().toString());
+				w.element("web-context", request.getContextPath());
+				w.element("path", request.getServletPath());
+				if ( settings != null ) {
+					settings.writeTo(handler);
+				}
+				w.end(XwebConstants.SECTION_CONTEXT);
+			}
+
+		};
+	}
+
+	/**
+	 * Get a fragment for an empty <code>x-session</code> section.
+	 * 
+	 * @param sessionId
+	 *        the session ID
+	 * @param namespaces
+	 *        the namespaces declared on the x-data root element, keyed by
+	 *        prefix, or <em>null</em> to write unprefixed names
+	 * @return the fragment
+	 */
+	public static SaxFragment session(final String sessionId, final Map<String, String> namespaces) {
+		return new SaxFragment() {
+
+			@Override
+			public void writeTo(ContentHandler handler) throws SAXException {
+				XwebSectionWriter w = new XwebSectionWriter(handler, namespaces);
+				if ( sessionId != null ) {
+					w.attribute(SESSION_ID, sessionId);
+				}
+				w.start(XwebConstants.SECTION_SESSION);
+				w.end(XwebConstants.SECTION_SESSION);
+			}
+
+		};
+	}
+
+	/**
+	 * Get a fragment for the <code>x-request</code> section.
+	 * 
+	 * @param request
+	 *        the request
+	 * @param namespaces
+	 *        the namespaces declared on the x-data root element, keyed by
+	 *        prefix, or <em>null</em> to write unprefixed names
+	 * @return the fragment
+	 */
+	public static SaxFragment requestParameters(final HttpServletRequest request,
+			final Map<String, String> namespaces) {
+		return new SaxFragment() {
+
+			@Override
+			public void writeTo(ContentHandler handler) throws SAXException {
+				XwebSectionWriter w = new XwebSectionWriter(handler, namespaces);
+				w.start(XwebConstants.SECTION_REQUEST);
+				@SuppressWarnings("rawtypes")
+				Map paramMap = request.getParameterMap();
+				for ( @SuppressWarnings("rawtypes")
+				Iterator itr = paramMap.keySet().iterator(); itr.hasNext(); ) {
+					String key = itr.next().toString();
+					for ( String value : (String[]) paramMap.get(key) ) {
+						w.param(key, value);
+					}
+				}
+				w.end(XwebConstants.SECTION_REQUEST);
+			}
+
+		};
+	}
+
+	/**
+	 * Get a fragment for the <code>x-request-headers</code> section.
+	 * 
+	 * @param request
+	 *        the request
+	 * @param namespaces
+	 *        the namespaces declared on the x-data root element, keyed by
+	 *        prefix, or <em>null</em> to write unprefixed names
+	 * @return the fragment
+	 */
+	public static SaxFragment requestHeaders(final HttpServletRequest request,
+			final Map<String, String> namespaces) {
+		return new SaxFragment() {
+
+			@Override
+			public void writeTo(ContentHandler handler) throws SAXException {
+				XwebSectionWriter w = new XwebSectionWriter(handler, namespaces);
+				w.start(XwebConstants.SECTION_REQUEST_HEADERS);
+				for ( @SuppressWarnings("rawtypes")
+				Enumeration names = request.getHeaderNames(); names.hasMoreElements(); ) {
+					String key = (String) names.nextElement();
+					for ( @SuppressWarnings("rawtypes")
+					Enumeration values = request.getHeaders(key); values.hasMoreElements(); ) {
+						w.param(key, (String) values.nextElement());
+					}
+				}
+				w.end(XwebConstants.SECTION_REQUEST_HEADERS);
+			}
+
+		};
+	}
+
+	/**
+	 * Get a fragment for a list of parameters.
+	 * 
+	 * @param localName
+	 *        the name of the element to wrap the parameters in
+	 * @param params
+	 *        the parameters
+	 * @param namespaces
+	 *        the namespaces declared on the x-data root element, keyed by
+	 *        prefix, or <em>null</em> to write unprefixed names
+	 * @return the fragment
+	 */
+	public static SaxFragment parameters(final String localName, final List<XwebParameter> params,
+			final Map<String, String> namespaces) {
+		return new SaxFragment() {
+
+			@Override
+			public void writeTo(ContentHandler handler) throws SAXException {
+				XwebSectionWriter w = new XwebSectionWriter(handler, namespaces);
+				w.start(localName);
+				for ( XwebParameter param : params ) {
+					w.param(param.getKey(), param.getValue());
+				}
+				w.end(localName);
+			}
+
+		};
+	}
+
+	private void attribute(String name, String value) {
+		atts.addAttribute("", name, name, CDATA, value);
+	}
+
+	private String qName(String localName) {
+		return (prefix == null ? localName : prefix + localName);
+	}
+
+	private void start(String localName) throws SAXException {
+		handler.startElement(NS, localName, qName(localName), atts);
+		atts.clear();
+	}
+
+	private void end(String localName) throws SAXException {
+		handler.endElement(NS, localName, qName(localName));
+	}
+
+	private void text(String value) throws SAXException {
+		int len = value.length();
+		if ( len < 1 ) {
+			return;
+		}
+		if ( len > chars.length ) {
+			chars = new char[Math.max(len, chars.length * 2)];
+		}
+		value.getChars(0, len, chars, 0);
+		handler.characters(chars, 0, len);
+	}
+
+	private void element(String localName, String value) throws SAXException {
+		if ( value == null ) {
+			return;
+		}
+		start(localName);
+		text(value);
+		end(localName);
+	}
+
+	private void param(String key, String value) throws SAXException {
+		if ( key != null ) {
+			attribute(KEY, key);
+		}
+		start(PARAM);
+		if ( value != null ) {
+			text(value);
+		}
+		end(PARAM);
+	}
+
+}
@@ -0,0 +1,429 @@
+/* ===================================================================
+ * XwebXmlReader.java
+ * 
+ * Created Oct 18, 2026 5:56:44 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.transform.Source;
+import javax.xml.transform.sax.SAXSource;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Pseudo XMLReader that produces SAX events by marshalling a JAXB x-data
+ * object, splicing in pre-recorded {@link SaxFragment} sections along the
+ * way.
+ * 
+ * <p>
+ * This works like {@link javax.xml.bind.util.JAXBSource}, but allows
+ * sections of the x-data document that rarely change (such as
+ * <code>x-msg</code>) to be left out of the JAXB object graph and replayed
+ * from a cached recording instead of being marshalled for every render.
+ * Fragments can be inserted <em>before</em> a top-level x-data section, or
+ * <em>appended</em> as the last content of a top-level x-data section. A
+ * fragment can also provide an entire top-level <em>section</em> that is
+ * left out of the JAXB object, in which case it is written in its place in
+ * the x-data section order.
+ * </p>
+ * 
+ * <p>
+ * Instances are not thread-safe and are meant to be used for a single
+ * parse.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class XwebXmlReader implements XMLReader {
+
+	private static final String NAMESPACES_FEATURE = "http://xml.org/sax/features/namespaces";
+	private static final String NAMESPACE_PREFIXES_FEATURE = "http://xml.org/sax/features/namespace-prefixes";
+
+	/** The top-level x-data sections, in schema order. */
+	private static final List<String> SECTIONS = Collections.unmodifiableList(Arrays.asList(
+			XwebConstants.SECTION_CONTEXT, XwebConstants.SECTION_AUXILLARY,
+			XwebConstants.SECTION_MESSAGES, XwebConstants.SECTION_ERRORS,
+			XwebConstants.SECTION_SESSION, XwebConstants.SECTION_MSG,
+			XwebConstants.SECTION_REQUEST, XwebConstants.SECTION_REQUEST_HEADERS,
+			XwebConstants.SECTION_MODEL));
+
+	private final Marshaller marshaller;
+	private final Map<String, SaxFragment> before = new HashMap<String, SaxFragment>(4);
+	private final Map<String, List<SaxFragment>> append = new HashMap<String, List<SaxFragment>>(4);
+	private final SaxFragment[] sections = new SaxFragment[SECTIONS.size()];
+	private final Map<String, String> rootNamespaces = new LinkedHashMap<String, String>(4);
+	private Object content;
+	private ContentHandler contentHandler;
+	private DTDHandler dtdHandler;
+	private EntityResolver entityResolver;
+	private ErrorHandler errorHandler;
+
+	/**
+	 * Construct with a Marshaller.
+	 * 
+	 * @param marshaller
+	 *        the Marshaller to marshal the content with
+	 */
+	public XwebXmlReader(Marshaller marshaller) {
+		super();
+		this.marshaller = marshaller;
+	}
+
+	/**
+	 * Insert a fragment just before a top-level x-data section.
+	 * 
+	 * @param section
+	 *        the local name of the section, e.g.
+	 *        {@link XwebConstants#SECTION_REQUEST}
+	 * @param fragment
+	 *        the fragment to insert
+	 */
+	public void insertBefore(String section, SaxFragment fragment) {
+		before.put(section, fragment);
+	}
+
+	/**
+	 * Append a fragment as the last content of a top-level x-data section,
+	 * after any fragment already appended to the section.
+	 * 
+	 * @param section
+	 *        the local name of the section, e.g.
+	 *        {@link XwebConstants#SECTION_CONTEXT}
+	 * @param fragment
+	 *        the fragment to append
+	 */
+	public void appendTo(String section, SaxFragment fragment) {
+		List<SaxFragment> fragments = append.get(section);
+		if ( fragments == null ) {
+			fragments = new ArrayList<SaxFragment>(2);
+			append.put(section, fragments);
+		}
+		fragments.add(fragment);
+	}
+
+	private void copyAppended(XwebXmlReader copy, String excludeSection) {
+		for ( Map.Entry<String, List<SaxFragment>> me : append.entrySet() ) {
+			if ( !me.getKey().equals(excludeSection) ) {
+				copy.append.put(me.getKey(), new ArrayList<SaxFragment>(me.getValue()));
+			}
+		}
+	}
+
+	/**
+	 * Provide an entire top-level x-data section as a fragment.
+	 * 
+	 * <p>
+	 * The section must not also be present in the marshalled content. The
+	 * fragment is written just before the next section present in the
+	 * content, or at the end of the x-data element.
+	 * </p>
+	 * 
+	 * @param section
+	 *        the local name of the section, e.g.
+	 *        {@link XwebConstants#SECTION_REQUEST}
+	 * @param fragment
+	 *        the fragment, which must write the section element itself
+	 * @throws IllegalArgumentException
+	 *         if <code>section</code> is not an x-data section
+	 */
+	public void setSection(String section, SaxFragment fragment) {
+		int index = SECTIONS.indexOf(section);
+		if ( index < 0 ) {
+			throw new IllegalArgumentException("Unknown x-data section [" + section + ']');
+		}
+		sections[index] = fragment;
+	}
+
+	/**
+	 * Get a copy of this reader, without any fragment associated with a given
+	 * section.
+	 * 
+	 * @param section
+	 *        the section to exclude fragments for
+	 * @return the new reader
+	 */
+	public XwebXmlReader excluding(String section) {
+		XwebXmlReader copy = new XwebXmlReader(marshaller);
+		copy.content = content;
+		copy.before.putAll(before);
+		copy.before.remove(section);
+		copyAppended(copy, section);
+		System.arraycopy(sections, 0, copy.sections, 0, sections.length);
+		int index = SECTIONS.indexOf(section);
+		if ( index >= 0 ) {
+			copy.sections[index] = null;
+		}
+		return copy;
+	}
+
+	/**
+	 * Get a copy of this reader, without any fragment appended to a given
+	 * section.
+	 * 
+	 * @param section
+	 *        the section to exclude appended fragments for
+	 * @return the new reader
+	 */
+	public XwebXmlReader excludingAppended(String section) {
+		XwebXmlReader copy = new XwebXmlReader(marshaller);
+		copy.content = content;
+		copy.before.putAll(before);
+		copyAppended(copy, section);
+		System.arraycopy(sections, 0, copy.sections, 0, sections.length);
+		return copy;
+	}
+
+	/**
+	 * Get a Source for this reader, suitable for passing to a Transformer.
+	 * 
+	 * @return the Source
+	 */
+	public Source toSource() {
+		return new SAXSource(this, new InputSource());
+	}
+
+	@Override
+	public boolean getFeature(String name) throws SAXNotRecognizedException {
+		if ( NAMESPACES_FEATURE.equals(name) ) {
+			return true;
+		}
+		if ( NAMESPACE_PREFIXES_FEATURE.equals(name) ) {
+			return false;
+		}
+		throw new SAXNotRecognizedException(name);
+	}
+
+	@Override
+	public void setFeature(String name, boolean value) throws SAXNotRecognizedException {
+		if ( NAMESPACES_FEATURE.equals(name) && value ) {
+			return;
+		}
+		if ( NAMESPACE_PREFIXES_FEATURE.equals(name) && !value ) {
+			return;
+		}
+		throw new SAXNotRecognizedException(name);
+	}
+
+	@Override
+	public Object getProperty(String name) throws SAXNotRecognizedException {
+		throw new SAXNotRecognizedException(name);
+	}
+
+	@Override
+	public void setProperty(String name, Object value) throws SAXNotRecognizedException {
+		throw new SAXNotRecognizedException(name);
+	}
+
+	@Override
+	public void parse(InputSource input) throws SAXException {
+		parse();
+	}
+
+	@Override
+	public void parse(String systemId) throws SAXException {
+		parse();
+	}
+
+	private void parse() throws SAXException {
+		rootNamespaces.clear();
+		ContentHandler handler = contentHandler;
+		if ( !(before.isEmpty() && append.isEmpty() && !hasSections()) ) {
+			SpliceFilter filter = new SpliceFilter();
+			filter.setContentHandler(contentHandler);
+			handler = filter;
+		}
+		try {
+			marshaller.marshal(content, handler);
+		} catch ( JAXBException e ) {
+			SAXParseException se = new SAXParseException(e.getMessage(), null, null, -1, -1, e);
+			if ( errorHandler != null ) {
+				errorHandler.fatalError(se);
+			}
+			throw se;
+		}
+	}
+
+	private boolean hasSections() {
+		for ( SaxFragment fragment : sections ) {
+			if ( fragment != null ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private final class SpliceFilter extends XMLFilterImpl {
+
+		private int depth = 0;
+		private int nextSection = 0;
+
+		private void writeSections(int end) throws SAXException {
+			for ( ; nextSection < end; nextSection++ ) {
+				if ( sections[nextSection] != null ) {
+					sections[nextSection].writeTo(getContentHandler());
+				}
+			}
+		}
+
+		@Override
+		public void startPrefixMapping(String prefix, String uri) throws SAXException {
+			if ( depth == 0 ) {
+				rootNamespaces.put(prefix, uri);
+			}
+			super.startPrefixMapping(prefix, uri);
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts)
+				throws SAXException {
+			if ( depth == 1 && XwebConstants.XWEB_NAMESPACE.equals(uri) ) {
+				int index = SECTIONS.indexOf(localName);
+				if ( index >= 0 ) {
+					writeSections(index);
+				}
+				SaxFragment fragment = before.get(localName);
+				if ( fragment != null ) {
+					fragment.writeTo(getContentHandler());
+				}
+			}
+			depth++;
+			super.startElement(uri, localName, qName, atts);
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			depth--;
+			if ( depth == 0 ) {
+				writeSections(sections.length);
+			} else if ( depth == 1 && XwebConstants.XWEB_NAMESPACE.equals(uri) ) {
+				List<SaxFragment> fragments = append.get(localName);
+				if ( fragments != null ) {
+					for ( SaxFragment fragment : fragments ) {
+						fragment.writeTo(getContentHandler());
+					}
+				}
+			}
+			super.endElement(uri, localName, qName);
+		}
+
+	}
+
+	/**
+	 * Get the JAXB object to marshal.
+	 * 
+	 * @return the content
+	 */
+	public Object getContent() {
+		return content;
+	}
+
+	/**
+	 * Set the JAXB object to marshal, e.g. the <code>x-data</code>
+	 * JAXBElement.
+	 * 
+	 * @param content
+	 *        the content
+	 */
+	public void setContent(Object content) {
+		this.content = content;
+	}
+
+	/**
+	 * Get the namespace prefixes declared on the <code>x-data</code> element
+	 * by the current parse, so fragments can use the same prefixes.
+	 * 
+	 * <p>
+	 * This is only available while fragments are being written.
+	 * </p>
+	 * 
+	 * @return map of prefix to namespace URI
+	 */
+	public Map<String, String> getRootNamespaces() {
+		return Collections.unmodifiableMap(rootNamespaces);
+	}
+
+	public Marshaller getMarshaller() {
+		return marshaller;
+	}
+
+	@Override
+	public ContentHandler getContentHandler() {
+		return contentHandler;
+	}
+
+	@Override
+	public void setContentHandler(ContentHandler handler) {
+		this.contentHandler = handler;
+	}
+
+	@Override
+	public DTDHandler getDTDHandler() {
+		return dtdHandler;
+	}
+
+	@Override
+	public void setDTDHandler(DTDHandler handler) {
+		this.dtdHandler = handler;
+	}
+
+	@Override
+	public EntityResolver getEntityResolver() {
+		return entityResolver;
+	}
+
+	@Override
+	public void setEntityResolver(EntityResolver resolver) {
+		this.entityResolver = resolver;
+	}
+
+	@Override
+	public ErrorHandler getErrorHandler() {
+		return errorHandler;
+	}
+
+	@Override
+	public void setErrorHandler(ErrorHandler handler) {
+		this.errorHandler = handler;
+	}
+
+}
@@ -0,0 +1,342 @@
+/* ===================================================================
+ * XwebXsltFunctions.java
+ * 
+ * Created Oct 18, 2026 6:01:52 PM
+ * 
+ * Copyright (c) 2026 Matt Magoffin.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU General Public License as 
+ * published by the Free Software Foundation; either version 2 of 
+ * the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.xweb.util;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * XSLT extension functions for looking up messages and application settings,
+ * and caching rendered output fragments, while a view is rendered.
+ * 
+ * <p>
+ * Declare the {@link #NAMESPACE} in a stylesheet to call these functions,
+ * for example:
+ * </p>
+ * 
+ * <pre>
+ * &lt;xsl:stylesheet version="1.0"
+ *     xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+ *     xmlns:xwebfn="xalan://magoffin.matt.xweb.util.XwebXsltFunctions"
+ *     exclude-result-prefixes="xwebfn"&gt;
+ * 
+ *   &lt;xsl:value-of select="xwebfn:msg('greeting', $name)"/&gt;
+ *   &lt;xsl:value-of select="xwebfn:setting('site.title')"/&gt;
+ * </pre>
+ * 
+ * <p>
+ * Only the messages and settings a stylesheet actually uses are looked up,
+ * so the <code>x-msg</code> and <code>x-context/settings</code> sections
+ * can be left out of the x-data document entirely (see the
+ * <code>includeMessages</code> and <code>includeSettings</code> properties
+ * of {@link XwebJaxbXsltView}). The functions are bound to the rendering
+ * view's MessagesSource, locale, and settings for the current thread via
+ * {@link #bind(MessagesSource, Locale, Map, TemplateFragmentCache)}.
+ * </p>
+ * 
+ * <p>
+ * Output that does not depend on the user, such as navigation menus, can be
+ * cached across renders with {@link #cached(String)} and
+ * {@link #cache(String, int, NodeList)}. Both return the fragment as
+ * nodes to copy into the output, so the fragment is serialized with the
+ * stylesheet's own output method:
+ * </p>
+ * 
+ * <pre>
+ * &lt;xsl:variable name="key" select="concat('nav-', $lang)"/&gt;
+ * &lt;xsl:variable name="nav" select="xwebfn:cached($key)"/&gt;
+ * &lt;xsl:choose&gt;
+ *   &lt;xsl:when test="$nav"&gt;
+ *     &lt;xsl:copy-of select="$nav"/&gt;
+ *   &lt;/xsl:when&gt;
+ *   &lt;xsl:otherwise&gt;
+ *     &lt;xsl:variable name="body"&gt;...&lt;/xsl:variable&gt;
+ *     &lt;xsl:copy-of select="xwebfn:cache($key, 300, $body)"/&gt;
+ *   &lt;/xsl:otherwise&gt;
+ * &lt;/xsl:choose&gt;
+ * </pre>
+ * 
+ * <p>
+ * Arguments must be passed as strings. A message or setting that does not
+ * exist results in an empty string, the same as looking up a missing key in
+ * the <code>x-msg</code> section.
+ * </p>
+ * 
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public final class XwebXsltFunctions {
+
+	/** The extension function namespace to declare in stylesheets. */
+	public static final String NAMESPACE = "xalan://magoffin.matt.xweb.util.XwebXsltFunctions";
+
+	private static final ThreadLocal<Binding> BINDING = new ThreadLocal<Binding>();
+	private static final NodeList EMPTY_NODE_LIST = new NodeList() {
+
+		@Override
+		public Node item(int index) {
+			return null;
+		}
+
+		@Override
+		public int getLength() {
+			return 0;
+		}
+
+	};
+
+	// not intended to be instantiated
+	private XwebXsltFunctions() {
+		super();
+	}
+
+	/**
+	 * Bind the functions to the resources of a render for the current thread.
+	 * 
+	 * <p>
+	 * The returned object must be passed to {@link #restore(Object)} once the
+	 * render is complete.
+	 * </p>
+	 * 
+	 * @param messages
+	 *        the MessagesSource to resolve messages with (may be
+	 *        <em>null</em>)
+	 * @param locale
+	 *        the locale to resolve messages for
+	 * @param settings
+	 *        the settings to resolve settings from (may be <em>null</em>)
+	 * @return the previous binding for the current thread
+	 */
+	public static Object bind(MessagesSource messages, Locale locale, Map<String, String> settings) {
+		return bind(messages, locale, settings, null);
+	}
+
+	/**
+	 * Bind the functions to the resources of a render for the current
+	 * thread, including a cache for output fragments.
+	 * 
+	 * <p>
+	 * The returned object must be passed to {@link #restore(Object)} once the
+	 * render is complete.
+	 * </p>
+	 * 
+	 * @param messages
+	 *        the MessagesSource to resolve messages with (may be
+	 *        <em>null</em>)
+	 * @param locale
+	 *        the locale to resolve messages for
+	 * @param settings
+	 *        the settings to resolve settings from (may be <em>null</em>)
+	 * @param fragments
+	 *        the cache for {@link #cache(String, int, NodeList)} (may be
+	 *        <em>null</em> to not cache fragments)
+	 * @return the previous binding for the current thread
+	 */
+	public static Object bind(MessagesSource messages, Locale locale,
+			Map<String, String> settings, TemplateFragmentCache fragments) {
+		Binding previous = BINDING.get();
+		BINDING.set(new Binding(messages, locale, settings, fragments));
+		return previous;
+	}
+
+	/**
+	 * Restore the binding that was active before a call to
+	 * {@link #bind(MessagesSource, Locale, Map)}.
+	 * 
+	 * @param previous
+	 *        the value returned from <code>bind()</code>
+	 */
+	public static void restore(Object previous) {
+		if ( previous == null ) {
+			BINDING.remove();
+		} else {
+			BINDING.set((Binding) previous);
+		}
+	}
+
+	/**
+	 * Look up a message.
+	 * 
+	 * @param key
+	 *        the message key
+	 * @return the message, or an empty string if not available
+	 */
+	public static String msg(String key) {
+		return message(key, null);
+	}
+
+	/**
+	 * Look up a message with one argument.
+	 * 
+	 * @param key
+	 *        the message key
+	 * @param arg1
+	 *        the first message argument
+	 * @return the message, or an empty string if not available
+	 */
+	public static String msg(String key, String arg1) {
+		return message(key, new Object[] { arg1 });
+	}
+
+	/**
+	 * Look up a message with two arguments.
+	 * 
+	 * @param key
+	 *        the message key
+	 * @param arg1
+	 *        the first message argument
+	 * @param arg2
+	 *        the second message argument
+	 * @return the message, or an empty string if not available
+	 */
+	public static String msg(String key, String arg1, String arg2) {
+		return message(key, new Object[] { arg1, arg2 });
+	}
+
+	/**
+	 * Look up a message with three arguments.
+	 * 
+	 * @param key
+	 *        the message key
+	 * @param arg1
+	 *        the first message argument
+	 * @param arg2
+	 *        the second message argument
+	 * @param arg3
+	 *        the third message argument
+	 * @return the message, or an empty string if not available
+	 */
+	public static String msg(String key, String arg1, String arg2, String arg3) {
+		return message(key, new Object[] { arg1, arg2, arg3 });
+	}
+
+	/**
+	 * Look up a message with four arguments.
+	 * 
+	 * @param key
+	 *        the message key
+	 * @param arg1
+	 *        the first message argument
+	 * @param arg2
+	 *        the second message argument
+	 * @param arg3
+	 *        the third message argument
+	 * @param arg4
+	 *        the fourth message argument
+	 * @return the message, or an empty string if not available
+	 */
+	public static String msg(String key, String arg1, String arg2, String arg3, String arg4) {
+		return message(key, new Object[] { arg1, arg2, arg3, arg4 });
+	}
+
+	/**
+	 * Look up an application setting.
+	 * 
+	 * @param key
+	 *        the setting key
+	 * @return the setting value, or an empty string if not available
+	 */
+	public static String setting(String key) {
+		String value = getBinding().settings.get(key);
+		return (value == null ? "" : value);
+	}
+
+	/**
+	 * Get a cached output fragment.
+	 * 
+	 * @param key
+	 *        the fragment key, which must be unique across all the stylesheets
+	 *        sharing the cache
+	 * @return the fragment nodes, or an empty node list if not cached or
+	 *         expired
+	 */
+	public static NodeList cached(String key) {
+		TemplateFragmentCache fragments = getBinding().fragments;
+		if ( fragments == null ) {
+			return EMPTY_NODE_LIST;
+		}
+		NodeList nodes = fragments.get(key);
+		return (nodes == null ? EMPTY_NODE_LIST : nodes);
+	}
+
+	/**
+	 * Cache an output fragment.
+	 * 
+	 * @param key
+	 *        the fragment key, which must be unique across all the stylesheets
+	 *        sharing the cache
+	 * @param timeToLive
+	 *        the number of seconds to cache the fragment for
+	 * @param nodes
+	 *        the fragment, usually a result tree fragment variable
+	 * @return the fragment nodes
+	 */
+	public static NodeList cache(String key, int timeToLive, NodeList nodes) {
+		TemplateFragmentCache fragments = getBinding().fragments;
+		if ( fragments == null || timeToLive < 1 ) {
+			return TemplateFragmentCache.copy(nodes);
+		}
+		return fragments.put(key, nodes, timeToLive);
+	}
+
+	private static String message(String key, Object[] args) {
+		Binding binding = getBinding();
+		if ( binding.messages == null ) {
+			return "";
+		}
+		return binding.messages.getMessage(key, args, "", binding.locale);
+	}
+
+	private static Binding getBinding() {
+		Binding binding = BINDING.get();
+		if ( binding == null ) {
+			throw new IllegalStateException("XwebXsltFunctions not bound to the current thread");
+		}
+		return binding;
+	}
+
+	private static final class Binding {
+
+		private final MessagesSource messages;
+		private final Locale locale;
+		private final Map<String, String> settings;
+		private final TemplateFragmentCache fragments;
+
+		private Binding(MessagesSource messages, Locale locale, Map<String, String> settings,
+				TemplateFragmentCache fragments) {
+			this.messages = messages;
+			this.locale = locale;
+			this.settings = (settings == null ? Collections.<String, String> emptyMap() : settings);
+			this.fragments = fragments;
+		}
+
+	}
+
+}